@@ -0,0 +1,595 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.cli;
+
+import br.com.davidbuzatto.yaas.model.BatchTestResult;
+import br.com.davidbuzatto.yaas.model.BatchTestStatus;
+import br.com.davidbuzatto.yaas.model.BatchTester;
+import br.com.davidbuzatto.yaas.model.DifferentialTestReport;
+import br.com.davidbuzatto.yaas.model.DifferentialTester;
+import br.com.davidbuzatto.yaas.model.fa.FA;
+import br.com.davidbuzatto.yaas.model.io.JFLAPReader;
+import br.com.davidbuzatto.yaas.model.io.ModelReader;
+import br.com.davidbuzatto.yaas.model.pda.PDA;
+import br.com.davidbuzatto.yaas.model.pda.PDAAcceptanceType;
+import br.com.davidbuzatto.yaas.model.tm.TM;
+import br.com.davidbuzatto.yaas.model.tm.TMAcceptanceType;
+import br.com.davidbuzatto.yaas.model.tm.TMRunConfiguration;
+import br.com.davidbuzatto.yaas.util.CharacterConstants;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Headless batch runner: loads a saved model (.yfa, .ypda or .ytm) or a
+ * JFLAP file (.jff), tests each line of a file (or of the standard input) and
+ * writes one line per string to the standard output, in the order of the
+ * input:
+ * 
+ *     string TAB status [TAB steps] [TAB time] [TAB output]
+ * 
+ * where status is one of the BatchTestStatus values and time is given in
+ * microseconds. A summary is written to the standard error.
+ * 
+ * The strings are tested by the same testers used by the batch test
+ * dialogs (see FA, PDA and TM createBatchTester), that share the
+ * acceptance code of the accepts methods. The input is processed in
+ * chunks, so its size is not limited by the memory, and each chunk can be
+ * split among several threads. Swing is never used and the fonts of the
+ * models are never measured.
+ * 
+ * With --compare, the model is compared with a reference model over all the
+ * strings up to a maximum length, or over a random sample of them (see
+ * DifferentialTester), and the strings where they disagree are written
+ * instead:
+ * 
+ *     string TAB status TAB reference status
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class BatchRunner {
+    
+    private static final int CHUNK_SIZE = 8192;
+    
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_ERROR = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final int EXIT_MISMATCH = 3;
+    private static final int EXIT_INCONCLUSIVE = 4;
+    
+    private static final String USAGE = """
+            Usage: java -cp YAAS.jar br.com.davidbuzatto.yaas.cli.BatchRunner [options] model [input]
+
+            Tests each line of the input file (or of the standard input if it
+            is absent or "-") against a model saved by YAAS (.yfa, .ypda or .ytm)
+            or a JFLAP file (.jff). With --compare, the model is compared with a
+            reference model over the strings up to --max-length and the exit
+            status is 3 if they disagree or 4 if no mismatch was found, but
+            some strings were not decided or not tested.
+
+            Options:
+              --acceptance TYPE  FINAL_STATE (default), EMPTY_STACK (PDA) or HALT (TM)
+              --steps            print the number of steps of each string
+              --time             print the time spent with each string (microseconds)
+              --output           print the tape after the execution (TM), also compared
+                                 with --compare if both models are TMs
+              --threads N        number of threads (default 1)
+              --max-time MS      maximum time of each string, 0 for no limit (PDA and TM)
+              --compare FILE     compare the model with a reference model
+              --max-length N     maximum length of the compared strings (default 8)
+              --alphabet CHARS   symbols of the compared strings (default: both alphabets)
+              --sample N         compare only N random strings
+              --seed N           seed of the random strings (default 0)
+              --mismatches N     number of mismatches to print (default 10)
+              --stop-on-first    stop at the first mismatch
+              --help             print this message
+            """;
+    
+    private String modelPath;
+    private String inputPath;
+    private String acceptance;
+    private boolean printSteps;
+    private boolean printTime;
+    private boolean printOutput;
+    private int threads;
+    private long maxTime;
+    private String comparePath;
+    private int maxLength;
+    private String alphabet;
+    private long sampleSize;
+    private long seed;
+    private int maxMismatches;
+    private boolean stopOnFirst;
+    
+    private List<BatchTester> testers;
+    private ExecutorService pool;
+    
+    private long total;
+    private Map<BatchTestStatus, Long> counts;
+    
+    private BatchRunner() {
+        threads = 1;
+        maxTime = -1;
+        maxLength = 8;
+        maxMismatches = DifferentialTester.DEFAULT_MAX_MISMATCHES;
+        counts = new EnumMap<>( BatchTestStatus.class );
+    }
+    
+    public static void main( String[] args ) {
+        System.setProperty( "java.awt.headless", "true" );
+        System.exit( new BatchRunner().run( args ) );
+    }
+    
+    private int run( String[] args ) {
+        
+        try {
+            if ( !parseArguments( args ) ) {
+                System.out.print( USAGE );
+                return EXIT_OK;
+            }
+        } catch ( IllegalArgumentException exc ) {
+            System.err.println( exc.getMessage() );
+            System.err.print( USAGE );
+            return EXIT_USAGE;
+        }
+        
+        if ( comparePath != null ) {
+            return compare();
+        }
+        
+        try {
+            
+            createTesters( loadModel( modelPath ) );
+            
+            if ( threads > 1 ) {
+                pool = Executors.newFixedThreadPool( threads, r -> {
+                    Thread t = new Thread( r, "batch-runner" );
+                    t.setDaemon( true );
+                    return t;
+                });
+            }
+            
+            long start = System.nanoTime();
+            
+            try ( InputStream is = inputPath == null || inputPath.equals( "-" ) ?
+                        System.in : new FileInputStream( inputPath );
+                    BufferedReader reader = new BufferedReader(
+                        new InputStreamReader( is, StandardCharsets.UTF_8 ), 1 << 16 );
+                    Writer writer = new BufferedWriter(
+                        new OutputStreamWriter( System.out, StandardCharsets.UTF_8 ), 1 << 16 ) ) {
+                
+                List<String> chunk = new ArrayList<>( CHUNK_SIZE );
+                String line;
+                
+                while ( ( line = reader.readLine() ) != null ) {
+                    chunk.add( line );
+                    if ( chunk.size() == CHUNK_SIZE ) {
+                        processChunk( chunk, writer );
+                        chunk.clear();
+                    }
+                }
+                
+                processChunk( chunk, writer );
+                
+            }
+            
+            printSummary( System.nanoTime() - start );
+            return EXIT_OK;
+            
+        } catch ( IOException | IllegalArgumentException exc ) {
+            System.err.println( exc.getMessage() );
+            return EXIT_ERROR;
+        } catch ( InterruptedException exc ) {
+            Thread.currentThread().interrupt();
+            return EXIT_ERROR;
+        } finally {
+            if ( pool != null ) {
+                pool.shutdownNow();
+            }
+        }
+        
+    }
+    
+    /**
+     * @return false if the help was requested, true otherwise.
+     */
+    private boolean parseArguments( String[] args ) {
+        
+        for ( int i = 0; i < args.length; i++ ) {
+            
+            String arg = args[i];
+            
+            switch ( arg ) {
+                case "--help":
+                case "-h":
+                    return false;
+                case "--steps":
+                    printSteps = true;
+                    break;
+                case "--time":
+                    printTime = true;
+                    break;
+                case "--output":
+                    printOutput = true;
+                    break;
+                case "--acceptance":
+                    acceptance = nextArgument( args, ++i, arg ).toUpperCase();
+                    break;
+                case "--threads":
+                    threads = parseNumber( nextArgument( args, ++i, arg ), arg );
+                    if ( threads <= 0 ) {
+                        throw new IllegalArgumentException( "The number of threads must be positive!" );
+                    }
+                    break;
+                case "--max-time":
+                    maxTime = parseLongNumber( nextArgument( args, ++i, arg ), arg );
+                    if ( maxTime < 0 ) {
+                        throw new IllegalArgumentException( "The maximum time can't be negative!" );
+                    }
+                    break;
+                case "--compare":
+                    comparePath = nextArgument( args, ++i, arg );
+                    break;
+                case "--max-length":
+                    maxLength = parseNumber( nextArgument( args, ++i, arg ), arg );
+                    break;
+                case "--alphabet":
+                    alphabet = nextArgument( args, ++i, arg );
+                    break;
+                case "--sample":
+                    sampleSize = parseLongNumber( nextArgument( args, ++i, arg ), arg );
+                    break;
+                case "--seed":
+                    seed = parseLongNumber( nextArgument( args, ++i, arg ), arg );
+                    break;
+                case "--mismatches":
+                    maxMismatches = parseNumber( nextArgument( args, ++i, arg ), arg );
+                    break;
+                case "--stop-on-first":
+                    stopOnFirst = true;
+                    break;
+                default:
+                    if ( arg.startsWith( "--" ) ) {
+                        throw new IllegalArgumentException( "Unknown option: " + arg + "!" );
+                    } else if ( modelPath == null ) {
+                        modelPath = arg;
+                    } else if ( inputPath == null ) {
+                        inputPath = arg;
+                    } else {
+                        throw new IllegalArgumentException( "Too many arguments!" );
+                    }
+                    break;
+            }
+            
+        }
+        
+        if ( modelPath == null ) {
+            throw new IllegalArgumentException( "The model file is missing!" );
+        }
+        
+        if ( inputPath != null && comparePath != null ) {
+            throw new IllegalArgumentException( "The input file can't be used with --compare!" );
+        }
+        
+        return true;
+        
+    }
+    
+    private static String nextArgument( String[] args, int i, String option ) {
+        if ( i >= args.length ) {
+            throw new IllegalArgumentException( "The option " + option + " requires a value!" );
+        }
+        return args[i];
+    }
+    
+    private static int parseNumber( String value, String option ) {
+        try {
+            return Integer.parseInt( value );
+        } catch ( NumberFormatException exc ) {
+            throw new IllegalArgumentException( "Invalid value for " + option + ": " + value + "!" );
+        }
+    }
+    
+    private static long parseLongNumber( String value, String option ) {
+        try {
+            return Long.parseLong( value );
+        } catch ( NumberFormatException exc ) {
+            throw new IllegalArgumentException( "Invalid value for " + option + ": " + value + "!" );
+        }
+    }
+    
+    private static Object loadModel( String path ) throws IOException {
+        
+        if ( path.endsWith( ".jff" ) ) {
+            return JFLAPReader.load( new File( path ) );
+        }
+        
+        return ModelReader.load( new File( path ) );
+        
+    }
+    
+    private void createTesters( Object model ) {
+        
+        Supplier<BatchTester> factory = createTesterFactory( model, modelPath );
+        testers = new ArrayList<>();
+        
+        for ( int i = 0; i < threads; i++ ) {
+            testers.add( factory.get() );
+        }
+        
+    }
+    
+    /**
+     * Creates the factory of the testers of a model. The acceptance type of
+     * the options is used by both compared models.
+     */
+    private Supplier<BatchTester> createTesterFactory( Object model, String path ) {
+        
+        if ( model instanceof FA ) {
+            
+            FA fa = (FA) model;
+            
+            if ( acceptance != null && !acceptance.equals( "FINAL_STATE" ) ) {
+                throw new IllegalArgumentException( "Finite Automata accept only by final state!" );
+            }
+            return () -> fa.createBatchTester();
+            
+        } else if ( model instanceof PDA ) {
+            
+            PDA pda = (PDA) model;
+            PDAAcceptanceType type = parseAcceptance( PDAAcceptanceType.class, PDAAcceptanceType.FINAL_STATE );
+            return () -> pda.createBatchTester( type, Math.max( maxTime, 0 ) );
+            
+        } else if ( model instanceof TM ) {
+            
+            TM tm = (TM) model;
+            TMAcceptanceType type = parseAcceptance( TMAcceptanceType.class, TMAcceptanceType.FINAL_STATE );
+            TMRunConfiguration configuration = new TMRunConfiguration();
+            if ( maxTime != -1 ) {
+                configuration.setMaxTime( maxTime );
+            }
+            return () -> tm.createBatchTester( type, configuration );
+            
+        } else {
+            throw new IllegalArgumentException( "The file " + path + " doesn't contain a YAAS model!" );
+        }
+        
+    }
+    
+    /**
+     * Returns the input symbols of a model (the blank tape symbol of a TM is
+     * not an input symbol).
+     */
+    private static Set<Character> getInputAlphabet( Object model ) {
+        
+        Set<Character> symbols = new TreeSet<>();
+        
+        if ( model instanceof FA ) {
+            symbols.addAll( ( (FA) model ).getAlphabet() );
+        } else if ( model instanceof PDA ) {
+            symbols.addAll( ( (PDA) model ).getAlphabet() );
+        } else if ( model instanceof TM ) {
+            symbols.addAll( ( (TM) model ).getAlphabet() );
+            symbols.remove( CharacterConstants.BLANK_TAPE_SYMBOL );
+        }
+        
+        return symbols;
+        
+    }
+    
+    private int compare() {
+        
+        try {
+            
+            Object model = loadModel( modelPath );
+            Object reference = loadModel( comparePath );
+            
+            // only Turing Machines have outputs
+            if ( printOutput && !( model instanceof TM && reference instanceof TM ) ) {
+                throw new IllegalArgumentException( 
+                        "--output can only be used with --compare if both models are Turing Machines!" );
+            }
+            
+            Set<Character> symbols = new TreeSet<>();
+            if ( alphabet != null ) {
+                for ( char c : alphabet.toCharArray() ) {
+                    symbols.add( c );
+                }
+            } else {
+                symbols.addAll( getInputAlphabet( model ) );
+                symbols.addAll( getInputAlphabet( reference ) );
+            }
+            
+            if ( symbols.isEmpty() ) {
+                throw new IllegalArgumentException( "The alphabet of the compared strings is empty!" );
+            }
+            
+            DifferentialTester tester = new DifferentialTester( 
+                    symbols, maxLength, threads, 
+                    createTesterFactory( model, modelPath ), 
+                    createTesterFactory( reference, comparePath ) );
+            tester.setSample( sampleSize, seed );
+            tester.setMaxMismatches( maxMismatches );
+            tester.setStopOnFirstMismatch( stopOnFirst );
+            tester.setCompareOutputs( printOutput );
+            
+            DifferentialTestReport report = tester.run();
+            
+            try ( Writer writer = new BufferedWriter(
+                    new OutputStreamWriter( System.out, StandardCharsets.UTF_8 ) ) ) {
+                for ( DifferentialTestReport.Mismatch m : report.getMismatches() ) {
+                    writer.append( m.getString() ).append( '\t' )
+                            .append( m.getResult1().getStatus().toString() ).append( '\t' )
+                            .append( m.getResult2().getStatus().toString() );
+                    if ( printOutput ) {
+                        writer.append( '\t' ).append( Objects.toString( m.getResult1().getOutput(), "" ) )
+                                .append( '\t' ).append( Objects.toString( m.getResult2().getOutput(), "" ) );
+                    }
+                    writer.append( '\n' );
+                }
+            }
+            
+            System.err.println( String.format( 
+                    "%d of %d strings in %.3f s, mismatches: %d, inconclusive: %d%s", 
+                    report.getTested(), report.getSize(), report.getTime() / 1e9, 
+                    report.getMismatchCount(), report.getInconclusive(), 
+                    report.isComplete() ? "" : " (stopped)" ) );
+            
+            if ( !report.isEquivalent() ) {
+                return EXIT_MISMATCH;
+            } else if ( report.getInconclusive() > 0 || !report.isComplete() ) {
+                return EXIT_INCONCLUSIVE;
+            }
+            
+            return EXIT_OK;
+            
+        } catch ( IOException | IllegalArgumentException exc ) {
+            System.err.println( exc.getMessage() );
+            return EXIT_ERROR;
+        } catch ( InterruptedException exc ) {
+            Thread.currentThread().interrupt();
+            return EXIT_ERROR;
+        }
+        
+    }
+    
+    private <E extends Enum<E>> E parseAcceptance( Class<E> type, E defaultValue ) {
+        
+        if ( acceptance == null ) {
+            return defaultValue;
+        }
+        
+        try {
+            return Enum.valueOf( type, acceptance );
+        } catch ( IllegalArgumentException exc ) {
+            throw new IllegalArgumentException( "Invalid acceptance type for this model: " + acceptance + "!" );
+        }
+        
+    }
+    
+    private void processChunk( List<String> chunk, Writer writer )
+            throws IOException, InterruptedException {
+        
+        int n = chunk.size();
+        BatchTestResult[] results = new BatchTestResult[n];
+        long[] times = new long[n];
+        
+        if ( pool == null || n < threads ) {
+            test( testers.get( 0 ), chunk, 0, n, results, times );
+        } else {
+            
+            List<Future<?>> futures = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ ) {
+                BatchTester tester = testers.get( t );
+                int from = (int) ( (long) n * t / threads );
+                int to = (int) ( (long) n * ( t + 1 ) / threads );
+                futures.add( pool.submit( () -> test( tester, chunk, from, to, results, times ) ) );
+            }
+            
+            try {
+                for ( Future<?> f : futures ) {
+                    f.get();
+                }
+            } catch ( ExecutionException exc ) {
+                throw new IllegalStateException( exc.getCause() );
+            }
+            
+        }
+        
+        StringBuilder sb = new StringBuilder();
+        
+        for ( int i = 0; i < n; i++ ) {
+            
+            BatchTestResult r = results[i];
+            sb.setLength( 0 );
+            sb.append( chunk.get( i ) ).append( '\t' ).append( r.getStatus() );
+            
+            if ( printSteps ) {
+                sb.append( '\t' ).append( r.getSteps() );
+            }
+            if ( printTime ) {
+                sb.append( '\t' ).append( times[i] / 1000 );
+            }
+            if ( printOutput ) {
+                sb.append( '\t' ).append( r.getOutput() == null ? "" : r.getOutput() );
+            }
+            
+            sb.append( '\n' );
+            writer.append( sb );
+            
+            counts.merge( r.getStatus(), 1L, Long::sum );
+            
+        }
+        
+        total += n;
+        
+    }
+    
+    private void test( BatchTester tester, List<String> chunk, int from, int to,
+            BatchTestResult[] results, long[] times ) {
+        
+        for ( int i = from; i < to; i++ ) {
+            
+            long start = printTime ? System.nanoTime() : 0;
+            
+            try {
+                results[i] = tester.test( chunk.get( i ) );
+            } catch ( RuntimeException | StackOverflowError exc ) {
+                results[i] = new BatchTestResult( BatchTestStatus.ERROR, 0, exc.toString() );
+            }
+            
+            if ( printTime ) {
+                times[i] = System.nanoTime() - start;
+            }
+            
+        }
+        
+    }
+    
+    private void printSummary( long time ) {
+        
+        StringBuilder sb = new StringBuilder();
+        sb.append( String.format( "%d strings in %.3f s", total, time / 1e9 ) );
+        
+        for ( Map.Entry<BatchTestStatus, Long> e : counts.entrySet() ) {
+            sb.append( ", " ).append( e.getKey() ).append( ": " ).append( e.getValue() );
+        }
+        
+        System.err.println( sb );
+        
+    }
+    
+}
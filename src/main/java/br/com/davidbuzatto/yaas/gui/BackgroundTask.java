@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.gui;
+
+import br.com.davidbuzatto.yaas.model.AlgorithmCancellation;
+import br.com.davidbuzatto.yaas.model.AlgorithmProgressListener;
+import br.com.davidbuzatto.yaas.util.Utils;
+import java.awt.Component;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+/**
+ * Runs a long operation of an internal frame (the generation of a new model,
+ * for example) in a background thread, so the application remains
+ * responsive.
+ * 
+ * If the operation takes more than DIALOG_DELAY milliseconds, a dialog with
+ * its progress and a cancel button is shown. The cancellation interrupts the
+ * thread and the algorithms stop cooperatively, since the task is their
+ * cancellation condition (see AlgorithmCancellation), or when the progress
+ * listener of the task returns false. The operation must
+ * work with its own copy of the models, since they can be changed while it
+ * runs.
+ * 
+ * @param <T> The type of the result of the operation.
+ * @author Prof. Dr. David Buzatto
+ */
+public class BackgroundTask<T> extends SwingWorker<T, Void> 
+        implements AlgorithmProgressListener {
+    
+    private static final int DIALOG_DELAY = 300;
+    private static final int REFRESH_INTERVAL = 100;
+    
+    private final Component parent;
+    private final String message;
+    private final Operation<T> operation;
+    private final Consumer<T> resultConsumer;
+    
+    private volatile long processed;
+    private volatile long discovered;
+    
+    private TaskProgressDialog dialog;
+    private Timer timer;
+    
+    /**
+     * Creates a task.
+     * 
+     * @param parent The component used to place the progress dialog and the
+     * error messages.
+     * @param message The description of the operation.
+     * @param operation The operation, executed in the background thread.
+     * @param resultConsumer Receives the result in the event dispatch thread,
+     * if the operation was not cancelled and doesn't fail.
+     */
+    public BackgroundTask( 
+            Component parent, 
+            String message, 
+            Operation<T> operation, 
+            Consumer<T> resultConsumer ) {
+        this.parent = parent;
+        this.message = message;
+        this.operation = operation;
+        this.resultConsumer = resultConsumer;
+    }
+    
+    /**
+     * Starts the task. Must be called in the event dispatch thread.
+     */
+    public void start() {
+        
+        timer = new Timer( REFRESH_INTERVAL, e -> refresh() );
+        timer.setInitialDelay( DIALOG_DELAY );
+        timer.start();
+        
+        execute();
+        
+    }
+    
+    @Override
+    protected T doInBackground() throws Exception {
+        return AlgorithmCancellation.run( this::isCancelled, 
+                () -> operation.execute( this ) );
+    }
+
+    @Override
+    public boolean progress( long processed, long discovered ) {
+        this.processed = processed;
+        this.discovered = discovered;
+        return !isCancelled();
+    }
+    
+    @Override
+    protected void done() {
+        
+        timer.stop();
+        
+        if ( dialog != null ) {
+            dialog.dispose();
+        }
+        
+        if ( isCancelled() ) {
+            return;
+        }
+        
+        try {
+            T result = get();
+            if ( result != null ) {
+                resultConsumer.accept( result );
+            }
+        } catch ( ExecutionException exc ) {
+            failed( exc.getCause() );
+        } catch ( InterruptedException | CancellationException exc ) {
+            // the task was cancelled
+        }
+        
+    }
+    
+    /**
+     * Shows the dialog, the first time it is called, and updates the progress.
+     */
+    private void refresh() {
+        
+        if ( dialog == null ) {
+            dialog = new TaskProgressDialog( 
+                    SwingUtilities.getWindowAncestor( parent ), message, 
+                    () -> cancel( true ) );
+            dialog.setVisible( true );
+        }
+        
+        dialog.setProgress( processed, discovered );
+        
+    }
+    
+    private void failed( Throwable cause ) {
+        
+        if ( cause instanceof IllegalArgumentException ) {
+            Utils.showErrorMessage( parent, cause.getMessage() );
+        } else if ( cause instanceof OutOfMemoryError ) {
+            Utils.showErrorMessage( parent, 
+                    "There is not enough memory to complete the operation!" );
+        } else if ( !( cause instanceof CancellationException ) ) {
+            cause.printStackTrace();
+            Utils.showErrorMessage( parent, 
+                    String.format( "The operation failed: %s!", cause ) );
+        }
+        
+    }
+    
+    /**
+     * An operation that runs in a background task.
+     * 
+     * @param <T> The type of the result.
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        
+        /**
+         * Executes the operation.
+         * 
+         * @param progressListener The listener to be passed to the algorithms
+         * that report their progress.
+         * @return The result or null if there is nothing to be consumed.
+         * @throws Exception If the operation fails.
+         */
+        T execute( AlgorithmProgressListener progressListener ) throws Exception;
+        
+    }
+    
+}
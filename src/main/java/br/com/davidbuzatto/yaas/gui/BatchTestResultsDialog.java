@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.gui;
+
+import br.com.davidbuzatto.yaas.gui.table.BatchTestTableModel;
+import br.com.davidbuzatto.yaas.model.BatchTestExecutor;
+import br.com.davidbuzatto.yaas.model.BatchTestResult;
+import br.com.davidbuzatto.yaas.model.BatchTestStatus;
+import br.com.davidbuzatto.yaas.util.Utils;
+import java.awt.Window;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.ImageIcon;
+import javax.swing.Timer;
+
+/**
+ * A dialog that runs a batch test and shows its results as they are
+ * completed. The execution is cancelled when the dialog is closed.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class BatchTestResultsDialog extends javax.swing.JDialog {
+    
+    private static final int REFRESH_INTERVAL = 100;
+    
+    private BatchTestExecutor executor;
+    private BatchTestTableModel tableModel;
+    private Timer refreshTimer;
+    
+    private List<BatchTestResult> buffer;
+    private Map<BatchTestStatus, Integer> counts;
+    
+    /**
+     * Creates new form BatchTestResultsDialog
+     */
+    public BatchTestResultsDialog( Window parent, BatchTestExecutor executor, boolean showOutput ) {
+        super( parent, ModalityType.MODELESS );
+        this.executor = executor;
+        initComponents();
+        customInit( showOutput );
+        setLocationRelativeTo( parent );
+    }
+    
+    private void customInit( boolean showOutput ) {
+        
+        setIconImage( new ImageIcon( getClass().getResource( "/book.png" ) ).getImage() );
+        Utils.registerDefaultAndCancelButton( getRootPane(), btnClose, btnClose );
+        
+        tableModel = new BatchTestTableModel( executor, showOutput );
+        tableResults.setModel( tableModel );
+        tableResults.getColumnModel().getColumn( 0 ).setPreferredWidth( 60 );
+        tableResults.getColumnModel().getColumn( 1 ).setPreferredWidth( 200 );
+        
+        buffer = new ArrayList<>();
+        counts = new EnumMap<>( BatchTestStatus.class );
+        
+        progressBar.setMaximum( executor.getSize() );
+        refreshTimer = new Timer( REFRESH_INTERVAL, e -> refresh() );
+        
+    }
+    
+    /**
+     * Starts the execution of the batch and shows the dialog.
+     */
+    public void start() {
+        executor.start();
+        refreshTimer.start();
+        refresh();
+        setVisible( true );
+    }
+    
+    /**
+     * Moves the completed results to the table and updates the progress.
+     */
+    private void refresh() {
+        
+        boolean finished = executor.isFinished();
+        
+        executor.pollResults( buffer );
+        for ( BatchTestResult r : buffer ) {
+            counts.merge( r.getStatus(), 1, Integer::sum );
+        }
+        tableModel.addResults( buffer );
+        buffer.clear();
+        
+        int completed = executor.getCompleted();
+        progressBar.setValue( completed );
+        progressBar.setString( String.format( "%d/%d", completed, executor.getSize() ) );
+        
+        StringBuilder sb = new StringBuilder();
+        for ( Map.Entry<BatchTestStatus, Integer> e : counts.entrySet() ) {
+            if ( sb.length() > 0 ) {
+                sb.append( ", " );
+            }
+            sb.append( e.getKey() ).append( ": " ).append( e.getValue() );
+        }
+        
+        if ( finished ) {
+            refreshTimer.stop();
+            btnCancel.setEnabled( false );
+            if ( executor.isCancelled() ) {
+                sb.insert( 0, sb.length() > 0 ? "Cancelled - " : "Cancelled" );
+            }
+        }
+        
+        lblSummary.setText( sb.toString() );
+        
+    }
+    
+    private void cancelAndDispose() {
+        executor.cancel();
+        refreshTimer.stop();
+        dispose();
+    }
+    
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings( "unchecked" )
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        panelResults = new javax.swing.JPanel();
+        scrollResults = new javax.swing.JScrollPane();
+        tableResults = new javax.swing.JTable();
+        progressBar = new javax.swing.JProgressBar();
+        lblSummary = new javax.swing.JLabel();
+        btnCancel = new javax.swing.JButton();
+        btnClose = new javax.swing.JButton();
+
+        setDefaultCloseOperation(javax.swing.WindowConstants.DO_NOTHING_ON_CLOSE);
+        setTitle("Batch Test Results");
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            public void windowClosing(java.awt.event.WindowEvent evt) {
+                formWindowClosing(evt);
+            }
+        });
+
+        panelResults.setBorder(javax.swing.BorderFactory.createTitledBorder("Results"));
+
+        tableResults.setFillsViewportHeight(true);
+        scrollResults.setViewportView(tableResults);
+
+        javax.swing.GroupLayout panelResultsLayout = new javax.swing.GroupLayout(panelResults);
+        panelResults.setLayout(panelResultsLayout);
+        panelResultsLayout.setHorizontalGroup(
+            panelResultsLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(panelResultsLayout.createSequentialGroup()
+                .addContainerGap()
+                .addComponent(scrollResults, javax.swing.GroupLayout.DEFAULT_SIZE, 620, Short.MAX_VALUE)
+                .addContainerGap())
+        );
+        panelResultsLayout.setVerticalGroup(
+            panelResultsLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(panelResultsLayout.createSequentialGroup()
+                .addContainerGap()
+                .addComponent(scrollResults, javax.swing.GroupLayout.DEFAULT_SIZE, 360, Short.MAX_VALUE)
+                .addContainerGap())
+        );
+
+        progressBar.setStringPainted(true);
+
+        btnCancel.setIcon(new javax.swing.ImageIcon(getClass().getResource("/control_stop_blue.png"))); // NOI18N
+        btnCancel.setText("Cancel");
+        btnCancel.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnCancelActionPerformed(evt);
+            }
+        });
+
+        btnClose.setIcon(new javax.swing.ImageIcon(getClass().getResource("/cancel.png"))); // NOI18N
+        btnClose.setText("Close");
+        btnClose.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnCloseActionPerformed(evt);
+            }
+        });
+
+        javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
+        getContentPane().setLayout(layout);
+        layout.setHorizontalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(panelResults, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addComponent(progressBar, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(lblSummary, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(btnCancel)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(btnClose)))
+                .addContainerGap())
+        );
+        layout.setVerticalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addComponent(panelResults, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(progressBar, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(lblSummary)
+                    .addComponent(btnCancel)
+                    .addComponent(btnClose))
+                .addContainerGap())
+        );
+
+        pack();
+        setLocationRelativeTo(null);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void btnCancelActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnCancelActionPerformed
+        executor.cancel();
+        btnCancel.setEnabled( false );
+    }//GEN-LAST:event_btnCancelActionPerformed
+
+    private void btnCloseActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnCloseActionPerformed
+        cancelAndDispose();
+    }//GEN-LAST:event_btnCloseActionPerformed
+
+    private void formWindowClosing(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowClosing
+        cancelAndDispose();
+    }//GEN-LAST:event_formWindowClosing
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton btnCancel;
+    private javax.swing.JButton btnClose;
+    private javax.swing.JLabel lblSummary;
+    private javax.swing.JPanel panelResults;
+    private javax.swing.JProgressBar progressBar;
+    private javax.swing.JScrollPane scrollResults;
+    private javax.swing.JTable tableResults;
+    // End of variables declaration//GEN-END:variables
+}
@@ -32,7 +32,9 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.TexturePaint;
 import java.awt.font.LineMetrics;
+import java.awt.image.BufferedImage;
 import java.util.List;
 import javax.swing.JPanel;
 
@@ -48,6 +50,7 @@ public class DrawPanel extends JPanel {
     private TM tm;
     
     private boolean showGrid;
+    private TexturePaint gridPaint;
     private boolean drawingTempTransition;
     
     private final Arrow tempTransitionArrow;
@@ -79,18 +82,19 @@ public class DrawPanel extends JPanel {
                 RenderingHints.KEY_ANTIALIASING,
                 RenderingHints.VALUE_ANTIALIAS_ON );
         
-        g2d.setColor( Color.WHITE );
-        g2d.fillRect( 0, 0, getWidth(), getHeight() );
+        // only the clip is painted, since the hover of the states and
+        // transitions repaints just the regions that have changed
+        Rectangle clip = g2d.getClipBounds();
+        if ( clip == null ) {
+            clip = new Rectangle( 0, 0, getWidth(), getHeight() );
+        }
         
         if ( showGrid ) {
-            g2d.setColor( DrawingConstants.GRID_COLOR );
-            for ( int i = 0; i <= getHeight(); i += DrawingConstants.STATE_RADIUS ) {
-                g2d.drawLine( 0, i, getWidth(), i );
-            }
-            for ( int i = 0; i <= getWidth(); i += DrawingConstants.STATE_RADIUS ) {
-                g2d.drawLine( i, 0, i, getHeight() );
-            }
+            g2d.setPaint( getGridPaint() );
+        } else {
+            g2d.setColor( Color.WHITE );
         }
+        g2d.fillRect( clip.x, clip.y, clip.width, clip.height );
         
         boolean containsMachine = false;
         
@@ -156,6 +160,33 @@ public class DrawPanel extends JPanel {
         g2d.dispose();
         
     }
+    
+    /**
+     * Returns the paint of the background with the grid, made of a cached
+     * image of one cell of the grid.
+     */
+    private TexturePaint getGridPaint() {
+        
+        if ( gridPaint == null ) {
+            
+            int size = DrawingConstants.STATE_RADIUS;
+            BufferedImage cell = new BufferedImage( size, size, BufferedImage.TYPE_INT_RGB );
+            Graphics2D g2d = cell.createGraphics();
+            
+            g2d.setColor( Color.WHITE );
+            g2d.fillRect( 0, 0, size, size );
+            g2d.setColor( DrawingConstants.GRID_COLOR );
+            g2d.drawLine( 0, 0, size, 0 );
+            g2d.drawLine( 0, 0, 0, size );
+            g2d.dispose();
+            
+            gridPaint = new TexturePaint( cell, new Rectangle( 0, 0, size, size ) );
+            
+        }
+        
+        return gridPaint;
+        
+    }
 
     private void processFASimulation( Graphics2D g2d ) {
         
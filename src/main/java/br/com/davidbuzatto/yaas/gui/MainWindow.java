@@ -16,12 +16,16 @@
  */
 package br.com.davidbuzatto.yaas.gui;
 
+import br.com.davidbuzatto.yaas.model.AbstractGeometricForm;
 import br.com.davidbuzatto.yaas.model.fa.FA;
 import br.com.davidbuzatto.yaas.model.fa.examples.FAExamples;
 import br.com.davidbuzatto.yaas.model.fa.examples.FAExamplesForMinimizationTest;
 import br.com.davidbuzatto.yaas.gui.fa.FAInternalFrame;
 import br.com.davidbuzatto.yaas.gui.pda.PDAInternalFrame;
 import br.com.davidbuzatto.yaas.gui.tm.TMInternalFrame;
+import br.com.davidbuzatto.yaas.model.io.JFLAPReader;
+import br.com.davidbuzatto.yaas.model.io.JFLAPWriter;
+import br.com.davidbuzatto.yaas.model.io.ModelReader;
 import br.com.davidbuzatto.yaas.model.pda.PDA;
 import br.com.davidbuzatto.yaas.model.pda.PDAAcceptanceType;
 import br.com.davidbuzatto.yaas.model.pda.examples.PDAExamples;
@@ -34,15 +38,18 @@ import br.com.davidbuzatto.yaas.util.CharacterConstants;
 import br.com.davidbuzatto.yaas.util.Utils;
 import com.formdev.flatlaf.FlatDarculaLaf;
 import com.formdev.flatlaf.FlatLightLaf;
+import java.awt.Cursor;
 import java.awt.EventQueue;
 import java.beans.PropertyVetoException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
+import java.util.concurrent.ExecutionException;
+import javax.swing.JFileChooser;
 import javax.swing.JInternalFrame;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 /**
  * Main GUI class.
@@ -90,6 +97,9 @@ public class MainWindow extends javax.swing.JFrame {
         btnTM = new javax.swing.JButton();
         menuBar = new javax.swing.JMenuBar();
         menuFile = new javax.swing.JMenu();
+        menuItemImportJFLAP = new javax.swing.JMenuItem();
+        menuItemExportJFLAP = new javax.swing.JMenuItem();
+        menuFileSep01 = new javax.swing.JPopupMenu.Separator();
         menuItemExit = new javax.swing.JMenuItem();
         menuExamples = new javax.swing.JMenu();
         menuFA = new javax.swing.JMenu();
@@ -214,6 +224,28 @@ public class MainWindow extends javax.swing.JFrame {
         menuFile.setMnemonic('F');
         menuFile.setText("File");
 
+        menuItemImportJFLAP.setIcon(new javax.swing.ImageIcon(getClass().getResource("/arrow_in.png"))); // NOI18N
+        menuItemImportJFLAP.setMnemonic('I');
+        menuItemImportJFLAP.setText("Import from JFLAP...");
+        menuItemImportJFLAP.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                menuItemImportJFLAPActionPerformed(evt);
+            }
+        });
+        menuFile.add(menuItemImportJFLAP);
+
+        menuItemExportJFLAP.setIcon(new javax.swing.ImageIcon(getClass().getResource("/arrow_out.png"))); // NOI18N
+        menuItemExportJFLAP.setMnemonic('E');
+        menuItemExportJFLAP.setText("Export to JFLAP...");
+        menuItemExportJFLAP.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                menuItemExportJFLAPActionPerformed(evt);
+            }
+        });
+        menuFile.add(menuItemExportJFLAP);
+
+        menuFile.add(menuFileSep01);
+
         menuItemExit.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_F4, java.awt.event.InputEvent.ALT_DOWN_MASK));
         menuItemExit.setIcon(new javax.swing.ImageIcon(getClass().getResource("/door_out.png"))); // NOI18N
         menuItemExit.setMnemonic('x');
@@ -741,6 +773,14 @@ public class MainWindow extends javax.swing.JFrame {
         close();
     }//GEN-LAST:event_menuItemExitActionPerformed
 
+    private void menuItemImportJFLAPActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_menuItemImportJFLAPActionPerformed
+        importJFLAP();
+    }//GEN-LAST:event_menuItemImportJFLAPActionPerformed
+
+    private void menuItemExportJFLAPActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_menuItemExportJFLAPActionPerformed
+        exportJFLAP();
+    }//GEN-LAST:event_menuItemExportJFLAPActionPerformed
+
     private void menuItemAboutActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_menuItemAboutActionPerformed
         
         JOptionPane.showMessageDialog( this, 
@@ -1048,6 +1088,127 @@ public class MainWindow extends javax.swing.JFrame {
         
     }
     
+    private void importJFLAP() {
+        
+        JFileChooser jfc = new JFileChooser( new File( ApplicationPreferences.getPref( ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH ) ) );
+        jfc.setDialogTitle( "Import from JFLAP" );
+        jfc.setMultiSelectionEnabled( false );
+        jfc.setFileSelectionMode( JFileChooser.FILES_ONLY );
+        jfc.removeChoosableFileFilter( jfc.getFileFilter() );
+        jfc.setFileFilter( new FileNameExtensionFilter( "JFLAP File", "jff" ) );
+        
+        if ( jfc.showOpenDialog( this ) == JFileChooser.APPROVE_OPTION ) {
+            
+            File f = jfc.getSelectedFile();
+            
+            if ( f.exists() ) {
+                
+                ApplicationPreferences.setPref( 
+                        ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH, 
+                        f.getParentFile().getAbsolutePath() );
+                
+                // large machines take a while to be built, so the file is
+                // imported in the background
+                menuItemImportJFLAP.setEnabled( false );
+                setCursor( Cursor.getPredefinedCursor( Cursor.WAIT_CURSOR ) );
+                
+                new SwingWorker<AbstractGeometricForm, Void>() {
+                    
+                    @Override
+                    protected AbstractGeometricForm doInBackground() throws IOException {
+                        return JFLAPReader.load( f );
+                    }
+                    
+                    @Override
+                    protected void done() {
+                        
+                        menuItemImportJFLAP.setEnabled( true );
+                        setCursor( Cursor.getDefaultCursor() );
+                        
+                        try {
+                            
+                            AbstractGeometricForm model = get();
+                            
+                            if ( model instanceof FA fa ) {
+                                createFAInternalFrame( fa, false, false, null, null );
+                            } else if ( model instanceof PDA pda ) {
+                                createPDAInternalFrame( pda, false, false, null, null, null );
+                            } else if ( model instanceof TM tm ) {
+                                createTMInternalFrame( tm, false, false, null, null, null );
+                            }
+                            
+                        } catch ( ExecutionException exc ) {
+                            Utils.showException( exc.getCause() instanceof Exception cause ? cause : exc );
+                        } catch ( InterruptedException exc ) {
+                            Utils.showException( exc );
+                        }
+                        
+                    }
+                    
+                }.execute();
+                
+            }
+            
+        }
+        
+    }
+    
+    private void exportJFLAP() {
+        
+        JInternalFrame jif = desktopPane.getSelectedFrame();
+        AbstractGeometricForm model = null;
+        
+        if ( jif instanceof FAInternalFrame faJif ) {
+            model = faJif.getFa();
+        } else if ( jif instanceof PDAInternalFrame pdaJif ) {
+            model = pdaJif.getPda();
+        } else if ( jif instanceof TMInternalFrame tmJif ) {
+            model = tmJif.getTm();
+        }
+        
+        if ( model == null ) {
+            Utils.showWarningMessage( this, "Select the model to be exported!" );
+            return;
+        }
+        
+        JFileChooser jfc = new JFileChooser( new File( ApplicationPreferences.getPref( ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH ) ) );
+        jfc.setDialogTitle( "Export to JFLAP" );
+        jfc.setMultiSelectionEnabled( false );
+        jfc.setFileSelectionMode( JFileChooser.FILES_ONLY );
+        jfc.removeChoosableFileFilter( jfc.getFileFilter() );
+        jfc.setFileFilter( new FileNameExtensionFilter( "JFLAP File", "jff" ) );
+        
+        if ( jfc.showSaveDialog( this ) == JFileChooser.APPROVE_OPTION ) {
+            
+            File f = jfc.getSelectedFile();
+            
+            if ( !f.getName().endsWith( ".jff" ) ) {
+                f = new File( f.getAbsolutePath() + ".jff" );
+            }
+            
+            if ( f.exists() ) {
+                if ( Utils.showConfirmationMessageYesNo(
+                        this, 
+                        "The file already exists.\nDo you want to overwrite it?"  )
+                        == JOptionPane.NO_OPTION ) {
+                    return;
+                }
+            }
+            
+            ApplicationPreferences.setPref( 
+                    ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH, 
+                    f.getParentFile().getAbsolutePath() );
+            
+            try {
+                JFLAPWriter.save( model, f );
+            } catch ( IOException exc ) {
+                Utils.showException( exc );
+            }
+            
+        }
+        
+    }
+    
     private void updateJifsUI() {
         
         SwingUtilities.updateComponentTreeUI( this );
@@ -1099,30 +1260,32 @@ public class MainWindow extends javax.swing.JFrame {
                     
                     if ( fileToOpen.exists() ) {
                         
-                        try ( FileInputStream fis = new FileInputStream( fileToOpen );
-                                ObjectInputStream ois = new ObjectInputStream( fis ) ) {
+                        try {
+                            
+                            // files in the legacy format are migrated when saved
+                            boolean saved = !ModelReader.isLegacyFormat( fileToOpen );
                             
                             if ( fileToOpen.getName().endsWith( ".yfa" ) ) {
-                                FA fa = (FA) ois.readObject();
+                                FA fa = ModelReader.loadFA( fileToOpen );
                                 fa.deactivateAllStatesInSimulation();
                                 fa.deselectAll();
                                 fa.setTransitionsControlPointsVisible( false );
-                                mainWindow.createFAInternalFrame( fa, false, true, fileToOpen, null );
+                                mainWindow.createFAInternalFrame( fa, false, saved, fileToOpen, null );
                             } else if ( fileToOpen.getName().endsWith( ".ypda" ) ) {
-                                PDA pda = (PDA) ois.readObject();
+                                PDA pda = ModelReader.loadPDA( fileToOpen );
                                 pda.deactivateAllStatesInSimulation();
                                 pda.deselectAll();
                                 pda.setTransitionsControlPointsVisible( false );
-                                mainWindow.createPDAInternalFrame( pda, false, true, fileToOpen, null, null );
+                                mainWindow.createPDAInternalFrame( pda, false, saved, fileToOpen, null, null );
                             } else if ( fileToOpen.getName().endsWith( ".ytm" ) ) {
-                                TM tm = (TM) ois.readObject();
+                                TM tm = ModelReader.loadTM( fileToOpen );
                                 tm.deactivateAllStatesInSimulation();
                                 tm.deselectAll();
                                 tm.setTransitionsControlPointsVisible( false );
-                                mainWindow.createTMInternalFrame( tm, false, true, fileToOpen, null, null );
+                                mainWindow.createTMInternalFrame( tm, false, saved, fileToOpen, null, null );
                             }
                     
-                        } catch ( IOException | ClassNotFoundException exc ) {
+                        } catch ( IOException exc ) {
                             Utils.showException( exc );
                         }
                         
@@ -1170,9 +1333,12 @@ public class MainWindow extends javax.swing.JFrame {
     private javax.swing.JMenu menuFA;
     private javax.swing.JPopupMenu.Separator menuFASep01;
     private javax.swing.JMenu menuFile;
+    private javax.swing.JPopupMenu.Separator menuFileSep01;
     private javax.swing.JMenu menuHelp;
     private javax.swing.JMenuItem menuItemAbout;
     private javax.swing.JMenuItem menuItemExit;
+    private javax.swing.JMenuItem menuItemExportJFLAP;
+    private javax.swing.JMenuItem menuItemImportJFLAP;
     private javax.swing.JMenu menuNFA;
     private javax.swing.JMenu menuPDA;
     private javax.swing.JMenu menuPDAEmptyStack;
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.gui;
+
+import br.com.davidbuzatto.yaas.util.Utils;
+import java.awt.Window;
+import javax.swing.ImageIcon;
+
+/**
+ * A dialog that shows the progress of a background task and allows to
+ * cancel it. The task is also cancelled when the dialog is closed.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class TaskProgressDialog extends javax.swing.JDialog {
+    
+    private Runnable cancelAction;
+    
+    /**
+     * Creates new form TaskProgressDialog
+     */
+    public TaskProgressDialog( Window parent, String message, Runnable cancelAction ) {
+        super( parent, ModalityType.MODELESS );
+        this.cancelAction = cancelAction;
+        initComponents();
+        customInit( message );
+        setLocationRelativeTo( parent );
+    }
+    
+    private void customInit( String message ) {
+        setIconImage( new ImageIcon( getClass().getResource( "/cog.png" ) ).getImage() );
+        Utils.registerDefaultAndCancelButton( getRootPane(), btnCancel, btnCancel );
+        lblMessage.setText( message );
+        progressBar.setIndeterminate( true );
+    }
+    
+    /**
+     * Updates the progress. The progress is indeterminate while nothing was
+     * discovered.
+     * 
+     * @param processed How many items were processed.
+     * @param discovered How many items were discovered.
+     */
+    public void setProgress( long processed, long discovered ) {
+        
+        if ( discovered > 0 ) {
+            progressBar.setIndeterminate( false );
+            progressBar.setValue( (int) ( processed * 100 / discovered ) );
+            progressBar.setString( String.format( "%d/%d", processed, discovered ) );
+        }
+        
+    }
+    
+    private void cancel() {
+        cancelAction.run();
+        btnCancel.setEnabled( false );
+        lblMessage.setText( "Cancelling..." );
+    }
+    
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings( "unchecked" )
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        lblMessage = new javax.swing.JLabel();
+        progressBar = new javax.swing.JProgressBar();
+        btnCancel = new javax.swing.JButton();
+
+        setDefaultCloseOperation(javax.swing.WindowConstants.DO_NOTHING_ON_CLOSE);
+        setTitle("Processing");
+        setResizable(false);
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            public void windowClosing(java.awt.event.WindowEvent evt) {
+                formWindowClosing(evt);
+            }
+        });
+
+        lblMessage.setText("Processing...");
+
+        progressBar.setString("");
+        progressBar.setStringPainted(true);
+
+        btnCancel.setIcon(new javax.swing.ImageIcon(getClass().getResource("/control_stop_blue.png"))); // NOI18N
+        btnCancel.setText("Cancel");
+        btnCancel.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                btnCancelActionPerformed(evt);
+            }
+        });
+
+        javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
+        getContentPane().setLayout(layout);
+        layout.setHorizontalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+                    .addComponent(lblMessage, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                    .addGroup(layout.createSequentialGroup()
+                        .addComponent(progressBar, javax.swing.GroupLayout.DEFAULT_SIZE, 300, Short.MAX_VALUE)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(btnCancel)))
+                .addContainerGap())
+        );
+        layout.setVerticalGroup(
+            layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGroup(layout.createSequentialGroup()
+                .addContainerGap()
+                .addComponent(lblMessage)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.CENTER)
+                    .addComponent(progressBar, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
+                    .addComponent(btnCancel))
+                .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+        );
+
+        pack();
+        setLocationRelativeTo(null);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void btnCancelActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnCancelActionPerformed
+        cancel();
+    }//GEN-LAST:event_btnCancelActionPerformed
+
+    private void formWindowClosing(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowClosing
+        cancel();
+        dispose();
+    }//GEN-LAST:event_formWindowClosing
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton btnCancel;
+    private javax.swing.JLabel lblMessage;
+    private javax.swing.JProgressBar progressBar;
+    // End of variables declaration//GEN-END:variables
+}
@@ -20,10 +20,12 @@ import br.com.davidbuzatto.yaas.model.fa.FATransition;
 import br.com.davidbuzatto.yaas.model.fa.FA;
 import br.com.davidbuzatto.yaas.model.fa.FAType;
 import br.com.davidbuzatto.yaas.model.fa.FAState;
+import br.com.davidbuzatto.yaas.gui.BackgroundTask;
 import br.com.davidbuzatto.yaas.gui.MainWindow;
 import br.com.davidbuzatto.yaas.gui.ZoomFacility;
 import br.com.davidbuzatto.yaas.model.fa.algorithms.FAArrangement;
 import br.com.davidbuzatto.yaas.model.fa.algorithms.DFAComplement;
+import br.com.davidbuzatto.yaas.model.fa.algorithms.DFAMinimizationAlgorithm;
 import br.com.davidbuzatto.yaas.model.fa.algorithms.DFAMinimize;
 import br.com.davidbuzatto.yaas.model.fa.algorithms.FADeterminize;
 import br.com.davidbuzatto.yaas.model.fa.algorithms.DFATotalTransitionFunction;
@@ -35,6 +37,8 @@ import br.com.davidbuzatto.yaas.model.fa.algorithms.FAUnion;
 import br.com.davidbuzatto.yaas.gui.fa.properties.FAPropertiesPanel;
 import br.com.davidbuzatto.yaas.gui.fa.properties.FAStatePropertiesPanel;
 import br.com.davidbuzatto.yaas.gui.fa.properties.FATransitionPropertiesPanel;
+import br.com.davidbuzatto.yaas.model.io.ModelReader;
+import br.com.davidbuzatto.yaas.model.io.ModelWriter;
 import br.com.davidbuzatto.yaas.util.ApplicationConstants;
 import br.com.davidbuzatto.yaas.util.ApplicationPreferences;
 import br.com.davidbuzatto.yaas.util.DrawingConstants;
@@ -59,11 +63,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -1268,13 +1268,12 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
                         xPressed <= evt.getX() ? evt.getX() - xPressed : xPressed - evt.getX(), 
                         yPressed <= evt.getY() ? evt.getY() - yPressed : yPressed - evt.getY() );
 
-                for ( FAState s : fa.getStates() ) {
-                    if ( s.intersects( rectangle ) ) {
-                        s.setSelected( true );
-                        selectedStates.add( s );
-                    }
-                    s.setMouseHover( false );
+                for ( FAState s : fa.getStatesAt( rectangle ) ) {
+                    s.setSelected( true );
+                    selectedStates.add( s );
                 }
+                
+                fa.resetStatesMouseHover();
 
                 drawPanel.setSelectionRectangle( null );
 
@@ -1390,13 +1389,7 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
                         xPressed <= evt.getX() ? evt.getX() - xPressed : xPressed - evt.getX(), 
                         yPressed <= evt.getY() ? evt.getY() - yPressed : yPressed - evt.getY() );
 
-                for ( FAState s : fa.getStates() ) {
-                    if ( s.intersects( rectangle ) ) {
-                        s.setMouseHover( true );
-                    } else {
-                        s.setMouseHover( false );
-                    }
-                }
+                fa.mouseHoverStates( rectangle );
 
                 drawPanel.setSelectionRectangle( rectangle );
                 repaintDrawPanel();
@@ -1449,8 +1442,10 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
     private void drawPanelMouseMoved(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_drawPanelMouseMoved
         
         if ( btnMove.isSelected() || btnAddTransition.isSelected() ) {
-            fa.mouseHoverStatesAndTransitions( evt.getX(), evt.getY() );
-            repaintDrawPanel();
+            Rectangle region = fa.mouseHoverStatesAndTransitions( evt.getX(), evt.getY() );
+            if ( region != null ) {
+                drawPanel.repaint( region );
+            }
         }
         
     }//GEN-LAST:event_drawPanelMouseMoved
@@ -1674,15 +1669,17 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
                     "You already have a DFA!" );
         } else {
             
-            try {
-                
-                FA dfa = new FADeterminize( fa ).getGeneratedDFA();
-                FAArrangement.arrangeByLevel( dfa, 100, 100, 150, false );
-                mainWindow.createFAInternalFrame( dfa, false, false, null, null );
+            FA faCopy = copyFA();
                 
-            } catch ( IllegalArgumentException exc ) {
-                Utils.showErrorMessage( this, exc.getMessage() );
-            }
+            new BackgroundTask<FA>( this, "Generating the equivalent DFA...", 
+                    progressListener -> {
+                        FA dfa = new FADeterminize( faCopy, progressListener ).getGeneratedDFA();
+                        if ( dfa != null ) {
+                            FAArrangement.arrangeByLevel( dfa, 100, 100, 150, false );
+                        }
+                        return dfa;
+                    },
+                    dfa -> mainWindow.createFAInternalFrame( dfa, false, false, null, null ) ).start();
             
         }
         
@@ -1690,30 +1687,39 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
 
     private void btnGenerateMinimizedDFAActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnGenerateMinimizedDFAActionPerformed
         
-        try {
+        fa.updateType();
             
-            fa.updateType();
+        int r = JOptionPane.showConfirmDialog( this, 
+                "Remove inaccessible and useless states before processing?", 
+                "Remove?", JOptionPane.YES_NO_CANCEL_OPTION );
             
-            int r = JOptionPane.showConfirmDialog( this, 
-                    "Remove inaccessible and useless states before processing?", 
-                    "Remove?", JOptionPane.YES_NO_CANCEL_OPTION );
+        if ( r != JOptionPane.CANCEL_OPTION ) {
             
-            if ( r != JOptionPane.CANCEL_OPTION ) {
-                
-                FA minDFA = new DFAMinimize( fa, r == JOptionPane.YES_OPTION ).getGeneratedDFA();
-
-                if ( minDFA.equals( fa ) ) {
-                    Utils.showInformationMessage( this, 
-                            "Your DFA is already mimimum!" );
-                } else {
-                    FAArrangement.arrangeByLevel( minDFA, 100, 100, 150, false );
-                    mainWindow.createFAInternalFrame( minDFA, false, false, null, null );
-                }
-                
+            DFAMinimizationAlgorithm algorithm = chooseMinimizationAlgorithm();
+            if ( algorithm == null ) {
+                return;
             }
             
-        } catch ( IllegalArgumentException exc ) {
-            Utils.showErrorMessage( this, exc.getMessage() );
+            FA faCopy = copyFA();
+            boolean remove = r == JOptionPane.YES_OPTION;
+                
+            new BackgroundTask<FA>( this, "Minimizing the DFA...", 
+                    progressListener -> {
+                        FA minDFA = new DFAMinimize( faCopy, remove, algorithm ).getGeneratedDFA();
+                        if ( !minDFA.equals( faCopy ) ) {
+                            FAArrangement.arrangeByLevel( minDFA, 100, 100, 150, false );
+                        }
+                        return minDFA;
+                    },
+                    minDFA -> {
+                        if ( minDFA.equals( faCopy ) ) {
+                            Utils.showInformationMessage( this, 
+                                    "Your DFA is already mimimum!" );
+                        } else {
+                            mainWindow.createFAInternalFrame( minDFA, false, false, null, null );
+                        }
+                    }).start();
+
         }
         
     }//GEN-LAST:event_btnGenerateMinimizedDFAActionPerformed
@@ -2125,6 +2131,7 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
         if ( selectedState != null ) {
             
             selectedState.setFinal( checkFinalState.isSelected() );
+            fa.markAllCachesAsObsolete();
 
             statePPanel.setFa( fa );
             statePPanel.setState( selectedState );
@@ -2338,68 +2345,84 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
 
     private void popItemUnionActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_popItemUnionActionPerformed
         
-        try {
-            FA fa2 = loadFA( "Choose the second Finite Automaton to perform Union" );
-            if ( fa2 != null ) {
-                FA faUnion = new FAUnion( fa, fa2 ).getGeneratedFA();
-                FAArrangement.arrangeByLevel( faUnion, 100, 100, 150, false );
-                mainWindow.createFAInternalFrame( faUnion, false, false, null, null );
-            }
-        } catch ( IllegalArgumentException exc ) {
-            Utils.showErrorMessage( this, exc.getMessage() );
+        FA fa2 = loadFA( "Choose the second Finite Automaton to perform Union" );
+        
+        if ( fa2 != null ) {
+            
+            FA faCopy = copyFA();
+            
+            new BackgroundTask<FA>( this, "Generating the union...", 
+                    progressListener -> {
+                        FA faUnion = new FAUnion( faCopy, fa2 ).getGeneratedFA();
+                        FAArrangement.arrangeByLevel( faUnion, 100, 100, 150, false );
+                        return faUnion;
+                    },
+                    faUnion -> mainWindow.createFAInternalFrame( faUnion, false, false, null, null ) ).start();
+                    
         }
         
     }//GEN-LAST:event_popItemUnionActionPerformed
 
     private void popItemConcatenationActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_popItemConcatenationActionPerformed
         
-        try {
-            FA fa2 = loadFA( "Choose the second Finite Automaton to perform Concatenation" );
-            if ( fa2 != null ) {
-                FA faConcatenation = new FAConcatenation( fa, fa2 ).getGeneratedFA();
-                FAArrangement.arrangeByLevel( faConcatenation, 100, 100, 150, false );
-                mainWindow.createFAInternalFrame( faConcatenation, false, false, null, null );
-            }
-        } catch ( IllegalArgumentException exc ) {
-            Utils.showErrorMessage( this, exc.getMessage() );
+        FA fa2 = loadFA( "Choose the second Finite Automaton to perform Concatenation" );
+        
+        if ( fa2 != null ) {
+            
+            FA faCopy = copyFA();
+            
+            new BackgroundTask<FA>( this, "Generating the concatenation...", 
+                    progressListener -> {
+                        FA faConcatenation = new FAConcatenation( faCopy, fa2 ).getGeneratedFA();
+                        FAArrangement.arrangeByLevel( faConcatenation, 100, 100, 150, false );
+                        return faConcatenation;
+                    },
+                    faConcatenation -> mainWindow.createFAInternalFrame( faConcatenation, false, false, null, null ) ).start();
+                    
         }
         
     }//GEN-LAST:event_popItemConcatenationActionPerformed
 
     private void popItemKleeneStarActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_popItemKleeneStarActionPerformed
         
-        try {
-            FA faStar = new FAKleeneStar( fa ).getGeneratedFA();
-            FAArrangement.arrangeByLevel( faStar, 100, 100, 150, false );
-            mainWindow.createFAInternalFrame( faStar, false, false, null, null );
-        } catch ( IllegalArgumentException exc ) {
-            Utils.showErrorMessage( this, exc.getMessage() );
-        }
+        FA faCopy = copyFA();
+        
+        new BackgroundTask<FA>( this, "Generating the Kleene star...", 
+                progressListener -> {
+                    FA faStar = new FAKleeneStar( faCopy ).getGeneratedFA();
+                    FAArrangement.arrangeByLevel( faStar, 100, 100, 150, false );
+                    return faStar;
+                },
+                faStar -> mainWindow.createFAInternalFrame( faStar, false, false, null, null ) ).start();
         
     }//GEN-LAST:event_popItemKleeneStarActionPerformed
 
     private void popItemComplementActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_popItemComplementActionPerformed
         
-        try {
-            FA complementedDFA = new DFAComplement( fa ).getGeneratedDFA();
-            mainWindow.createFAInternalFrame( complementedDFA, false, false, null, null );
-        } catch ( IllegalArgumentException exc ) {
-            Utils.showErrorMessage( this, exc.getMessage() );
-        }
+        FA faCopy = copyFA();
+        
+        new BackgroundTask<FA>( this, "Generating the complement...", 
+                progressListener -> new DFAComplement( faCopy ).getGeneratedDFA(),
+                complementedDFA -> mainWindow.createFAInternalFrame( complementedDFA, false, false, null, null ) ).start();
         
     }//GEN-LAST:event_popItemComplementActionPerformed
 
     private void popItemIntersectionActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_popItemIntersectionActionPerformed
         
-        try {
-            FA fa2 = loadFA( "Choose the second Finite Automaton to perform Intersection" );
-            if ( fa2 != null ) {
-                FA faIntersection = new FAIntersection( fa, fa2 ).getGeneratedFA();
-                FAArrangement.arrangeByLevel( faIntersection, 100, 100, 150, false );
-                mainWindow.createFAInternalFrame( faIntersection, false, false, null, null );
-            }
-        } catch ( IllegalArgumentException exc ) {
-            Utils.showErrorMessage( this, exc.getMessage() );
+        FA fa2 = loadFA( "Choose the second Finite Automaton to perform Intersection" );
+        
+        if ( fa2 != null ) {
+            
+            FA faCopy = copyFA();
+            
+            new BackgroundTask<FA>( this, "Generating the intersection...", 
+                    progressListener -> {
+                        FA faIntersection = new FAIntersection( faCopy, fa2 ).getGeneratedFA();
+                        FAArrangement.arrangeByLevel( faIntersection, 100, 100, 150, false );
+                        return faIntersection;
+                    },
+                    faIntersection -> mainWindow.createFAInternalFrame( faIntersection, false, false, null, null ) ).start();
+                    
         }
         
     }//GEN-LAST:event_popItemIntersectionActionPerformed
@@ -2410,12 +2433,11 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
 
     private void btnRemoveInaccessibleAndUselessStatesActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnRemoveInaccessibleAndUselessStatesActionPerformed
         
-        try {
-            FA faCleaned = new FARemoveInaccessibleAndUselessStates( fa, true ).getGeneratedFA();
-            mainWindow.createFAInternalFrame( faCleaned, false, false, null, null );
-        } catch ( IllegalArgumentException exc ) {
-            Utils.showErrorMessage( this, exc.getMessage() );
-        }
+        FA faCopy = copyFA();
+        
+        new BackgroundTask<FA>( this, "Removing the inaccessible and useless states...", 
+                progressListener -> new FARemoveInaccessibleAndUselessStates( faCopy, true ).getGeneratedFA(),
+                faCleaned -> mainWindow.createFAInternalFrame( faCleaned, false, false, null, null ) ).start();
         
     }//GEN-LAST:event_btnRemoveInaccessibleAndUselessStatesActionPerformed
 
@@ -2424,6 +2446,8 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
     }//GEN-LAST:event_txtTestStringKeyReleased
 
     public void repaintDrawPanel() {
+        // the states and transitions may have been changed directly
+        fa.markSpatialIndexAsObsolete();
         drawPanel.repaint();
         drawPanel.setPreferredSize( new Dimension( fa.getWidth(), fa.getHeight() ) );
         drawPanel.revalidate();
@@ -2651,6 +2675,10 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
         
     }
 
+    public FA getFa() {
+        return fa;
+    }
+
     public void setCurrentState( int currentState ) {
         this.currentState = currentState;
     }
@@ -2683,11 +2711,9 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
     
     private void serializeFAToFile( File file ) {
         
-        try ( FileOutputStream fos = new FileOutputStream( file );
-                ObjectOutputStream oos = new ObjectOutputStream( fos ) ) {
+        try {
 
-            oos.writeObject( fa );
-            oos.flush();
+            ModelWriter.save( fa, file );
             currentFile = file;
             setCurrentFileSaved( true );
 
@@ -2772,10 +2798,9 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
                         ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH, 
                         f.getParentFile().getAbsolutePath() );
                 
-                try ( FileInputStream fis = new FileInputStream( f );
-                      ObjectInputStream ois = new ObjectInputStream( fis ) ) {
+                try {
                     
-                    fa = (FA) ois.readObject();
+                    fa = ModelReader.loadFA( f );
                     fa.deactivateAllStatesInSimulation();
                     fa.deselectAll();
                     fa.setTransitionsControlPointsVisible( false );
@@ -2785,12 +2810,13 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
                     faPPanel.readProperties();
                     cardLayout.show( panelProperties, MODEL_PROPERTIES_CARD );
         
+                    // files in the legacy format are migrated when saved
                     currentFile = f;
-                    setCurrentFileSaved( true );
+                    setCurrentFileSaved( !ModelReader.isLegacyFormat( f ) );
                     
                     repaintDrawPanel();
                     
-                } catch ( IOException | ClassNotFoundException exc ) {
+                } catch ( IOException exc ) {
                     Utils.showException( exc );
                 }
                 
@@ -2800,6 +2826,49 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
         
     }
     
+    /**
+     * Asks which algorithm will be used to minimize the DFA. Hopcroft's is
+     * the default, the table filling method is kept for teaching.
+     * 
+     * @return The chosen algorithm or null if the dialog was cancelled.
+     */
+    private DFAMinimizationAlgorithm chooseMinimizationAlgorithm() {
+        
+        DFAMinimizationAlgorithm[] algorithms = DFAMinimizationAlgorithm.values();
+        String[] options = new String[algorithms.length];
+        
+        for ( int i = 0; i < algorithms.length; i++ ) {
+            options[i] = algorithms[i].getName() + " - " + algorithms[i].getDescription();
+        }
+        
+        Object selected = JOptionPane.showInputDialog( this, 
+                "Minimization algorithm:", "Algorithm", 
+                JOptionPane.QUESTION_MESSAGE, null, options, 
+                options[DFAMinimizationAlgorithm.HOPCROFT.ordinal()] );
+        
+        for ( int i = 0; i < options.length; i++ ) {
+            if ( options[i].equals( selected ) ) {
+                return algorithms[i];
+            }
+        }
+        
+        return null;
+        
+    }
+    
+    /**
+     * Copies the FA, so it can be processed in a background task while the
+     * original one is edited.
+     */
+    private FA copyFA() {
+        try {
+            return (FA) fa.clone();
+        } catch ( CloneNotSupportedException exc ) {
+            // should never be reached
+            throw new IllegalStateException( exc );
+        }
+    }
+    
     private FA loadFA( String title ) {
         
         JFileChooser jfc = new JFileChooser( new File( ApplicationPreferences.getPref( ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH ) ) );
@@ -2819,10 +2888,9 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
                         ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH, 
                         f.getParentFile().getAbsolutePath() );
                 
-                try ( FileInputStream fis = new FileInputStream( f );
-                      ObjectInputStream ois = new ObjectInputStream( fis ) ) {
+                try {
                     
-                    FA fa = (FA) ois.readObject();
+                    FA fa = ModelReader.loadFA( f );
                     fa = (FA) fa.clone();
                     fa.deactivateAllStatesInSimulation();
                     fa.deselectAll();
@@ -2830,7 +2898,7 @@ public class FAInternalFrame extends javax.swing.JInternalFrame {
                     
                     return fa;
                     
-                } catch ( IOException | ClassNotFoundException | CloneNotSupportedException exc ) {
+                } catch ( IOException | CloneNotSupportedException exc ) {
                     Utils.showException( exc );
                 }
                 
@@ -262,6 +262,7 @@ public class FAStatePropertiesPanel extends javax.swing.JPanel {
 
     private void checkFinalActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_checkFinalActionPerformed
         state.setFinal( checkFinal.isSelected() );
+        fa.markAllCachesAsObsolete();
         faIFrame.setCurrentFileSaved( false );
         faIFrame.repaintDrawPanel();
     }//GEN-LAST:event_checkFinalActionPerformed
@@ -16,15 +16,17 @@
  */
 package br.com.davidbuzatto.yaas.gui.pda;
 
+import br.com.davidbuzatto.yaas.gui.BatchTestResultsDialog;
+import br.com.davidbuzatto.yaas.model.BatchTestExecutor;
 import br.com.davidbuzatto.yaas.model.pda.PDA;
 import br.com.davidbuzatto.yaas.model.pda.PDAAcceptanceType;
-import br.com.davidbuzatto.yaas.util.CharacterConstants;
+import br.com.davidbuzatto.yaas.util.ApplicationConstants;
 import br.com.davidbuzatto.yaas.util.Utils;
 import java.awt.Frame;
+import java.util.Arrays;
+import java.util.List;
 import javax.swing.ImageIcon;
-import javax.swing.JOptionPane;
-import javax.swing.JScrollPane;
-import javax.swing.JTextArea;
+import javax.swing.SpinnerNumberModel;
 
 /**
  * A dialog for batch testing strings against Pushdown Automata.
@@ -53,6 +55,10 @@ public class PDABatchTest extends javax.swing.JDialog {
     private void customInit() {
         setIconImage( new ImageIcon( getClass().getResource( "/book.png" ) ).getImage() );
         Utils.registerDefaultAndCancelButton( getRootPane(), btnTest, btnClose );
+        spinThreads.setModel( new SpinnerNumberModel( 
+                ApplicationConstants.BATCH_TEST_THREADS, 1, 
+                Math.max( ApplicationConstants.BATCH_TEST_THREADS, 
+                        Runtime.getRuntime().availableProcessors() ), 1 ) );
     }
     
     /**
@@ -69,6 +75,8 @@ public class PDABatchTest extends javax.swing.JDialog {
         textAreaStrings = new javax.swing.JTextArea();
         btnTest = new javax.swing.JButton();
         btnClose = new javax.swing.JButton();
+        lblThreads = new javax.swing.JLabel();
+        spinThreads = new javax.swing.JSpinner();
 
         setTitle("Batch Test");
         setResizable(false);
@@ -113,6 +121,8 @@ public class PDABatchTest extends javax.swing.JDialog {
             }
         });
 
+        lblThreads.setText("Threads:");
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(getContentPane());
         getContentPane().setLayout(layout);
         layout.setHorizontalGroup(
@@ -122,6 +132,9 @@ public class PDABatchTest extends javax.swing.JDialog {
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                     .addComponent(panelStrings, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                     .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
+                        .addComponent(lblThreads)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(spinThreads, javax.swing.GroupLayout.PREFERRED_SIZE, 60, javax.swing.GroupLayout.PREFERRED_SIZE)
                         .addGap(0, 0, Short.MAX_VALUE)
                         .addComponent(btnTest)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
@@ -136,7 +149,9 @@ public class PDABatchTest extends javax.swing.JDialog {
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addGroup(layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(btnClose)
-                    .addComponent(btnTest))
+                    .addComponent(btnTest)
+                    .addComponent(lblThreads)
+                    .addComponent(spinThreads, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addContainerGap())
         );
 
@@ -146,41 +161,16 @@ public class PDABatchTest extends javax.swing.JDialog {
 
     private void btnTestActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_btnTestActionPerformed
         
-        String[] strings = textAreaStrings.getText().split( "\n" );
-        
-        StringBuilder sb = new StringBuilder();
-        boolean first = true;
-        
-        for ( String str : strings ) {
-            
-            boolean accepted = pda.accepts( str, acceptanceType );
-            
-            if ( !first ) {
-                sb.append( "\n" );
-            }
-            
-            sb.append( String.format( "%s %c L(A)", 
-                    str.isEmpty() ? 
-                            CharacterConstants.EMPTY_STRING.toString() : 
-                            str, 
-                    accepted ? 
-                            CharacterConstants.ELEMENT_OF : 
-                            CharacterConstants.NOT_ELEMENT_OF ) );
-            
-            first = false;
-            
-        }
+        List<String> strings = Arrays.asList( textAreaStrings.getText().split( "\n" ) );
         
-        JTextArea ta = new JTextArea( sb.toString(), 10, 32 );
-        ta.setFont( textAreaStrings.getFont() );
-        ta.setEditable( false );
-        JScrollPane sp = new JScrollPane( ta );
+        // each worker tests the strings against its own snapshot of the
+        // machine, so it can be changed while the batch is running
+        BatchTestExecutor executor = new BatchTestExecutor( 
+                strings, 
+                (Integer) spinThreads.getValue(), 
+                () -> pda.createBatchTester( acceptanceType, ApplicationConstants.BATCH_TEST_MAX_TIME ) );
         
-        JOptionPane.showMessageDialog( 
-                this, 
-                sp, 
-                "Batch Test Results", 
-                JOptionPane.INFORMATION_MESSAGE );
+        new BatchTestResultsDialog( this, executor, false ).start();
         
     }//GEN-LAST:event_btnTestActionPerformed
 
@@ -195,8 +185,10 @@ public class PDABatchTest extends javax.swing.JDialog {
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JButton btnClose;
     private javax.swing.JButton btnTest;
+    private javax.swing.JLabel lblThreads;
     private javax.swing.JPanel panelStrings;
     private javax.swing.JScrollPane scrollStrings;
+    private javax.swing.JSpinner spinThreads;
     private javax.swing.JTextArea textAreaStrings;
     // End of variables declaration//GEN-END:variables
 }
@@ -28,7 +28,7 @@ public class PDAIDNodeExtentProvider implements NodeExtentProvider<PDAID>{
 
     @Override
     public double getWidth( PDAID tn ) {
-        return tn.getTextWidth();
+        return tn.getExtentWidth();
     }
 
     @Override
@@ -16,6 +16,7 @@
  */
 package br.com.davidbuzatto.yaas.gui.pda;
 
+import br.com.davidbuzatto.yaas.model.SpatialIndex;
 import br.com.davidbuzatto.yaas.model.pda.PDA;
 import br.com.davidbuzatto.yaas.model.pda.PDAID;
 import br.com.davidbuzatto.yaas.model.pda.PDAIDLine;
@@ -26,32 +27,61 @@ import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.JMenuItem;
 import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
+import javax.swing.SwingUtilities;
 
 /**
  * Drawing panel for IDs of PDAs view.
  * 
+ * Only the expanded part of the tree is arranged and only the IDs and lines
+ * that intersect the area being painted are drawn, so huge trees can be
+ * viewed. A collapsed ID shows a summary of its hidden descendants and is
+ * expanded (or collapsed again) with a click.
+ * 
  * @author Prof. Dr. David Buzatto
  */
 public class PDAIDViewerDrawPanel extends JPanel {
+    
+    private static final int MARGIN_X = 30;
+    private static final int MARGIN_Y = 40;
+    private static final int LEVEL_GAP = 60;
+    private static final int NODE_GAP = 20;
+    
+    // maximum number of IDs that are shown when a subtree is expanded
+    private static final int EXPANSION_IDS = 500;
+    private static final int MAX_EXPANSION_IDS = 20000;
 
     private PDA pda;
     private PDAID root;
     private List<PDAID> ids;
     private List<PDAIDLine> lines;
     
+    private boolean collapsible;
+    private Set<PDAID> collapsed;
+    private Map<PDAID, int[]> branches;
+    private SpatialIndex<PDAID> idIndex;
+    private SpatialIndex<PDAIDLine> lineIndex;
+    private JPopupMenu popupMenu;
+    
     private int xPrev;
     private int yPrev;
     
-    private int xAmount;
-    private int yAmount;
-    private int totalXAmount;
-    private int totalYAmount;
+    private int xOffset;
+    private int yOffset;
     private PDAIDLine mouseOverLine;
     
     private Dimension size;
@@ -60,26 +90,52 @@ public class PDAIDViewerDrawPanel extends JPanel {
         
         setCursor( Cursor.getPredefinedCursor( Cursor.HAND_CURSOR ));
         
+        ids = new ArrayList<>();
+        lines = new ArrayList<>();
+        collapsed = Collections.newSetFromMap( new IdentityHashMap<>() );
+        branches = new IdentityHashMap<>();
+        idIndex = new SpatialIndex<>();
+        lineIndex = new SpatialIndex<>();
+        createPopupMenu();
+        
         addMouseListener( new MouseAdapter() {
             
             @Override
             public void mousePressed( MouseEvent evt ) {
+                
                 xPrev = evt.getX();
                 yPrev = evt.getY();
+                
+                if ( collapsible && evt.getButton() == MouseEvent.BUTTON3 ) {
+                    popupMenu.show( PDAIDViewerDrawPanel.this, evt.getX(), evt.getY() );
+                }
+                
             }
-
+            
             @Override
-            public void mouseReleased( MouseEvent e ) {
+            public void mouseClicked( MouseEvent evt ) {
                 
-                totalXAmount += xAmount;
-                totalYAmount += yAmount;
+                if ( collapsible && evt.getButton() == MouseEvent.BUTTON1 ) {
+                    
+                    for ( PDAID id : idIndex.getAt( evt.getX() - xOffset, evt.getY() - yOffset ) ) {
+                        if ( !id.getChildren().isEmpty() ) {
+                            if ( collapsed.contains( id ) ) {
+                                expand( id, EXPANSION_IDS );
+                            } else {
+                                setCollapsed( id, true );
+                            }
+                            arrange( id );
+                            break;
+                        }
+                    }
+                    
+                }
                 
-                Dimension s = getPreferredSize();
-                size = new Dimension( s.width + totalXAmount, s.height + totalYAmount );
-                setPreferredSize( size );
-                repaint();
+            }
+
+            @Override
+            public void mouseReleased( MouseEvent e ) {
                 revalidate();
-                
             }
             
         });
@@ -89,37 +145,42 @@ public class PDAIDViewerDrawPanel extends JPanel {
             @Override
             public void mouseMoved( MouseEvent evt ) {
                 
-                mouseOverLine = null;
+                PDAIDLine previous = mouseOverLine;
+                int x = evt.getX() - xOffset;
+                int y = evt.getY() - yOffset;
                 
-                for ( PDAIDLine line : lines ) {
-                    if ( line.intersects( evt.getX(), evt.getY() ) ) {
+                if ( mouseOverLine != null ) {
+                    mouseOverLine.setMouseHover( false );
+                    mouseOverLine = null;
+                }
+                
+                for ( PDAIDLine line : lineIndex.getAt( x, y ) ) {
+                    if ( line.intersects( x, y ) ) {
                         line.setMouseHover( true );
-                        line.setMouseXY( evt.getX(), evt.getY() );
+                        line.setMouseXY( x, y );
                         mouseOverLine = line;
-                    } else {
-                        line.setMouseHover( false );
+                        break;
                     }
                 }
                 
-                repaint();
+                if ( previous != null || mouseOverLine != null ) {
+                    repaint();
+                }
                 
             }
             
             @Override
             public void mouseDragged( MouseEvent evt ) {
                 
-                xAmount = evt.getX() - xPrev;
-                yAmount = evt.getY() - yPrev;
+                int xAmount = evt.getX() - xPrev;
+                int yAmount = evt.getY() - yPrev;
                 
                 xPrev += xAmount;
                 yPrev += yAmount;
                 
-                for ( PDAIDLine line : lines ) {
-                    line.move( xAmount, yAmount );
-                }
-                for ( PDAID id : ids ) {
-                    id.move( xAmount, yAmount );
-                }
+                // the IDs are not moved, so the spatial indexes remain valid
+                xOffset += xAmount;
+                yOffset += yAmount;
                 
                 Dimension s = getPreferredSize();
                 setPreferredSize( new Dimension( s.width + xAmount, s.height + yAmount ) );
@@ -144,25 +205,30 @@ public class PDAIDViewerDrawPanel extends JPanel {
         g2d.setColor( Color.WHITE );
         g2d.fillRect( 0, 0, getWidth(), getHeight() );
         
-        if ( ids != null ) {
-            for ( PDAID id : ids ) {
-                id.draw( g2d );
-            }
+        Graphics2D g2dTree = (Graphics2D) g2d.create();
+        g2dTree.translate( xOffset, yOffset );
+        Rectangle clip = g2dTree.getClipBounds();
+        
+        List<PDAID> visibleIds = clip == null ? ids : idIndex.getIntersecting( clip );
+        List<PDAIDLine> visibleLines = clip == null ? lines : lineIndex.getIntersecting( clip );
+        
+        for ( PDAID id : visibleIds ) {
+            id.draw( g2dTree );
         }
         
-        g2d.setColor( Color.BLACK );
-        if ( lines != null ) {
-            for ( PDAIDLine line : lines ) {
-                if ( line != mouseOverLine ) {
-                    line.draw( g2d );
-                }
+        g2dTree.setColor( Color.BLACK );
+        for ( PDAIDLine line : visibleLines ) {
+            if ( line != mouseOverLine ) {
+                line.draw( g2dTree );
             }
         }
         
         if ( mouseOverLine != null ) {
-            mouseOverLine.draw( g2d );
+            mouseOverLine.draw( g2dTree );
         }
         
+        g2dTree.dispose();
+        
         g2d.setStroke( DrawingConstants.DRAW_PANEL_STROKE.getBasicStroke() );
         g2d.setColor( Color.BLACK );
         g2d.drawRect( 0, 0, getWidth(), getHeight() );
@@ -178,12 +244,12 @@ public class PDAIDViewerDrawPanel extends JPanel {
     public void arrangeAndProccessIds() {
         
         root = pda.getRootId();
-        ids = pda.getIds();
-        lines = new ArrayList<>();
+        collapsible = true;
         
-        size = PDAArrangement.arrangeIDsInTreeFormat( 
-                root, ids, lines, 30, 40, 60, 20 );
-        setPreferredSize( new Dimension( size.width + 60, size.height + 70 ) );
+        PDAArrangement.markAcceptedPaths( pda.getIds() );
+        processBranches();
+        expand( root, EXPANSION_IDS );
+        arrange( null );
         
     }
     
@@ -196,11 +262,211 @@ public class PDAIDViewerDrawPanel extends JPanel {
         
         root = ids.get( 0 );
         lines = new ArrayList<>();
+        collapsible = false;
         
         size = PDAArrangement.arrangeIDsInTreeFormatForSimulation( 
-                root, ids, lines, 30, 40, 60, 20 );
+                root, ids, lines, MARGIN_X, MARGIN_Y, LEVEL_GAP, NODE_GAP );
+        updateSpatialIndexes();
         setPreferredSize( new Dimension( size.width + 60, size.height + 70 ) );
         
     }
     
+    /**
+     * Arranges the visible part of the tree.
+     * 
+     * @param anchor An ID that must remain at the same place of the viewport,
+     * or null.
+     */
+    private void arrange( PDAID anchor ) {
+        
+        Rectangle visible = getVisibleRect();
+        int anchorX = 0;
+        int anchorY = 0;
+        
+        if ( anchor != null ) {
+            anchorX = anchor.getX1();
+            anchorY = anchor.getY1();
+        }
+        
+        ids = new ArrayList<>();
+        lines = new ArrayList<>();
+        mouseOverLine = null;
+        
+        size = PDAArrangement.arrangeIDsInTreeFormat( 
+                root, ids, lines, collapsed, MARGIN_X, MARGIN_Y, LEVEL_GAP, NODE_GAP );
+        updateSpatialIndexes();
+        setPreferredSize( new Dimension( size.width + 60 + xOffset, size.height + 70 + yOffset ) );
+        revalidate();
+        repaint();
+        
+        if ( anchor != null ) {
+            visible.translate( anchor.getX1() - anchorX, anchor.getY1() - anchorY );
+            SwingUtilities.invokeLater( () -> scrollRectToVisible( visible ) );
+        }
+        
+    }
+    
+    private void updateSpatialIndexes() {
+        
+        idIndex = new SpatialIndex<>();
+        lineIndex = new SpatialIndex<>();
+        
+        for ( PDAID id : ids ) {
+            idIndex.add( id, id.getBounds() );
+        }
+        
+        for ( PDAIDLine line : lines ) {
+            Rectangle r = new Rectangle( line.getX1(), line.getY1(), 0, 0 );
+            r.add( line.getX2(), line.getY2() );
+            r.grow( DrawingConstants.ARROW_MOUSE_OVER_LENGTH, DrawingConstants.ARROW_MOUSE_OVER_LENGTH );
+            lineIndex.add( line, r );
+        }
+        
+    }
+    
+    /**
+     * Counts the descendants and the accepted IDs of each branch of the tree.
+     */
+    private void processBranches() {
+        
+        List<PDAID> order = new ArrayList<>();
+        order.add( root );
+        for ( int i = 0; i < order.size(); i++ ) {
+            order.addAll( order.get( i ).getChildren() );
+        }
+        
+        branches.clear();
+        
+        for ( int i = order.size() - 1; i >= 0; i-- ) {
+            
+            PDAID id = order.get( i );
+            
+            // the accepted paths are marked, so only the last accepted ID
+            // of each path is counted
+            boolean accepted = id.isAcceptedByFinalState() || id.isAcceptedByEmptyStack();
+            int[] data = new int[2];
+            
+            for ( PDAID c : id.getChildren() ) {
+                int[] cData = branches.get( c );
+                data[0] += cData[0] + 1;
+                data[1] += cData[1];
+            }
+            
+            if ( accepted && data[1] == 0 ) {
+                data[1] = 1;
+            }
+            
+            branches.put( id, data );
+            
+        }
+        
+    }
+    
+    /**
+     * Expands an ID and its descendants, level by level, until the given
+     * amount of IDs is shown. The IDs at the border are collapsed.
+     */
+    private void expand( PDAID id, int maxIds ) {
+        
+        Deque<PDAID> queue = new ArrayDeque<>();
+        queue.add( id );
+        int count = 0;
+        boolean full = false;
+        
+        while ( !queue.isEmpty() ) {
+            
+            PDAID current = queue.poll();
+            List<PDAID> children = current.getChildren();
+            
+            if ( !children.isEmpty() ) {
+                if ( !full && ( current == id || count + children.size() <= maxIds ) ) {
+                    setCollapsed( current, false );
+                    count += children.size();
+                    queue.addAll( children );
+                } else {
+                    full = true;
+                    setCollapsed( current, true );
+                }
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Collapses the accepted or the rejected branches of the visible part of
+     * the tree, below the root.
+     */
+    private void collapseBranches( boolean accepted ) {
+        
+        Deque<PDAID> stack = new ArrayDeque<>();
+        
+        if ( !collapsed.contains( root ) ) {
+            stack.addAll( root.getChildren() );
+        }
+        
+        while ( !stack.isEmpty() ) {
+            
+            PDAID current = stack.pop();
+            
+            if ( !current.getChildren().isEmpty() && !collapsed.contains( current ) ) {
+                if ( ( branches.get( current )[1] > 0 ) == accepted ) {
+                    setCollapsed( current, true );
+                } else {
+                    stack.addAll( current.getChildren() );
+                }
+            }
+            
+        }
+        
+    }
+    
+    private void setCollapsed( PDAID id, boolean collapse ) {
+        
+        if ( collapse ) {
+            
+            int[] data = branches.get( id );
+            collapsed.add( id );
+            
+            if ( data[1] > 0 ) {
+                id.setSummary( String.format( "+ %d IDs, %d accepted", data[0], data[1] ) );
+            } else {
+                id.setSummary( String.format( "+ %d IDs, rejected", data[0] ) );
+            }
+            
+        } else {
+            collapsed.remove( id );
+            id.setSummary( null );
+        }
+        
+    }
+    
+    private void createPopupMenu() {
+        
+        popupMenu = new JPopupMenu();
+        
+        JMenuItem itemExpandAll = new JMenuItem( "Expand All" );
+        itemExpandAll.addActionListener( evt -> {
+            expand( root, MAX_EXPANSION_IDS );
+            arrange( null );
+        });
+        
+        JMenuItem itemCollapseAccepted = new JMenuItem( "Collapse Accepted Branches" );
+        itemCollapseAccepted.addActionListener( evt -> {
+            collapseBranches( true );
+            arrange( null );
+        });
+        
+        JMenuItem itemCollapseRejected = new JMenuItem( "Collapse Rejected Branches" );
+        itemCollapseRejected.addActionListener( evt -> {
+            collapseBranches( false );
+            arrange( null );
+        });
+        
+        popupMenu.add( itemExpandAll );
+        popupMenu.add( itemCollapseAccepted );
+        popupMenu.add( itemCollapseRejected );
+        
+    }
+    
 }
@@ -16,6 +16,7 @@
  */
 package br.com.davidbuzatto.yaas.gui.pda;
 
+import br.com.davidbuzatto.yaas.gui.BackgroundTask;
 import br.com.davidbuzatto.yaas.gui.MainWindow;
 import br.com.davidbuzatto.yaas.gui.ZoomFacility;
 import br.com.davidbuzatto.yaas.gui.pda.properties.PDAPropertiesPanel;
@@ -24,12 +25,15 @@ import br.com.davidbuzatto.yaas.gui.pda.properties.PDATransitionPropertiesPanel;
 import br.com.davidbuzatto.yaas.model.pda.PDA;
 import br.com.davidbuzatto.yaas.model.pda.PDAAcceptanceType;
 import br.com.davidbuzatto.yaas.model.pda.PDAOperation;
+import br.com.davidbuzatto.yaas.model.pda.PDARunStatus;
 import br.com.davidbuzatto.yaas.model.pda.PDAState;
 import br.com.davidbuzatto.yaas.model.pda.PDATransition;
 import br.com.davidbuzatto.yaas.model.pda.PDAType;
 import br.com.davidbuzatto.yaas.model.pda.algorithms.PDAArrangement;
 import br.com.davidbuzatto.yaas.model.pda.algorithms.PDAEmptyStackToFinalState;
 import br.com.davidbuzatto.yaas.model.pda.algorithms.PDAFinalStateToEmptyStack;
+import br.com.davidbuzatto.yaas.model.io.ModelReader;
+import br.com.davidbuzatto.yaas.model.io.ModelWriter;
 import br.com.davidbuzatto.yaas.util.ApplicationConstants;
 import br.com.davidbuzatto.yaas.util.ApplicationPreferences;
 import br.com.davidbuzatto.yaas.util.CharacterConstants;
@@ -55,11 +59,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -1213,13 +1213,12 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
                         xPressed <= evt.getX() ? evt.getX() - xPressed : xPressed - evt.getX(), 
                         yPressed <= evt.getY() ? evt.getY() - yPressed : yPressed - evt.getY() );
 
-                for ( PDAState s : pda.getStates() ) {
-                    if ( s.intersects( rectangle ) ) {
-                        s.setSelected( true );
-                        selectedStates.add( s );
-                    }
-                    s.setMouseHover( false );
+                for ( PDAState s : pda.getStatesAt( rectangle ) ) {
+                    s.setSelected( true );
+                    selectedStates.add( s );
                 }
+                
+                pda.resetStatesMouseHover();
 
                 drawPanel.setSelectionRectangle( null );
 
@@ -1325,13 +1324,7 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
                         xPressed <= evt.getX() ? evt.getX() - xPressed : xPressed - evt.getX(), 
                         yPressed <= evt.getY() ? evt.getY() - yPressed : yPressed - evt.getY() );
 
-                for ( PDAState s : pda.getStates() ) {
-                    if ( s.intersects( rectangle ) ) {
-                        s.setMouseHover( true );
-                    } else {
-                        s.setMouseHover( false );
-                    }
-                }
+                pda.mouseHoverStates( rectangle );
 
                 drawPanel.setSelectionRectangle( rectangle );
                 repaintDrawPanel();
@@ -1384,8 +1377,10 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
     private void drawPanelMouseMoved(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_drawPanelMouseMoved
         
         if ( btnMove.isSelected() || btnAddTransition.isSelected() ) {
-            pda.mouseHoverStatesAndTransitions( evt.getX(), evt.getY() );
-            repaintDrawPanel();
+            Rectangle region = pda.mouseHoverStatesAndTransitions( evt.getX(), evt.getY() );
+            if ( region != null ) {
+                drawPanel.repaint( region );
+            }
         }
         
     }//GEN-LAST:event_drawPanelMouseMoved
@@ -1526,7 +1521,12 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
             
             drawPanel.requestFocus();
             
-            if ( simulationSteps.isEmpty() ) {
+            if ( simulationSteps.isEmpty() && 
+                    pda.getLastRunStatus() != PDARunStatus.DECIDED ) {
+                Utils.showWarningMessage( this, getRunLimitMessage() );
+                btnStop.doClick();
+                setTestToLimitReachedInGUI();
+            } else if ( simulationSteps.isEmpty() ) {
                 Utils.showWarningMessage( this, String.format(
                         """
                         The PDA simulation only works with accepted strings!
@@ -2230,16 +2230,16 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
                     "You must define a Pushdown Automaton First!" );
         } else {
             
-            try {
-                
-                PDA newPda = new PDAFinalStateToEmptyStack( pda ).getGeneratedPDA();
-                PDAArrangement.arrangeByLevel( newPda, 100, 100, 150, false );
-                mainWindow.createPDAInternalFrame( newPda, false, false, null, null, 
-                        PDAAcceptanceType.EMPTY_STACK );
+            PDA pdaCopy = copyPDA();
                 
-            } catch ( IllegalArgumentException exc ) {
-                Utils.showErrorMessage( this, exc.getMessage() );
-            }
+            new BackgroundTask<PDA>( this, "Converting to acceptance by empty stack...", 
+                    progressListener -> {
+                        PDA newPda = new PDAFinalStateToEmptyStack( pdaCopy ).getGeneratedPDA();
+                        PDAArrangement.arrangeByLevel( newPda, 100, 100, 150, false );
+                        return newPda;
+                    },
+                    newPda -> mainWindow.createPDAInternalFrame( newPda, false, false, null, null, 
+                            PDAAcceptanceType.EMPTY_STACK ) ).start();
             
         }
         
@@ -2254,22 +2254,24 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
                     "You must define a Pushdown Automaton First!" );
         } else {
             
-            try {
-                
-                PDA newPda = new PDAEmptyStackToFinalState( pda ).getGeneratedPDA();
-                PDAArrangement.arrangeByLevel( newPda, 100, 100, 150, false );
-                mainWindow.createPDAInternalFrame( newPda, false, false, null, null,
-                        PDAAcceptanceType.FINAL_STATE );
+            PDA pdaCopy = copyPDA();
                 
-            } catch ( IllegalArgumentException exc ) {
-                Utils.showErrorMessage( this, exc.getMessage() );
-            }
+            new BackgroundTask<PDA>( this, "Converting to acceptance by final state...", 
+                    progressListener -> {
+                        PDA newPda = new PDAEmptyStackToFinalState( pdaCopy ).getGeneratedPDA();
+                        PDAArrangement.arrangeByLevel( newPda, 100, 100, 150, false );
+                        return newPda;
+                    },
+                    newPda -> mainWindow.createPDAInternalFrame( newPda, false, false, null, null, 
+                            PDAAcceptanceType.FINAL_STATE ) ).start();
             
         }
         
     }//GEN-LAST:event_btnEmptyStackToFinalStateActionPerformed
 
     public void repaintDrawPanel() {
+        // the states and transitions may have been changed directly
+        pda.markSpatialIndexAsObsolete();
         drawPanel.repaint();
         drawPanel.setPreferredSize( new Dimension( pda.getWidth(), pda.getHeight() ) );
         drawPanel.revalidate();
@@ -2327,6 +2329,9 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
                             PDAAcceptanceType.FINAL_STATE : 
                             PDAAcceptanceType.EMPTY_STACK ) ) {
                 setTestToAcceptedInGUI( );
+            } else if ( pda.getLastRunStatus() != PDARunStatus.DECIDED ) {
+                setTestToLimitReachedInGUI( );
+                Utils.showWarningMessage( this, getRunLimitMessage() );
             } else {
                 setTestToRejectedInGUI( );
             }
@@ -2390,6 +2395,42 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
         lblTestResult.setText( "REJECTED" );
     }
     
+    private void setTestToLimitReachedInGUI() {
+        lblTestResult.setForeground(
+                DrawingConstants.LIMIT_REACHED_LABEL_FOREGROUND_COLOR );
+        txtTestString.setForeground(
+                DrawingConstants.LIMIT_REACHED_TEXTFIELD_FOREGROUND_COLOR );
+        txtTestString.setBackground(
+                DrawingConstants.LIMIT_REACHED_TEXTFIELD_BACKGROUND_COLOR );
+        txtTestString.setCaretColor( txtTestString.getForeground() );
+        lblTestResult.setText( "LIMIT REACHED" );
+    }
+    
+    private String getRunLimitMessage() {
+        
+        String reason;
+        switch ( pda.getLastRunStatus() ) {
+            case TIME_LIMIT_REACHED:
+                reason = "the time limit was reached";
+                break;
+            default:
+                reason = String.format( "the limit of %d configurations was reached",
+                        ApplicationConstants.PUSHDOWN_AUTOMATON_MAX_CONFIGURATIONS );
+                break;
+        }
+        
+        return String.format( 
+            """
+            The search for an accepting path was stopped, since %s.
+            It is unknown if the input string "%s" is accepted,
+            so it was not rejected.""", 
+            reason, 
+            txtTestString.getText().isEmpty() ? 
+                    CharacterConstants.EMPTY_STRING.toString() : 
+                    txtTestString.getText() );
+        
+    }
+    
     private void resetTestInGUI() {
         txtTestString.setBackground( txtTestStringDefaultBC );
         txtTestString.setForeground( txtTestStringDefaultFC );
@@ -2507,6 +2548,10 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
         
     }
 
+    public PDA getPda() {
+        return pda;
+    }
+
     public void setCurrentState( int currentState ) {
         this.currentState = currentState;
     }
@@ -2539,11 +2584,9 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
     
     private void serializePDAToFile( File file ) {
         
-        try ( FileOutputStream fos = new FileOutputStream( file );
-                ObjectOutputStream oos = new ObjectOutputStream( fos ) ) {
+        try {
 
-            oos.writeObject( pda );
-            oos.flush();
+            ModelWriter.save( pda, file );
             currentFile = file;
             setCurrentFileSaved( true );
 
@@ -2628,10 +2671,9 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
                         ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH, 
                         f.getParentFile().getAbsolutePath() );
                 
-                try ( FileInputStream fis = new FileInputStream( f );
-                      ObjectInputStream ois = new ObjectInputStream( fis ) ) {
+                try {
                     
-                    pda = (PDA) ois.readObject();
+                    pda = ModelReader.loadPDA( f );
                     pda.deactivateAllStatesInSimulation();
                     pda.deselectAll();
                     pda.setTransitionsControlPointsVisible( false );
@@ -2641,12 +2683,13 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
                     pdaPPanel.readProperties();
                     cardLayout.show( panelProperties, MODEL_PROPERTIES_CARD );
         
+                    // files in the legacy format are migrated when saved
                     currentFile = f;
-                    setCurrentFileSaved( true );
+                    setCurrentFileSaved( !ModelReader.isLegacyFormat( f ) );
                     
                     repaintDrawPanel();
                     
-                } catch ( IOException | ClassNotFoundException exc ) {
+                } catch ( IOException exc ) {
                     Utils.showException( exc );
                 }
                 
@@ -2656,6 +2699,19 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
         
     }
     
+    /**
+     * Copies the PDA, so it can be processed in a background task while the
+     * original one is edited.
+     */
+    private PDA copyPDA() {
+        try {
+            return (PDA) pda.clone();
+        } catch ( CloneNotSupportedException exc ) {
+            // should never be reached
+            throw new IllegalStateException( exc );
+        }
+    }
+    
     private PDA loadPDA( String title ) {
         
         JFileChooser jfc = new JFileChooser( new File( ApplicationPreferences.getPref( ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH ) ) );
@@ -2675,10 +2731,9 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
                         ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH, 
                         f.getParentFile().getAbsolutePath() );
                 
-                try ( FileInputStream fis = new FileInputStream( f );
-                      ObjectInputStream ois = new ObjectInputStream( fis ) ) {
+                try {
                     
-                    PDA pda = (PDA) ois.readObject();
+                    PDA pda = ModelReader.loadPDA( f );
                     pda = (PDA) pda.clone();
                     pda.deactivateAllStatesInSimulation();
                     pda.deselectAll();
@@ -2686,7 +2741,7 @@ public class PDAInternalFrame extends javax.swing.JInternalFrame {
                     
                     return pda;
                     
-                } catch ( IOException | ClassNotFoundException | CloneNotSupportedException exc ) {
+                } catch ( IOException | CloneNotSupportedException exc ) {
                     Utils.showException( exc );
                 }
                 
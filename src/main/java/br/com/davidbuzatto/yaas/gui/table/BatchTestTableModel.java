@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.gui.table;
+
+import br.com.davidbuzatto.yaas.model.BatchTestExecutor;
+import br.com.davidbuzatto.yaas.model.BatchTestResult;
+import br.com.davidbuzatto.yaas.model.BatchTestStatus;
+import br.com.davidbuzatto.yaas.util.CharacterConstants;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * A table model for the results of batch tests. There is one row for each
+ * tested string, in the order of the batch, and the rows are filled as the
+ * results are completed.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class BatchTestTableModel extends AbstractTableModel {
+    
+    private static final String[] COLUMNS = {
+        "#", "String", "Result", "Status", "Steps", "Time (ms)", "Output" };
+    
+    private final BatchTestExecutor executor;
+    private final BatchTestResult[] results;
+    private final boolean showOutput;
+    
+    /**
+     * Creates a new table model.
+     * 
+     * @param executor The executor of the batch.
+     * @param showOutput If the output column must be shown.
+     */
+    public BatchTestTableModel( BatchTestExecutor executor, boolean showOutput ) {
+        this.executor = executor;
+        this.results = new BatchTestResult[executor.getSize()];
+        this.showOutput = showOutput;
+    }
+    
+    /**
+     * Adds completed results to the table.
+     * 
+     * @param newResults The results.
+     */
+    public void addResults( List<BatchTestResult> newResults ) {
+        
+        if ( newResults.isEmpty() ) {
+            return;
+        }
+        
+        int first = Integer.MAX_VALUE;
+        int last = -1;
+        
+        for ( BatchTestResult r : newResults ) {
+            results[r.getIndex()] = r;
+            first = Math.min( first, r.getIndex() );
+            last = Math.max( last, r.getIndex() );
+        }
+        
+        fireTableRowsUpdated( first, last );
+        
+    }
+    
+    public BatchTestResult getResult( int rowIndex ) {
+        return results[rowIndex];
+    }
+    
+    @Override
+    public int getRowCount() {
+        return results.length;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return showOutput ? COLUMNS.length : COLUMNS.length - 1;
+    }
+    
+    @Override
+    public String getColumnName( int columnIndex ) {
+        return COLUMNS[columnIndex];
+    }
+    
+    @Override
+    public Class<?> getColumnClass( int columnIndex ) {
+        switch ( columnIndex ) {
+            case 0:
+                return Integer.class;
+            case 4:
+                return Long.class;
+            case 5:
+                return Double.class;
+            default:
+                return String.class;
+        }
+    }
+    
+    @Override
+    public Object getValueAt( int rowIndex, int columnIndex ) {
+        
+        BatchTestResult r = results[rowIndex];
+        
+        switch ( columnIndex ) {
+            case 0:
+                return rowIndex + 1;
+            case 1:
+                String str = executor.getString( rowIndex );
+                return str.isEmpty() ? CharacterConstants.EMPTY_STRING.toString() : str;
+            case 2:
+                if ( r == null || !r.getStatus().isDecided() ) {
+                    return "";
+                }
+                return String.format( "%c L(A)", r.getStatus() == BatchTestStatus.ACCEPTED ?
+                        CharacterConstants.ELEMENT_OF :
+                        CharacterConstants.NOT_ELEMENT_OF );
+            case 3:
+                return r == null ? "" : r.getStatus().toString();
+            case 4:
+                return r == null ? null : r.getSteps();
+            case 5:
+                return r == null ? null : r.getTime() / 1000000.0;
+            case 6:
+                return r == null || r.getOutput() == null ? "" : r.getOutput();
+            default:
+                return null;
+        }
+        
+    }
+    
+}
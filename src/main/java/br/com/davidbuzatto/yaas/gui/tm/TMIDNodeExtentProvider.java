@@ -28,7 +28,7 @@ public class TMIDNodeExtentProvider implements NodeExtentProvider<TMID>{
 
     @Override
     public double getWidth( TMID tn ) {
-        return tn.getTextWidth();
+        return tn.getExtentWidth();
     }
 
     @Override
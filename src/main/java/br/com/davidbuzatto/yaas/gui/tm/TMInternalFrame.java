@@ -16,6 +16,7 @@
  */
 package br.com.davidbuzatto.yaas.gui.tm;
 
+import br.com.davidbuzatto.yaas.gui.BackgroundTask;
 import br.com.davidbuzatto.yaas.gui.MainWindow;
 import br.com.davidbuzatto.yaas.gui.ZoomFacility;
 import br.com.davidbuzatto.yaas.gui.tm.properties.TMPropertiesPanel;
@@ -24,10 +25,14 @@ import br.com.davidbuzatto.yaas.gui.tm.properties.TMTransitionPropertiesPanel;
 import br.com.davidbuzatto.yaas.model.tm.TM;
 import br.com.davidbuzatto.yaas.model.tm.TMAcceptanceType;
 import br.com.davidbuzatto.yaas.model.tm.TMOperation;
+import br.com.davidbuzatto.yaas.model.tm.TMRunConfiguration;
+import br.com.davidbuzatto.yaas.model.tm.TMRunStatus;
 import br.com.davidbuzatto.yaas.model.tm.TMState;
 import br.com.davidbuzatto.yaas.model.tm.TMTransition;
 import br.com.davidbuzatto.yaas.model.tm.TMType;
 import br.com.davidbuzatto.yaas.model.tm.algorithms.TMArrangement;
+import br.com.davidbuzatto.yaas.model.io.ModelReader;
+import br.com.davidbuzatto.yaas.model.io.ModelWriter;
 import br.com.davidbuzatto.yaas.util.ApplicationConstants;
 import br.com.davidbuzatto.yaas.util.ApplicationPreferences;
 import br.com.davidbuzatto.yaas.util.CharacterConstants;
@@ -53,11 +58,7 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -98,14 +99,6 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
     private static final String MODEL_PROPERTIES_CARD = "model";
     private static final String STATE_PROPERTIES_CARD = "state";
     private static final String TRANSITION_PROPERTIES_CARD = "transition";
-    private static final String MAX_COUNT_ERROR_MESSAGE = String.format(
-            """
-            It seems that the designed Turing Machine doesn't halt!
-            
-            Since YAAS can store around %d transitions in tests, 
-            either your input takes too long to be processed, or you
-            have an infinite loop.
-            """, ApplicationConstants.TURING_MACHINE_MAX_COUNT );
     
     private TM tm;
     private MainWindow mainWindow;
@@ -1206,13 +1199,12 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
                         xPressed <= evt.getX() ? evt.getX() - xPressed : xPressed - evt.getX(), 
                         yPressed <= evt.getY() ? evt.getY() - yPressed : yPressed - evt.getY() );
 
-                for ( TMState s : tm.getStates() ) {
-                    if ( s.intersects( rectangle ) ) {
-                        s.setSelected( true );
-                        selectedStates.add( s );
-                    }
-                    s.setMouseHover( false );
+                for ( TMState s : tm.getStatesAt( rectangle ) ) {
+                    s.setSelected( true );
+                    selectedStates.add( s );
                 }
+                
+                tm.resetStatesMouseHover();
 
                 drawPanel.setSelectionRectangle( null );
 
@@ -1317,13 +1309,7 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
                         xPressed <= evt.getX() ? evt.getX() - xPressed : xPressed - evt.getX(), 
                         yPressed <= evt.getY() ? evt.getY() - yPressed : yPressed - evt.getY() );
 
-                for ( TMState s : tm.getStates() ) {
-                    if ( s.intersects( rectangle ) ) {
-                        s.setMouseHover( true );
-                    } else {
-                        s.setMouseHover( false );
-                    }
-                }
+                tm.mouseHoverStates( rectangle );
 
                 drawPanel.setSelectionRectangle( rectangle );
                 repaintDrawPanel();
@@ -1376,8 +1362,10 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
     private void drawPanelMouseMoved(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_drawPanelMouseMoved
         
         if ( btnMove.isSelected() || btnAddTransition.isSelected() ) {
-            tm.mouseHoverStatesAndTransitions( evt.getX(), evt.getY() );
-            repaintDrawPanel();
+            Rectangle region = tm.mouseHoverStatesAndTransitions( evt.getX(), evt.getY() );
+            if ( region != null ) {
+                drawPanel.repaint( region );
+            }
         }
         
     }//GEN-LAST:event_drawPanelMouseMoved
@@ -1501,15 +1489,29 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
                 selectedStates.clear();
                 simulationSteps.clear();
                 currentSimulationStep = 0;
+                
+                // the simulation runs in the event dispatch thread, so its
+                // budgets are small (only the last steps are kept anyway)
+                TMRunConfiguration configuration = new TMRunConfiguration( 
+                        ApplicationConstants.TURING_MACHINE_SIMULATION_MAX_STEPS, 
+                        ApplicationConstants.TURING_MACHINE_SIMULATION_MAX_TIME, 
+                        ApplicationConstants.TURING_MACHINE_MAX_TAPE_LENGTH, 
+                        ApplicationConstants.TURING_MACHINE_MAX_COUNT );
 
                 boolean accepted = tm.accepts( 
                         txtTestString.getText(), 
                         radioAcceptByFinalState.isSelected() ? 
                                 TMAcceptanceType.FINAL_STATE : 
                                 TMAcceptanceType.HALT,
-                        simulationSteps );
+                        simulationSteps, 
+                        configuration );
 
-                if ( tm.isAbleToHalt() ) {
+                if ( !tm.isAbleToHalt() ) {
+                    Utils.showErrorMessage( this, getRunLimitErrorMessage( tm ) );
+                }
+                
+                // the last steps are simulated even if the machine was stopped
+                if ( tm.isAbleToHalt() || !simulationSteps.isEmpty() ) {
                     
                     String tape = tm.getTapeAfterAcceptsExecution();
                     if ( tape != null ) {
@@ -1534,13 +1536,12 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
                     drawPanel.requestFocus();
                     
                 } else {
-                    Utils.showErrorMessage( this, MAX_COUNT_ERROR_MESSAGE );
                     enableGUI();
                 }
             
             } else {
                 Utils.showErrorMessage( this, 
-                        "Nondeterministic Turing Machines are currently not supported!" );
+                        "The simulation of Nondeterministic Turing Machines is currently not supported!" );
                 enableGUI();
             }
             
@@ -2224,6 +2225,8 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
     }//GEN-LAST:event_txtTestStringKeyReleased
 
     public void repaintDrawPanel() {
+        // the states and transitions may have been changed directly
+        tm.markSpatialIndexAsObsolete();
         drawPanel.repaint();
         drawPanel.setPreferredSize( new Dimension( tm.getWidth(), tm.getHeight() ) );
         drawPanel.revalidate();
@@ -2279,32 +2282,19 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
         
         if ( tm.canExecute() ) {
             
-            if ( tm.getType() == TMType.DTM ) {
+            if ( tm.getType() == TMType.DTM || tm.getType() == TMType.NTM ) {
                 
-                if ( tm.accepts( txtTestString.getText(), 
-                        radioAcceptByFinalState.isSelected() ? 
-                                TMAcceptanceType.FINAL_STATE : 
-                                TMAcceptanceType.HALT ) ) {
-                    setTestToAcceptedInGUI( );
-                } else {
-                    setTestToRejectedInGUI( );
-                }
-
-                if ( tm.isAbleToHalt() ) {
-                    
-                    String tape = tm.getTapeAfterAcceptsExecution();
-                    if ( tape != null ) {
-                        txtTape.setText( tape );
-                    }
-
-                    if ( checkShowIDs.isSelected() ) {
-                        TMIDViewerFrame pViewer = new TMIDViewerFrame( this, tm );
-                        pViewer.setVisible( true );
-                    }
-                    
-                } else {
-                    Utils.showErrorMessage( this, MAX_COUNT_ERROR_MESSAGE );
-                }
+                // the machine may run for a long time, so a copy of it runs
+                // in background and its results are shown
+                TM tmCopy = copyTM();
+                String str = txtTestString.getText();
+                TMAcceptanceType acceptanceType = radioAcceptByFinalState.isSelected() ? 
+                        TMAcceptanceType.FINAL_STATE : 
+                        TMAcceptanceType.HALT;
+                
+                new BackgroundTask<Boolean>( this, "Running the Turing Machine...", 
+                        progressListener -> tmCopy.accepts( str, acceptanceType ),
+                        accepted -> showSingleTestResult( tmCopy, accepted ) ).start();
                 
             } else {
                 Utils.showErrorMessage( this, 
@@ -2317,6 +2307,110 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
         
     }
     
+    private void showSingleTestResult( TM tm, boolean accepted ) {
+        
+        if ( accepted ) {
+            setTestToAcceptedInGUI( );
+        } else {
+            setTestToRejectedInGUI( );
+        }
+        
+        if ( tm.isAbleToHalt() ) {
+            
+            String tape = tm.getTapeAfterAcceptsExecution();
+            if ( tape != null ) {
+                txtTape.setText( tape );
+            }
+            
+            if ( checkShowIDs.isSelected() ) {
+                TMIDViewerFrame pViewer = new TMIDViewerFrame( this, tm );
+                pViewer.setVisible( true );
+            }
+            
+        } else {
+            Utils.showErrorMessage( this, getRunLimitErrorMessage( tm ) );
+        }
+        
+    }
+    
+    /**
+     * Copies the TM, so it can be processed in a background task while the
+     * original one is edited.
+     */
+    private TM copyTM() {
+        try {
+            return (TM) tm.clone();
+        } catch ( CloneNotSupportedException exc ) {
+            // should never be reached
+            throw new IllegalStateException( exc );
+        }
+    }
+    
+    private String getRunLimitErrorMessage( TM tm ) {
+        
+        if ( tm.getLastRunStatus() == TMRunStatus.LOOP_DETECTED && 
+                tm.getType() == TMType.NTM ) {
+            return """
+                None of the branches of the designed Turing Machine
+                halts for this input!
+                """;
+        }
+        
+        if ( tm.getLastRunStatus() == TMRunStatus.LOOP_DETECTED && 
+                tm.getLoopEntryStep() < 0 ) {
+            return String.format( 
+                """
+                The designed Turing Machine doesn't halt for this input!
+                
+                A configuration repeats every %d steps, so the machine
+                loops forever.
+                """, tm.getLoopLength() );
+        }
+        
+        if ( tm.getLastRunStatus() == TMRunStatus.LOOP_DETECTED ) {
+            return String.format( 
+                """
+                The designed Turing Machine doesn't halt for this input!
+                
+                The configuration reached after %d steps repeats
+                every %d steps, so the machine loops forever.
+                """, tm.getLoopEntryStep(), tm.getLoopLength() );
+        }
+        
+        if ( tm.getLastRunStatus() == TMRunStatus.CANCELLED ) {
+            return String.format( 
+                """
+                The execution was cancelled after %d steps.
+                """, tm.getLastRunSteps() );
+        }
+        
+        String reason;
+        switch ( tm.getLastRunStatus() ) {
+            case TIME_LIMIT_REACHED:
+                reason = "the time limit was reached";
+                break;
+            case TAPE_LIMIT_REACHED:
+                reason = "the tape limit was reached";
+                break;
+            case CONFIGURATION_LIMIT_REACHED:
+                reason = "the configuration limit was reached";
+                break;
+            default:
+                reason = "the step limit was reached";
+                break;
+        }
+        
+        return String.format( 
+            """
+            It seems that the designed Turing Machine doesn't halt!
+            
+            The execution was stopped after %d steps, since %s.
+            Either your input takes too long to be processed, or you
+            have an infinite loop.
+            """, tm.getLastRunSteps(), reason );
+        
+    }
+    
     private void updateSimulationButtons( int step ) {
         
         if ( step == 0 && simulationSteps.size() == 1 ) {
@@ -2476,6 +2570,10 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
         
     }
 
+    public TM getTm() {
+        return tm;
+    }
+
     public void setCurrentState( int currentState ) {
         this.currentState = currentState;
     }
@@ -2508,11 +2606,9 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
     
     private void serializeTMToFile( File file ) {
         
-        try ( FileOutputStream fos = new FileOutputStream( file );
-                ObjectOutputStream oos = new ObjectOutputStream( fos ) ) {
+        try {
 
-            oos.writeObject( tm );
-            oos.flush();
+            ModelWriter.save( tm, file );
             currentFile = file;
             setCurrentFileSaved( true );
 
@@ -2597,10 +2693,9 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
                         ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH, 
                         f.getParentFile().getAbsolutePath() );
                 
-                try ( FileInputStream fis = new FileInputStream( f );
-                      ObjectInputStream ois = new ObjectInputStream( fis ) ) {
+                try {
                     
-                    tm = (TM) ois.readObject();
+                    tm = ModelReader.loadTM( f );
                     tm.deactivateAllStatesInSimulation();
                     tm.deselectAll();
                     tm.setTransitionsControlPointsVisible( false );
@@ -2610,12 +2705,13 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
                     tmPPanel.readProperties();
                     cardLayout.show( panelProperties, MODEL_PROPERTIES_CARD );
         
+                    // files in the legacy format are migrated when saved
                     currentFile = f;
-                    setCurrentFileSaved( true );
+                    setCurrentFileSaved( !ModelReader.isLegacyFormat( f ) );
                     
                     repaintDrawPanel();
                     
-                } catch ( IOException | ClassNotFoundException exc ) {
+                } catch ( IOException exc ) {
                     Utils.showException( exc );
                 }
                 
@@ -2644,10 +2740,9 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
                         ApplicationPreferences.PREF_DEFAULT_FOLDER_PATH, 
                         f.getParentFile().getAbsolutePath() );
                 
-                try ( FileInputStream fis = new FileInputStream( f );
-                      ObjectInputStream ois = new ObjectInputStream( fis ) ) {
+                try {
                     
-                    TM tm = (TM) ois.readObject();
+                    TM tm = ModelReader.loadTM( f );
                     tm = (TM) tm.clone();
                     tm.deactivateAllStatesInSimulation();
                     tm.deselectAll();
@@ -2655,7 +2750,7 @@ public class TMInternalFrame extends javax.swing.JInternalFrame {
                     
                     return tm;
                     
-                } catch ( IOException | ClassNotFoundException | CloneNotSupportedException exc ) {
+                } catch ( IOException | CloneNotSupportedException exc ) {
                     Utils.showException( exc );
                 }
                 
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cooperative cancellation of long running algorithms.
+ * 
+ * The algorithms call check in their main loops, so they stop when the
+ * thread that runs them is interrupted or when the cancellation condition of
+ * the current thread (see run) becomes true. The condition is needed because
+ * the interrupted status may be silently cleared by the code that the
+ * algorithms use (the font metrics used by the transition labels, for
+ * example), so the background tasks of the internal frames don't rely only on
+ * the interruption.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class AlgorithmCancellation {
+    
+    private static final ThreadLocal<BooleanSupplier> CONDITION = new ThreadLocal<>();
+    
+    /**
+     * Runs an action in the current thread with a cancellation condition.
+     * 
+     * @param <T> The type of the result of the action.
+     * @param condition Returns true when the action must be cancelled.
+     * @param action The action.
+     * @return The result of the action.
+     * @throws Exception If the action fails or is cancelled.
+     */
+    public static <T> T run( BooleanSupplier condition, Callable<T> action ) throws Exception {
+        
+        BooleanSupplier previous = CONDITION.get();
+        CONDITION.set( condition );
+        
+        try {
+            return action.call();
+        } finally {
+            if ( previous == null ) {
+                CONDITION.remove();
+            } else {
+                CONDITION.set( previous );
+            }
+        }
+        
+    }
+    
+    /**
+     * Verifies if the algorithm that runs in the current thread must stop.
+     * The interrupted status is not cleared.
+     * 
+     * @return true if the current thread was interrupted or if its
+     * cancellation condition is true.
+     */
+    public static boolean isCancelled() {
+        BooleanSupplier condition = CONDITION.get();
+        return Thread.currentThread().isInterrupted() || 
+                ( condition != null && condition.getAsBoolean() );
+    }
+    
+    /**
+     * Verifies if the algorithm that runs in the current thread must stop.
+     * 
+     * @throws CancellationException If the current thread was interrupted or
+     * if its cancellation condition is true.
+     */
+    public static void check() throws CancellationException {
+        if ( isCancelled() ) {
+            throw new CancellationException( "The algorithm was cancelled!" );
+        }
+    }
+    
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model;
+
+/**
+ * Receives the progress of long running algorithms and decides if they must
+ * continue.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+@FunctionalInterface
+public interface AlgorithmProgressListener {
+    
+    /**
+     * Called periodically by the algorithm.
+     * 
+     * @param processed How many items (states, configurations etc.) were
+     * already processed.
+     * @param discovered How many items were discovered until now.
+     * @return true if the algorithm must continue, false to cancel it.
+     */
+    boolean progress( long processed, long discovered );
+    
+}
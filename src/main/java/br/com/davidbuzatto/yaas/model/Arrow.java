@@ -28,6 +28,8 @@ import java.awt.geom.Path2D;
  */
 public class Arrow extends AbstractGeometricForm implements Cloneable {
     
+    private static final long serialVersionUID = -4961223264037793492L;
+    
     private double angle = 0;
     
     private int length;
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Tests a batch of strings in a pool of threads.
+ * 
+ * Each worker has its own tester (see BatchTester), created in the thread
+ * that creates the executor, so the testers are snapshots of the machine
+ * taken before the execution starts. The workers take the next string to
+ * be tested from a shared counter, so long running strings don't keep the
+ * other workers idle.
+ * 
+ * The results are published as they are completed, in any order, and are
+ * collected by polling (see pollResults). A cancelled execution doesn't
+ * start new tests and interrupts the running ones; the results of the
+ * interrupted tests are discarded.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class BatchTestExecutor {
+    
+    private final List<String> strings;
+    private final List<BatchTester> testers;
+    
+    private final AtomicInteger next;
+    private final AtomicInteger completed;
+    private final Queue<BatchTestResult> results;
+    private final CountDownLatch finished;
+    
+    private ExecutorService pool;
+    private volatile boolean cancelled;
+    
+    /**
+     * Creates a new executor.
+     * 
+     * @param strings The strings to be tested.
+     * @param threads How many threads will be used.
+     * @param testerFactory Creates the tester of each worker. It is called
+     * by this constructor, once per thread.
+     */
+    public BatchTestExecutor( List<String> strings, int threads, Supplier<BatchTester> testerFactory ) {
+        
+        if ( threads <= 0 ) {
+            throw new IllegalArgumentException( "The number of threads must be positive!" );
+        }
+        
+        this.strings = new ArrayList<>( strings );
+        this.testers = new ArrayList<>();
+        
+        int workers = Math.max( 1, Math.min( threads, this.strings.size() ) );
+        for ( int i = 0; i < workers; i++ ) {
+            testers.add( testerFactory.get() );
+        }
+        
+        next = new AtomicInteger();
+        completed = new AtomicInteger();
+        results = new ConcurrentLinkedQueue<>();
+        finished = new CountDownLatch( workers );
+        
+    }
+    
+    /**
+     * Starts the execution. The threads are daemons, so a running batch
+     * doesn't prevent the application from exiting.
+     */
+    public synchronized void start() {
+        
+        if ( pool != null ) {
+            throw new IllegalStateException( "The execution was already started!" );
+        }
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = Executors.newFixedThreadPool( testers.size(), r -> {
+            Thread t = new Thread( r, "batch-test-" + threadCount.incrementAndGet() );
+            t.setDaemon( true );
+            return t;
+        });
+        
+        for ( BatchTester tester : testers ) {
+            pool.execute( () -> work( tester ) );
+        }
+        
+        pool.shutdown();
+        
+    }
+    
+    private void work( BatchTester tester ) {
+        
+        try {
+            
+            int i;
+            while ( !cancelled && ( i = next.getAndIncrement() ) < strings.size() ) {
+                
+                String str = strings.get( i );
+                long start = System.nanoTime();
+                BatchTestResult result;
+                
+                try {
+                    result = tester.test( str );
+                } catch ( RuntimeException | StackOverflowError exc ) {
+                    result = new BatchTestResult( BatchTestStatus.ERROR, 0, exc.toString() );
+                }
+                
+                if ( cancelled ) {
+                    break;
+                }
+                
+                result.complete( i, str, System.nanoTime() - start );
+                results.add( result );
+                completed.incrementAndGet();
+                
+            }
+            
+        } finally {
+            finished.countDown();
+        }
+        
+    }
+    
+    /**
+     * Cancels the execution.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if ( pool != null ) {
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * Moves the results completed since the last call to a collection.
+     * 
+     * @param target Where the results will be added.
+     * @return How many results were moved.
+     */
+    public int pollResults( Collection<BatchTestResult> target ) {
+        
+        int count = 0;
+        BatchTestResult r;
+        
+        while ( ( r = results.poll() ) != null ) {
+            target.add( r );
+            count++;
+        }
+        
+        return count;
+        
+    }
+    
+    /**
+     * Waits for the end of the execution.
+     * 
+     * @param timeout The maximum time to wait, in milliseconds.
+     * @return true if the execution ended, false if the time was over.
+     * @throws InterruptedException If the current thread is interrupted.
+     */
+    public boolean await( long timeout ) throws InterruptedException {
+        return finished.await( timeout, TimeUnit.MILLISECONDS );
+    }
+    
+    /**
+     * @return true if all the workers stopped, because all the strings were
+     * tested or because the execution was cancelled, false otherwise.
+     */
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    /**
+     * @return How many strings were already tested.
+     */
+    public int getCompleted() {
+        return completed.get();
+    }
+    
+    public int getSize() {
+        return strings.size();
+    }
+    
+    public String getString( int index ) {
+        return strings.get( index );
+    }
+    
+    public int getThreads() {
+        return testers.size();
+    }
+    
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model;
+
+/**
+ * The result of the test of a string in a batch test.
+ * 
+ * The testers create the results with the outcome of the test and the
+ * executor completes them with the position of the string in the batch and
+ * with the time spent.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class BatchTestResult {
+    
+    private final BatchTestStatus status;
+    private final long steps;
+    private final String output;
+    
+    private int index;
+    private String string;
+    private long time;
+    
+    /**
+     * Creates a new result.
+     * 
+     * @param status The outcome of the test.
+     * @param steps How many steps (or configurations) the machine executed.
+     * @param output The output of the machine (e.g. the contents of the
+     * tape of a Turing Machine) or null if there is no output.
+     */
+    public BatchTestResult( BatchTestStatus status, long steps, String output ) {
+        this.status = status;
+        this.steps = steps;
+        this.output = output;
+    }
+    
+    void complete( int index, String string, long time ) {
+        this.index = index;
+        this.string = string;
+        this.time = time;
+    }
+    
+    public BatchTestStatus getStatus() {
+        return status;
+    }
+    
+    public long getSteps() {
+        return steps;
+    }
+    
+    public String getOutput() {
+        return output;
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    public String getString() {
+        return string;
+    }
+    
+    /**
+     * @return The time spent testing the string, in nanoseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchTestResult{" + "index=" + index + ", string=" + string + ", status=" + status + ", steps=" + steps + ", output=" + output + ", time=" + time + '}';
+    }
+    
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model;
+
+/**
+ * The outcome of the test of a string in a batch test.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public enum BatchTestStatus {
+    
+    ACCEPTED,
+    REJECTED,
+    LOOP_DETECTED,
+    LIMIT_REACHED,
+    TIME_LIMIT_REACHED,
+    CANCELLED,
+    ERROR;
+    
+    /**
+     * @return true if the machine decided the string, i.e., if the string
+     * was accepted or rejected, false otherwise.
+     */
+    public boolean isDecided() {
+        return this == ACCEPTED || this == REJECTED;
+    }
+    
+}
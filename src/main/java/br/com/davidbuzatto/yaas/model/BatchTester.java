@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model;
+
+/**
+ * Tests strings against a snapshot of a machine. Each worker of a batch
+ * test (see BatchTestExecutor) has its own tester, so a tester doesn't need
+ * to be thread-safe, but it must not share mutable state with the other
+ * testers nor with the machine being edited.
+ * 
+ * A tester is responsible for enforcing its own budgets (steps, time etc.)
+ * and must stop as soon as possible when its thread is interrupted.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+@FunctionalInterface
+public interface BatchTester {
+    
+    /**
+     * Tests a string.
+     * 
+     * @param str The string to be tested.
+     * @return The result of the test.
+     */
+    BatchTestResult test( String str );
+    
+}
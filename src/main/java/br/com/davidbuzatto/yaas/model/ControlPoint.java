@@ -17,6 +17,7 @@
 package br.com.davidbuzatto.yaas.model;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 
 /**
  * A graphical representation of a control point.
@@ -25,6 +26,8 @@ import java.awt.Graphics2D;
  */
 public class ControlPoint extends AbstractGeometricForm implements Cloneable {
     
+    private static final long serialVersionUID = 3716064606345468047L;
+    
     private int radius;
     private int radiusSquared;
     private int diameter;
@@ -54,6 +57,19 @@ public class ControlPoint extends AbstractGeometricForm implements Cloneable {
         return x*x + y*y <= radiusSquared;
     }
 
+    /**
+     * Returns the bounds of the control point, including its border.
+     * 
+     * @return The bounds.
+     */
+    public Rectangle getBounds() {
+        return new Rectangle( x1 - radius - 2, y1 - radius - 2, diameter + 5, diameter + 5 );
+    }
+    
+    public int getRadius() {
+        return radius;
+    }
+    
     public void setRadius( int radius ) {
         this.radius = radius;
         this.radiusSquared = radius * radius;
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model;
+
+import java.util.List;
+
+/**
+ * The result of a differential test (see DifferentialTester).
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class DifferentialTestReport {
+    
+    private final long size;
+    private final long tested;
+    private final long inconclusive;
+    private final long mismatchCount;
+    private final List<Mismatch> mismatches;
+    private final boolean complete;
+    private final long time;
+    
+    DifferentialTestReport(
+            long size,
+            long tested,
+            long inconclusive,
+            long mismatchCount,
+            List<Mismatch> mismatches,
+            boolean complete,
+            long time ) {
+        this.size = size;
+        this.tested = tested;
+        this.inconclusive = inconclusive;
+        this.mismatchCount = mismatchCount;
+        this.mismatches = mismatches;
+        this.complete = complete;
+        this.time = time;
+    }
+    
+    /**
+     * @return How many strings would be tested (all the strings up to the
+     * maximum length or the size of the sample).
+     */
+    public long getSize() {
+        return size;
+    }
+    
+    /**
+     * @return How many strings were tested by both machines.
+     */
+    public long getTested() {
+        return tested;
+    }
+    
+    /**
+     * @return How many strings were not decided by at least one of the
+     * machines (limits reached, loops or errors). They are not mismatches.
+     */
+    public long getInconclusive() {
+        return inconclusive;
+    }
+    
+    /**
+     * @return How many mismatches were found.
+     */
+    public long getMismatchCount() {
+        return mismatchCount;
+    }
+    
+    /**
+     * @return The first mismatches, in shortlex order of their strings.
+     */
+    public List<Mismatch> getMismatches() {
+        return mismatches;
+    }
+    
+    /**
+     * @return true if all the strings were tested, false if the test
+     * stopped at the first mismatch or was cancelled.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+    
+    /**
+     * @return The time spent, in nanoseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+    
+    /**
+     * @return true if no mismatch was found.
+     */
+    public boolean isEquivalent() {
+        return mismatchCount == 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "DifferentialTestReport{" + "size=" + size + ", tested=" + tested + ", inconclusive=" + inconclusive + ", mismatchCount=" + mismatchCount + ", mismatches=" + mismatches + ", complete=" + complete + ", time=" + time + '}';
+    }
+    
+    /**
+     * A string where the machines disagree.
+     */
+    public static class Mismatch {
+        
+        private final long rank;
+        private final String string;
+        private final BatchTestResult result1;
+        private final BatchTestResult result2;
+        
+        Mismatch( long rank, String string, BatchTestResult result1, BatchTestResult result2 ) {
+            this.rank = rank;
+            this.string = string;
+            this.result1 = result1;
+            this.result2 = result2;
+        }
+        
+        /**
+         * @return The position of the string in the shortlex order of Σ*.
+         */
+        public long getRank() {
+            return rank;
+        }
+        
+        public String getString() {
+            return string;
+        }
+        
+        public BatchTestResult getResult1() {
+            return result1;
+        }
+        
+        public BatchTestResult getResult2() {
+            return result2;
+        }
+        
+        @Override
+        public String toString() {
+            return "Mismatch{" + "string=" + string + ", status1=" + result1.getStatus() + ", status2=" + result2.getStatus() + '}';
+        }
+        
+    }
+    
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model;
+
+import br.com.davidbuzatto.yaas.util.SigmaStarEnumerator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Compares two machines (of any type) over the strings of Σ* up to a maximum
+ * length, or over a random sample of them, and reports the strings where
+ * they disagree.
+ * 
+ * The machines are executed by their batch testers (see FA, PDA and TM
+ * createBatchTester), which use the fastest engine available for each
+ * machine. Each worker has its own pair of testers, created by the
+ * constructor, and takes blocks of consecutive ranks (positions in the
+ * shortlex order) from a shared counter, generating the strings of the block
+ * with its own SigmaStarEnumerator, so the strings are never stored.
+ * 
+ * A string is a mismatch when both machines decide it and the decisions
+ * differ (or their outputs differ, if the outputs are compared). Strings
+ * that are not decided by one of the machines are counted as inconclusive.
+ * The first mismatches in shortlex order are reported and, if the test must
+ * stop at the first mismatch, the blocks after it are not tested.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class DifferentialTester {
+    
+    public static final int DEFAULT_MAX_MISMATCHES = 10;
+    
+    private static final int BLOCK_SIZE = 4096;
+    
+    private final List<Character> alphabet;
+    private final int maxLength;
+    private final List<BatchTester[]> testers;
+    
+    private long sampleSize;
+    private long seed;
+    private int maxMismatches;
+    private boolean stopOnFirstMismatch;
+    private boolean compareOutputs;
+    
+    // ranks of the sampled strings or null if all the strings are tested
+    private long[] sample;
+    private long size;
+    
+    private final AtomicLong nextBlock;
+    private final AtomicLong bound;
+    private final AtomicLong tested;
+    private final AtomicLong inconclusive;
+    private final AtomicLong mismatchCount;
+    
+    private ExecutorService pool;
+    private volatile boolean cancelled;
+    
+    /**
+     * Creates a new tester.
+     * 
+     * @param alphabet The alphabet of the strings.
+     * @param maxLength The maximum length of the strings.
+     * @param threads How many threads will be used.
+     * @param testerFactory1 Creates the testers of the first machine. It is
+     * called by this constructor, once per thread.
+     * @param testerFactory2 Creates the testers of the second machine. It is
+     * called by this constructor, once per thread.
+     * @throws IllegalArgumentException If the parameters are invalid or if
+     * there are too many strings.
+     */
+    public DifferentialTester(
+            Set<Character> alphabet,
+            int maxLength,
+            int threads,
+            Supplier<BatchTester> testerFactory1,
+            Supplier<BatchTester> testerFactory2 ) throws IllegalArgumentException {
+        
+        if ( threads <= 0 ) {
+            throw new IllegalArgumentException( "The number of threads must be positive!" );
+        }
+        
+        if ( maxLength < 0 ) {
+            throw new IllegalArgumentException( "The maximum length can't be negative!" );
+        }
+        
+        this.alphabet = new ArrayList<>( alphabet );
+        this.maxLength = maxLength;
+        this.size = new SigmaStarEnumerator( alphabet ).offsetOf( maxLength + 1 );
+        this.maxMismatches = DEFAULT_MAX_MISMATCHES;
+        
+        this.testers = new ArrayList<>();
+        for ( int i = 0; i < threads; i++ ) {
+            testers.add( new BatchTester[] { testerFactory1.get(), testerFactory2.get() } );
+        }
+        
+        nextBlock = new AtomicLong();
+        bound = new AtomicLong( Long.MAX_VALUE );
+        tested = new AtomicLong();
+        inconclusive = new AtomicLong();
+        mismatchCount = new AtomicLong();
+        
+    }
+    
+    /**
+     * Tests only a random sample of the strings. Repeated ranks are tested
+     * only once, so the sample may be a little smaller than requested.
+     * 
+     * @param sampleSize How many strings will be sampled, 0 to test all the
+     * strings.
+     * @param seed The seed of the random numbers, so a sample can be
+     * repeated.
+     */
+    public void setSample( long sampleSize, long seed ) {
+        
+        if ( sampleSize < 0 ) {
+            throw new IllegalArgumentException( "The sample size can't be negative!" );
+        }
+        
+        this.sampleSize = sampleSize;
+        this.seed = seed;
+        
+    }
+    
+    /**
+     * @param maxMismatches How many mismatches will be reported.
+     */
+    public void setMaxMismatches( int maxMismatches ) {
+        
+        if ( maxMismatches <= 0 ) {
+            throw new IllegalArgumentException( "The number of mismatches must be positive!" );
+        }
+        
+        this.maxMismatches = maxMismatches;
+        
+    }
+    
+    /**
+     * @param stopOnFirstMismatch true if the test must stop when the first
+     * mismatch (in shortlex order) is found.
+     */
+    public void setStopOnFirstMismatch( boolean stopOnFirstMismatch ) {
+        this.stopOnFirstMismatch = stopOnFirstMismatch;
+    }
+    
+    /**
+     * @param compareOutputs true if the outputs of the machines (e.g. the
+     * tapes of Turing Machines) must be equal too.
+     */
+    public void setCompareOutputs( boolean compareOutputs ) {
+        this.compareOutputs = compareOutputs;
+    }
+    
+    /**
+     * Executes the test and waits for its end. The threads are daemons and
+     * are interrupted if the current thread is interrupted.
+     * 
+     * @return The report.
+     * @throws InterruptedException If the current thread is interrupted.
+     */
+    public DifferentialTestReport run() throws InterruptedException {
+        
+        synchronized ( this ) {
+            if ( pool != null ) {
+                throw new IllegalStateException( "The test was already executed!" );
+            }
+            AtomicInteger threadCount = new AtomicInteger();
+            pool = Executors.newFixedThreadPool( testers.size(), r -> {
+                Thread t = new Thread( r, "differential-test-" + threadCount.incrementAndGet() );
+                t.setDaemon( true );
+                return t;
+            });
+        }
+        
+        long start = System.nanoTime();
+        
+        if ( sampleSize > 0 && sampleSize < size ) {
+            sample = new Random( seed ).longs( sampleSize, 0, size ).sorted().distinct().toArray();
+            size = sample.length;
+        }
+        
+        List<List<DifferentialTestReport.Mismatch>> found = new ArrayList<>();
+        
+        for ( BatchTester[] pair : testers ) {
+            List<DifferentialTestReport.Mismatch> workerMismatches = new ArrayList<>();
+            found.add( workerMismatches );
+            pool.execute( () -> work( pair[0], pair[1], workerMismatches ) );
+        }
+        
+        pool.shutdown();
+        
+        try {
+            while ( !pool.awaitTermination( 1, TimeUnit.DAYS ) ) {
+                // keeps waiting
+            }
+        } catch ( InterruptedException exc ) {
+            cancel();
+            throw exc;
+        }
+        
+        // each worker found its mismatches in increasing rank order
+        List<DifferentialTestReport.Mismatch> mismatches = new ArrayList<>();
+        for ( List<DifferentialTestReport.Mismatch> m : found ) {
+            for ( DifferentialTestReport.Mismatch mismatch : m ) {
+                // when stopping at the first mismatch, the ones after it
+                // found by the other workers are discarded
+                if ( mismatch.getRank() <= bound.get() ) {
+                    mismatches.add( mismatch );
+                }
+            }
+        }
+        mismatches.sort( Comparator.comparingLong( DifferentialTestReport.Mismatch::getRank ) );
+        if ( mismatches.size() > maxMismatches ) {
+            mismatches = new ArrayList<>( mismatches.subList( 0, maxMismatches ) );
+        }
+        
+        return new DifferentialTestReport(
+                size,
+                tested.get(),
+                inconclusive.get(),
+                stopOnFirstMismatch ? mismatches.size() : mismatchCount.get(),
+                mismatches,
+                !cancelled && tested.get() == size,
+                System.nanoTime() - start );
+                
+    }
+    
+    /**
+     * Cancels the execution.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if ( pool != null ) {
+            pool.shutdownNow();
+        }
+    }
+    
+    private void work(
+            BatchTester tester1,
+            BatchTester tester2,
+            List<DifferentialTestReport.Mismatch> mismatches ) {
+        
+        SigmaStarEnumerator e = new SigmaStarEnumerator( alphabet, 0 );
+        long from;
+        
+        while ( !cancelled && ( from = nextBlock.getAndAdd( BLOCK_SIZE ) ) < size ) {
+            
+            long to = Math.min( from + BLOCK_SIZE, size );
+            
+            if ( sample == null ) {
+                e.seek( from );
+            }
+            
+            for ( long i = from; i < to && !cancelled; i++ ) {
+                
+                long rank;
+                if ( sample == null ) {
+                    rank = i;
+                } else {
+                    rank = sample[(int) i];
+                    e.seek( rank );
+                }
+                
+                if ( rank >= bound.get() ) {
+                    return;
+                }
+                
+                String str = e.next().toString();
+                test( tester1, tester2, rank, str, mismatches );
+                
+            }
+            
+        }
+        
+    }
+    
+    private void test(
+            BatchTester tester1,
+            BatchTester tester2,
+            long rank,
+            String str,
+            List<DifferentialTestReport.Mismatch> mismatches ) {
+        
+        BatchTestResult r1 = test( tester1, str );
+        BatchTestResult r2 = test( tester2, str );
+        
+        if ( cancelled ) {
+            return;
+        }
+        
+        tested.incrementAndGet();
+        
+        if ( !r1.getStatus().isDecided() || !r2.getStatus().isDecided() ) {
+            inconclusive.incrementAndGet();
+        } else if ( r1.getStatus() != r2.getStatus() ||
+                ( compareOutputs && !Objects.equals( r1.getOutput(), r2.getOutput() ) ) ) {
+            
+            mismatchCount.incrementAndGet();
+            
+            if ( mismatches.size() < maxMismatches ) {
+                mismatches.add( new DifferentialTestReport.Mismatch( rank, str, r1, r2 ) );
+            }
+            
+            if ( stopOnFirstMismatch ) {
+                bound.accumulateAndGet( rank, Math::min );
+            }
+            
+        }
+        
+    }
+    
+    private static BatchTestResult test( BatchTester tester, String str ) {
+        try {
+            return tester.test( str );
+        } catch ( RuntimeException | StackOverflowError exc ) {
+            return new BatchTestResult( BatchTestStatus.ERROR, 0, exc.toString() );
+        }
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public int getMaxLength() {
+        return maxLength;
+    }
+    
+    public int getThreads() {
+        return testers.size();
+    }
+    
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model;
+
+import br.com.davidbuzatto.yaas.util.DrawingConstants;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A uniform grid used to find the states and transitions of a model that are
+ * under a point or inside a rectangle without testing all of them.
+ * 
+ * Each element is stored in the cells covered by its rectangles, together
+ * with the order in which it was added, so the queries return the elements
+ * in the same order of the lists of the model. Rectangles that cover too
+ * many cells (long transitions, for example) are kept in a separate list
+ * that is checked by every query.
+ * 
+ * The index doesn't follow the elements: it must be created again when they
+ * change (see the updateSpatialIndex method of the models).
+ * 
+ * @param <E> The type of the elements.
+ * @author Prof. Dr. David Buzatto
+ */
+public class SpatialIndex<E> {
+    
+    public static final int DEFAULT_CELL_SIZE = DrawingConstants.STATE_DIAMETER * 2;
+    
+    private static final int MAX_CELLS_PER_RECTANGLE = 64;
+    
+    private final int cellSize;
+    private final Map<Long, List<Entry<E>>> cells;
+    private final List<Entry<E>> largeEntries;
+    
+    private int size;
+    private int queryStamp;
+    
+    public SpatialIndex() {
+        this( DEFAULT_CELL_SIZE );
+    }
+    
+    public SpatialIndex( int cellSize ) {
+        
+        if ( cellSize <= 0 ) {
+            throw new IllegalArgumentException( "The cell size must be positive!" );
+        }
+        
+        this.cellSize = cellSize;
+        this.cells = new HashMap<>();
+        this.largeEntries = new ArrayList<>();
+        
+    }
+    
+    /**
+     * Adds an element that covers the given rectangles. The element is above
+     * all the elements that were added before it.
+     * 
+     * @param element The element.
+     * @param rectangles The rectangles covered by the element. Null
+     * rectangles are ignored.
+     */
+    public void add( E element, Rectangle... rectangles ) {
+        
+        Item<E> item = new Item<>( element, size++ );
+        
+        for ( Rectangle r : rectangles ) {
+            
+            if ( r == null ) {
+                continue;
+            }
+            
+            Entry<E> entry = new Entry<>( item, r );
+            int cx1 = cell( r.x );
+            int cy1 = cell( r.y );
+            int cx2 = cell( r.x + r.width );
+            int cy2 = cell( r.y + r.height );
+            
+            if ( (long) ( cx2 - cx1 + 1 ) * ( cy2 - cy1 + 1 ) > MAX_CELLS_PER_RECTANGLE ) {
+                largeEntries.add( entry );
+            } else {
+                for ( int cx = cx1; cx <= cx2; cx++ ) {
+                    for ( int cy = cy1; cy <= cy2; cy++ ) {
+                        cells.computeIfAbsent( key( cx, cy ), k -> new ArrayList<>() ).add( entry );
+                    }
+                }
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Returns the elements that have a rectangle containing a point, from the
+     * topmost (the last added) to the bottommost.
+     * 
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return The elements, without repetitions.
+     */
+    public List<E> getAt( int x, int y ) {
+        
+        List<Item<E>> found = new ArrayList<>();
+        queryStamp++;
+        
+        collect( cells.get( key( cell( x ), cell( y ) ) ), x, y, found );
+        collect( largeEntries, x, y, found );
+        
+        found.sort( Comparator.comparingInt( ( Item<E> i ) -> i.order ).reversed() );
+        return elements( found );
+        
+    }
+    
+    /**
+     * Returns the elements that have a rectangle intersecting a rectangle, in
+     * the order they were added.
+     * 
+     * @param rectangle The rectangle.
+     * @return The elements, without repetitions.
+     */
+    public List<E> getIntersecting( Rectangle rectangle ) {
+        
+        List<Item<E>> found = new ArrayList<>();
+        queryStamp++;
+        
+        int cx1 = cell( rectangle.x );
+        int cy1 = cell( rectangle.y );
+        int cx2 = cell( rectangle.x + rectangle.width );
+        int cy2 = cell( rectangle.y + rectangle.height );
+        
+        if ( (long) ( cx2 - cx1 + 1 ) * ( cy2 - cy1 + 1 ) > cells.size() ) {
+            for ( List<Entry<E>> entries : cells.values() ) {
+                collect( entries, rectangle, found );
+            }
+        } else {
+            for ( int cx = cx1; cx <= cx2; cx++ ) {
+                for ( int cy = cy1; cy <= cy2; cy++ ) {
+                    collect( cells.get( key( cx, cy ) ), rectangle, found );
+                }
+            }
+        }
+        
+        collect( largeEntries, rectangle, found );
+        
+        found.sort( Comparator.comparingInt( ( Item<E> i ) -> i.order ) );
+        return elements( found );
+        
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private void collect( List<Entry<E>> entries, int x, int y, List<Item<E>> found ) {
+        if ( entries != null ) {
+            for ( Entry<E> e : entries ) {
+                if ( e.item.stamp != queryStamp && e.rectangle.contains( x, y ) ) {
+                    e.item.stamp = queryStamp;
+                    found.add( e.item );
+                }
+            }
+        }
+    }
+    
+    private void collect( List<Entry<E>> entries, Rectangle rectangle, List<Item<E>> found ) {
+        if ( entries != null ) {
+            for ( Entry<E> e : entries ) {
+                if ( e.item.stamp != queryStamp && e.rectangle.intersects( rectangle ) ) {
+                    e.item.stamp = queryStamp;
+                    found.add( e.item );
+                }
+            }
+        }
+    }
+    
+    private List<E> elements( List<Item<E>> items ) {
+        List<E> elements = new ArrayList<>( items.size() );
+        for ( Item<E> i : items ) {
+            elements.add( i.element );
+        }
+        return elements;
+    }
+    
+    private int cell( int coordinate ) {
+        return Math.floorDiv( coordinate, cellSize );
+    }
+    
+    private static long key( int cx, int cy ) {
+        return ( (long) cx << 32 ) | ( cy & 0xffffffffL );
+    }
+    
+    /**
+     * An element and the order in which it was added. The stamp avoids
+     * repetitions when the element is found in more than one cell.
+     */
+    private static class Item<E> {
+        
+        final E element;
+        final int order;
+        int stamp;
+        
+        Item( E element, int order ) {
+            this.element = element;
+            this.order = order;
+        }
+        
+    }
+    
+    private static class Entry<E> {
+        
+        final Item<E> item;
+        final Rectangle rectangle;
+        
+        Entry( Item<E> item, Rectangle rectangle ) {
+            this.item = item;
+            this.rectangle = rectangle;
+        }
+        
+    }
+    
+}
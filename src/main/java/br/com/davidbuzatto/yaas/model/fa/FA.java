@@ -18,12 +18,18 @@ package br.com.davidbuzatto.yaas.model.fa;
 
 import br.com.davidbuzatto.yaas.gui.fa.FASimulationStep;
 import br.com.davidbuzatto.yaas.model.AbstractGeometricForm;
+import br.com.davidbuzatto.yaas.model.BatchTestResult;
+import br.com.davidbuzatto.yaas.model.BatchTestStatus;
+import br.com.davidbuzatto.yaas.model.BatchTester;
+import br.com.davidbuzatto.yaas.model.SpatialIndex;
 import br.com.davidbuzatto.yaas.util.CharacterConstants;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +45,8 @@ import java.util.TreeSet;
  */
 public class FA extends AbstractGeometricForm implements Cloneable {
     
+    private static final long serialVersionUID = 6541349787186437677L;
+    
     private List<FAState> states;
     private List<FATransition> transitions;
     private FAState initialState;
@@ -48,13 +56,34 @@ public class FA extends AbstractGeometricForm implements Cloneable {
     private transient boolean alphabetUpToDate;
     private transient boolean deltaUpToDate;
     private transient boolean eclosesUpToDate;
+    private transient boolean compiledDFAUpToDate;
+    private transient boolean compiledNFAUpToDate;
+    private transient boolean lazyDFAUpToDate;
+    private transient boolean languageUpToDate;
     
     private transient Set<Character> alphabet;
     private transient Map<FAState, Map<Character, List<FAState>>> delta;
     private transient Map<FAState, Set<FAState>> ecloses;
+    private transient FACompiledDFA compiledDFA;
+    private transient FACompiledNFA compiledNFA;
+    private transient FALazyDFA lazyDFA;
+    private transient FALanguage language;
+    
+    private transient FASimulationMode simulationMode;
     
     private transient boolean transitionControlPointsVisible;
     
+    private transient boolean spatialIndexUpToDate;
+    private transient SpatialIndex<FAState> stateIndex;
+    private transient SpatialIndex<FATransition> transitionIndex;
+    private transient SpatialIndex<FATransition> transitionDrawingIndex;
+    private transient Map<FAState, List<FATransition>> outgoingTransitions;
+    private transient List<FAState> mouseHoverStates;
+    private transient List<FATransition> mouseHoverTransitions;
+    
+    private transient int bulkEditLevel;
+    private transient Map<FAState, Map<FAState, FATransition>> bulkTransitionIndex;
+    
     public FA() {
         states = new ArrayList<>();
         transitions = new ArrayList<>();
@@ -69,58 +98,162 @@ public class FA extends AbstractGeometricForm implements Cloneable {
         
         if ( canExecute() ) {
             
-            Map<FAState, Map<Character, List<FAState>>> delta = getDelta();
-            Map<FAState, Set<FAState>> ecloses = getEcloses( delta );
-            
-            Set<FAState> currentStates = new HashSet<>();
-            currentStates.addAll( ecloses.get( initialState ) );
-            
-            if ( simulationSteps != null ) {
-                simulationSteps.add( new FASimulationStep( currentStates, Character.MIN_SURROGATE ) );
-            }
-            
-            for ( char c : str.toCharArray() ) {
+            switch ( getSimulationMode() ) {
                 
-                Set<FAState> targetStates = new HashSet<>();
-                
-                for ( FAState s : currentStates ) {
+                case SET_BASED:
+                    return acceptsSetBased( str, simulationSteps );
                     
-                    Map<Character, List<FAState>> t = delta.get( s );
+                case BITSET:
+                    break;
                     
-                    if ( t.containsKey( c ) ) {
-                        targetStates.addAll( t.get( c ) );
+                case LAZY_DFA:
+                    FALazyDFA lDFA = getLazyDFA();
+                    if ( lDFA != null ) {
+                        return lDFA.accepts( str, simulationSteps );
                     }
+                    break;
                     
-                }
-                
-                if ( targetStates.isEmpty() ) {
-                    return false;
-                }
-                
-                Set<FAState> targetEclose = new HashSet<>();
-                for ( FAState s : targetStates ) {
-                    targetEclose.addAll( ecloses.get( s ) );
-                }
+                default:
+                    if ( type == FAType.DFA ) {
+                        FACompiledDFA cDFA = getCompiledDFA();
+                        if ( cDFA != null ) {
+                            return acceptsCompiledDFA( str, simulationSteps, cDFA );
+                        }
+                    } else if ( getLazyDFA() != null ) {
+                        return getLazyDFA().accepts( str, simulationSteps );
+                    }
+                    break;
+                    
+            }
+            
+            FACompiledNFA cNFA = getCompiledNFA();
+            if ( cNFA != null ) {
+                return cNFA.accepts( str, simulationSteps );
+            }
+            
+            return acceptsSetBased( str, simulationSteps );
+            
+        }
+        
+        return false;
+        
+    }
+    
+    /**
+     * Creates a tester to be used in batch tests (see BatchTestExecutor).
+     * The tester uses the compiled version of this automaton taken when
+     * this method is called (a lazy DFA of its own if the automaton is not
+     * a DFA), so this automaton can be changed while the tester is used.
+     * 
+     * @return The tester.
+     */
+    public BatchTester createBatchTester() {
+        
+        FACompiledDFA cDFA = canExecute() && type == FAType.DFA ? getCompiledDFA() : null;
+        if ( cDFA != null ) {
+            return str -> createBatchTestResult( cDFA.accepts( str ), str );
+        }
+        
+        FACompiledNFA cNFA = canExecute() ? getCompiledNFA() : null;
+        if ( cNFA != null ) {
+            FALazyDFA lDFA = new FALazyDFA( cNFA );
+            return str -> createBatchTestResult( lDFA.accepts( str, null ), str );
+        }
+        
+        return str -> createBatchTestResult( false, str );
+        
+    }
+    
+    private static BatchTestResult createBatchTestResult( boolean accepted, String str ) {
+        return new BatchTestResult( 
+                accepted ? BatchTestStatus.ACCEPTED : BatchTestStatus.REJECTED, 
+                str.length(), null );
+    }
+    
+    private boolean acceptsSetBased( String str, List<FASimulationStep> simulationSteps ) {
+        
+        Map<FAState, Map<Character, List<FAState>>> delta = getDelta();
+        Map<FAState, Set<FAState>> ecloses = getEcloses( delta );
+        
+        Set<FAState> currentStates = new HashSet<>();
+        currentStates.addAll( ecloses.get( initialState ) );
+        
+        if ( simulationSteps != null ) {
+            simulationSteps.add( new FASimulationStep( currentStates, Character.MIN_SURROGATE ) );
+        }
+        
+        for ( char c : str.toCharArray() ) {
+            
+            Set<FAState> targetStates = new HashSet<>();
+            
+            for ( FAState s : currentStates ) {
                 
-                currentStates = targetEclose;
+                Map<Character, List<FAState>> t = delta.get( s );
                 
-                if ( simulationSteps != null ) {
-                    simulationSteps.add( new FASimulationStep( currentStates, c ) );
+                if ( t.containsKey( c ) ) {
+                    targetStates.addAll( t.get( c ) );
                 }
                 
             }
             
-            for ( FAState s : currentStates ) {
-                if ( s.isFinal() ) {
-                    return true;
-                }
+            if ( targetStates.isEmpty() ) {
+                return false;
+            }
+            
+            Set<FAState> targetEclose = new HashSet<>();
+            for ( FAState s : targetStates ) {
+                targetEclose.addAll( ecloses.get( s ) );
+            }
+            
+            currentStates = targetEclose;
+            
+            if ( simulationSteps != null ) {
+                simulationSteps.add( new FASimulationStep( currentStates, c ) );
             }
             
         }
         
+        for ( FAState s : currentStates ) {
+            if ( s.isFinal() ) {
+                return true;
+            }
+        }
+        
         return false;
         
     }
+    
+    private boolean acceptsCompiledDFA( 
+            String str, 
+            List<FASimulationStep> simulationSteps, 
+            FACompiledDFA cDFA ) {
+        
+        if ( simulationSteps == null ) {
+            return cDFA.accepts( str );
+        }
+        
+        int current = cDFA.getInitialState();
+        simulationSteps.add( new FASimulationStep( 
+                Collections.singleton( cDFA.getState( current ) ), 
+                Character.MIN_SURROGATE ) );
+        
+        for ( int i = 0; i < str.length(); i++ ) {
+            
+            char c = str.charAt( i );
+            current = cDFA.next( current, c );
+            
+            if ( current == FACompiledDFA.NO_STATE ) {
+                return false;
+            }
+            
+            simulationSteps.add( new FASimulationStep( 
+                    Collections.singleton( cDFA.getState( current ) ), c ) );
+            
+        }
+        
+        return cDFA.isFinal( current );
+        
+    }
 
     public boolean canExecute() {
         return initialState != null;
@@ -130,28 +263,25 @@ public class FA extends AbstractGeometricForm implements Cloneable {
     public void draw( Graphics2D g2d ) {
         
         g2d = (Graphics2D) g2d.create();
+        updateSpatialIndex();
         
-        int maxX = 0;
-        int maxY = 0;
+        // only what intersects the clip is drawn, since the draw panel
+        // repaints just the regions that have changed
+        Rectangle clip = g2d.getClipBounds();
+        List<FATransition> visibleTransitions = clip == null ? 
+                transitions : transitionDrawingIndex.getIntersecting( clip );
+        List<FAState> visibleStates = clip == null ? 
+                states : stateIndex.getIntersecting( clip );
         
-        for ( FATransition t : transitions ) {
+        for ( FATransition t : visibleTransitions ) {
             t.draw( g2d );
         }
         
-        for ( FAState s : states ) {
+        for ( FAState s : visibleStates ) {
             s.draw( g2d );
-            if ( maxX < s.getX1() + s.getRadius() ) {
-                maxX = s.getX1() + s.getRadius();
-            }
-            if ( maxY < s.getY1() + s.getRadius() ) {
-                maxY = s.getY1() + s.getRadius();
-            }
         }
         
-        width = maxX + 100;
-        height = maxY + 100;
-        
-        for ( FATransition t : transitions ) {
+        for ( FATransition t : visibleTransitions ) {
             t.drawLabel( g2d );
         }
         
@@ -172,12 +302,14 @@ public class FA extends AbstractGeometricForm implements Cloneable {
         for ( FAState s : states ) {
             s.move( xAmount, yAmount );
         }
+        spatialIndexUpToDate = false;
     }
     
     public FAState getStateAt( int x, int y ) {
         
-        for ( int i = states.size()-1; i >= 0; i-- ) {
-            FAState s = states.get( i );
+        updateSpatialIndex();
+        
+        for ( FAState s : stateIndex.getAt( x, y ) ) {
             if ( s.intersects( x, y ) ) {
                 s.setSelected( true );
                 return s;
@@ -190,8 +322,9 @@ public class FA extends AbstractGeometricForm implements Cloneable {
     
     public FATransition getTransitionAt( int x, int y ) {
         
-        for ( int i = transitions.size()-1; i >= 0; i-- ) {
-            FATransition t = transitions.get( i );
+        updateSpatialIndex();
+        
+        for ( FATransition t : transitionIndex.getAt( x, y ) ) {
             if ( t.intersects( x, y ) ) {
                 t.setSelected( true );
                 return t;
@@ -202,6 +335,27 @@ public class FA extends AbstractGeometricForm implements Cloneable {
         
     }
     
+    /**
+     * Returns the states that intersect a rectangle.
+     * 
+     * @param rectangle The rectangle.
+     * @return The states, in the order they were added.
+     */
+    public List<FAState> getStatesAt( Rectangle rectangle ) {
+        
+        updateSpatialIndex();
+        List<FAState> found = new ArrayList<>();
+        
+        for ( FAState s : stateIndex.getIntersecting( rectangle ) ) {
+            if ( s.intersects( rectangle ) ) {
+                found.add( s );
+            }
+        }
+        
+        return found;
+        
+    }
+    
     public void deselectAll() {
         for ( FATransition t : transitions ) {
             t.setSelected( false );
@@ -228,8 +382,10 @@ public class FA extends AbstractGeometricForm implements Cloneable {
             
         }
         
-        markAllCachesAsObsolete();
-        updateType();
+        if ( bulkEditLevel == 0 ) {
+            markAllCachesAsObsolete();
+            updateType();
+        }
         
     }
     
@@ -239,25 +395,106 @@ public class FA extends AbstractGeometricForm implements Cloneable {
             
             FATransition tf = null;
             
-            for ( FATransition t : transitions ) {
-                if ( t.getOriginState() == transition.getOriginState() && 
-                        t.getTargetState() == transition.getTargetState() ) {
-                    tf = t;
-                    break;
+            if ( bulkEditLevel > 0 ) {
+                tf = getIndexedTransition( 
+                        transition.getOriginState(), transition.getTargetState() );
+            } else {
+                for ( FATransition t : transitions ) {
+                    if ( t.getOriginState() == transition.getOriginState() && 
+                            t.getTargetState() == transition.getTargetState() ) {
+                        tf = t;
+                        break;
+                    }
                 }
             }
             
             if ( tf == null ) {
                 transition.setControlPointsVisible( transitionControlPointsVisible );
                 transitions.add( transition );
+                if ( bulkEditLevel > 0 ) {
+                    indexTransition( transition );
+                }
             } else {
                 tf.addSymbols( transition.getSymbols() );
             }
             
         }
         
-        markAllCachesAsObsolete();
-        updateType();
+        if ( bulkEditLevel == 0 ) {
+            markAllCachesAsObsolete();
+            updateType();
+        }
+        
+    }
+    
+    /**
+     * Starts a bulk edit session, used to add many states and transitions at
+     * once. Until the matching call to endBulkEdit(), addState and
+     * addTransition don't update the type of the automaton nor invalidate its
+     * caches, and the existing transitions are found by an index of their
+     * origin and target states instead of a linear search. Sessions can be
+     * nested and the automaton must not be executed inside them.
+     */
+    public void beginBulkEdit() {
+        
+        if ( bulkEditLevel++ == 0 ) {
+            bulkTransitionIndex = new IdentityHashMap<>();
+            for ( FATransition t : transitions ) {
+                if ( getIndexedTransition( t.getOriginState(), t.getTargetState() ) == null ) {
+                    indexTransition( t );
+                }
+            }
+        }
+        
+    }
+    
+    /**
+     * Ends a bulk edit session. When the outermost session ends, the caches
+     * are invalidated and the type of the automaton is updated only once.
+     */
+    public void endBulkEdit() {
+        
+        if ( bulkEditLevel == 0 ) {
+            throw new IllegalStateException( "There is no bulk edit session to end!" );
+        }
+        
+        if ( --bulkEditLevel == 0 ) {
+            bulkTransitionIndex = null;
+            markAllCachesAsObsolete();
+            updateType();
+        }
+        
+    }
+    
+    public boolean isInBulkEdit() {
+        return bulkEditLevel > 0;
+    }
+    
+    private FATransition getIndexedTransition( FAState originState, FAState targetState ) {
+        Map<FAState, FATransition> targets = bulkTransitionIndex.get( originState );
+        return targets == null ? null : targets.get( targetState );
+    }
+    
+    private void indexTransition( FATransition transition ) {
+        
+        Map<FAState, FATransition> targets = bulkTransitionIndex.get( transition.getOriginState() );
+        
+        if ( targets == null ) {
+            targets = new IdentityHashMap<>();
+            bulkTransitionIndex.put( transition.getOriginState(), targets );
+        }
+        
+        targets.put( transition.getTargetState(), transition );
+        
+    }
+    
+    private void unindexTransition( FATransition transition ) {
+        
+        if ( bulkEditLevel > 0 && getIndexedTransition( 
+                transition.getOriginState(), transition.getTargetState() ) == transition ) {
+            bulkTransitionIndex.get( transition.getOriginState() ).remove( 
+                    transition.getTargetState() );
+        }
         
     }
     
@@ -265,18 +502,21 @@ public class FA extends AbstractGeometricForm implements Cloneable {
         for ( FATransition t : transitions ) {
             t.updateStartAndEndPoints();
         }
+        spatialIndexUpToDate = false;
     }
     
     public void resetTransitionsTransformations() {
         for ( FATransition t : transitions ) {
             t.resetTransformations();
         }
+        spatialIndexUpToDate = false;
     }
     
     public void draggTransitions( MouseEvent evt ) {
         for ( FATransition t : transitions ) {
             t.mouseDragged( evt );
         }
+        spatialIndexUpToDate = false;
     }
     
     public void setTransitionsControlPointsVisible( boolean visible ) {
@@ -284,15 +524,192 @@ public class FA extends AbstractGeometricForm implements Cloneable {
         for ( FATransition t : transitions ) {
             t.setControlPointsVisible( visible );
         }
+        spatialIndexUpToDate = false;
     }
     
-    public void mouseHoverStatesAndTransitions( int x, int y ) {
-        for ( FATransition t : transitions ) {
+    /**
+     * Updates the mouse hover state of the states and transitions. Only the
+     * ones near the mouse and the ones that were under it are tested.
+     * 
+     * @param x The x coordinate of the mouse.
+     * @param y The y coordinate of the mouse.
+     * @return The region of the drawing that has changed, or null if nothing
+     * has changed.
+     */
+    public Rectangle mouseHoverStatesAndTransitions( int x, int y ) {
+        
+        updateSpatialIndex();
+        Rectangle region = null;
+        
+        List<FATransition> hoverTransitions = new ArrayList<>();
+        for ( FATransition t : transitionIndex.getAt( x, y ) ) {
             t.mouseHover( x, y );
+            if ( t.isMouseHover() ) {
+                hoverTransitions.add( t );
+            }
         }
-        for ( FAState s : states ) {
+        
+        for ( FATransition t : mouseHoverTransitions ) {
+            if ( !hoverTransitions.contains( t ) ) {
+                t.setMouseHover( false );
+                region = union( region, t.getBounds() );
+            }
+        }
+        
+        for ( FATransition t : hoverTransitions ) {
+            if ( !mouseHoverTransitions.contains( t ) ) {
+                region = union( region, t.getBounds() );
+            }
+        }
+        
+        List<FAState> hoverStates = new ArrayList<>();
+        for ( FAState s : stateIndex.getAt( x, y ) ) {
             s.mouseHover( x, y );
+            if ( s.isMouseHover() ) {
+                hoverStates.add( s );
+            }
+        }
+        
+        for ( FAState s : mouseHoverStates ) {
+            if ( !hoverStates.contains( s ) ) {
+                s.setMouseHover( false );
+                region = union( region, getStateRegion( s ) );
+            }
+        }
+        
+        for ( FAState s : hoverStates ) {
+            if ( !mouseHoverStates.contains( s ) ) {
+                region = union( region, getStateRegion( s ) );
+            }
+        }
+        
+        mouseHoverTransitions = hoverTransitions;
+        mouseHoverStates = hoverStates;
+        
+        return region;
+        
+    }
+    
+    /**
+     * Sets the mouse hover state of the states that intersect a rectangle and
+     * resets the others.
+     * 
+     * @param rectangle The rectangle.
+     */
+    public void mouseHoverStates( Rectangle rectangle ) {
+        
+        List<FAState> hoverStates = getStatesAt( rectangle );
+        
+        for ( FAState s : mouseHoverStates ) {
+            s.setMouseHover( false );
+        }
+        
+        for ( FAState s : hoverStates ) {
+            s.setMouseHover( true );
+        }
+        
+        mouseHoverStates = hoverStates;
+        
+    }
+    
+    public void resetStatesMouseHover() {
+        
+        updateSpatialIndex();
+        
+        for ( FAState s : mouseHoverStates ) {
+            s.setMouseHover( false );
+        }
+        
+        mouseHoverStates.clear();
+        
+    }
+    
+    /**
+     * Marks the spatial index of the states and transitions as obsolete. It
+     * must be called when they are moved or changed without using the
+     * methods of this automaton.
+     */
+    public void markSpatialIndexAsObsolete() {
+        spatialIndexUpToDate = false;
+    }
+    
+    /**
+     * Creates the spatial index of the states and transitions, if it is
+     * obsolete, and updates the size of the drawing. The transitions are
+     * indexed by the parts that can be selected and by the area where they
+     * are drawn.
+     */
+    private void updateSpatialIndex() {
+        
+        if ( !spatialIndexUpToDate ) {
+            
+            int maxX = 0;
+            int maxY = 0;
+            
+            stateIndex = new SpatialIndex<>();
+            transitionIndex = new SpatialIndex<>();
+            transitionDrawingIndex = new SpatialIndex<>();
+            outgoingTransitions = new IdentityHashMap<>();
+            mouseHoverStates = new ArrayList<>();
+            mouseHoverTransitions = new ArrayList<>();
+            
+            for ( FAState s : states ) {
+                stateIndex.add( s, s.getBounds() );
+                if ( s.isMouseHover() ) {
+                    mouseHoverStates.add( s );
+                }
+                if ( maxX < s.getX1() + s.getRadius() ) {
+                    maxX = s.getX1() + s.getRadius();
+                }
+                if ( maxY < s.getY1() + s.getRadius() ) {
+                    maxY = s.getY1() + s.getRadius();
+                }
+            }
+            
+            for ( FATransition t : transitions ) {
+                transitionIndex.add( t, t.getHitBounds() );
+                transitionDrawingIndex.add( t, t.getBounds() );
+                outgoingTransitions.computeIfAbsent( 
+                        t.getOriginState(), k -> new ArrayList<>() ).add( t );
+                if ( t.isMouseHover() ) {
+                    mouseHoverTransitions.add( t );
+                }
+            }
+            
+            width = maxX + 100;
+            height = maxY + 100;
+            
+            spatialIndexUpToDate = true;
+            
+        }
+        
+    }
+    
+    /**
+     * Returns the region drawn with the colors of a state: the state and its
+     * outgoing transitions.
+     */
+    private Rectangle getStateRegion( FAState state ) {
+        
+        Rectangle region = state.getBounds();
+        List<FATransition> ts = outgoingTransitions.get( state );
+        
+        if ( ts != null ) {
+            for ( FATransition t : ts ) {
+                region.add( t.getBounds() );
+            }
         }
+        
+        return region;
+        
+    }
+    
+    private static Rectangle union( Rectangle region, Rectangle bounds ) {
+        if ( region == null ) {
+            return bounds;
+        }
+        region.add( bounds );
+        return region;
     }
 
     public void resetStatesColor() {
@@ -328,6 +745,14 @@ public class FA extends AbstractGeometricForm implements Cloneable {
         return type;
     }
     
+    public FASimulationMode getSimulationMode() {
+        return simulationMode == null ? FASimulationMode.AUTOMATIC : simulationMode;
+    }
+    
+    public void setSimulationMode( FASimulationMode simulationMode ) {
+        this.simulationMode = simulationMode;
+    }
+    
     public void removeState( FAState state ) {
         
         if ( initialState == state ) {
@@ -345,6 +770,7 @@ public class FA extends AbstractGeometricForm implements Cloneable {
         
         for ( FATransition t : ts ) {
             transitions.remove( t );
+            unindexTransition( t );
         }
         
         markAllCachesAsObsolete();
@@ -354,6 +780,7 @@ public class FA extends AbstractGeometricForm implements Cloneable {
     
     public void removeTransition( FATransition transition ) {
         transitions.remove( transition );
+        unindexTransition( transition );
         markAllCachesAsObsolete();
         updateType();
     }
@@ -489,6 +916,84 @@ public class FA extends AbstractGeometricForm implements Cloneable {
         
     }
     
+    /**
+     * Returns the compiled (array based) version of this automaton. It is
+     * rebuilt only when the caches are marked as obsolete.
+     * 
+     * @return The compiled DFA or null if this automaton is not a DFA or
+     * doesn't have an initial state.
+     */
+    public FACompiledDFA getCompiledDFA() {
+        
+        if ( !compiledDFAUpToDate ) {
+            compiledDFAUpToDate = true;
+            compiledDFA = FACompiledDFA.compile( this );
+        }
+        
+        return compiledDFA;
+        
+    }
+    
+    /**
+     * Returns the compiled (bitset based) version of this automaton, that
+     * can be used to simulate any type of Finite Automaton. It is rebuilt
+     * only when the caches are marked as obsolete.
+     * 
+     * @return The compiled automaton or null if this automaton doesn't have
+     * an initial state.
+     */
+    public FACompiledNFA getCompiledNFA() {
+        
+        if ( !compiledNFAUpToDate ) {
+            compiledNFAUpToDate = true;
+            compiledNFA = FACompiledNFA.compile( this );
+        }
+        
+        return compiledNFA;
+        
+    }
+    
+    /**
+     * Returns the lazy DFA of this automaton, i.e., the compiled (bitset
+     * based) automaton wrapped by a bounded cache of the DFA states that
+     * are built on demand. It is rebuilt only when the caches are marked as
+     * obsolete, so the memoized states survive between calls to accepts.
+     * 
+     * @return The lazy DFA or null if this automaton doesn't have an initial
+     * state.
+     */
+    public FALazyDFA getLazyDFA() {
+        
+        if ( !lazyDFAUpToDate ) {
+            lazyDFAUpToDate = true;
+            FACompiledNFA cNFA = getCompiledNFA();
+            lazyDFA = cNFA == null ? null : new FALazyDFA( cNFA );
+        }
+        
+        return lazyDFA;
+        
+    }
+    
+    /**
+     * Returns the language of this automaton, used to count, enumerate and
+     * sample the accepted strings. It is rebuilt only when the caches are
+     * marked as obsolete, so the counts survive between calls.
+     * 
+     * @return The language or null if this automaton is not a DFA or doesn't
+     * have an initial state (use the equivalent DFA of a NFA).
+     */
+    public FALanguage getLanguage() {
+        
+        if ( !languageUpToDate ) {
+            languageUpToDate = true;
+            FACompiledDFA cDFA = getCompiledDFA();
+            language = cDFA == null ? null : new FALanguage( cDFA );
+        }
+        
+        return language;
+        
+    }
+    
     private Set<FAState> discoverEclose( 
             FAState s, 
             Map<FAState, Map<Character, List<FAState>>> delta ) {
@@ -633,10 +1138,21 @@ public class FA extends AbstractGeometricForm implements Cloneable {
         alphabetUpToDate = false;
         deltaUpToDate = false;
         eclosesUpToDate = false;
+        compiledDFAUpToDate = false;
+        compiledNFAUpToDate = false;
+        lazyDFAUpToDate = false;
+        languageUpToDate = false;
+        spatialIndexUpToDate = false;
+        compiledDFA = null;
+        compiledNFA = null;
+        lazyDFA = null;
+        language = null;
     }
     
     public void merge( FA fa ) {
         
+        beginBulkEdit();
+        
         for ( FAState s : fa.getStates() ) {
             addState( s );
         }
@@ -645,6 +1161,8 @@ public class FA extends AbstractGeometricForm implements Cloneable {
             addTransition( t );
         }
         
+        endBulkEdit();
+        
     }
     
     public String generateCode() {
@@ -751,13 +1269,17 @@ public class FA extends AbstractGeometricForm implements Cloneable {
         Map<FAState, FAState> ref = new HashMap<>();
     
         c.states = new ArrayList<>();
+        c.transitions = new ArrayList<>();
+        c.bulkEditLevel = 0;
+        c.bulkTransitionIndex = null;
+        c.beginBulkEdit();
+        
         for ( FAState s : states ) {
             FAState n = (FAState) s.clone();
             c.addState( n );
             ref.put( s, n );
         }
         
-        c.transitions = new ArrayList<>();
         for ( FATransition t : transitions ) {
             FATransition n = (FATransition) t.clone();
             n.setOriginState( ref.get( t.getOriginState() ) );
@@ -765,7 +1287,7 @@ public class FA extends AbstractGeometricForm implements Cloneable {
             c.addTransition( n );
         }
         
-        c.updateType();
+        c.endBulkEdit();
         return c;
         
     }
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa;
+
+import br.com.davidbuzatto.yaas.util.CharacterConstants;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compiled representation of a Deterministic Finite Automaton.
+ * 
+ * The states are numbered densely (the initial state is always the state 0),
+ * the symbols of the alphabet are mapped to column indexes and the transition
+ * function is stored in a flat int array, so the execution doesn't need to
+ * walk maps or box characters.
+ * 
+ * A compiled DFA is a snapshot of the automaton, it must be discarded when
+ * the automaton changes (see FA.markAllCachesAsObsolete()).
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class FACompiledDFA {
+    
+    /**
+     * The value used in the transition table to represent a missing
+     * transition (the implicit dead state).
+     */
+    public static final int NO_STATE = -1;
+    
+    private final FAState[] states;
+    private final Map<FAState, Integer> indexes;
+    private final boolean[] finalStates;
+    
+    private final FASymbolColumns columns;
+    
+    private final int[] table;
+    
+    private FACompiledDFA( FA dfa, Set<Character> alphabet ) {
+        
+        List<FAState> faStates = dfa.getStates();
+        FAState initialState = dfa.getInitialState();
+        
+        int n = faStates.size();
+        states = new FAState[n];
+        indexes = new HashMap<>();
+        finalStates = new boolean[n];
+        
+        // the initial state is always the state 0
+        states[0] = initialState;
+        indexes.put( initialState, 0 );
+        int currentState = 1;
+        for ( FAState s : faStates ) {
+            if ( s != initialState ) {
+                states[currentState] = s;
+                indexes.put( s, currentState++ );
+            }
+        }
+        
+        for ( int i = 0; i < n; i++ ) {
+            finalStates[i] = states[i].isFinal();
+        }
+        
+        columns = new FASymbolColumns( alphabet );
+        
+        table = new int[n * columns.size()];
+        Arrays.fill( table, NO_STATE );
+        
+    }
+    
+    /**
+     * Compiles a Deterministic Finite Automaton.
+     * 
+     * @param dfa The automaton to be compiled.
+     * @return The compiled automaton or null if the automaton doesn't have an
+     * initial state or if it has any non-determinism (including
+     * empty string transitions).
+     */
+    public static FACompiledDFA compile( FA dfa ) {
+        
+        if ( dfa.getInitialState() == null ||
+                !dfa.getStates().contains( dfa.getInitialState() ) ) {
+            return null;
+        }
+        
+        FACompiledDFA c = new FACompiledDFA( dfa, dfa.getAlphabet() );
+        int k = c.columns.size();
+        
+        for ( FATransition t : dfa.getTransitions() ) {
+            
+            Integer origin = c.indexes.get( t.getOriginState() );
+            Integer target = c.indexes.get( t.getTargetState() );
+            
+            if ( origin == null || target == null ) {
+                return null;
+            }
+            
+            for ( char s : t.getSymbols() ) {
+                
+                if ( s == CharacterConstants.EMPTY_STRING ) {
+                    return null;
+                }
+                
+                int p = origin * k + c.columns.getColumn( s );
+                
+                if ( c.table[p] != NO_STATE && c.table[p] != target ) {
+                    return null;
+                }
+                
+                c.table[p] = target;
+                
+            }
+            
+        }
+        
+        return c;
+        
+    }
+    
+    /**
+     * Verifies if a string is accepted, starting at the initial state.
+     * 
+     * @param str The string to be tested.
+     * @return true if the string is accepted, false otherwise.
+     */
+    public boolean accepts( CharSequence str ) {
+        return accepts( str, 0 );
+    }
+    
+    /**
+     * Verifies if a string is accepted, starting at a custom state.
+     * 
+     * @param str The string to be tested.
+     * @param startState The index of the state where the processing starts.
+     * @return true if the string is accepted, false otherwise.
+     */
+    public boolean accepts( CharSequence str, int startState ) {
+        int s = run( str, startState );
+        return s != NO_STATE && finalStates[s];
+    }
+    
+    /**
+     * Processes a string and returns the reached state.
+     * 
+     * @param str The string to be processed.
+     * @param startState The index of the state where the processing starts.
+     * @return The index of the reached state or NO_STATE if a transition is
+     * missing for some symbol.
+     */
+    public int run( CharSequence str, int startState ) {
+        
+        int k = columns.size();
+        int s = startState;
+        
+        for ( int i = 0, len = str.length(); i < len && s != NO_STATE; i++ ) {
+            int column = columns.getColumn( str.charAt( i ) );
+            s = column == NO_STATE ? NO_STATE : table[s * k + column];
+        }
+        
+        return s;
+        
+    }
+    
+    /**
+     * Makes a transition from a state consuming a symbol.
+     * 
+     * @param state The index of the origin state.
+     * @param symbol The symbol to be consumed.
+     * @return The index of the target state or NO_STATE.
+     */
+    public int next( int state, char symbol ) {
+        int column = columns.getColumn( symbol );
+        return column == NO_STATE ? NO_STATE : table[state * columns.size() + column];
+    }
+    
+    /**
+     * Makes a transition from a state using a column of the table.
+     * 
+     * @param state The index of the origin state.
+     * @param column The column of the symbol to be consumed.
+     * @return The index of the target state or NO_STATE.
+     */
+    public int getTarget( int state, int column ) {
+        return table[state * columns.size() + column];
+    }
+    
+    /**
+     * Returns the column of a symbol.
+     * 
+     * @param symbol The symbol.
+     * @return The column of the symbol or NO_STATE if the symbol is not part
+     * of the alphabet.
+     */
+    public int getColumn( char symbol ) {
+        return columns.getColumn( symbol );
+    }
+    
+    public char getSymbol( int column ) {
+        return columns.getSymbol( column );
+    }
+    
+    public int getAlphabetSize() {
+        return columns.size();
+    }
+    
+    public int getStateCount() {
+        return states.length;
+    }
+    
+    public int getInitialState() {
+        return 0;
+    }
+    
+    public boolean isFinal( int state ) {
+        return finalStates[state];
+    }
+    
+    public FAState getState( int state ) {
+        return states[state];
+    }
+    
+    /**
+     * Returns the index of a state.
+     * 
+     * @param state The state.
+     * @return The index of the state or NO_STATE if the state is not part of
+     * the compiled automaton.
+     */
+    public int getIndex( FAState state ) {
+        Integer i = indexes.get( state );
+        return i == null ? NO_STATE : i;
+    }
+    
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa;
+
+import br.com.davidbuzatto.yaas.gui.fa.FASimulationStep;
+import br.com.davidbuzatto.yaas.util.CharacterConstants;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compiled representation of a (possibly empty string) Nondeterministic
+ * Finite Automaton, where sets of states are stored as bitsets (long arrays).
+ * 
+ * The empty string closure of each state is computed once and, for each
+ * state and symbol, the union of the closures of all targets is stored too,
+ * so advancing the set of active states is a sequence of word-wise ORs.
+ * 
+ * A compiled NFA is a snapshot of the automaton, it must be discarded when
+ * the automaton changes (see FA.markAllCachesAsObsolete()).
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class FACompiledNFA {
+    
+    private final FAState[] states;
+    private final Map<FAState, Integer> indexes;
+    private final FASymbolColumns columns;
+    private final int words;
+    
+    private final long[][] ecloses;
+    private final long[][] closedTargets;
+    private final long[] finalStates;
+    
+    private FACompiledNFA( FA fa ) {
+        
+        List<FAState> faStates = fa.getStates();
+        FAState initialState = fa.getInitialState();
+        
+        int n = faStates.size();
+        states = new FAState[n];
+        indexes = new HashMap<>();
+        words = wordsFor( n );
+        
+        // the initial state is always the state 0
+        states[0] = initialState;
+        indexes.put( initialState, 0 );
+        int currentState = 1;
+        for ( FAState s : faStates ) {
+            if ( s != initialState ) {
+                states[currentState] = s;
+                indexes.put( s, currentState++ );
+            }
+        }
+        
+        finalStates = new long[words];
+        for ( int i = 0; i < n; i++ ) {
+            if ( states[i].isFinal() ) {
+                set( finalStates, i );
+            }
+        }
+        
+        columns = new FASymbolColumns( fa.getAlphabet() );
+        ecloses = new long[n][];
+        closedTargets = new long[n * columns.size()][];
+        
+    }
+    
+    /**
+     * Compiles a Finite Automaton of any type.
+     * 
+     * @param fa The automaton to be compiled.
+     * @return The compiled automaton or null if the automaton doesn't have an
+     * initial state.
+     */
+    public static FACompiledNFA compile( FA fa ) {
+        
+        if ( fa.getInitialState() == null ||
+                !fa.getStates().contains( fa.getInitialState() ) ) {
+            return null;
+        }
+        
+        FACompiledNFA c = new FACompiledNFA( fa );
+        int n = c.states.length;
+        int k = c.columns.size();
+        
+        // adjacency lists of the symbols and of the empty string
+        List<List<Integer>> targets = new ArrayList<>();
+        List<List<Integer>> eTargets = new ArrayList<>();
+        for ( int i = 0; i < n * k; i++ ) {
+            targets.add( null );
+        }
+        for ( int i = 0; i < n; i++ ) {
+            eTargets.add( new ArrayList<>() );
+        }
+        
+        for ( FATransition t : fa.getTransitions() ) {
+            
+            Integer origin = c.indexes.get( t.getOriginState() );
+            Integer target = c.indexes.get( t.getTargetState() );
+            
+            if ( origin == null || target == null ) {
+                continue;
+            }
+            
+            for ( char s : t.getSymbols() ) {
+                if ( s == CharacterConstants.EMPTY_STRING ) {
+                    eTargets.get( origin ).add( target );
+                } else {
+                    int p = origin * k + c.columns.getColumn( s );
+                    List<Integer> li = targets.get( p );
+                    if ( li == null ) {
+                        li = new ArrayList<>();
+                        targets.set( p, li );
+                    }
+                    li.add( target );
+                }
+            }
+            
+        }
+        
+        // empty string closures (iterative depth-first search)
+        int[] stack = new int[n];
+        for ( int i = 0; i < n; i++ ) {
+            
+            long[] eclose = new long[c.words];
+            int top = 0;
+            stack[top++] = i;
+            set( eclose, i );
+            
+            while ( top > 0 ) {
+                int s = stack[--top];
+                for ( int e : eTargets.get( s ) ) {
+                    if ( !get( eclose, e ) ) {
+                        set( eclose, e );
+                        stack[top++] = e;
+                    }
+                }
+            }
+            
+            c.ecloses[i] = eclose;
+            
+        }
+        
+        // union of the closures of the targets of each state/symbol
+        for ( int i = 0; i < n * k; i++ ) {
+            List<Integer> li = targets.get( i );
+            if ( li != null ) {
+                long[] closed = new long[c.words];
+                for ( int t : li ) {
+                    or( closed, c.ecloses[t] );
+                }
+                c.closedTargets[i] = closed;
+            }
+        }
+        
+        return c;
+        
+    }
+    
+    /**
+     * Verifies if a string is accepted.
+     * 
+     * @param str The string to be tested.
+     * @param simulationSteps A list to store the simulation steps or null if
+     * the steps are not needed.
+     * @return true if the string is accepted, false otherwise.
+     */
+    public boolean accepts( CharSequence str, List<FASimulationStep> simulationSteps ) {
+        
+        long[] current = ecloses[0].clone();
+        long[] next = new long[words];
+        
+        if ( simulationSteps != null ) {
+            simulationSteps.add( new FASimulationStep(
+                    toStates( current ), Character.MIN_SURROGATE ) );
+        }
+        
+        for ( int i = 0, len = str.length(); i < len; i++ ) {
+            
+            char c = str.charAt( i );
+            
+            if ( !step( current, columns.getColumn( c ), next ) ) {
+                return false;
+            }
+            
+            long[] t = current;
+            current = next;
+            next = t;
+            
+            if ( simulationSteps != null ) {
+                simulationSteps.add( new FASimulationStep( toStates( current ), c ) );
+            }
+            
+        }
+        
+        return intersects( current, finalStates );
+        
+    }
+    
+    /**
+     * Computes the set of states reached from a set of states consuming the
+     * symbol of a column, already closed by the empty string.
+     * 
+     * @param current The origin set.
+     * @param column The column of the symbol or -1 if the symbol is not part
+     * of the alphabet.
+     * @param next Where the target set will be stored (it is cleared first).
+     * @return true if the target set is not empty, false otherwise.
+     */
+    public boolean step( long[] current, int column, long[] next ) {
+        
+        for ( int w = 0; w < words; w++ ) {
+            next[w] = 0;
+        }
+        
+        if ( column == FASymbolColumns.NO_COLUMN ) {
+            return false;
+        }
+        
+        int k = columns.size();
+        boolean found = false;
+        
+        for ( int w = 0; w < words; w++ ) {
+            long word = current[w];
+            while ( word != 0 ) {
+                int s = ( w << 6 ) | Long.numberOfTrailingZeros( word );
+                word &= word - 1;
+                long[] t = closedTargets[s * k + column];
+                if ( t != null ) {
+                    or( next, t );
+                    found = true;
+                }
+            }
+        }
+        
+        return found;
+        
+    }
+    
+    /**
+     * Converts a bitset to the set of states that it represents.
+     * 
+     * @param set The bitset.
+     * @return The set of states.
+     */
+    public Set<FAState> toStates( long[] set ) {
+        
+        Set<FAState> s = new LinkedHashSet<>();
+        
+        for ( int i = nextSetBit( set, 0 ); i >= 0; i = nextSetBit( set, i + 1 ) ) {
+            s.add( states[i] );
+        }
+        
+        return s;
+        
+    }
+    
+    /**
+     * Returns the states reached from a single state consuming the symbol of
+     * a column, already closed by the empty string.
+     * 
+     * @param state The origin state.
+     * @param column The column of the symbol.
+     * @return The target set (it must not be changed) or null if there are no
+     * transitions.
+     */
+    public long[] getTargets( int state, int column ) {
+        return closedTargets[state * columns.size() + column];
+    }
+    
+    public long[] getInitialSet() {
+        return ecloses[0].clone();
+    }
+    
+    public boolean isFinal( long[] set ) {
+        return intersects( set, finalStates );
+    }
+    
+    public boolean isFinal( int state ) {
+        return get( finalStates, state );
+    }
+    
+    public int getColumn( char symbol ) {
+        return columns.getColumn( symbol );
+    }
+    
+    public char getSymbol( int column ) {
+        return columns.getSymbol( column );
+    }
+    
+    public int getAlphabetSize() {
+        return columns.size();
+    }
+    
+    public int getStateCount() {
+        return states.length;
+    }
+    
+    public int getWords() {
+        return words;
+    }
+    
+    public FAState getState( int state ) {
+        return states[state];
+    }
+    
+    public int getIndex( FAState state ) {
+        Integer i = indexes.get( state );
+        return i == null ? -1 : i;
+    }
+    
+    public static int wordsFor( int n ) {
+        return ( n + 63 ) >>> 6;
+    }
+    
+    public static void set( long[] set, int i ) {
+        set[i >>> 6] |= 1L << i;
+    }
+    
+    public static boolean get( long[] set, int i ) {
+        return ( set[i >>> 6] & ( 1L << i ) ) != 0;
+    }
+    
+    public static void or( long[] target, long[] source ) {
+        for ( int w = 0; w < source.length; w++ ) {
+            target[w] |= source[w];
+        }
+    }
+    
+    public static boolean intersects( long[] a, long[] b ) {
+        for ( int w = 0; w < a.length; w++ ) {
+            if ( ( a[w] & b[w] ) != 0 ) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public static int nextSetBit( long[] set, int from ) {
+        
+        int w = from >>> 6;
+        
+        if ( w >= set.length ) {
+            return -1;
+        }
+        
+        long word = set[w] & ( -1L << from );
+        
+        while ( true ) {
+            if ( word != 0 ) {
+                return ( w << 6 ) + Long.numberOfTrailingZeros( word );
+            }
+            if ( ++w == set.length ) {
+                return -1;
+            }
+            word = set[w];
+        }
+        
+    }
+    
+}
@@ -0,0 +1,440 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * The language accepted by a compiled Deterministic Finite Automaton, i.e.,
+ * the accepted strings are counted, enumerated and sampled directly from the
+ * automaton, without testing the strings of Σ*.
+ * 
+ * The counts are computed by dynamic programming: the number of strings of
+ * length m accepted from a state is the sum of the numbers of strings of
+ * length m-1 accepted from its targets. The table of each length is built on
+ * demand and kept, so it is computed only once. Only the live states (the
+ * states that reach a final state) are considered, the others are pruned.
+ * 
+ * The enumeration is a depth first search in the order of the symbols that
+ * only follows the transitions that can still lead to an accepted string of
+ * the current length, so every path ends in an accepted string. The uniform
+ * sampling of the strings of a length chooses a random index and walks the
+ * automaton subtracting the counts of the symbols before the chosen one.
+ * 
+ * A language is a snapshot of the automaton, like the compiled DFA. This
+ * class is not thread-safe.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class FALanguage {
+    
+    private final FACompiledDFA dfa;
+    private final int k;
+    
+    // live states, in the order of their indexes
+    private final int[] liveStates;
+    private final boolean[] live;
+    
+    // counts.get( m )[s] = number of strings of length m accepted from s
+    private final List<BigInteger[]> counts;
+    
+    public FALanguage( FACompiledDFA dfa ) {
+        
+        this.dfa = dfa;
+        this.k = dfa.getAlphabetSize();
+        this.live = findLiveStates();
+        this.counts = new ArrayList<>();
+        
+        int liveCount = 0;
+        for ( boolean l : live ) {
+            if ( l ) {
+                liveCount++;
+            }
+        }
+        
+        liveStates = new int[liveCount];
+        for ( int s = 0, i = 0; s < live.length; s++ ) {
+            if ( live[s] ) {
+                liveStates[i++] = s;
+            }
+        }
+        
+    }
+    
+    /**
+     * Verifies if the language is empty.
+     * 
+     * @return true if no string is accepted.
+     */
+    public boolean isEmpty() {
+        return !live[dfa.getInitialState()];
+    }
+    
+    /**
+     * Counts the accepted strings of a length.
+     * 
+     * @param length The length.
+     * @return The number of accepted strings.
+     * @throws IllegalArgumentException If the length is negative.
+     */
+    public BigInteger count( int length ) throws IllegalArgumentException {
+        return count( length, dfa.getInitialState() );
+    }
+    
+    /**
+     * Counts the accepted strings with length from 0 to maxLength.
+     * 
+     * @param maxLength The maximum length.
+     * @return The number of accepted strings.
+     * @throws IllegalArgumentException If the length is negative.
+     */
+    public BigInteger countUpTo( int maxLength ) throws IllegalArgumentException {
+        
+        BigInteger total = BigInteger.ZERO;
+        
+        for ( int m = 0; m <= maxLength; m++ ) {
+            total = total.add( count( m ) );
+        }
+        
+        return total;
+        
+    }
+    
+    /**
+     * Returns the accepted string of a length that is in a position of the
+     * lexicographic order of the accepted strings of that length.
+     * 
+     * @param length The length.
+     * @param index The position, from zero to count( length ) - 1.
+     * @return The string.
+     * @throws IllegalArgumentException If the length or the index are
+     * invalid.
+     */
+    public String unrank( int length, BigInteger index ) throws IllegalArgumentException {
+        
+        if ( index.signum() < 0 || index.compareTo( count( length ) ) >= 0 ) {
+            throw new IllegalArgumentException( String.format(
+                    "There is no accepted string of length %d in position %s!",
+                    length, index ) );
+        }
+        
+        char[] str = new char[length];
+        int s = dfa.getInitialState();
+        
+        for ( int i = 0; i < length; i++ ) {
+            
+            int remaining = length - i - 1;
+            
+            for ( int a = 0; a < k; a++ ) {
+                
+                BigInteger c = count( remaining, dfa.getTarget( s, a ) );
+                
+                if ( index.compareTo( c ) < 0 ) {
+                    str[i] = dfa.getSymbol( a );
+                    s = dfa.getTarget( s, a );
+                    break;
+                }
+                
+                index = index.subtract( c );
+                
+            }
+            
+        }
+        
+        return new String( str );
+        
+    }
+    
+    /**
+     * Samples an accepted string of a length uniformly at random.
+     * 
+     * @param length The length.
+     * @param random The source of randomness.
+     * @return The string.
+     * @throws IllegalArgumentException If the length is negative or if there
+     * is no accepted string of that length.
+     */
+    public String sample( int length, Random random ) throws IllegalArgumentException {
+        
+        BigInteger total = count( length );
+        
+        if ( total.signum() == 0 ) {
+            throw new IllegalArgumentException( String.format(
+                    "There is no accepted string of length %d!", length ) );
+        }
+        
+        // uniform index in [0, total) by rejection
+        BigInteger index;
+        do {
+            index = new BigInteger( total.bitLength(), random );
+        } while ( index.compareTo( total ) >= 0 );
+        
+        return unrank( length, index );
+        
+    }
+    
+    /**
+     * Enumerates the accepted strings with length from minLength to
+     * maxLength in shortlex order (by length and then in the order of the
+     * symbols).
+     * 
+     * @param minLength The minimum length.
+     * @param maxLength The maximum length.
+     * @return An iterator of the strings.
+     * @throws IllegalArgumentException If the lengths are invalid.
+     */
+    public Iterator<String> iterator( int minLength, int maxLength )
+            throws IllegalArgumentException {
+        
+        if ( minLength < 0 || maxLength < minLength ) {
+            throw new IllegalArgumentException( "Invalid length interval!" );
+        }
+        
+        return new ShortlexIterator( minLength, maxLength );
+        
+    }
+    
+    /**
+     * Counts the accepted strings of a length starting at a state.
+     */
+    private BigInteger count( int length, int state ) throws IllegalArgumentException {
+        
+        if ( length < 0 ) {
+            throw new IllegalArgumentException( "The length must not be negative!" );
+        }
+        
+        if ( state == FACompiledDFA.NO_STATE || !live[state] ) {
+            return BigInteger.ZERO;
+        }
+        
+        ensureCounts( length );
+        return counts.get( length )[state];
+        
+    }
+    
+    private void ensureCounts( int length ) {
+        
+        int n = dfa.getStateCount();
+        
+        if ( counts.isEmpty() ) {
+            BigInteger[] c = new BigInteger[n];
+            Arrays.fill( c, BigInteger.ZERO );
+            for ( int s : liveStates ) {
+                if ( dfa.isFinal( s ) ) {
+                    c[s] = BigInteger.ONE;
+                }
+            }
+            counts.add( c );
+        }
+        
+        while ( counts.size() <= length ) {
+            
+            BigInteger[] previous = counts.get( counts.size() - 1 );
+            BigInteger[] c = new BigInteger[n];
+            Arrays.fill( c, BigInteger.ZERO );
+            
+            for ( int s : liveStates ) {
+                BigInteger sum = BigInteger.ZERO;
+                for ( int a = 0; a < k; a++ ) {
+                    int t = dfa.getTarget( s, a );
+                    if ( t != FACompiledDFA.NO_STATE ) {
+                        sum = sum.add( previous[t] );
+                    }
+                }
+                c[s] = sum;
+            }
+            
+            counts.add( c );
+            
+        }
+        
+    }
+    
+    /**
+     * Finds the states that reach a final state walking backwards from the
+     * final states.
+     */
+    private boolean[] findLiveStates() {
+        
+        int n = dfa.getStateCount();
+        
+        // reverse adjacency in compressed form
+        int[] degree = new int[n + 1];
+        for ( int s = 0; s < n; s++ ) {
+            for ( int a = 0; a < k; a++ ) {
+                int t = dfa.getTarget( s, a );
+                if ( t != FACompiledDFA.NO_STATE ) {
+                    degree[t + 1]++;
+                }
+            }
+        }
+        for ( int s = 0; s < n; s++ ) {
+            degree[s + 1] += degree[s];
+        }
+        
+        int[] origins = new int[degree[n]];
+        int[] position = Arrays.copyOf( degree, n );
+        for ( int s = 0; s < n; s++ ) {
+            for ( int a = 0; a < k; a++ ) {
+                int t = dfa.getTarget( s, a );
+                if ( t != FACompiledDFA.NO_STATE ) {
+                    origins[position[t]++] = s;
+                }
+            }
+        }
+        
+        boolean[] reached = new boolean[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        
+        for ( int s = 0; s < n; s++ ) {
+            if ( dfa.isFinal( s ) ) {
+                reached[s] = true;
+                queue[tail++] = s;
+            }
+        }
+        
+        for ( int head = 0; head < tail; head++ ) {
+            int t = queue[head];
+            for ( int i = degree[t]; i < degree[t + 1]; i++ ) {
+                if ( !reached[origins[i]] ) {
+                    reached[origins[i]] = true;
+                    queue[tail++] = origins[i];
+                }
+            }
+        }
+        
+        return reached;
+        
+    }
+    
+    /**
+     * Iterative depth first search of the accepted strings, one length at a
+     * time. The stack keeps the state and the last tried column of each
+     * position of the string.
+     */
+    private class ShortlexIterator implements Iterator<String> {
+        
+        private final int maxLength;
+        
+        private int length;
+        private char[] str;
+        private int[] states;
+        private int[] columns;
+        private int depth;
+        
+        private String next;
+        
+        ShortlexIterator( int minLength, int maxLength ) {
+            this.maxLength = maxLength;
+            this.length = minLength - 1;
+            this.depth = -1;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            if ( next == null ) {
+                next = findNext();
+            }
+            return next != null;
+        }
+        
+        @Override
+        public String next() {
+            
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            
+            String s = next;
+            next = null;
+            return s;
+            
+        }
+        
+        private String findNext() {
+            
+            while ( true ) {
+                
+                if ( depth < 0 && !startNextLength() ) {
+                    return null;
+                }
+                
+                // the string is complete
+                if ( depth == length ) {
+                    depth--;
+                    return new String( str );
+                }
+                
+                // tries the next symbol of the current position that still
+                // leads to an accepted string
+                int remaining = length - depth - 1;
+                int s = states[depth];
+                int a = columns[depth] + 1;
+                
+                while ( a < k && count( remaining, dfa.getTarget( s, a ) ).signum() == 0 ) {
+                    a++;
+                }
+                
+                if ( a < k ) {
+                    columns[depth] = a;
+                    str[depth] = dfa.getSymbol( a );
+                    states[depth + 1] = dfa.getTarget( s, a );
+                    depth++;
+                    if ( depth < length ) {
+                        columns[depth] = -1;
+                    }
+                } else {
+                    depth--;
+                }
+                
+            }
+            
+        }
+        
+        /**
+         * Moves to the next length that has accepted strings.
+         */
+        private boolean startNextLength() {
+            
+            do {
+                if ( length >= maxLength ) {
+                    return false;
+                }
+                length++;
+            } while ( count( length ).signum() == 0 );
+            
+            str = new char[length];
+            states = new int[length + 1];
+            columns = new int[length + 1];
+            states[0] = dfa.getInitialState();
+            columns[0] = -1;
+            depth = 0;
+            
+            return true;
+            
+        }
+        
+    }
+    
+}
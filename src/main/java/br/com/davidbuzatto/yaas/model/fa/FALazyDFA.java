@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa;
+
+import br.com.davidbuzatto.yaas.gui.fa.FASimulationStep;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Executes a Nondeterministic Finite Automaton building the states of the
+ * equivalent DFA on demand (lazy subset construction). Each
+ * (set of states, symbol) -> set of states transition is computed only once
+ * and memoized, so the following strings that take the same path run like
+ * in a DFA.
+ * 
+ * The cache is bounded: when it is full all the memoized states are evicted
+ * and, if it gets full too many times while processing a single string, the
+ * rest of that string is processed by plain NFA stepping.
+ * 
+ * This class is not thread-safe.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class FALazyDFA {
+    
+    public static final int DEFAULT_CACHE_CAPACITY = 10000;
+    public static final int DEFAULT_MAX_CACHE_RESETS = 3;
+    
+    private static final int UNKNOWN = -2;
+    private static final int DEAD = -1;
+    
+    private final FACompiledNFA nfa;
+    private final int k;
+    private final int cacheCapacity;
+    private final int maxCacheResets;
+    
+    private final FASubsetInterner subsets;
+    private int[] transitions;
+    private int initialState;
+    
+    private long cacheResets;
+    private long fallbacks;
+    
+    public FALazyDFA( FACompiledNFA nfa ) {
+        this( nfa, DEFAULT_CACHE_CAPACITY, DEFAULT_MAX_CACHE_RESETS );
+    }
+    
+    /**
+     * Creates a new lazy DFA.
+     * 
+     * @param nfa The compiled automaton to be executed.
+     * @param cacheCapacity The maximum number of memoized DFA states.
+     * @param maxCacheResets How many times the cache can be evicted while
+     * processing a single string before falling back to NFA stepping.
+     */
+    public FALazyDFA( FACompiledNFA nfa, int cacheCapacity, int maxCacheResets ) {
+        
+        if ( cacheCapacity < 2 ) {
+            throw new IllegalArgumentException(
+                    "The cache capacity must be at least 2!" );
+        }
+        
+        this.nfa = nfa;
+        this.k = nfa.getAlphabetSize();
+        this.cacheCapacity = cacheCapacity;
+        this.maxCacheResets = maxCacheResets;
+        this.subsets = new FASubsetInterner();
+        
+        resetCache();
+        
+    }
+    
+    /**
+     * Verifies if a string is accepted.
+     * 
+     * @param str The string to be tested.
+     * @param simulationSteps A list to store the simulation steps or null if
+     * the steps are not needed.
+     * @return true if the string is accepted, false otherwise.
+     */
+    public boolean accepts( CharSequence str, List<FASimulationStep> simulationSteps ) {
+        
+        int current = initialState;
+        int resets = 0;
+        
+        if ( simulationSteps != null ) {
+            simulationSteps.add( new FASimulationStep(
+                    nfa.toStates( subsets.get( current ) ), Character.MIN_SURROGATE ) );
+        }
+        
+        for ( int i = 0, len = str.length(); i < len; i++ ) {
+            
+            char c = str.charAt( i );
+            int column = nfa.getColumn( c );
+            
+            if ( column < 0 ) {
+                return false;
+            }
+            
+            int next = transitions[current * k + column];
+            
+            if ( next == UNKNOWN ) {
+                
+                long[] target = new long[nfa.getWords()];
+                
+                if ( !nfa.step( subsets.get( current ), column, target ) ) {
+                    next = DEAD;
+                } else {
+                    
+                    next = subsets.find( target );
+                    
+                    if ( next == FASubsetInterner.NOT_FOUND ) {
+                        
+                        if ( subsets.size() >= cacheCapacity ) {
+                            
+                            if ( ++resets > maxCacheResets ) {
+                                fallbacks++;
+                                return acceptsNFA( str, i + 1, target, simulationSteps );
+                            }
+                            
+                            long[] currentSet = subsets.get( current );
+                            resetCache();
+                            current = intern( currentSet );
+                            
+                        }
+                        
+                        next = intern( target );
+                        
+                    }
+                    
+                }
+                
+                transitions[current * k + column] = next;
+                
+            }
+            
+            if ( next == DEAD ) {
+                return false;
+            }
+            
+            current = next;
+            
+            if ( simulationSteps != null ) {
+                simulationSteps.add( new FASimulationStep(
+                        nfa.toStates( subsets.get( current ) ), c ) );
+            }
+            
+        }
+        
+        return nfa.isFinal( subsets.get( current ) );
+        
+    }
+    
+    /**
+     * Plain NFA stepping, used when the cache is thrashing.
+     */
+    private boolean acceptsNFA(
+            CharSequence str,
+            int start,
+            long[] current,
+            List<FASimulationStep> simulationSteps ) {
+        
+        long[] next = new long[nfa.getWords()];
+        
+        if ( simulationSteps != null ) {
+            simulationSteps.add( new FASimulationStep(
+                    nfa.toStates( current ), str.charAt( start - 1 ) ) );
+        }
+        
+        for ( int i = start, len = str.length(); i < len; i++ ) {
+            
+            char c = str.charAt( i );
+            
+            if ( !nfa.step( current, nfa.getColumn( c ), next ) ) {
+                return false;
+            }
+            
+            long[] t = current;
+            current = next;
+            next = t;
+            
+            if ( simulationSteps != null ) {
+                simulationSteps.add( new FASimulationStep( nfa.toStates( current ), c ) );
+            }
+            
+        }
+        
+        return nfa.isFinal( current );
+        
+    }
+    
+    private int intern( long[] set ) {
+        
+        int id = subsets.intern( set );
+        int needed = ( id + 1 ) * k;
+        
+        if ( needed > transitions.length ) {
+            int oldLength = transitions.length;
+            transitions = Arrays.copyOf( transitions, Math.max( needed, oldLength * 2 ) );
+            Arrays.fill( transitions, oldLength, transitions.length, UNKNOWN );
+        }
+        
+        return id;
+        
+    }
+    
+    /**
+     * Evicts all the memoized states, keeping only the initial one.
+     */
+    private void resetCache() {
+        
+        if ( subsets.size() > 0 ) {
+            cacheResets++;
+        }
+        
+        long[] initial = nfa.getInitialSet();
+        subsets.clear();
+        transitions = new int[Math.max( 1, k ) * 16];
+        Arrays.fill( transitions, UNKNOWN );
+        initialState = intern( initial );
+        
+    }
+    
+    /**
+     * @return The number of currently memoized DFA states.
+     */
+    public int getCachedStates() {
+        return subsets.size();
+    }
+    
+    /**
+     * @return How many times the cache was evicted.
+     */
+    public long getCacheResets() {
+        return cacheResets;
+    }
+    
+    /**
+     * @return How many strings were finished by plain NFA stepping.
+     */
+    public long getFallbacks() {
+        return fallbacks;
+    }
+    
+}
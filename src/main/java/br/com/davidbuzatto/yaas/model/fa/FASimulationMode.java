@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa;
+
+/**
+ * The way a Finite Automaton is executed when testing strings.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public enum FASimulationMode {
+    
+    AUTOMATIC( "Automatic", "Chooses the best engine for the automaton type" ),
+    SET_BASED( "Set based", "Walks the transition function maps using sets of states" ),
+    BITSET( "Bitset", "Uses bitsets with precomputed empty string closures" ),
+    LAZY_DFA( "Lazy DFA", "Builds and memoizes the DFA states on demand while simulating" );
+    
+    private final String name;
+    private final String description;
+    
+    FASimulationMode( String name, String description ) {
+        this.name = name;
+        this.description = description;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+}
@@ -31,6 +31,8 @@ import java.awt.Rectangle;
  */
 public class FAState extends AbstractGeometricForm implements Comparable<FAState>, Cloneable {
     
+    private static final long serialVersionUID = -8488114285529493855L;
+    
     private int number;
     private String label;
     private String customLabel;
@@ -185,6 +187,43 @@ public class FAState extends AbstractGeometricForm implements Comparable<FAState
         return x*x + y*y <= radiusSquared;
     }
     
+    /**
+     * Returns the bounds of the area where the state is drawn, including the
+     * arrow of the initial state and labels wider than the state.
+     * 
+     * @return The bounds.
+     */
+    public Rectangle getBounds() {
+        
+        Rectangle r = new Rectangle( 
+                x1 - radius - 2, 
+                y1 - radius - 2, 
+                diameter + 5, 
+                diameter + 5 );
+        
+        if ( initial ) {
+            r.add( new Rectangle( 
+                    x1 - diameter - 2, 
+                    y1 - DrawingConstants.ARROW_LENGTH, 
+                    radius, 
+                    DrawingConstants.ARROW_LENGTH * 2 ) );
+        }
+        
+        String text = customLabel != null ? customLabel : label;
+        
+        if ( text != null ) {
+            int textWidth = Utils.getFontMetrics( font ).stringWidth( text );
+            r.add( new Rectangle( 
+                    x1 - textWidth / 2 - 2, 
+                    y1 - radius, 
+                    textWidth + 4, 
+                    diameter ) );
+        }
+        
+        return r;
+        
+    }
+    
     public boolean intersects( Rectangle rectangle ) {
         return new Rectangle( 
                 x1 - radius, 
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns sets of states represented as bitsets (long arrays), assigning a
+ * dense id to each distinct set. It is the subset construction bookkeeping
+ * shared by the algorithms that build deterministic automata from
+ * nondeterministic ones.
+ * 
+ * The interned arrays must not be modified by the callers.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class FASubsetInterner {
+    
+    public static final int NOT_FOUND = -1;
+    
+    private final Map<Subset, Integer> ids;
+    private final List<long[]> subsets;
+    
+    public FASubsetInterner() {
+        ids = new HashMap<>();
+        subsets = new ArrayList<>();
+    }
+    
+    /**
+     * Interns a set of states.
+     * 
+     * @param set The set of states. If it was not interned yet, a copy of it
+     * is stored, so the caller can reuse the array.
+     * @return The id of the set.
+     */
+    public int intern( long[] set ) {
+        
+        Integer id = ids.get( new Subset( set ) );
+        
+        if ( id == null ) {
+            long[] copy = set.clone();
+            id = subsets.size();
+            subsets.add( copy );
+            ids.put( new Subset( copy ), id );
+        }
+        
+        return id;
+        
+    }
+    
+    /**
+     * Verifies if a set of states was already interned.
+     * 
+     * @param set The set of states.
+     * @return The id of the set or NOT_FOUND.
+     */
+    public int find( long[] set ) {
+        Integer id = ids.get( new Subset( set ) );
+        return id == null ? NOT_FOUND : id;
+    }
+    
+    public long[] get( int id ) {
+        return subsets.get( id );
+    }
+    
+    public int size() {
+        return subsets.size();
+    }
+    
+    public void clear() {
+        ids.clear();
+        subsets.clear();
+    }
+    
+    /**
+     * A set of states with its hash cached.
+     */
+    private static class Subset {
+        
+        private final long[] set;
+        private final int hash;
+        
+        Subset( long[] set ) {
+            this.set = set;
+            this.hash = Arrays.hashCode( set );
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public boolean equals( Object obj ) {
+            if ( this == obj ) {
+                return true;
+            }
+            if ( obj == null ) {
+                return false;
+            }
+            if ( getClass() != obj.getClass() ) {
+                return false;
+            }
+            final Subset other = (Subset) obj;
+            return hash == other.hash && Arrays.equals( set, other.set );
+        }
+        
+    }
+    
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Maps the symbols of an alphabet to dense column indexes, in ascending
+ * symbol order, without boxing.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+class FASymbolColumns {
+    
+    static final int NO_COLUMN = -1;
+    
+    private final char[] symbols;
+    private final char minSymbol;
+    private final int[] columns;
+    
+    FASymbolColumns( Set<Character> alphabet ) {
+        
+        symbols = new char[alphabet.size()];
+        int currentColumn = 0;
+        for ( char c : alphabet ) {
+            symbols[currentColumn++] = c;
+        }
+        Arrays.sort( symbols );
+        
+        if ( symbols.length == 0 ) {
+            minSymbol = 0;
+            columns = new int[0];
+        } else {
+            minSymbol = symbols[0];
+            columns = new int[symbols[symbols.length-1] - minSymbol + 1];
+            Arrays.fill( columns, NO_COLUMN );
+            for ( int i = 0; i < symbols.length; i++ ) {
+                columns[symbols[i] - minSymbol] = i;
+            }
+        }
+        
+    }
+    
+    int getColumn( char symbol ) {
+        int p = symbol - minSymbol;
+        return p >= 0 && p < columns.length ? columns[p] : NO_COLUMN;
+    }
+    
+    char getSymbol( int column ) {
+        return symbols[column];
+    }
+    
+    int size() {
+        return symbols.length;
+    }
+    
+}
@@ -21,6 +21,7 @@ import br.com.davidbuzatto.yaas.util.Utils;
 import java.awt.Color;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.font.LineMetrics;
 
 /**
@@ -30,6 +31,8 @@ import java.awt.font.LineMetrics;
  */
 public class FATransitionLabel extends AbstractGeometricForm implements Cloneable {
     
+    private static final long serialVersionUID = 1234452332553478958L;
+    
     private String text;
     private int textWidth;
     private int textHeight;
@@ -96,6 +99,18 @@ public class FATransitionLabel extends AbstractGeometricForm implements Cloneabl
                 y <= y1 + textHeight/2 + 8;
     }
     
+    /**
+     * Returns the bounds of the area where the label is drawn, that contains
+     * the area where it can be selected (see intersects).
+     * 
+     * @return The bounds.
+     */
+    public Rectangle getBounds() {
+        return new Rectangle( 
+                x1 - textWidth/2 - 5, y1 - textHeight*2 - 6, 
+                textWidth + 14, textHeight*3 + 15 );
+    }
+    
     public void setText( String text ) {
         this.text = text;
         LineMetrics lm = Utils.getLineMetrics( text, font );
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa.algorithms;
+
+import br.com.davidbuzatto.yaas.model.AlgorithmCancellation;
+import br.com.davidbuzatto.yaas.model.fa.FACompiledDFA;
+import java.util.Arrays;
+
+/**
+ * Hopcroft's partition refinement algorithm to compute the equivalence
+ * classes of the states of a DFA in O(n.|Σ|.log n).
+ * 
+ * Missing transitions go to an implicit sink state that is kept in its own
+ * class, so two states are equivalent only if they accept the same language
+ * and have transitions defined with the same symbols, recursively. That is
+ * the same equivalence used by the table filling method in DFAMinimize.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class DFAHopcroft {
+    
+    // the partition: elements grouped by block, each block is the range
+    // [first[b], end[b]) of elems and the marked elements of a block are
+    // the range [first[b], mid[b])
+    private final int[] elems;
+    private final int[] loc;
+    private final int[] blockOf;
+    private final int[] first;
+    private final int[] end;
+    private final int[] mid;
+    private int blocks;
+    
+    private DFAHopcroft( int n ) {
+        elems = new int[n];
+        loc = new int[n];
+        blockOf = new int[n];
+        first = new int[n];
+        end = new int[n];
+        mid = new int[n];
+    }
+    
+    /**
+     * Computes the equivalence classes of the states of a compiled DFA.
+     * 
+     * @param cDFA The compiled DFA.
+     * @return An array with the class of each state of the compiled DFA. The
+     * classes are numbered densely, in the order of their first state.
+     */
+    public static int[] computeEquivalenceClasses( FACompiledDFA cDFA ) {
+        
+        int n = cDFA.getStateCount();
+        int k = cDFA.getAlphabetSize();
+        
+        // total transition function, with the sink state if needed
+        boolean needsSink = false;
+        for ( int s = 0; s < n && !needsSink; s++ ) {
+            for ( int c = 0; c < k; c++ ) {
+                if ( cDFA.getTarget( s, c ) == FACompiledDFA.NO_STATE ) {
+                    needsSink = true;
+                    break;
+                }
+            }
+        }
+        
+        int total = needsSink ? n + 1 : n;
+        int sink = needsSink ? n : -1;
+        int[] delta = new int[total * k];
+        for ( int s = 0; s < total; s++ ) {
+            for ( int c = 0; c < k; c++ ) {
+                int t = s == sink ? FACompiledDFA.NO_STATE : cDFA.getTarget( s, c );
+                delta[s * k + c] = t == FACompiledDFA.NO_STATE ? sink : t;
+            }
+        }
+        
+        // inverse transition function in compressed rows: the predecessors
+        // of t by c are invStates[invStart[c*total+t] .. invStart[c*total+t+1])
+        int[] invStart = new int[total * k + 1];
+        for ( int s = 0; s < total; s++ ) {
+            for ( int c = 0; c < k; c++ ) {
+                invStart[c * total + delta[s * k + c] + 1]++;
+            }
+        }
+        for ( int i = 0; i < total * k; i++ ) {
+            invStart[i + 1] += invStart[i];
+        }
+        int[] invStates = new int[total * k];
+        int[] fill = invStart.clone();
+        for ( int s = 0; s < total; s++ ) {
+            for ( int c = 0; c < k; c++ ) {
+                invStates[fill[c * total + delta[s * k + c]]++] = s;
+            }
+        }
+        
+        // initial partition: final states, non final states and the sink
+        DFAHopcroft p = new DFAHopcroft( total );
+        int[] initialBlock = new int[total];
+        int finalCount = 0;
+        for ( int s = 0; s < n; s++ ) {
+            if ( cDFA.isFinal( s ) ) {
+                finalCount++;
+            }
+        }
+        int nonFinalCount = n - finalCount;
+        int currentBlock = 0;
+        int finalBlock = finalCount > 0 ? currentBlock++ : -1;
+        int nonFinalBlock = nonFinalCount > 0 ? currentBlock++ : -1;
+        int sinkBlock = needsSink ? currentBlock++ : -1;
+        for ( int s = 0; s < total; s++ ) {
+            if ( s == sink ) {
+                initialBlock[s] = sinkBlock;
+            } else {
+                initialBlock[s] = cDFA.isFinal( s ) ? finalBlock : nonFinalBlock;
+            }
+        }
+        p.init( initialBlock, currentBlock );
+        
+        // worklist of splitters (block, symbol)
+        boolean[] inWorklist = new boolean[total * Math.max( k, 1 )];
+        int[] worklist = new int[total * Math.max( k, 1 )];
+        int wlSize = 0;
+        
+        // all the initial blocks but the largest one are enough
+        int largest = 0;
+        for ( int b = 1; b < p.blocks; b++ ) {
+            if ( p.size( b ) > p.size( largest ) ) {
+                largest = b;
+            }
+        }
+        for ( int b = 0; b < p.blocks; b++ ) {
+            if ( b != largest ) {
+                for ( int c = 0; c < k; c++ ) {
+                    worklist[wlSize++] = b * k + c;
+                    inWorklist[b * k + c] = true;
+                }
+            }
+        }
+        
+        int[] touchedStates = new int[total];
+        int[] touchedBlocks = new int[total];
+        
+        while ( wlSize > 0 ) {
+            
+            AlgorithmCancellation.check();
+            
+            int splitter = worklist[--wlSize];
+            inWorklist[splitter] = false;
+            int sb = splitter / k;
+            int c = splitter % k;
+            
+            // collects the predecessors of the splitter before changing the
+            // partition, since the splitter itself may be split
+            int touched = 0;
+            for ( int i = p.first[sb]; i < p.end[sb]; i++ ) {
+                int t = p.elems[i];
+                for ( int j = invStart[c * total + t]; j < invStart[c * total + t + 1]; j++ ) {
+                    touchedStates[touched++] = invStates[j];
+                }
+            }
+            
+            int touchedBlockCount = 0;
+            for ( int i = 0; i < touched; i++ ) {
+                int b = p.blockOf[touchedStates[i]];
+                if ( p.mid[b] == p.first[b] ) {
+                    touchedBlocks[touchedBlockCount++] = b;
+                }
+                p.mark( touchedStates[i] );
+            }
+            
+            for ( int i = 0; i < touchedBlockCount; i++ ) {
+                
+                int b = touchedBlocks[i];
+                int nb = p.split( b );
+                
+                if ( nb != -1 ) {
+                    for ( int a = 0; a < k; a++ ) {
+                        if ( inWorklist[b * k + a] ) {
+                            worklist[wlSize++] = nb * k + a;
+                            inWorklist[nb * k + a] = true;
+                        } else {
+                            int smaller = p.size( b ) <= p.size( nb ) ? b : nb;
+                            worklist[wlSize++] = smaller * k + a;
+                            inWorklist[smaller * k + a] = true;
+                        }
+                    }
+                }
+                
+            }
+            
+        }
+        
+        // dense numbering of the classes, in the order of their first state
+        int[] classes = new int[n];
+        int[] blockToClass = new int[p.blocks];
+        Arrays.fill( blockToClass, -1 );
+        int currentClass = 0;
+        for ( int s = 0; s < n; s++ ) {
+            int b = p.blockOf[s];
+            if ( blockToClass[b] == -1 ) {
+                blockToClass[b] = currentClass++;
+            }
+            classes[s] = blockToClass[b];
+        }
+        
+        return classes;
+        
+    }
+    
+    private void init( int[] initialBlock, int blockCount ) {
+        
+        int n = elems.length;
+        blocks = blockCount;
+        
+        int[] count = new int[blockCount + 1];
+        for ( int s = 0; s < n; s++ ) {
+            count[initialBlock[s] + 1]++;
+        }
+        for ( int b = 0; b < blockCount; b++ ) {
+            count[b + 1] += count[b];
+        }
+        for ( int b = 0; b < blockCount; b++ ) {
+            first[b] = count[b];
+            mid[b] = count[b];
+            end[b] = count[b + 1];
+        }
+        for ( int s = 0; s < n; s++ ) {
+            int b = initialBlock[s];
+            int p = count[b]++;
+            elems[p] = s;
+            loc[s] = p;
+            blockOf[s] = b;
+        }
+        
+    }
+    
+    private int size( int b ) {
+        return end[b] - first[b];
+    }
+    
+    /**
+     * Marks a state, moving it to the marked part of its block.
+     */
+    private void mark( int s ) {
+        
+        int b = blockOf[s];
+        int i = loc[s];
+        int m = mid[b];
+        
+        if ( i >= m ) {
+            int other = elems[m];
+            elems[m] = s;
+            loc[s] = m;
+            elems[i] = other;
+            loc[other] = i;
+            mid[b] = m + 1;
+        }
+        
+    }
+    
+    /**
+     * Splits the marked part of a block, if it is a proper subset.
+     * 
+     * @return The new block or -1 if the block was not split.
+     */
+    private int split( int b ) {
+        
+        if ( mid[b] == end[b] ) {
+            // all elements are marked
+            mid[b] = first[b];
+            return -1;
+        }
+        
+        int nb = blocks++;
+        first[nb] = first[b];
+        end[nb] = mid[b];
+        mid[nb] = first[nb];
+        first[b] = mid[b];
+        
+        for ( int i = first[nb]; i < end[nb]; i++ ) {
+            blockOf[elems[i]] = nb;
+        }
+        
+        return nb;
+        
+    }
+    
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa.algorithms;
+
+/**
+ * The algorithms available to minimize a DFA.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public enum DFAMinimizationAlgorithm {
+    
+    MYHILL_NERODE( "Myhill-Nerode", "Table filling method (for teaching, exponential)" ),
+    HOPCROFT( "Hopcroft", "Partition refinement, O(n.|Σ|.log n)" );
+    
+    private final String name;
+    private final String description;
+    
+    DFAMinimizationAlgorithm( String name, String description ) {
+        this.name = name;
+        this.description = description;
+    }
+
+    public String getName() {
+        return name;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+}
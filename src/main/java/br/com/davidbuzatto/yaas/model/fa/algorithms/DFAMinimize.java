@@ -16,15 +16,18 @@
  */
 package br.com.davidbuzatto.yaas.model.fa.algorithms;
 
+import br.com.davidbuzatto.yaas.model.AlgorithmCancellation;
 import br.com.davidbuzatto.yaas.model.fa.FA;
+import br.com.davidbuzatto.yaas.model.fa.FACompiledDFA;
+import br.com.davidbuzatto.yaas.util.MavenModelLoader;
 import static br.com.davidbuzatto.yaas.model.fa.algorithms.FACommon.haveSameDeltaWithOneSymbol;
 import static br.com.davidbuzatto.yaas.model.fa.algorithms.FACommon.isDistinguishable;
 import br.com.davidbuzatto.yaas.model.fa.FAState;
 import br.com.davidbuzatto.yaas.model.fa.FATransition;
-import br.com.davidbuzatto.yaas.util.Utils;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -32,22 +35,30 @@ import java.util.Set;
 import java.util.TreeSet;
 
 /**
- * Implements the Myhill-Nerode Theorem (Table filling method) to create a
- * minimized DFA.
+ * Creates a minimized DFA using the Myhill-Nerode Theorem (Table filling
+ * method) or the Hopcroft's partition refinement algorithm.
  * 
  * @author Prof. Dr. David Buzatto
  */
 public class DFAMinimize {
     
     private static final boolean DEBUG = Boolean.parseBoolean( 
-            Utils.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
+            MavenModelLoader.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
     
     private final FA generatedDFA;
     
     public DFAMinimize( FA fa, 
             boolean removeUselessAndInaccessibleStates ) 
             throws IllegalArgumentException {
-        generatedDFA = processIt( fa, removeUselessAndInaccessibleStates );
+        this( fa, removeUselessAndInaccessibleStates, 
+                DFAMinimizationAlgorithm.HOPCROFT );
+    }
+    
+    public DFAMinimize( FA fa, 
+            boolean removeUselessAndInaccessibleStates,
+            DFAMinimizationAlgorithm algorithm ) 
+            throws IllegalArgumentException {
+        generatedDFA = processIt( fa, removeUselessAndInaccessibleStates, algorithm );
     }
 
     public FA getGeneratedDFA() {
@@ -55,14 +66,19 @@ public class DFAMinimize {
     }
     
     /**
-     * Uses the Myhill-Nerode Theorem (Table filling method) to create a
-     * minimized DFA.
+     * Creates a minimized DFA.
      * 
      * @param dfa The DFA to be processed.
+     * @param removeUselessAndInaccessibleStates If the inaccessible and
+     * useless states must be removed before the minimization.
+     * @param algorithm The minimization algorithm to use.
      * @return An equivalent DFA, but minimized. If the processed DFA is already
      * mimimum, it will be returned instead of a new DFA.
      */
-    private static FA processIt( FA dfa, boolean removeUselessAndInaccessibleStates ) throws IllegalArgumentException {
+    private static FA processIt( 
+            FA dfa, 
+            boolean removeUselessAndInaccessibleStates,
+            DFAMinimizationAlgorithm algorithm ) throws IllegalArgumentException {
         
         FACommon.validateDFA( dfa );
         FACommon.validateInitialState( dfa );
@@ -95,7 +111,12 @@ public class DFAMinimize {
         
         }
         
+        if ( algorithm == DFAMinimizationAlgorithm.HOPCROFT ) {
+            return processItHopcroft( dfa );
+        }
+        
         FA minDfa = new FA();
+        minDfa.beginBulkEdit();
         List<FAState> states = new ArrayList<>( dfa.getStates() );
         Map<FAState, Map<Character, List<FAState>>> delta = dfa.getDelta();
         
@@ -195,6 +216,7 @@ public class DFAMinimize {
         }
         toRemove.clear();
         for ( FAStatePairHelper sp : pairs ) {
+            AlgorithmCancellation.check();
             if ( isDistinguishable( sp.s1, sp.s2, dfa ) ) {
                 toRemove.add( sp );
                 if ( DEBUG ) {
@@ -226,6 +248,8 @@ public class DFAMinimize {
         List<Set<FAState>> newStateSets = new ArrayList<>();
         while ( !pairs.isEmpty() ) {
             
+            AlgorithmCancellation.check();
+            
             FAStatePairHelper cPair = pairs.iterator().next();
             Set<FAState> newStateSet = new TreeSet<>();
             newStateSet.add( cPair.s1 );
@@ -354,6 +378,153 @@ public class DFAMinimize {
             }
         }
         
+        minDfa.endBulkEdit();
+        FACommon.reenumerateStates( minDfa );
+        return minDfa;
+        
+    }
+    
+    /**
+     * Uses the Hopcroft's partition refinement algorithm to create a
+     * minimized DFA. The generated DFA is built like in the table filling
+     * method: the states that are not combined keep their numbers and custom
+     * labels and the combined states are labeled by the concatenation of the
+     * labels of the original states.
+     * 
+     * @param dfa The DFA to be processed.
+     * @return An equivalent DFA, but minimized. If the processed DFA is already
+     * mimimum, it will be returned instead of a new DFA.
+     */
+    private static FA processItHopcroft( FA dfa ) {
+        
+        FACompiledDFA cDFA = dfa.getCompiledDFA();
+        
+        // no initial state (e.g., all the states were useless)
+        if ( cDFA == null ) {
+            return dfa;
+        }
+        
+        int[] classes = DFAHopcroft.computeEquivalenceClasses( cDFA );
+        
+        int n = cDFA.getStateCount();
+        int k = cDFA.getAlphabetSize();
+        int classCount = 0;
+        for ( int c : classes ) {
+            classCount = Math.max( classCount, c + 1 );
+        }
+        
+        if ( DEBUG ) {
+            System.out.println( "\nHopcroft - equivalence classes:" );
+            for ( int i = 0; i < n; i++ ) {
+                System.out.println( "    " + cDFA.getState( i ) + ": " + classes[i] );
+            }
+        }
+        
+        /* If all classes have only one state, all of them are 
+         * distinguishable, so the DFA is already minimum and it is returned.
+         */
+        if ( classCount == n ) {
+            return dfa;
+        }
+        
+        // members of each class, ordered by the state numbers
+        List<Set<FAState>> members = new ArrayList<>();
+        for ( int i = 0; i < classCount; i++ ) {
+            members.add( new TreeSet<>() );
+        }
+        for ( int i = 0; i < n; i++ ) {
+            members.get( classes[i] ).add( cDFA.getState( i ) );
+        }
+        
+        FA minDfa = new FA();
+        minDfa.beginBulkEdit();
+        FAState[] newStates = new FAState[classCount];
+        List<FAState> singles = new ArrayList<>();
+        List<FAState> combined = new ArrayList<>();
+        
+        // the states that are not combined, in the original order, and the
+        // combined ones, in the order they are discovered
+        for ( FAState s : dfa.getStates() ) {
+            
+            int c = classes[cDFA.getIndex( s )];
+            Set<FAState> m = members.get( c );
+            
+            if ( m.size() == 1 ) {
+                FAState newState = new FAState( s.getNumber() );
+                newState.setInitial( s.isInitial() );
+                newState.setFinal( s.isFinal() );
+                newState.setCustomLabel( s.getCustomLabel() );
+                newStates[c] = newState;
+                singles.add( newState );
+            } else if ( newStates[c] == null ) {
+                
+                String label = "";
+                for ( FAState ss : m ) {
+                    if ( ss.getCustomLabel() != null ) {
+                        label += ss.getCustomLabel();
+                    } else {
+                        label += ss.getLabel();
+                    }
+                }
+                
+                FAState newState = new FAState( 0 );
+                newState.setInitial( m.contains( dfa.getInitialState() ) );
+                newState.setFinal( s.isFinal() );
+                newState.setCustomLabel( label );
+                newStates[c] = newState;
+                combined.add( newState );
+                
+            }
+            
+        }
+        
+        // the initial state must be added first
+        FAState newInitial = newStates[classes[cDFA.getInitialState()]];
+        minDfa.addState( newInitial );
+        for ( FAState s : singles ) {
+            if ( s != newInitial ) {
+                minDfa.addState( s );
+            }
+        }
+        for ( FAState s : combined ) {
+            if ( s != newInitial ) {
+                minDfa.addState( s );
+            }
+        }
+        
+        // creating the transitions, one representative by class
+        boolean[] done = new boolean[classCount];
+        for ( int i = 0; i < n; i++ ) {
+            
+            int c = classes[i];
+            
+            if ( !done[c] ) {
+                
+                done[c] = true;
+                Map<Integer, List<Character>> symbols = new LinkedHashMap<>();
+                
+                for ( int a = 0; a < k; a++ ) {
+                    int t = cDFA.getTarget( i, a );
+                    if ( t != FACompiledDFA.NO_STATE ) {
+                        List<Character> li = symbols.get( classes[t] );
+                        if ( li == null ) {
+                            li = new ArrayList<>();
+                            symbols.put( classes[t], li );
+                        }
+                        li.add( cDFA.getSymbol( a ) );
+                    }
+                }
+                
+                for ( Map.Entry<Integer, List<Character>> e : symbols.entrySet() ) {
+                    minDfa.addTransition( new FATransition( 
+                            newStates[c], newStates[e.getKey()], e.getValue() ) );
+                }
+                
+            }
+            
+        }
+        
+        minDfa.endBulkEdit();
         FACommon.reenumerateStates( minDfa );
         return minDfa;
         
@@ -17,10 +17,11 @@
 package br.com.davidbuzatto.yaas.model.fa.algorithms;
 
 import br.com.davidbuzatto.yaas.model.fa.FA;
+import br.com.davidbuzatto.yaas.model.fa.FACompiledDFA;
 import br.com.davidbuzatto.yaas.model.fa.FAState;
 import br.com.davidbuzatto.yaas.model.fa.FAType;
-import br.com.davidbuzatto.yaas.util.SigmaStarGeneratorStream;
-import br.com.davidbuzatto.yaas.util.Utils;
+import br.com.davidbuzatto.yaas.util.MavenModelLoader;
+import br.com.davidbuzatto.yaas.util.SigmaStarEnumerator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,7 +36,7 @@ import java.util.TreeSet;
 public class FACommon {
     
     private static final boolean DEBUG = Boolean.parseBoolean( 
-            Utils.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
+            MavenModelLoader.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
     
     /**
      * Acceptance algorithm for a DFA, using a custom initialState.
@@ -46,18 +47,27 @@ public class FACommon {
      * DFA initial state)
      * @return true if the string is accepted, false otherwise.
      */
-    public static boolean acceptsDFA( String str, FA dfa, FAState initialState )
+    public static boolean acceptsDFA( CharSequence str, FA dfa, FAState initialState )
             throws IllegalArgumentException {
         
         if ( dfa.getType() != FAType.DFA ) {
             throw new IllegalArgumentException( "You must use an DFA!" );
         }
         
+        FACompiledDFA cDFA = dfa.getCompiledDFA();
+        
+        if ( cDFA != null ) {
+            int start = cDFA.getIndex( initialState );
+            if ( start != FACompiledDFA.NO_STATE ) {
+                return cDFA.accepts( str, start );
+            }
+        }
+        
         FAState current = initialState;
         Map<FAState, Map<Character, List<FAState>>> delta = dfa.getDelta();
         
-        for ( char c : str.toCharArray() ) {
-            List<FAState> target = delta.get( current ).get( c );
+        for ( int i = 0; i < str.length(); i++ ) {
+            List<FAState> target = delta.get( current ).get( str.charAt( i ) );
             if ( target != null ) {
                 current = target.get( 0 );
             } else {
@@ -133,7 +143,7 @@ public class FACommon {
         if ( !alphabet.isEmpty() ) {
             
             // generate strings starting with length = 2
-            SigmaStarGeneratorStream ssgs = new SigmaStarGeneratorStream( alphabet, 2 );
+            SigmaStarEnumerator sse = new SigmaStarEnumerator( alphabet, 2 );
 
             // max length => n-2, n being the number os states of the DFA
             int maxLength = dfa.getStates().size() - 2;
@@ -144,7 +154,7 @@ public class FACommon {
             
             while ( true ) {
                 
-                String str = ssgs.next();
+                CharSequence str = sse.next();
                 
                 if ( str.length() > maxLength ) {
                     result = false;
@@ -16,153 +16,166 @@
  */
 package br.com.davidbuzatto.yaas.model.fa.algorithms;
 
+import br.com.davidbuzatto.yaas.model.AlgorithmCancellation;
+import br.com.davidbuzatto.yaas.model.AlgorithmProgressListener;
 import br.com.davidbuzatto.yaas.model.fa.FA;
 import static br.com.davidbuzatto.yaas.model.fa.algorithms.FACommon.newCustomLabel;
+import br.com.davidbuzatto.yaas.model.fa.FACompiledNFA;
 import br.com.davidbuzatto.yaas.model.fa.FAState;
+import br.com.davidbuzatto.yaas.model.fa.FASubsetInterner;
 import br.com.davidbuzatto.yaas.model.fa.FATransition;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
 
 /**
  * This class processes a Finite Automaton and generates a new one without any
  * non-determinisms.
  * 
+ * The subsets of states are stored as interned bitsets and the transitions are
+ * accumulated in an int table, so the FA objects are created only at the end.
+ * 
  * @author Prof. Dr. David Buzatto
  */
 public class FADeterminize {
     
+    private static final int DEAD = -1;
+    
     private final FA generatedDFA;
+    private boolean cancelled;
     
     public FADeterminize( FA fa ) {
-        generatedDFA = processIt( fa );
+        this( fa, null );
+    }
+    
+    /**
+     * Determinizes a Finite Automaton reporting the progress.
+     * 
+     * @param fa The Finite Automaton to be processed.
+     * @param progressListener A listener that receives the number of processed
+     * and generated states after each state is processed and that may cancel
+     * the process. It can be null.
+     */
+    public FADeterminize( FA fa, AlgorithmProgressListener progressListener ) {
+        generatedDFA = processIt( fa, progressListener );
     }
 
+    /**
+     * @return The generated DFA or null if the process was cancelled.
+     */
     public FA getGeneratedDFA() {
         return generatedDFA;
     }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
     
     /**
      * Generates a new Finite Automaton without any non-determinisms.
      * 
      * @param fa The Finite Automaton to be processed.
-     * @return An equivalent DFA (not minimum).
+     * @param progressListener The progress listener or null.
+     * @return An equivalent DFA (not minimum) or null if cancelled.
      */
-    private static FA processIt( FA fa ) {
+    private FA processIt( FA fa, AlgorithmProgressListener progressListener ) {
         
         FA dfa = new FA();
-        int currentState = 0;
-        
-        // get data from the original automaton
-        Set<Character> alphabet = fa.getAlphabet();
-        FAState initialState = fa.getInitialState();
-        List<FAState> acceptinStates = fa.getFinalStates();
-        Map<FAState, Map<Character, List<FAState>>> delta = fa.getDelta();
-        Map<FAState, Set<FAState>> ecloses = fa.getEcloses( delta );
+        FACompiledNFA nfa = fa.getCompiledNFA();
         
-        // start the process of generation
+        if ( nfa == null ) {
+            return dfa;
+        }
         
-        // creates the new initial state
-        FAState dfaInitial = new FAState( currentState );
-        dfaInitial.setInitial( true );
-        dfaInitial.setCustomLabel( newCustomLabel( currentState++ ) );
-        StateHelper initialSH = new StateHelper( dfaInitial, ecloses.get( initialState ) );
+        int k = nfa.getAlphabetSize();
         
-        // data strutctures to store transitions and states that will be generated
-        Set<TransitionHelper> generatedTransitions = new LinkedHashSet<>();
-        Set<StateHelper> generatedStates = new LinkedHashSet<>();
-        generatedStates.add( initialSH );
+        // the initial state is the empty string closure of the original one
+        FASubsetInterner subsets = new FASubsetInterner();
+        subsets.intern( nfa.getInitialSet() );
         
-        // a queue to process the generated states
-        Queue<StateHelper> queue = new ArrayDeque<>();
-        queue.add( initialSH );
+        long[] target = new long[nfa.getWords()];
+        int[] delta = new int[16 * Math.max( k, 1 )];
         
-        // on demand process of new states
-        while ( !queue.isEmpty() ) {
+        // on demand process of new states (the interner is the queue)
+        for ( int current = 0; current < subsets.size(); current++ ) {
             
-            StateHelper current = queue.poll();
+            AlgorithmCancellation.check();
             
-            for ( Character a : alphabet ) {
-                
-                Set<FAState> targetEclose = new HashSet<>();
-                
-                for ( FAState s : current.states ) {
-                    
-                    List<FAState> t = delta.get( s ).get( a );
-                    if ( t != null && !t.isEmpty() ) {
-                        for ( FAState ns : t ) {
-                            targetEclose.addAll( ecloses.get( ns ) );
-                        }
-                    }
-
-                }
-                
-                if ( !targetEclose.isEmpty() ) {
-
-                    StateHelper newSH = new StateHelper( targetEclose );
-                    
-                    if ( !generatedStates.contains( newSH ) ) {
-                        
-                        FAState newState = new FAState( currentState );
-                        newState.setCustomLabel( newCustomLabel( currentState++ ) );
-                        newSH.state = newState;
-                        generatedStates.add( newSH );
-                        queue.add( newSH );
-                        
-                    }
-                    
-                    TransitionHelper newTH = new TransitionHelper( current, newSH, a );
-                    if ( generatedTransitions.contains( newTH ) ) {
-                        for ( TransitionHelper t : generatedTransitions ) {
-                            if ( t.equals( newTH ) ) {
-                                t.symbols.addAll( newTH.symbols );
-                            }
-                        }
-                    } else {
-                        generatedTransitions.add( newTH );
-                    }
-
-                }
-
+            if ( progressListener != null && 
+                    !progressListener.progress( current, subsets.size() ) ) {
+                cancelled = true;
+                return null;
             }
             
-        }
-        
-        for ( StateHelper s : generatedStates ) {
-            for ( FAState a : acceptinStates ) {
-                if ( s.states.contains( a ) ) {
-                    s.state.setFinal( true );
-                    break;
+            if ( ( current + 1 ) * k > delta.length ) {
+                delta = Arrays.copyOf( delta, delta.length * 2 );
+            }
+            
+            long[] states = subsets.get( current );
+            
+            for ( int a = 0; a < k; a++ ) {
+                if ( nfa.step( states, a, target ) ) {
+                    delta[current * k + a] = subsets.intern( target );
+                } else {
+                    delta[current * k + a] = DEAD;
                 }
             }
+            
         }
         
-        for ( StateHelper s : generatedStates ) {
-            dfa.addState( s.state );
+        int count = subsets.size();
+        
+        if ( progressListener != null && 
+                !progressListener.progress( count, count ) ) {
+            cancelled = true;
+            return null;
         }
         
-        Map<Set<FAState>, FAState> m = new HashMap<>();
-        for ( TransitionHelper t : generatedTransitions ) {
-            m.put( t.originState.states, t.originState.state );
+        // materializes the states and the transitions
+        dfa.beginBulkEdit();
+        FAState[] generatedStates = new FAState[count];
+        for ( int i = 0; i < count; i++ ) {
+            generatedStates[i] = new FAState( i, newCustomLabel( i ), 
+                    i == 0, nfa.isFinal( subsets.get( i ) ) );
+            dfa.addState( generatedStates[i] );
         }
         
-        for ( TransitionHelper t : generatedTransitions ) {
-            t.targetState.state = m.get( t.targetState.states );
-            List<Character> symbols = new ArrayList<>();
-            symbols.addAll( t.symbols );
-            dfa.addTransition( new FATransition( 
-                    t.originState.state, 
-                    t.targetState.state, symbols ) );
+        // symbols grouped by (origin, target), in order of appearance
+        int[] transitionOf = new int[count];
+        Arrays.fill( transitionOf, -1 );
+        List<Integer> targets = new ArrayList<>();
+        List<List<Character>> symbols = new ArrayList<>();
+        
+        for ( int i = 0; i < count; i++ ) {
+            
+            AlgorithmCancellation.check();
+            
+            targets.clear();
+            symbols.clear();
+            
+            for ( int a = 0; a < k; a++ ) {
+                int t = delta[i * k + a];
+                if ( t != DEAD ) {
+                    if ( transitionOf[t] == -1 ) {
+                        transitionOf[t] = targets.size();
+                        targets.add( t );
+                        symbols.add( new ArrayList<>() );
+                    }
+                    symbols.get( transitionOf[t] ).add( nfa.getSymbol( a ) );
+                }
+            }
+            
+            for ( int j = 0; j < targets.size(); j++ ) {
+                int t = targets.get( j );
+                dfa.addTransition( new FATransition( 
+                        generatedStates[i], generatedStates[t], symbols.get( j ) ) );
+                transitionOf[t] = -1;
+            }
+            
         }
         
-        Collections.sort( dfa.getStates() );
+        dfa.endBulkEdit();
+        
         return dfa;
         
     }
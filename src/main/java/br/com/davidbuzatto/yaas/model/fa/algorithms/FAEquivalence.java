@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa.algorithms;
+
+import br.com.davidbuzatto.yaas.model.fa.FA;
+import br.com.davidbuzatto.yaas.model.fa.FACompiledDFA;
+import br.com.davidbuzatto.yaas.model.fa.FAType;
+import java.util.TreeSet;
+
+/**
+ * Verifies if two Finite Automata accept the same language.
+ * 
+ * Two DFAs are compared with the Hopcroft-Karp algorithm: the pairs of states
+ * that must be equivalent are merged in a union-find structure, so the
+ * comparison takes near-linear time in the number of states. Other automata
+ * are compared by two antichain-pruned inclusion checks (see FAInclusion).
+ * 
+ * When the languages are different, a shortest string that is accepted by
+ * only one of the automata is provided.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class FAEquivalence {
+    
+    private final boolean equivalent;
+    private final String counterexample;
+    
+    public FAEquivalence( FA fa1, FA fa2 ) throws IllegalArgumentException {
+        
+        FACommon.validateInitialState( fa1, fa2 );
+        
+        if ( fa1.getType() == FAType.DFA && fa2.getType() == FAType.DFA && 
+                fa1.getCompiledDFA() != null && fa2.getCompiledDFA() != null &&
+                hopcroftKarp( fa1.getCompiledDFA(), fa2.getCompiledDFA() ) ) {
+            equivalent = true;
+            counterexample = null;
+            return;
+        }
+        
+        String c1 = FAInclusion.findCounterexample( 
+                fa1.getCompiledNFA(), fa2.getCompiledNFA() );
+        String c2 = FAInclusion.findCounterexample( 
+                fa2.getCompiledNFA(), fa1.getCompiledNFA() );
+        
+        if ( c1 == null ) {
+            counterexample = c2;
+        } else if ( c2 == null ) {
+            counterexample = c1;
+        } else {
+            counterexample = c2.length() < c1.length() ? c2 : c1;
+        }
+        
+        equivalent = counterexample == null;
+        
+    }
+
+    public boolean isEquivalent() {
+        return equivalent;
+    }
+
+    /**
+     * @return A shortest string accepted by only one of the automata or null
+     * if they are equivalent.
+     */
+    public String getCounterexample() {
+        return counterexample;
+    }
+    
+    /**
+     * Hopcroft-Karp equivalence test. The states of both DFAs and a shared
+     * dead state (used for the missing transitions) are numbered in a single
+     * range: [0, n1) for the first DFA, [n1, n1 + n2) for the second one and
+     * n1 + n2 for the dead state.
+     */
+    private static boolean hopcroftKarp( FACompiledDFA d1, FACompiledDFA d2 ) {
+        
+        TreeSet<Character> symbols = new TreeSet<>();
+        for ( int c = 0; c < d1.getAlphabetSize(); c++ ) {
+            symbols.add( d1.getSymbol( c ) );
+        }
+        for ( int c = 0; c < d2.getAlphabetSize(); c++ ) {
+            symbols.add( d2.getSymbol( c ) );
+        }
+        
+        int k = symbols.size();
+        int n1 = d1.getStateCount();
+        int n2 = d2.getStateCount();
+        int dead = n1 + n2;
+        int total = dead + 1;
+        
+        int[] delta = new int[total * k];
+        boolean[] finalStates = new boolean[total];
+        int c = 0;
+        for ( char symbol : symbols ) {
+            int c1 = d1.getColumn( symbol );
+            int c2 = d2.getColumn( symbol );
+            for ( int s = 0; s < n1; s++ ) {
+                int t = c1 == FACompiledDFA.NO_STATE ? 
+                        FACompiledDFA.NO_STATE : d1.getTarget( s, c1 );
+                delta[s * k + c] = t == FACompiledDFA.NO_STATE ? dead : t;
+            }
+            for ( int s = 0; s < n2; s++ ) {
+                int t = c2 == FACompiledDFA.NO_STATE ? 
+                        FACompiledDFA.NO_STATE : d2.getTarget( s, c2 );
+                delta[( n1 + s ) * k + c] = t == FACompiledDFA.NO_STATE ? dead : n1 + t;
+            }
+            delta[dead * k + c] = dead;
+            c++;
+        }
+        for ( int s = 0; s < n1; s++ ) {
+            finalStates[s] = d1.isFinal( s );
+        }
+        for ( int s = 0; s < n2; s++ ) {
+            finalStates[n1 + s] = d2.isFinal( s );
+        }
+        
+        // each union reduces the number of classes, so there are at most
+        // total - 1 pairs in the stack
+        int[] parent = new int[total];
+        int[] rank = new int[total];
+        for ( int s = 0; s < total; s++ ) {
+            parent[s] = s;
+        }
+        int[] stack = new int[total * 2];
+        int top = 0;
+        
+        union( parent, rank, d1.getInitialState(), n1 + d2.getInitialState() );
+        stack[top++] = d1.getInitialState();
+        stack[top++] = n1 + d2.getInitialState();
+        
+        while ( top > 0 ) {
+            
+            int q = stack[--top];
+            int p = stack[--top];
+            
+            if ( finalStates[p] != finalStates[q] ) {
+                return false;
+            }
+            
+            for ( c = 0; c < k; c++ ) {
+                int tp = delta[p * k + c];
+                int tq = delta[q * k + c];
+                if ( union( parent, rank, tp, tq ) ) {
+                    stack[top++] = tp;
+                    stack[top++] = tq;
+                }
+            }
+            
+        }
+        
+        return true;
+        
+    }
+    
+    private static int find( int[] parent, int s ) {
+        
+        int root = s;
+        while ( parent[root] != root ) {
+            root = parent[root];
+        }
+        
+        while ( parent[s] != root ) {
+            int next = parent[s];
+            parent[s] = root;
+            s = next;
+        }
+        
+        return root;
+        
+    }
+    
+    /**
+     * @return true if the states were in different classes, false otherwise.
+     */
+    private static boolean union( int[] parent, int[] rank, int s1, int s2 ) {
+        
+        int r1 = find( parent, s1 );
+        int r2 = find( parent, s2 );
+        
+        if ( r1 == r2 ) {
+            return false;
+        }
+        
+        if ( rank[r1] < rank[r2] ) {
+            parent[r1] = r2;
+        } else if ( rank[r1] > rank[r2] ) {
+            parent[r2] = r1;
+        } else {
+            parent[r2] = r1;
+            rank[r1]++;
+        }
+        
+        return true;
+        
+    }
+    
+}
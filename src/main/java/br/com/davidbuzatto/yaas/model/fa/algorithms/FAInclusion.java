@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa.algorithms;
+
+import br.com.davidbuzatto.yaas.model.fa.FA;
+import br.com.davidbuzatto.yaas.model.fa.FACompiledNFA;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Verifies if the language of a Finite Automaton is included in the language
+ * of another one, that is, L(fa1) ⊆ L(fa2).
+ * 
+ * The pairs (state of fa1, set of states of fa2) are explored in breadth-first
+ * order and a pair is discarded when another pair with the same state and a
+ * subset of its set was already found (antichain pruning), since every string
+ * that is a counterexample from the discarded pair is a counterexample from
+ * the other one too. Because of the breadth-first order, the counterexample
+ * found is always a shortest one.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class FAInclusion {
+    
+    private final boolean included;
+    private final String counterexample;
+    
+    public FAInclusion( FA fa1, FA fa2 ) throws IllegalArgumentException {
+        
+        FACommon.validateInitialState( fa1, fa2 );
+        
+        counterexample = findCounterexample( 
+                fa1.getCompiledNFA(), fa2.getCompiledNFA() );
+        included = counterexample == null;
+        
+    }
+
+    /**
+     * @return true if L(fa1) ⊆ L(fa2), false otherwise.
+     */
+    public boolean isIncluded() {
+        return included;
+    }
+
+    /**
+     * @return A shortest string accepted by fa1 and rejected by fa2 or null
+     * if the language of fa1 is included in the language of fa2.
+     */
+    public String getCounterexample() {
+        return counterexample;
+    }
+    
+    /**
+     * Searches for a shortest string accepted by a and rejected by b.
+     * 
+     * @param a The compiled automaton that must accept the string.
+     * @param b The compiled automaton that must reject the string.
+     * @return The counterexample or null if L(a) ⊆ L(b).
+     */
+    static String findCounterexample( FACompiledNFA a, FACompiledNFA b ) {
+        
+        int k = a.getAlphabetSize();
+        int[] columnsB = new int[k];
+        for ( int c = 0; c < k; c++ ) {
+            columnsB[c] = b.getColumn( a.getSymbol( c ) );
+        }
+        
+        // the antichain of each state of a
+        List<List<long[]>> antichains = new ArrayList<>();
+        for ( int i = 0; i < a.getStateCount(); i++ ) {
+            antichains.add( new ArrayList<>() );
+        }
+        
+        // the explored pairs, used as the queue too
+        int[] stateOf = new int[64];
+        int[] parentOf = new int[64];
+        char[] symbolOf = new char[64];
+        List<long[]> setOf = new ArrayList<>();
+        int count = 0;
+        
+        long[] initialB = b.getInitialSet();
+        long[] initialA = a.getInitialSet();
+        
+        for ( int p = FACompiledNFA.nextSetBit( initialA, 0 ); p >= 0; 
+                p = FACompiledNFA.nextSetBit( initialA, p + 1 ) ) {
+            if ( addToAntichain( antichains.get( p ), initialB ) ) {
+                stateOf[count] = p;
+                parentOf[count] = -1;
+                setOf.add( initialB );
+                count++;
+            }
+        }
+        
+        for ( int i = 0; i < count; i++ ) {
+            
+            int p = stateOf[i];
+            long[] s = setOf.get( i );
+            
+            if ( a.isFinal( p ) && !b.isFinal( s ) ) {
+                return buildString( i, parentOf, symbolOf );
+            }
+            
+            for ( int c = 0; c < k; c++ ) {
+                
+                long[] targetsA = a.getTargets( p, c );
+                
+                if ( targetsA == null ) {
+                    continue;
+                }
+                
+                long[] t = new long[b.getWords()];
+                b.step( s, columnsB[c], t );
+                
+                for ( int q = FACompiledNFA.nextSetBit( targetsA, 0 ); q >= 0; 
+                        q = FACompiledNFA.nextSetBit( targetsA, q + 1 ) ) {
+                    
+                    if ( addToAntichain( antichains.get( q ), t ) ) {
+                        
+                        if ( count == stateOf.length ) {
+                            stateOf = Arrays.copyOf( stateOf, count * 2 );
+                            parentOf = Arrays.copyOf( parentOf, count * 2 );
+                            symbolOf = Arrays.copyOf( symbolOf, count * 2 );
+                        }
+                        
+                        stateOf[count] = q;
+                        parentOf[count] = i;
+                        symbolOf[count] = a.getSymbol( c );
+                        setOf.add( t );
+                        count++;
+                        
+                    }
+                    
+                }
+                
+            }
+            
+        }
+        
+        return null;
+        
+    }
+    
+    /**
+     * Adds a set to an antichain if no subset of it is already there,
+     * removing its supersets.
+     * 
+     * @return true if the set was added, false otherwise.
+     */
+    private static boolean addToAntichain( List<long[]> antichain, long[] set ) {
+        
+        for ( long[] s : antichain ) {
+            if ( isSubset( s, set ) ) {
+                return false;
+            }
+        }
+        
+        Iterator<long[]> it = antichain.iterator();
+        while ( it.hasNext() ) {
+            if ( isSubset( set, it.next() ) ) {
+                it.remove();
+            }
+        }
+        
+        antichain.add( set );
+        return true;
+        
+    }
+    
+    private static boolean isSubset( long[] a, long[] b ) {
+        for ( int w = 0; w < a.length; w++ ) {
+            if ( ( a[w] & ~b[w] ) != 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static String buildString( int pair, int[] parentOf, char[] symbolOf ) {
+        
+        StringBuilder sb = new StringBuilder();
+        
+        for ( int i = pair; parentOf[i] != -1; i = parentOf[i] ) {
+            sb.append( symbolOf[i] );
+        }
+        
+        return sb.reverse().toString();
+        
+    }
+    
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa.algorithms;
+
+import br.com.davidbuzatto.yaas.model.AlgorithmCancellation;
+import br.com.davidbuzatto.yaas.model.fa.FA;
+import br.com.davidbuzatto.yaas.model.fa.FACompiledDFA;
+import br.com.davidbuzatto.yaas.model.fa.FACompiledNFA;
+import br.com.davidbuzatto.yaas.model.fa.FAState;
+import br.com.davidbuzatto.yaas.model.fa.FASubsetInterner;
+import br.com.davidbuzatto.yaas.model.fa.FATransition;
+import br.com.davidbuzatto.yaas.model.fa.FAType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Builds the product automaton of two Finite Automata in a single pass,
+ * exploring only the reachable pairs of states. A pair is final when the
+ * combiner accepts the finality of its components, so intersection, union,
+ * difference and symmetric difference (or any other boolean operation) are
+ * generated the same way.
+ * 
+ * DFAs are processed with their compiled tables, NFAs (with or without empty
+ * string transitions) have their subsets of states built on the fly. Missing
+ * transitions lead to an implicit dead component and the pairs that can't
+ * reach a final pair are removed at the end, so the generated automaton is
+ * always a DFA without useless states.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class FAProduct {
+    
+    private static final int DEAD = -1;
+    
+    private final FA generatedFA;
+    
+    public FAProduct( FA fa1, FA fa2, FAProductCombiner combiner ) 
+            throws IllegalArgumentException {
+        generatedFA = processIt( fa1, fa2, combiner );
+    }
+
+    public FA getGeneratedFA() {
+        return generatedFA;
+    }
+    
+    private static FA processIt( FA fa1, FA fa2, FAProductCombiner combiner )
+            throws IllegalArgumentException {
+        
+        FACommon.validateInitialState( fa1, fa2 );
+        
+        if ( combiner == null ) {
+            throw new IllegalArgumentException( "You must provide a combiner!" );
+        }
+        
+        Operand o1 = Operand.of( fa1 );
+        Operand o2 = Operand.of( fa2 );
+        
+        TreeSet<Character> symbols = new TreeSet<>( fa1.getAlphabet() );
+        symbols.addAll( fa2.getAlphabet() );
+        char[] alphabet = new char[symbols.size()];
+        int[] columns1 = new int[alphabet.length];
+        int[] columns2 = new int[alphabet.length];
+        int k = 0;
+        for ( char c : symbols ) {
+            alphabet[k] = c;
+            columns1[k] = o1.getColumn( c );
+            columns2[k] = o2.getColumn( c );
+            k++;
+        }
+        
+        // a dead component never accepts again, so the pairs with a dead
+        // component can be discarded if the combiner rejects every future
+        boolean deadWithDead = !combiner.combine( false, false );
+        boolean deadWithAny1 = deadWithDead && !combiner.combine( false, true );
+        boolean deadWithAny2 = deadWithDead && !combiner.combine( true, false );
+        
+        // breadth-first search over the reachable pairs
+        Map<Long, Integer> ids = new HashMap<>();
+        int[] pairs = new int[32];
+        int[] delta = new int[16 * Math.max( k, 1 )];
+        int count = 0;
+        
+        pairs[0] = o1.getInitialState();
+        pairs[1] = o2.getInitialState();
+        ids.put( key( pairs[0], pairs[1] ), count++ );
+        
+        for ( int p = 0; p < count; p++ ) {
+            
+            AlgorithmCancellation.check();
+            
+            int s1 = pairs[p * 2];
+            int s2 = pairs[p * 2 + 1];
+            
+            if ( ( p + 1 ) * k > delta.length ) {
+                delta = Arrays.copyOf( delta, Math.max( ( p + 1 ) * k, delta.length * 2 ) );
+            }
+            
+            for ( int c = 0; c < k; c++ ) {
+                
+                int t1 = s1 == DEAD ? DEAD : o1.next( s1, columns1[c] );
+                int t2 = s2 == DEAD ? DEAD : o2.next( s2, columns2[c] );
+                
+                if ( ( t1 == DEAD && t2 == DEAD && deadWithDead ) ||
+                        ( t1 == DEAD && deadWithAny1 ) ||
+                        ( t2 == DEAD && deadWithAny2 ) ) {
+                    delta[p * k + c] = DEAD;
+                    continue;
+                }
+                
+                Long key = key( t1, t2 );
+                Integer id = ids.get( key );
+                
+                if ( id == null ) {
+                    id = count++;
+                    ids.put( key, id );
+                    if ( count * 2 > pairs.length ) {
+                        pairs = Arrays.copyOf( pairs, pairs.length * 2 );
+                    }
+                    pairs[id * 2] = t1;
+                    pairs[id * 2 + 1] = t2;
+                }
+                
+                delta[p * k + c] = id;
+                
+            }
+            
+        }
+        
+        boolean[] finalPairs = new boolean[count];
+        for ( int p = 0; p < count; p++ ) {
+            int s1 = pairs[p * 2];
+            int s2 = pairs[p * 2 + 1];
+            finalPairs[p] = combiner.combine( 
+                    s1 != DEAD && o1.isFinal( s1 ),
+                    s2 != DEAD && o2.isFinal( s2 ) );
+        }
+        
+        boolean[] useful = computeUsefulPairs( delta, count, k, finalPairs );
+        
+        // builds the automaton only with the useful pairs
+        FA product = new FA();
+        
+        if ( !useful[0] ) {
+            return product;
+        }
+        
+        product.beginBulkEdit();
+        FAState[] states = new FAState[count];
+        int currentState = 0;
+        for ( int p = 0; p < count; p++ ) {
+            if ( useful[p] ) {
+                states[p] = new FAState( currentState++, p == 0, finalPairs[p] );
+                product.addState( states[p] );
+            }
+        }
+        
+        // one transition for each pair of origin and target states
+        int[] transitionOf = new int[count];
+        Arrays.fill( transitionOf, -1 );
+        List<List<Character>> transitionSymbols = new ArrayList<>();
+        List<Integer> transitionTargets = new ArrayList<>();
+        
+        for ( int p = 0; p < count; p++ ) {
+            
+            if ( !useful[p] ) {
+                continue;
+            }
+            
+            transitionSymbols.clear();
+            transitionTargets.clear();
+            
+            for ( int c = 0; c < k; c++ ) {
+                int t = delta[p * k + c];
+                if ( t != DEAD && useful[t] ) {
+                    if ( transitionOf[t] == -1 ) {
+                        transitionOf[t] = transitionTargets.size();
+                        transitionTargets.add( t );
+                        transitionSymbols.add( new ArrayList<>() );
+                    }
+                    transitionSymbols.get( transitionOf[t] ).add( alphabet[c] );
+                }
+            }
+            
+            for ( int i = 0; i < transitionTargets.size(); i++ ) {
+                int t = transitionTargets.get( i );
+                product.addTransition( new FATransition( 
+                        states[p], states[t], transitionSymbols.get( i ) ) );
+                transitionOf[t] = -1;
+            }
+            
+        }
+        
+        product.endBulkEdit();
+        product.resetTransitionsTransformations();
+        
+        return product;
+        
+    }
+    
+    /**
+     * Marks the pairs that can reach a final pair, walking the inverse
+     * transition function from the final pairs.
+     */
+    private static boolean[] computeUsefulPairs( 
+            int[] delta, 
+            int count, 
+            int k, 
+            boolean[] finalPairs ) {
+        
+        int[] invStart = new int[count + 1];
+        for ( int i = 0; i < count * k; i++ ) {
+            if ( delta[i] != DEAD ) {
+                invStart[delta[i] + 1]++;
+            }
+        }
+        for ( int p = 0; p < count; p++ ) {
+            invStart[p + 1] += invStart[p];
+        }
+        int[] invPairs = new int[invStart[count]];
+        int[] fill = invStart.clone();
+        for ( int i = 0; i < count * k; i++ ) {
+            if ( delta[i] != DEAD ) {
+                invPairs[fill[delta[i]]++] = i / k;
+            }
+        }
+        
+        boolean[] useful = new boolean[count];
+        int[] stack = new int[count];
+        int top = 0;
+        for ( int p = 0; p < count; p++ ) {
+            if ( finalPairs[p] ) {
+                useful[p] = true;
+                stack[top++] = p;
+            }
+        }
+        
+        while ( top > 0 ) {
+            int p = stack[--top];
+            for ( int i = invStart[p]; i < invStart[p + 1]; i++ ) {
+                int o = invPairs[i];
+                if ( !useful[o] ) {
+                    useful[o] = true;
+                    stack[top++] = o;
+                }
+            }
+        }
+        
+        return useful;
+        
+    }
+    
+    private static Long key( int s1, int s2 ) {
+        return ( (long) s1 << 32 ) | ( s2 & 0xFFFFFFFFL );
+    }
+    
+    /**
+     * One of the automata of the product, seen as a DFA whose states are
+     * numbered densely. DEAD represents the implicit dead state.
+     */
+    private static abstract class Operand {
+        
+        abstract int getInitialState();
+        abstract int getColumn( char symbol );
+        abstract int next( int state, int column );
+        abstract boolean isFinal( int state );
+        
+        static Operand of( FA fa ) {
+            
+            if ( fa.getType() == FAType.DFA ) {
+                FACompiledDFA cDFA = fa.getCompiledDFA();
+                if ( cDFA != null ) {
+                    return new DFAOperand( cDFA );
+                }
+            }
+            
+            return new NFAOperand( fa.getCompiledNFA() );
+            
+        }
+        
+    }
+    
+    private static class DFAOperand extends Operand {
+        
+        private final FACompiledDFA cDFA;
+
+        DFAOperand( FACompiledDFA cDFA ) {
+            this.cDFA = cDFA;
+        }
+        
+        @Override
+        int getInitialState() {
+            return cDFA.getInitialState();
+        }
+
+        @Override
+        int getColumn( char symbol ) {
+            return cDFA.getColumn( symbol );
+        }
+
+        @Override
+        int next( int state, int column ) {
+            return column == FACompiledDFA.NO_STATE ? 
+                    DEAD : cDFA.getTarget( state, column );
+        }
+
+        @Override
+        boolean isFinal( int state ) {
+            return cDFA.isFinal( state );
+        }
+        
+    }
+    
+    /**
+     * The subsets of states are interned as they are reached and each
+     * (subset, symbol) transition is computed only once.
+     */
+    private static class NFAOperand extends Operand {
+        
+        private static final int UNKNOWN = -2;
+        
+        private final FACompiledNFA cNFA;
+        private final FASubsetInterner subsets;
+        private final int k;
+        private final int initialState;
+        private int[] transitions;
+        private long[] target;
+
+        NFAOperand( FACompiledNFA cNFA ) {
+            this.cNFA = cNFA;
+            this.subsets = new FASubsetInterner();
+            this.k = cNFA.getAlphabetSize();
+            this.transitions = new int[16 * Math.max( k, 1 )];
+            this.target = new long[cNFA.getWords()];
+            Arrays.fill( transitions, UNKNOWN );
+            initialState = subsets.intern( cNFA.getInitialSet() );
+        }
+        
+        @Override
+        int getInitialState() {
+            return initialState;
+        }
+
+        @Override
+        int getColumn( char symbol ) {
+            return cNFA.getColumn( symbol );
+        }
+
+        @Override
+        int next( int state, int column ) {
+            
+            if ( column < 0 ) {
+                return DEAD;
+            }
+            
+            int t = transitions[state * k + column];
+            
+            if ( t == UNKNOWN ) {
+                
+                if ( cNFA.step( subsets.get( state ), column, target ) ) {
+                    t = subsets.intern( target );
+                    if ( ( t + 1 ) * k > transitions.length ) {
+                        int oldLength = transitions.length;
+                        transitions = Arrays.copyOf( transitions, oldLength * 2 );
+                        Arrays.fill( transitions, oldLength, transitions.length, UNKNOWN );
+                    }
+                } else {
+                    t = DEAD;
+                }
+                
+                transitions[state * k + column] = t;
+                
+            }
+            
+            return t;
+            
+        }
+
+        @Override
+        boolean isFinal( int state ) {
+            return cNFA.isFinal( subsets.get( state ) );
+        }
+        
+    }
+    
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa.algorithms;
+
+/**
+ * Decides if a pair of states of a product automaton is final, based on the
+ * finality of each one of its components.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+@FunctionalInterface
+public interface FAProductCombiner {
+    
+    /**
+     * Combines the acceptance of both automata.
+     * 
+     * @param acceptedByFirst If the first automaton accepts the string.
+     * @param acceptedBySecond If the second automaton accepts the string.
+     * @return true if the product automaton must accept the string, false
+     * otherwise.
+     */
+    boolean combine( boolean acceptedByFirst, boolean acceptedBySecond );
+    
+}
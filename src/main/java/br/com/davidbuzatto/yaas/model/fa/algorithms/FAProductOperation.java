@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.fa.algorithms;
+
+/**
+ * The boolean operations available to the product construction.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public enum FAProductOperation implements FAProductCombiner {
+    
+    INTERSECTION( "Intersection", "L(M1) ∩ L(M2)" ) {
+        @Override
+        public boolean combine( boolean acceptedByFirst, boolean acceptedBySecond ) {
+            return acceptedByFirst && acceptedBySecond;
+        }
+    },
+    
+    UNION( "Union", "L(M1) ∪ L(M2)" ) {
+        @Override
+        public boolean combine( boolean acceptedByFirst, boolean acceptedBySecond ) {
+            return acceptedByFirst || acceptedBySecond;
+        }
+    },
+    
+    DIFFERENCE( "Difference", "L(M1) - L(M2)" ) {
+        @Override
+        public boolean combine( boolean acceptedByFirst, boolean acceptedBySecond ) {
+            return acceptedByFirst && !acceptedBySecond;
+        }
+    },
+    
+    SYMMETRIC_DIFFERENCE( "Symmetric Difference", "L(M1) ⊕ L(M2)" ) {
+        @Override
+        public boolean combine( boolean acceptedByFirst, boolean acceptedBySecond ) {
+            return acceptedByFirst != acceptedBySecond;
+        }
+    };
+    
+    private final String name;
+    private final String description;
+    
+    FAProductOperation( String name, String description ) {
+        this.name = name;
+        this.description = description;
+    }
+
+    public String getName() {
+        return name;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+}
@@ -16,10 +16,11 @@
  */
 package br.com.davidbuzatto.yaas.model.fa.algorithms;
 
+import br.com.davidbuzatto.yaas.model.AlgorithmCancellation;
 import br.com.davidbuzatto.yaas.model.fa.FA;
 import br.com.davidbuzatto.yaas.model.fa.FAState;
 import br.com.davidbuzatto.yaas.model.fa.FATransition;
-import br.com.davidbuzatto.yaas.util.Utils;
+import br.com.davidbuzatto.yaas.util.MavenModelLoader;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -33,7 +34,7 @@ import java.util.Set;
 public class FARemoveInaccessibleAndUselessStates {
     
     private static final boolean DEBUG = Boolean.parseBoolean( 
-            Utils.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
+            MavenModelLoader.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
     
     private final FA generatedFA;
     
@@ -74,6 +75,7 @@ public class FARemoveInaccessibleAndUselessStates {
             Set<FAState> finalStates = new HashSet<>( fa.getFinalStates() );
             Set<FAState> visitedU = new HashSet<>();
             for ( FAState s : fa.getStates() ) {
+                AlgorithmCancellation.check();
                 visitedU.clear();
                 dfs( s, fa.getTransitions(), visitedU );
                 if ( !containsAtLeastOne( finalStates, visitedU ) ) {
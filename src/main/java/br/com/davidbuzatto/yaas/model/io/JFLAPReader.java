@@ -0,0 +1,776 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.io;
+
+import br.com.davidbuzatto.yaas.model.AbstractGeometricForm;
+import br.com.davidbuzatto.yaas.model.fa.FA;
+import br.com.davidbuzatto.yaas.model.fa.FAState;
+import br.com.davidbuzatto.yaas.model.fa.FATransition;
+import br.com.davidbuzatto.yaas.model.fa.algorithms.FAArrangement;
+import br.com.davidbuzatto.yaas.model.pda.PDA;
+import br.com.davidbuzatto.yaas.model.pda.PDAOperation;
+import br.com.davidbuzatto.yaas.model.pda.PDAOperationType;
+import br.com.davidbuzatto.yaas.model.pda.PDAState;
+import br.com.davidbuzatto.yaas.model.pda.PDATransition;
+import br.com.davidbuzatto.yaas.model.pda.algorithms.PDAArrangement;
+import br.com.davidbuzatto.yaas.model.tm.TM;
+import br.com.davidbuzatto.yaas.model.tm.TMMovementType;
+import br.com.davidbuzatto.yaas.model.tm.TMOperation;
+import br.com.davidbuzatto.yaas.model.tm.TMState;
+import br.com.davidbuzatto.yaas.model.tm.TMTransition;
+import br.com.davidbuzatto.yaas.model.tm.algorithms.TMArrangement;
+import br.com.davidbuzatto.yaas.util.CharacterConstants;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Imports Finite Automata, Pushdown Automata and Turing Machines from JFLAP
+ * files (.jff).
+ * 
+ * The file is read with a streaming (StAX) parser into compact records and
+ * the machine is built in a bulk edit session, with all the symbols or
+ * operations between the same pair of states grouped in one transition, so
+ * files with tens of thousands of transitions are imported in linear time.
+ * 
+ * The JFLAP constructs that YAAS doesn't have are converted to equivalent
+ * ones:
+ * 
+ * <ul>
+ * <li>FA transitions that read strings and PDA transitions that read or pop
+ * strings become chains of transitions through new intermediate states;</li>
+ * <li>PDA transitions that don't pop are created for every top of the stack,
+ * including the empty stack, and the stack starting symbol is Z;</li>
+ * <li>TM transitions that stay are made by moving right to a new intermediate
+ * state and moving back left for every tape symbol, the ~ wildcard is
+ * expanded to every tape symbol and the blank symbol becomes B.</li>
+ * </ul>
+ * 
+ * Multi-tape Turing Machines and Turing Machines with building blocks are not
+ * supported.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class JFLAPReader {
+    
+    private static final int BUFFER_SIZE = 65536;
+    private static final int MARKUP_LOOKAHEAD = 256;
+    
+    private static final int ARRANGEMENT_START = 100;
+    private static final int ARRANGEMENT_DISTANCE = 150;
+    
+    private static final char JFLAP_STACK_STARTING_SYMBOL = 'Z';
+    private static final char JFLAP_WILDCARD = '~';
+    
+    /**
+     * Loads a model from a JFLAP file.
+     * 
+     * @param file The file.
+     * @return The model (FA, PDA or TM).
+     * @throws IOException If the file can't be read or doesn't contain a
+     * supported JFLAP machine.
+     */
+    public static AbstractGeometricForm load( File file ) throws IOException {
+        try ( InputStream is = new FileInputStream( file ) ) {
+            return read( is );
+        }
+    }
+    
+    /**
+     * Reads a model from a stream with a JFLAP file. The stream is not
+     * closed.
+     * 
+     * @param is The stream.
+     * @return The model (FA, PDA or TM).
+     * @throws IOException If the stream can't be read or doesn't contain a
+     * supported JFLAP machine.
+     */
+    public static AbstractGeometricForm read( InputStream is ) throws IOException {
+        
+        JFLAPFile file = parse( is );
+        
+        if ( file.type == null ) {
+            throw new IOException( "The JFLAP file doesn't have a type!" );
+        }
+        
+        switch ( file.type ) {
+            case "fa":
+                return buildFA( file );
+            case "pda":
+                return buildPDA( file );
+            case "turing":
+                return buildTM( file );
+            default:
+                throw new IOException( "Unsupported JFLAP file type: " + file.type + "!" );
+        }
+        
+    }
+    
+    private static JFLAPFile parse( InputStream is ) throws IOException {
+        
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty( XMLInputFactory.SUPPORT_DTD, false );
+        factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false );
+        
+        JFLAPFile file = new JFLAPFile();
+        XMLStreamReader reader = null;
+        BufferedInputStream bis = new BufferedInputStream( is, BUFFER_SIZE );
+        
+        // binary files are rejected before the parser complains about them
+        if ( !startsWithMarkup( bis ) ) {
+            throw new IOException( "This is not a JFLAP file!" );
+        }
+        
+        try {
+            
+            reader = factory.createXMLStreamReader( bis );
+            reader.nextTag();
+            
+            if ( !reader.getLocalName().equals( "structure" ) ) {
+                throw new IOException( "This is not a JFLAP file!" );
+            }
+            
+            while ( reader.hasNext() ) {
+                
+                if ( reader.next() != XMLStreamConstants.START_ELEMENT ) {
+                    continue;
+                }
+                
+                switch ( reader.getLocalName() ) {
+                    case "type":
+                        file.type = reader.getElementText().trim();
+                        break;
+                    case "tapes":
+                        if ( !reader.getElementText().trim().equals( "1" ) ) {
+                            throw new IOException( "Multi-tape Turing Machines are not supported!" );
+                        }
+                        break;
+                    case "block":
+                        throw new IOException( "Turing Machines with building blocks are not supported!" );
+                    case "state":
+                        file.addState( parseState( reader ) );
+                        break;
+                    case "transition":
+                        file.transitions.add( parseTransition( reader ) );
+                        break;
+                }
+                
+            }
+            
+        } catch ( XMLStreamException exc ) {
+            throw new IOException( "Invalid JFLAP file!", exc );
+        } finally {
+            if ( reader != null ) {
+                try {
+                    reader.close();
+                } catch ( XMLStreamException exc ) {
+                    // the stream itself is closed by the caller
+                }
+            }
+        }
+        
+        return file;
+        
+    }
+    
+    /**
+     * Verifies if the stream starts with markup, after an optional byte order
+     * mark and whitespace. The stream is reset.
+     */
+    private static boolean startsWithMarkup( BufferedInputStream bis ) throws IOException {
+        
+        bis.mark( MARKUP_LOOKAHEAD );
+        byte[] start = new byte[MARKUP_LOOKAHEAD];
+        int length = bis.readNBytes( start, 0, start.length );
+        bis.reset();
+        
+        int i = 0;
+        if ( length >= 3 && ( start[0] & 0xff ) == 0xef &&
+                ( start[1] & 0xff ) == 0xbb && ( start[2] & 0xff ) == 0xbf ) {
+            i = 3;
+        }
+        
+        while ( i < length && Character.isWhitespace( start[i] ) ) {
+            i++;
+        }
+        
+        return i < length && start[i] == '<';
+        
+    }
+    
+    private static JFLAPState parseState( XMLStreamReader reader ) throws XMLStreamException, IOException {
+        
+        JFLAPState state = new JFLAPState();
+        state.id = parseInt( reader.getAttributeValue( null, "id" ) );
+        state.name = reader.getAttributeValue( null, "name" );
+        
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            switch ( reader.getLocalName() ) {
+                case "x":
+                    state.x = parseDouble( reader.getElementText() );
+                    break;
+                case "y":
+                    state.y = parseDouble( reader.getElementText() );
+                    break;
+                case "initial":
+                    state.initial = true;
+                    skipElement( reader );
+                    break;
+                case "final":
+                    state._final = true;
+                    skipElement( reader );
+                    break;
+                default:
+                    skipElement( reader );
+                    break;
+            }
+        }
+        
+        return state;
+        
+    }
+    
+    private static JFLAPTransition parseTransition( XMLStreamReader reader ) throws XMLStreamException, IOException {
+        
+        JFLAPTransition transition = new JFLAPTransition();
+        
+        while ( reader.nextTag() == XMLStreamConstants.START_ELEMENT ) {
+            
+            String tape = reader.getAttributeValue( null, "tape" );
+            if ( tape != null && !tape.trim().equals( "1" ) ) {
+                throw new IOException( "Multi-tape Turing Machines are not supported!" );
+            }
+            
+            switch ( reader.getLocalName() ) {
+                case "from":
+                    transition.from = parseInt( reader.getElementText() );
+                    break;
+                case "to":
+                    transition.to = parseInt( reader.getElementText() );
+                    break;
+                // the symbols are kept as written, since a space is a symbol
+                case "read":
+                    transition.read = reader.getElementText();
+                    break;
+                case "write":
+                    transition.write = reader.getElementText();
+                    break;
+                case "move":
+                    transition.move = reader.getElementText().trim();
+                    break;
+                case "pop":
+                    transition.pop = reader.getElementText();
+                    break;
+                case "push":
+                    transition.push = reader.getElementText();
+                    break;
+                default:
+                    skipElement( reader );
+                    break;
+            }
+            
+        }
+        
+        return transition;
+        
+    }
+    
+    /**
+     * Skips the current element, with all its content.
+     */
+    private static void skipElement( XMLStreamReader reader ) throws XMLStreamException {
+        
+        int depth = 1;
+        
+        while ( depth > 0 ) {
+            switch ( reader.next() ) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+            }
+        }
+        
+    }
+    
+    private static FA buildFA( JFLAPFile file ) throws IOException {
+        
+        MachineBuilder<FAState, Character> b = new MachineBuilder<>( file, FAState::new );
+        
+        for ( JFLAPTransition t : file.transitions ) {
+            
+            int origin = b.getStateIndex( t.from );
+            int target = b.getStateIndex( t.to );
+            
+            if ( t.read.isEmpty() ) {
+                b.add( origin, target, CharacterConstants.EMPTY_STRING );
+            } else {
+                // JFLAP reads strings, so each symbol is read by one
+                // transition of a chain
+                int length = t.read.length();
+                int current = origin;
+                for ( int i = 0; i < length; i++ ) {
+                    int next = i == length - 1 ? target :
+                            b.addIntermediateState( origin, target, i + 1, length );
+                    b.add( current, next, t.read.charAt( i ) );
+                    current = next;
+                }
+            }
+            
+        }
+        
+        FA fa = new FA();
+        fa.beginBulkEdit();
+        
+        // the initial state is set before adding the states, so the first
+        // one is not made initial when it is not
+        if ( b.initialState != null ) {
+            fa.setInitialState( b.initialState );
+        }
+        for ( FAState s : b.states ) {
+            fa.addState( s );
+        }
+        
+        for ( Map.Entry<Long, Set<Character>> e : b.groups.entrySet() ) {
+            fa.addTransition( new FATransition(
+                    b.getOrigin( e.getKey() ), b.getTarget( e.getKey() ),
+                    new ArrayList<>( e.getValue() ) ) );
+        }
+        
+        fa.endBulkEdit();
+        
+        if ( !b.layout ) {
+            FAArrangement.arrangeRectangularly( fa,
+                    ARRANGEMENT_START, ARRANGEMENT_START,
+                    b.getColumns(), ARRANGEMENT_DISTANCE );
+        }
+        
+        return fa;
+        
+    }
+    
+    private static PDA buildPDA( JFLAPFile file ) throws IOException {
+        
+        MachineBuilder<PDAState, PDAOperation> b = new MachineBuilder<>( file, PDAState::new );
+        
+        // the stack alphabet is needed for the transitions that don't pop
+        Set<Character> stackAlphabet = new TreeSet<>();
+        stackAlphabet.add( JFLAP_STACK_STARTING_SYMBOL );
+        for ( JFLAPTransition t : file.transitions ) {
+            for ( char c : t.pop.toCharArray() ) {
+                stackAlphabet.add( c );
+            }
+            for ( char c : t.push.toCharArray() ) {
+                stackAlphabet.add( c );
+            }
+        }
+        
+        for ( JFLAPTransition t : file.transitions ) {
+            
+            int origin = b.getStateIndex( t.from );
+            int target = b.getStateIndex( t.to );
+            
+            // each step of the chain reads at most one symbol and pops at
+            // most one symbol, and the last one pushes
+            int steps = Math.max( 1, Math.max( t.read.length(), t.pop.length() ) );
+            int current = origin;
+            
+            for ( int i = 0; i < steps; i++ ) {
+                
+                boolean last = i == steps - 1;
+                int next = last ? target : b.addIntermediateState( origin, target, i + 1, steps );
+                char symbol = i < t.read.length() ? t.read.charAt( i ) : CharacterConstants.EMPTY_STRING;
+                
+                if ( i < t.pop.length() ) {
+                    char top = t.pop.charAt( i );
+                    b.add( current, next, last ?
+                            createPDAOperation( symbol, top, t.push ) :
+                            PDAOperation.getPopOperation( symbol, top ) );
+                } else {
+                    // JFLAP doesn't look at the stack when nothing is popped
+                    for ( char top : stackAlphabet ) {
+                        b.add( current, next, last ?
+                                createPDAOperation( symbol, top, t.push + top ) :
+                                PDAOperation.getDoNothingOperation( symbol, top ) );
+                    }
+                    b.add( current, next, last ?
+                            createPDAOperation( symbol, CharacterConstants.EMPTY_STRING, t.push ) :
+                            PDAOperation.getDoNothingOperation( symbol, CharacterConstants.EMPTY_STRING ) );
+                }
+                
+                current = next;
+                
+            }
+            
+        }
+        
+        PDA pda = new PDA( JFLAP_STACK_STARTING_SYMBOL );
+        pda.beginBulkEdit();
+        
+        // the initial state is set before adding the states, so the first
+        // one is not made initial when it is not
+        if ( b.initialState != null ) {
+            pda.setInitialState( b.initialState );
+        }
+        for ( PDAState s : b.states ) {
+            pda.addState( s );
+        }
+        
+        for ( Map.Entry<Long, Set<PDAOperation>> e : b.groups.entrySet() ) {
+            pda.addTransition( new PDATransition(
+                    b.getOrigin( e.getKey() ), b.getTarget( e.getKey() ),
+                    new ArrayList<>( e.getValue() ) ) );
+        }
+        
+        pda.endBulkEdit();
+        
+        if ( !b.layout ) {
+            PDAArrangement.arrangeRectangularly( pda,
+                    ARRANGEMENT_START, ARRANGEMENT_START,
+                    b.getColumns(), ARRANGEMENT_DISTANCE );
+        }
+        
+        return pda;
+        
+    }
+    
+    /**
+     * Creates the operation that replaces the top of the stack by a string,
+     * where the first symbol of the string is the new top (as in JFLAP).
+     * 
+     * @param symbol The symbol that is read.
+     * @param top The top of the stack.
+     * @param push The string that replaces the top (for the empty stack, the
+     * string that is pushed).
+     */
+    private static PDAOperation createPDAOperation( char symbol, char top, String push ) {
+        
+        if ( top == CharacterConstants.EMPTY_STRING ) {
+            if ( push.isEmpty() ) {
+                return PDAOperation.getDoNothingOperation( symbol, top );
+            }
+            return new PDAOperation( symbol, top, PDAOperationType.PUSH, reverse( push ) );
+        }
+        
+        if ( push.isEmpty() ) {
+            return PDAOperation.getPopOperation( symbol, top );
+        } else if ( push.length() == 1 && push.charAt( 0 ) == top ) {
+            return PDAOperation.getDoNothingOperation( symbol, top );
+        } else if ( push.charAt( push.length() - 1 ) == top ) {
+            return new PDAOperation( symbol, top, PDAOperationType.PUSH,
+                    reverse( push.substring( 0, push.length() - 1 ) ) );
+        }
+        
+        return new PDAOperation( symbol, top, PDAOperationType.REPLACE, reverse( push ) );
+        
+    }
+    
+    private static List<Character> reverse( String str ) {
+        List<Character> symbols = new ArrayList<>( str.length() );
+        for ( int i = str.length() - 1; i >= 0; i-- ) {
+            symbols.add( str.charAt( i ) );
+        }
+        return symbols;
+    }
+    
+    private static TM buildTM( JFLAPFile file ) throws IOException {
+        
+        MachineBuilder<TMState, TMOperation> b = new MachineBuilder<>( file, TMState::new );
+        
+        // the tape alphabet is needed for the wildcards and the stay moves
+        Set<Character> tapeAlphabet = new TreeSet<>();
+        tapeAlphabet.add( CharacterConstants.BLANK_TAPE_SYMBOL );
+        for ( JFLAPTransition t : file.transitions ) {
+            char read = getTapeSymbol( t.read );
+            char write = getTapeSymbol( t.write );
+            if ( read != JFLAP_WILDCARD ) {
+                tapeAlphabet.add( read );
+            }
+            if ( write != JFLAP_WILDCARD ) {
+                tapeAlphabet.add( write );
+            }
+        }
+        
+        // one intermediate state for each target of a stay move
+        Map<Integer, Integer> stayStates = new HashMap<>();
+        
+        for ( JFLAPTransition t : file.transitions ) {
+            
+            int origin = b.getStateIndex( t.from );
+            int target = b.getStateIndex( t.to );
+            char read = getTapeSymbol( t.read );
+            char write = getTapeSymbol( t.write );
+            TMMovementType type;
+            
+            switch ( t.move ) {
+                case "R":
+                    type = TMMovementType.MOVE_RIGHT;
+                    break;
+                case "L":
+                    type = TMMovementType.MOVE_LEFT;
+                    break;
+                case "S":
+                    type = TMMovementType.MOVE_RIGHT;
+                    Integer stayState = stayStates.get( target );
+                    if ( stayState == null ) {
+                        stayState = b.addIntermediateState( target, target, 1, 1 );
+                        stayStates.put( target, stayState );
+                        for ( char c : tapeAlphabet ) {
+                            b.add( stayState, target, new TMOperation( c, c, TMMovementType.MOVE_LEFT ) );
+                        }
+                    }
+                    target = stayState;
+                    break;
+                default:
+                    throw new IOException( "Invalid movement in the JFLAP file: " + t.move + "!" );
+            }
+            
+            if ( read == JFLAP_WILDCARD ) {
+                for ( char c : tapeAlphabet ) {
+                    b.add( origin, target, new TMOperation( c, write == JFLAP_WILDCARD ? c : write, type ) );
+                }
+            } else {
+                b.add( origin, target, new TMOperation( read, write == JFLAP_WILDCARD ? read : write, type ) );
+            }
+            
+        }
+        
+        TM tm = new TM();
+        tm.beginBulkEdit();
+        
+        // the initial state is set before adding the states, so the first
+        // one is not made initial when it is not
+        if ( b.initialState != null ) {
+            tm.setInitialState( b.initialState );
+        }
+        for ( TMState s : b.states ) {
+            tm.addState( s );
+        }
+        
+        for ( Map.Entry<Long, Set<TMOperation>> e : b.groups.entrySet() ) {
+            tm.addTransition( new TMTransition(
+                    b.getOrigin( e.getKey() ), b.getTarget( e.getKey() ),
+                    new ArrayList<>( e.getValue() ) ) );
+        }
+        
+        tm.endBulkEdit();
+        
+        if ( !b.layout ) {
+            TMArrangement.arrangeRectangularly( tm,
+                    ARRANGEMENT_START, ARRANGEMENT_START,
+                    b.getColumns(), ARRANGEMENT_DISTANCE );
+        }
+        
+        return tm;
+        
+    }
+    
+    private static char getTapeSymbol( String symbol ) throws IOException {
+        
+        if ( symbol.isEmpty() ) {
+            return CharacterConstants.BLANK_TAPE_SYMBOL;
+        } else if ( symbol.length() > 1 ) {
+            throw new IOException( "Invalid tape symbol in the JFLAP file: " + symbol + "!" );
+        }
+        
+        return symbol.charAt( 0 );
+        
+    }
+    
+    private static int parseInt( String value ) throws IOException {
+        
+        if ( value == null ) {
+            throw new IOException( "Missing state id in the JFLAP file!" );
+        }
+        
+        try {
+            return Integer.parseInt( value.trim() );
+        } catch ( NumberFormatException exc ) {
+            throw new IOException( "Invalid number in the JFLAP file: " + value + "!", exc );
+        }
+        
+    }
+    
+    private static double parseDouble( String value ) throws IOException {
+        try {
+            return Double.parseDouble( value.trim() );
+        } catch ( NumberFormatException exc ) {
+            throw new IOException( "Invalid number in the JFLAP file: " + value + "!", exc );
+        }
+    }
+    
+    /**
+     * A state as read from the file.
+     */
+    private static class JFLAPState {
+        int id;
+        String name;
+        double x = Double.NaN;
+        double y = Double.NaN;
+        boolean initial;
+        boolean _final;
+    }
+    
+    /**
+     * A transition as read from the file. The absent elements are empty.
+     */
+    private static class JFLAPTransition {
+        int from;
+        int to;
+        String read = "";
+        String write = "";
+        String move = "";
+        String pop = "";
+        String push = "";
+    }
+    
+    /**
+     * The content of the file.
+     */
+    private static class JFLAPFile {
+        
+        String type;
+        List<JFLAPState> states = new ArrayList<>();
+        List<JFLAPTransition> transitions = new ArrayList<>();
+        Map<Integer, Integer> stateIndexes = new HashMap<>();
+        
+        void addState( JFLAPState state ) throws IOException {
+            if ( stateIndexes.putIfAbsent( state.id, states.size() ) != null ) {
+                throw new IOException( "Duplicated state id in the JFLAP file: " + state.id + "!" );
+            }
+            states.add( state );
+        }
+        
+    }
+    
+    private interface StateFactory<S> {
+        S create( int number, String customLabel, boolean initial, boolean _final );
+    }
+    
+    /**
+     * Creates the states of a machine and groups its symbols or operations by
+     * the pair of states of the transition.
+     * 
+     * @param <S> The type of the states.
+     * @param <T> The type of the symbols or operations.
+     */
+    private static class MachineBuilder<S extends AbstractGeometricForm, T> {
+        
+        JFLAPFile file;
+        StateFactory<S> factory;
+        List<S> states;
+        S initialState;
+        boolean layout;
+        Map<Long, Set<T>> groups = new LinkedHashMap<>();
+        
+        MachineBuilder( JFLAPFile file, StateFactory<S> factory ) {
+            
+            this.file = file;
+            this.factory = factory;
+            states = new ArrayList<>( file.states.size() );
+            layout = !file.states.isEmpty();
+            
+            for ( JFLAPState js : file.states ) {
+                
+                int number = states.size();
+                boolean initial = js.initial && initialState == null;
+                String customLabel = js.name == null || js.name.equals( "q" + number ) ? null : js.name;
+                
+                S s = factory.create( number, customLabel, initial, js._final );
+                if ( initial ) {
+                    initialState = s;
+                }
+                
+                if ( Double.isNaN( js.x ) || Double.isNaN( js.y ) ) {
+                    layout = false;
+                } else {
+                    s.setX1Y1( (int) Math.round( js.x ), (int) Math.round( js.y ) );
+                }
+                
+                states.add( s );
+                
+            }
+            
+        }
+        
+        int getStateIndex( int id ) throws IOException {
+            Integer index = file.stateIndexes.get( id );
+            if ( index == null ) {
+                throw new IOException( "Invalid state id in the JFLAP file: " + id + "!" );
+            }
+            return index;
+        }
+        
+        /**
+         * Creates a state placed between two states.
+         * 
+         * @return The index of the new state.
+         */
+        int addIntermediateState( int origin, int target, int step, int steps ) {
+            
+            S o = states.get( origin );
+            S t = states.get( target );
+            S s = factory.create( states.size(), null, false, false );
+            
+            if ( origin == target ) {
+                s.setX1Y1( o.getX1(), o.getY1() - ARRANGEMENT_DISTANCE / 2 );
+            } else {
+                s.setX1Y1(
+                        o.getX1() + ( t.getX1() - o.getX1() ) * step / steps,
+                        o.getY1() + ( t.getY1() - o.getY1() ) * step / steps );
+            }
+            
+            states.add( s );
+            return states.size() - 1;
+            
+        }
+        
+        void add( int origin, int target, T item ) {
+            groups.computeIfAbsent( (long) origin << 32 | target, k -> new LinkedHashSet<>() ).add( item );
+        }
+        
+        S getOrigin( long key ) {
+            return states.get( (int) ( key >>> 32 ) );
+        }
+        
+        S getTarget( long key ) {
+            return states.get( (int) key );
+        }
+        
+        int getColumns() {
+            return Math.max( 1, (int) Math.ceil( Math.sqrt( states.size() ) ) );
+        }
+        
+    }
+    
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.io;
+
+import br.com.davidbuzatto.yaas.model.AbstractGeometricForm;
+import br.com.davidbuzatto.yaas.model.fa.FA;
+import br.com.davidbuzatto.yaas.model.fa.FAState;
+import br.com.davidbuzatto.yaas.model.fa.FATransition;
+import br.com.davidbuzatto.yaas.model.pda.PDA;
+import br.com.davidbuzatto.yaas.model.pda.PDAOperation;
+import br.com.davidbuzatto.yaas.model.pda.PDAState;
+import br.com.davidbuzatto.yaas.model.pda.PDATransition;
+import br.com.davidbuzatto.yaas.model.tm.TM;
+import br.com.davidbuzatto.yaas.model.tm.TMMovementType;
+import br.com.davidbuzatto.yaas.model.tm.TMOperation;
+import br.com.davidbuzatto.yaas.model.tm.TMState;
+import br.com.davidbuzatto.yaas.model.tm.TMTransition;
+import br.com.davidbuzatto.yaas.util.CharacterConstants;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Exports Finite Automata, Pushdown Automata and Turing Machines to JFLAP
+ * files (.jff).
+ * 
+ * The file is written with a streaming (StAX) writer, with one JFLAP
+ * transition for each symbol or operation. The empty string and the blank
+ * tape symbol are written as empty elements and the stack starting symbol of
+ * a PDA is exchanged with Z, the stack starting symbol of JFLAP.
+ * 
+ * JFLAP can't test if the stack is empty, so a PDA with operations that
+ * expect the empty stack is written with Z as a bottom of stack marker: a
+ * new initial state pushes the stack starting symbol over Z, the operations
+ * that expect the empty stack pop Z and push it back and every state can pop
+ * Z moving to a new dead state, where the JFLAP stack becomes empty. This
+ * keeps the language accepted by final state and by empty stack.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class JFLAPWriter {
+    
+    private static final int BUFFER_SIZE = 65536;
+    
+    private static final char JFLAP_STACK_STARTING_SYMBOL = 'Z';
+    
+    // symbols that can replace Z when it is the bottom of stack marker
+    private static final String REPLACEMENT_STACK_SYMBOLS = 
+            "ABCDEFGHIJKLMNOPQRSTUVWXY0123456789abcdefghijklmnopqrstuvwxyz";
+    
+    /**
+     * Saves a model to a JFLAP file.
+     * 
+     * @param model The model (FA, PDA or TM).
+     * @param file The file.
+     * @throws IOException If the file can't be written or if the model
+     * can't be represented in JFLAP.
+     */
+    public static void save( AbstractGeometricForm model, File file ) throws IOException {
+        
+        // fails before the file is created
+        if ( model instanceof PDA pda ) {
+            createStackSymbolMap( pda );
+        }
+        
+        try ( OutputStream os = new FileOutputStream( file ) ) {
+            write( model, os );
+        }
+        
+    }
+    
+    /**
+     * Writes a model to a stream as a JFLAP file. The stream is flushed but
+     * not closed.
+     * 
+     * @param model The model (FA, PDA or TM).
+     * @param os The stream.
+     * @throws IOException If the stream can't be written or if the model
+     * can't be represented in JFLAP.
+     */
+    public static void write( AbstractGeometricForm model, OutputStream os ) throws IOException {
+        
+        // the writer is buffered, since the StAX writer writes to an output
+        // stream one byte at a time
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter( os, StandardCharsets.UTF_8 ), BUFFER_SIZE );
+        
+        try {
+            
+            XMLStreamWriter out = XMLOutputFactory.newInstance().createXMLStreamWriter( writer );
+            out.writeStartDocument( "UTF-8", "1.0" );
+            newLine( out, 0 );
+            out.writeComment( "Created with YAAS." );
+            newLine( out, 0 );
+            out.writeStartElement( "structure" );
+            
+            if ( model instanceof FA fa ) {
+                startAutomaton( out, "fa" );
+                writeFA( fa, out );
+            } else if ( model instanceof PDA pda ) {
+                Map<Character, Character> stackSymbols = createStackSymbolMap( pda );
+                startAutomaton( out, "pda" );
+                writePDA( pda, stackSymbols, out );
+            } else if ( model instanceof TM tm ) {
+                startAutomaton( out, "turing" );
+                writeTM( tm, out );
+            } else {
+                throw new IllegalArgumentException( "The model must be a FA, a PDA or a TM!" );
+            }
+            
+            newLine( out, 0 );
+            out.writeEndElement();
+            newLine( out, 0 );
+            out.writeEndDocument();
+            out.close();
+            
+        } catch ( XMLStreamException exc ) {
+            throw new IOException( "The JFLAP file can't be written!", exc );
+        }
+        
+        writer.flush();
+        
+    }
+    
+    private static void startAutomaton( XMLStreamWriter out, String type ) throws XMLStreamException {
+        newLine( out, 1 );
+        out.writeStartElement( "type" );
+        out.writeCharacters( type );
+        out.writeEndElement();
+        newLine( out, 1 );
+        out.writeStartElement( "automaton" );
+    }
+    
+    private static void writeFA( FA fa, XMLStreamWriter out ) throws XMLStreamException {
+        
+        List<FAState> states = fa.getStates();
+        Map<FAState, Integer> ids = new IdentityHashMap<>();
+        
+        for ( FAState s : states ) {
+            ids.put( s, ids.size() );
+            writeState( out, ids.get( s ), s.toString(), s.getX1(), s.getY1(), s.isInitial(), s.isFinal() );
+        }
+        
+        for ( FATransition t : fa.getTransitions() ) {
+            for ( char c : t.getSymbols() ) {
+                startTransition( out, ids.get( t.getOriginState() ), ids.get( t.getTargetState() ) );
+                writeChild( out, "read", toJFLAP( c, CharacterConstants.EMPTY_STRING ) );
+                endTransition( out );
+            }
+        }
+        
+        endAutomaton( out );
+        
+    }
+    
+    private static void writePDA( 
+            PDA pda, 
+            Map<Character, Character> stackSymbols, 
+            XMLStreamWriter out ) throws XMLStreamException {
+        
+        List<PDAState> states = pda.getStates();
+        Map<PDAState, Integer> ids = new IdentityHashMap<>();
+        boolean bottomMarker = testsEmptyStack( pda );
+        String marker = String.valueOf( JFLAP_STACK_STARTING_SYMBOL );
+        
+        for ( PDAState s : states ) {
+            ids.put( s, ids.size() );
+            writeState( out, ids.get( s ), s.toString(), s.getX1(), s.getY1(), 
+                    s.isInitial() && !bottomMarker, s.isFinal() );
+        }
+        
+        PDAState initial = pda.getInitialState();
+        int start = states.size();
+        int empty = start + 1;
+        
+        if ( bottomMarker ) {
+            
+            int minX = Integer.MAX_VALUE;
+            int maxY = Integer.MIN_VALUE;
+            
+            for ( PDAState s : states ) {
+                minX = Math.min( minX, s.getX1() );
+                maxY = Math.max( maxY, s.getY1() );
+            }
+            
+            writeState( out, start, "start", minX - 100, 
+                    initial == null ? maxY : initial.getY1(), true, false );
+            writeState( out, empty, "empty", minX - 100, maxY + 100, false, false );
+            
+        }
+        
+        for ( PDATransition t : pda.getTransitions() ) {
+            for ( PDAOperation o : t.getOperations() ) {
+                
+                // JFLAP replaces the popped symbol by the pushed string,
+                // where the first symbol is the new top
+                StringBuilder push = new StringBuilder();
+                for ( char c : o.getSymbolsToPush() ) {
+                    push.insert( 0, stackSymbols.get( c ) );
+                }
+                
+                String pop;
+                
+                if ( o.getTop() == CharacterConstants.EMPTY_STRING ) {
+                    
+                    // the empty stack is the marker alone, that is kept
+                    pop = marker;
+                    switch ( o.getType() ) {
+                        case DO_NOTHING:
+                            push.setLength( 0 );
+                            push.append( marker );
+                            break;
+                        case PUSH:
+                            push.append( marker );
+                            break;
+                        default:
+                            // an empty stack can't be popped or replaced
+                            continue;
+                    }
+                    
+                } else {
+                    
+                    pop = String.valueOf( stackSymbols.get( o.getTop() ) );
+                    switch ( o.getType() ) {
+                        case DO_NOTHING:
+                            push.setLength( 0 );
+                            push.append( pop );
+                            break;
+                        case POP:
+                            push.setLength( 0 );
+                            break;
+                        case PUSH:
+                            push.append( pop );
+                            break;
+                    }
+                    
+                }
+                
+                startTransition( out, ids.get( t.getOriginState() ), ids.get( t.getTargetState() ) );
+                writeChild( out, "read", toJFLAP( o.getSymbol(), CharacterConstants.EMPTY_STRING ) );
+                writeChild( out, "pop", pop );
+                writeChild( out, "push", push.toString() );
+                endTransition( out );
+                
+            }
+        }
+        
+        if ( bottomMarker ) {
+            
+            // pushes the stack starting symbol over the marker
+            if ( initial != null ) {
+                startTransition( out, start, ids.get( initial ) );
+                writeChild( out, "read", "" );
+                writeChild( out, "pop", marker );
+                writeChild( out, "push", stackSymbols.get( pda.getStackStartingSymbol() ) + marker );
+                endTransition( out );
+            }
+            
+            // empties the JFLAP stack when the stack is empty
+            for ( PDAState s : states ) {
+                startTransition( out, ids.get( s ), empty );
+                writeChild( out, "read", "" );
+                writeChild( out, "pop", marker );
+                writeChild( out, "push", "" );
+                endTransition( out );
+            }
+            
+        }
+        
+        endAutomaton( out );
+        
+    }
+    
+    /**
+     * Verifies if some operation of a PDA expects the empty stack.
+     */
+    private static boolean testsEmptyStack( PDA pda ) {
+        
+        for ( PDATransition t : pda.getTransitions() ) {
+            for ( PDAOperation o : t.getOperations() ) {
+                if ( o.getTop() == CharacterConstants.EMPTY_STRING ) {
+                    return true;
+                }
+            }
+        }
+        
+        return false;
+        
+    }
+    
+    /**
+     * Maps the stack symbols of a PDA to the symbols written to JFLAP. The
+     * stack starting symbol is exchanged with Z or, if Z is the bottom of
+     * stack marker (see testsEmptyStack), the symbols are kept and Z is
+     * replaced by a symbol that the PDA doesn't use.
+     * 
+     * @throws IOException If Z is the marker and can't be replaced.
+     */
+    private static Map<Character, Character> createStackSymbolMap( PDA pda ) throws IOException {
+        
+        char start = pda.getStackStartingSymbol();
+        Map<Character, Character> map = new HashMap<>();
+        map.put( start, start );
+        
+        for ( PDATransition t : pda.getTransitions() ) {
+            for ( PDAOperation o : t.getOperations() ) {
+                if ( o.getTop() != CharacterConstants.EMPTY_STRING ) {
+                    map.put( o.getTop(), o.getTop() );
+                }
+                for ( char c : o.getSymbolsToPush() ) {
+                    map.put( c, c );
+                }
+            }
+        }
+        
+        if ( !testsEmptyStack( pda ) ) {
+            map.replaceAll( ( k, v ) -> toJFLAPStackSymbol( k, start ) );
+        } else if ( map.containsKey( JFLAP_STACK_STARTING_SYMBOL ) ) {
+            
+            char replacement = 0;
+            for ( char c : REPLACEMENT_STACK_SYMBOLS.toCharArray() ) {
+                if ( !map.containsKey( c ) ) {
+                    replacement = c;
+                    break;
+                }
+            }
+            
+            if ( replacement == 0 ) {
+                throw new IOException( String.format( 
+                        "The PDA tests the empty stack and uses too many stack symbols "
+                        + "to be exported to JFLAP: %c is needed as the bottom of "
+                        + "stack marker!", JFLAP_STACK_STARTING_SYMBOL ) );
+            }
+            
+            map.put( JFLAP_STACK_STARTING_SYMBOL, replacement );
+            
+        }
+        
+        return map;
+        
+    }
+    
+    private static void writeTM( TM tm, XMLStreamWriter out ) throws XMLStreamException {
+        
+        List<TMState> states = tm.getStates();
+        Map<TMState, Integer> ids = new IdentityHashMap<>();
+        
+        for ( TMState s : states ) {
+            ids.put( s, ids.size() );
+            writeState( out, ids.get( s ), s.toString(), s.getX1(), s.getY1(), s.isInitial(), s.isFinal() );
+        }
+        
+        for ( TMTransition t : tm.getTransitions() ) {
+            for ( TMOperation o : t.getOperations() ) {
+                startTransition( out, ids.get( t.getOriginState() ), ids.get( t.getTargetState() ) );
+                writeChild( out, "read", toJFLAP( o.getReadSymbol(), CharacterConstants.BLANK_TAPE_SYMBOL ) );
+                writeChild( out, "write", toJFLAP( o.getWriteSymbol(), CharacterConstants.BLANK_TAPE_SYMBOL ) );
+                writeChild( out, "move", o.getType() == TMMovementType.MOVE_LEFT ? "L" : "R" );
+                endTransition( out );
+            }
+        }
+        
+        endAutomaton( out );
+        
+    }
+    
+    private static void writeState(
+            XMLStreamWriter out,
+            int id,
+            String name,
+            int x,
+            int y,
+            boolean initial,
+            boolean _final ) throws XMLStreamException {
+        
+        newLine( out, 2 );
+        out.writeStartElement( "state" );
+        out.writeAttribute( "id", String.valueOf( id ) );
+        out.writeAttribute( "name", name );
+        
+        writeChild( out, "x", String.valueOf( (double) x ) );
+        writeChild( out, "y", String.valueOf( (double) y ) );
+        
+        if ( initial ) {
+            newLine( out, 3 );
+            out.writeEmptyElement( "initial" );
+        }
+        
+        if ( _final ) {
+            newLine( out, 3 );
+            out.writeEmptyElement( "final" );
+        }
+        
+        newLine( out, 2 );
+        out.writeEndElement();
+        
+    }
+    
+    private static void startTransition( XMLStreamWriter out, int from, int to ) throws XMLStreamException {
+        newLine( out, 2 );
+        out.writeStartElement( "transition" );
+        writeChild( out, "from", String.valueOf( from ) );
+        writeChild( out, "to", String.valueOf( to ) );
+    }
+    
+    private static void endTransition( XMLStreamWriter out ) throws XMLStreamException {
+        newLine( out, 2 );
+        out.writeEndElement();
+    }
+    
+    private static void endAutomaton( XMLStreamWriter out ) throws XMLStreamException {
+        newLine( out, 1 );
+        out.writeEndElement();
+    }
+    
+    /**
+     * Writes a child of a state or of a transition, in its own line, or an
+     * empty element if the text is empty.
+     */
+    private static void writeChild( XMLStreamWriter out, String name, String text ) throws XMLStreamException {
+        
+        newLine( out, 3 );
+        
+        if ( text.isEmpty() ) {
+            out.writeEmptyElement( name );
+        } else {
+            out.writeStartElement( name );
+            out.writeCharacters( text );
+            out.writeEndElement();
+        }
+        
+    }
+    
+    private static void newLine( XMLStreamWriter out, int level ) throws XMLStreamException {
+        out.writeCharacters( "\n" + "\t".repeat( level ) );
+    }
+    
+    /**
+     * Returns the JFLAP representation of a symbol, where the given empty
+     * symbol is written as nothing.
+     */
+    private static String toJFLAP( char symbol, char empty ) {
+        return symbol == empty ? "" : String.valueOf( symbol );
+    }
+    
+    private static char toJFLAPStackSymbol( char symbol, char start ) {
+        
+        if ( symbol == start ) {
+            return JFLAP_STACK_STARTING_SYMBOL;
+        } else if ( symbol == JFLAP_STACK_STARTING_SYMBOL ) {
+            return start;
+        }
+        
+        return symbol;
+        
+    }
+    
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.io;
+
+/**
+ * Constants of the YAAS model file format (.yfa, .ypda and .ytm files).
+ * 
+ * The files are binary, written with DataOutputStream (big-endian, chars as
+ * UTF-16 code units and strings as modified UTF-8), and have three parts:
+ * 
+ * <pre>
+ * header
+ *     magic          4 bytes   'Y' 'A' 'A' 'S'
+ *     version        u2        the version of the format (currently 1)
+ *     kind           u1        1 = FA, 2 = PDA, 3 = TM
+ *     flags          u1        bit 0 = the layout section is present
+ * 
+ * machine (the logical part, always present)
+ *     [PDA only] stack starting symbol   char
+ *     state count    int
+ *     each state
+ *         number                       int
+ *         has custom label             boolean
+ *         [custom label]               UTF
+ *         initial                      boolean
+ *         final                        boolean
+ *     transition count   int
+ *     each transition
+ *         origin state index           int
+ *         target state index           int
+ *         FA:  symbol count int, symbols char...
+ *         PDA: operation count int, each operation:
+ *              symbol char, top char, type u1, push count int, symbols char...
+ *         TM:  operation count int, each operation:
+ *              read symbol char, write symbol char, movement u1
+ * 
+ * layout (optional, only the drawing of the machine)
+ *     each state, in the same order
+ *         x, y                         int, int
+ *         stroke color (ARGB)          int
+ *     each transition, in the same order
+ *         stroke color (ARGB)          int
+ *         moved parts                  u1 (bit 0 = target control point,
+ *                                          bit 1 = central control points,
+ *                                          bit 2 = label)
+ *         [target control point angle] double (radians)
+ *         [central, left and right control points x, y]   6 int
+ *         [label x, y]                 int, int
+ * </pre>
+ * 
+ * The operation types and movements are written by the ordinal of their
+ * enum constants (PDAOperationType and TMMovementType), so new constants must
+ * only be appended. A reader accepts every version up to its own and a new
+ * version must only be created when the layout of the existing fields
+ * changes. The files without the layout section are arranged when they are
+ * read.
+ * 
+ * Files saved by the versions of YAAS that used Java serialization start with
+ * the serialization stream magic (0xACED) and are still read (see
+ * ModelReader), so they are migrated when saved again.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class ModelFormat {
+    
+    public static final byte[] MAGIC = { 'Y', 'A', 'A', 'S' };
+    public static final int VERSION = 1;
+    
+    public static final int KIND_FA = 1;
+    public static final int KIND_PDA = 2;
+    public static final int KIND_TM = 3;
+    
+    public static final int FLAG_LAYOUT = 1;
+    
+    public static final int MOVED_TARGET_CP = 1;
+    public static final int MOVED_CENTRAL_CP = 2;
+    public static final int MOVED_LABEL = 4;
+    
+    /**
+     * The first two bytes of a Java serialization stream.
+     */
+    public static final int LEGACY_MAGIC = 0xACED;
+    
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.io;
+
+import br.com.davidbuzatto.yaas.model.AbstractGeometricForm;
+import br.com.davidbuzatto.yaas.model.fa.FA;
+import br.com.davidbuzatto.yaas.model.fa.FAState;
+import br.com.davidbuzatto.yaas.model.fa.FATransition;
+import br.com.davidbuzatto.yaas.model.fa.algorithms.FAArrangement;
+import br.com.davidbuzatto.yaas.model.pda.PDA;
+import br.com.davidbuzatto.yaas.model.pda.PDAOperation;
+import br.com.davidbuzatto.yaas.model.pda.PDAOperationType;
+import br.com.davidbuzatto.yaas.model.pda.PDAState;
+import br.com.davidbuzatto.yaas.model.pda.PDATransition;
+import br.com.davidbuzatto.yaas.model.pda.algorithms.PDAArrangement;
+import br.com.davidbuzatto.yaas.model.tm.TM;
+import br.com.davidbuzatto.yaas.model.tm.TMMovementType;
+import br.com.davidbuzatto.yaas.model.tm.TMOperation;
+import br.com.davidbuzatto.yaas.model.tm.TMState;
+import br.com.davidbuzatto.yaas.model.tm.TMTransition;
+import br.com.davidbuzatto.yaas.model.tm.algorithms.TMArrangement;
+import java.awt.Color;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads models in the YAAS model file format (see ModelFormat) and in the
+ * legacy format, where the models were saved with Java serialization.
+ * 
+ * The machine is built while the stream is read, inside a bulk edit session,
+ * so the types and caches of the model are updated only once.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class ModelReader {
+    
+    private static final int BUFFER_SIZE = 65536;
+    private static final int MAX_INITIAL_CAPACITY = 65536;
+    
+    private static final int ARRANGEMENT_START = 100;
+    private static final int ARRANGEMENT_DISTANCE = 150;
+    
+    /*
+     * The legacy files can only contain the model classes and the classes of
+     * the JDK used by them.
+     */
+    private static final ObjectInputFilter LEGACY_FILTER = 
+            ObjectInputFilter.Config.createFilter( "br.com.davidbuzatto.yaas.**;java.**;!*" );
+    
+    /**
+     * Loads a model from a file.
+     * 
+     * @param file The file.
+     * @return The model (FA, PDA or TM).
+     * @throws IOException If the file can't be read or is not a valid model.
+     */
+    public static AbstractGeometricForm load( File file ) throws IOException {
+        try ( InputStream is = new FileInputStream( file ) ) {
+            return read( is );
+        }
+    }
+    
+    /**
+     * Loads a Finite Automaton from a file.
+     * 
+     * @param file The file.
+     * @return The Finite Automaton.
+     * @throws IOException If the file can't be read or doesn't contain a
+     * Finite Automaton.
+     */
+    public static FA loadFA( File file ) throws IOException {
+        return cast( load( file ), FA.class, "Finite Automaton" );
+    }
+    
+    /**
+     * Loads a Pushdown Automaton from a file.
+     * 
+     * @param file The file.
+     * @return The Pushdown Automaton.
+     * @throws IOException If the file can't be read or doesn't contain a
+     * Pushdown Automaton.
+     */
+    public static PDA loadPDA( File file ) throws IOException {
+        return cast( load( file ), PDA.class, "Pushdown Automaton" );
+    }
+    
+    /**
+     * Loads a Turing Machine from a file.
+     * 
+     * @param file The file.
+     * @return The Turing Machine.
+     * @throws IOException If the file can't be read or doesn't contain a
+     * Turing Machine.
+     */
+    public static TM loadTM( File file ) throws IOException {
+        return cast( load( file ), TM.class, "Turing Machine" );
+    }
+    
+    /**
+     * Verifies if a file was saved in the legacy format.
+     * 
+     * @param file The file.
+     * @return true if the file is a Java serialization stream.
+     * @throws IOException If the file can't be read.
+     */
+    public static boolean isLegacyFormat( File file ) throws IOException {
+        try ( DataInputStream in = new DataInputStream( new FileInputStream( file ) ) ) {
+            return in.available() >= 2 && in.readUnsignedShort() == ModelFormat.LEGACY_MAGIC;
+        }
+    }
+    
+    /**
+     * Reads a model from a stream. The stream is not closed.
+     * 
+     * @param is The stream.
+     * @return The model (FA, PDA or TM).
+     * @throws IOException If the stream can't be read or doesn't contain a
+     * valid model.
+     */
+    public static AbstractGeometricForm read( InputStream is ) throws IOException {
+        
+        BufferedInputStream bis = new BufferedInputStream( is, BUFFER_SIZE );
+        DataInputStream in = new DataInputStream( bis );
+        
+        bis.mark( ModelFormat.MAGIC.length );
+        byte[] magic = new byte[ModelFormat.MAGIC.length];
+        int length = bis.readNBytes( magic, 0, magic.length );
+        
+        if ( length >= 2 && ( ( magic[0] & 0xff ) << 8 | ( magic[1] & 0xff ) ) == ModelFormat.LEGACY_MAGIC ) {
+            bis.reset();
+            return readLegacy( bis );
+        }
+        
+        if ( length < magic.length || !Arrays.equals( magic, ModelFormat.MAGIC ) ) {
+            throw new IOException( "This is not a YAAS model file!" );
+        }
+        
+        int version = in.readUnsignedShort();
+        if ( version < 1 || version > ModelFormat.VERSION ) {
+            throw new IOException( String.format(
+                    "Unsupported model file version %d (up to %d is supported)!",
+                    version, ModelFormat.VERSION ) );
+        }
+        
+        int kind = in.readUnsignedByte();
+        boolean layout = ( in.readUnsignedByte() & ModelFormat.FLAG_LAYOUT ) != 0;
+        
+        switch ( kind ) {
+            case ModelFormat.KIND_FA:
+                return readFA( in, layout );
+            case ModelFormat.KIND_PDA:
+                return readPDA( in, layout );
+            case ModelFormat.KIND_TM:
+                return readTM( in, layout );
+            default:
+                throw new IOException( "Unknown kind of model: " + kind + "!" );
+        }
+        
+    }
+    
+    private static AbstractGeometricForm readLegacy( InputStream is ) throws IOException {
+        
+        try {
+            ObjectInputStream ois = new ObjectInputStream( is );
+            ois.setObjectInputFilter( LEGACY_FILTER );
+            Object model = ois.readObject();
+            if ( model instanceof FA || model instanceof PDA || model instanceof TM ) {
+                return (AbstractGeometricForm) model;
+            }
+        } catch ( ClassNotFoundException exc ) {
+            throw new IOException( "Invalid legacy model file!", exc );
+        }
+        
+        throw new IOException( "Invalid legacy model file!" );
+        
+    }
+    
+    private static FA readFA( DataInputStream in, boolean layout ) throws IOException {
+        
+        FA fa = new FA();
+        fa.beginBulkEdit();
+        
+        int stateCount = readCount( in );
+        List<FAState> states = new ArrayList<>( Math.min( stateCount, MAX_INITIAL_CAPACITY ) );
+        FAState initialState = null;
+        
+        for ( int i = 0; i < stateCount; i++ ) {
+            int number = in.readInt();
+            String customLabel = in.readBoolean() ? in.readUTF() : null;
+            FAState s = new FAState( number, customLabel, in.readBoolean(), in.readBoolean() );
+            if ( s.isInitial() && initialState == null ) {
+                initialState = s;
+            }
+            states.add( s );
+        }
+        
+        // the initial state is set before adding the states, so the first
+        // one is not made initial when it is not
+        if ( initialState != null ) {
+            fa.setInitialState( initialState );
+        }
+        for ( FAState s : states ) {
+            s.setInitial( s == initialState );
+            fa.addState( s );
+        }
+        
+        int transitionCount = readCount( in );
+        List<FATransition> transitions = new ArrayList<>( Math.min( transitionCount, MAX_INITIAL_CAPACITY ) );
+        
+        for ( int i = 0; i < transitionCount; i++ ) {
+            FAState origin = readState( in, states );
+            FAState target = readState( in, states );
+            int symbolCount = readCount( in );
+            List<Character> symbols = new ArrayList<>( Math.min( symbolCount, MAX_INITIAL_CAPACITY ) );
+            for ( int j = 0; j < symbolCount; j++ ) {
+                symbols.add( in.readChar() );
+            }
+            FATransition t = new FATransition( origin, target, symbols );
+            transitions.add( t );
+            fa.addTransition( t );
+        }
+        
+        if ( layout ) {
+            
+            for ( FAState s : states ) {
+                s.setX1Y1( in.readInt(), in.readInt() );
+                s.setStrokeColor( new Color( in.readInt(), true ) );
+            }
+            
+            for ( FATransition t : transitions ) {
+                t.resetTransformations();
+                t.setStrokeColor( new Color( in.readInt(), true ) );
+                int moved = in.readUnsignedByte();
+                if ( ( moved & ModelFormat.MOVED_TARGET_CP ) != 0 ) {
+                    t.rotateTargetCPTo( in.readDouble() );
+                }
+                if ( ( moved & ModelFormat.MOVED_CENTRAL_CP ) != 0 ) {
+                    t.moveCPsTo( in.readInt(), in.readInt(),
+                            in.readInt(), in.readInt(),
+                            in.readInt(), in.readInt() );
+                }
+                if ( ( moved & ModelFormat.MOVED_LABEL ) != 0 ) {
+                    t.moveLabelTo( in.readInt(), in.readInt() );
+                }
+            }
+            
+        }
+        
+        fa.endBulkEdit();
+        
+        if ( !layout ) {
+            FAArrangement.arrangeRectangularly( fa,
+                    ARRANGEMENT_START, ARRANGEMENT_START,
+                    getColumns( stateCount ), ARRANGEMENT_DISTANCE );
+        }
+        
+        return fa;
+        
+    }
+    
+    private static PDA readPDA( DataInputStream in, boolean layout ) throws IOException {
+        
+        PDA pda = new PDA( in.readChar() );
+        pda.beginBulkEdit();
+        
+        int stateCount = readCount( in );
+        List<PDAState> states = new ArrayList<>( Math.min( stateCount, MAX_INITIAL_CAPACITY ) );
+        PDAState initialState = null;
+        
+        for ( int i = 0; i < stateCount; i++ ) {
+            int number = in.readInt();
+            String customLabel = in.readBoolean() ? in.readUTF() : null;
+            PDAState s = new PDAState( number, customLabel, in.readBoolean(), in.readBoolean() );
+            if ( s.isInitial() && initialState == null ) {
+                initialState = s;
+            }
+            states.add( s );
+        }
+        
+        // the initial state is set before adding the states, so the first
+        // one is not made initial when it is not
+        if ( initialState != null ) {
+            pda.setInitialState( initialState );
+        }
+        for ( PDAState s : states ) {
+            s.setInitial( s == initialState );
+            pda.addState( s );
+        }
+        
+        int transitionCount = readCount( in );
+        List<PDATransition> transitions = new ArrayList<>( Math.min( transitionCount, MAX_INITIAL_CAPACITY ) );
+        PDAOperationType[] types = PDAOperationType.values();
+        
+        for ( int i = 0; i < transitionCount; i++ ) {
+            PDAState origin = readState( in, states );
+            PDAState target = readState( in, states );
+            int operationCount = readCount( in );
+            List<PDAOperation> operations = new ArrayList<>( Math.min( operationCount, MAX_INITIAL_CAPACITY ) );
+            for ( int j = 0; j < operationCount; j++ ) {
+                char symbol = in.readChar();
+                char top = in.readChar();
+                PDAOperationType type = types[readOrdinal( in, types.length )];
+                int pushCount = readCount( in );
+                List<Character> symbolsToPush = new ArrayList<>( Math.min( pushCount, MAX_INITIAL_CAPACITY ) );
+                for ( int k = 0; k < pushCount; k++ ) {
+                    symbolsToPush.add( in.readChar() );
+                }
+                operations.add( new PDAOperation( symbol, top, type, symbolsToPush ) );
+            }
+            PDATransition t = new PDATransition( origin, target, operations );
+            transitions.add( t );
+            pda.addTransition( t );
+        }
+        
+        if ( layout ) {
+            
+            for ( PDAState s : states ) {
+                s.setX1Y1( in.readInt(), in.readInt() );
+                s.setStrokeColor( new Color( in.readInt(), true ) );
+            }
+            
+            for ( PDATransition t : transitions ) {
+                t.resetTransformations();
+                t.setStrokeColor( new Color( in.readInt(), true ) );
+                int moved = in.readUnsignedByte();
+                if ( ( moved & ModelFormat.MOVED_TARGET_CP ) != 0 ) {
+                    t.rotateTargetCPTo( in.readDouble() );
+                }
+                if ( ( moved & ModelFormat.MOVED_CENTRAL_CP ) != 0 ) {
+                    t.moveCPsTo( in.readInt(), in.readInt(),
+                            in.readInt(), in.readInt(),
+                            in.readInt(), in.readInt() );
+                }
+                if ( ( moved & ModelFormat.MOVED_LABEL ) != 0 ) {
+                    t.moveLabelTo( in.readInt(), in.readInt() );
+                }
+            }
+            
+        }
+        
+        pda.endBulkEdit();
+        
+        if ( !layout ) {
+            PDAArrangement.arrangeRectangularly( pda,
+                    ARRANGEMENT_START, ARRANGEMENT_START,
+                    getColumns( stateCount ), ARRANGEMENT_DISTANCE );
+        }
+        
+        return pda;
+        
+    }
+    
+    private static TM readTM( DataInputStream in, boolean layout ) throws IOException {
+        
+        TM tm = new TM();
+        tm.beginBulkEdit();
+        
+        int stateCount = readCount( in );
+        List<TMState> states = new ArrayList<>( Math.min( stateCount, MAX_INITIAL_CAPACITY ) );
+        TMState initialState = null;
+        
+        for ( int i = 0; i < stateCount; i++ ) {
+            int number = in.readInt();
+            String customLabel = in.readBoolean() ? in.readUTF() : null;
+            TMState s = new TMState( number, customLabel, in.readBoolean(), in.readBoolean() );
+            if ( s.isInitial() && initialState == null ) {
+                initialState = s;
+            }
+            states.add( s );
+        }
+        
+        // the initial state is set before adding the states, so the first
+        // one is not made initial when it is not
+        if ( initialState != null ) {
+            tm.setInitialState( initialState );
+        }
+        for ( TMState s : states ) {
+            s.setInitial( s == initialState );
+            tm.addState( s );
+        }
+        
+        int transitionCount = readCount( in );
+        List<TMTransition> transitions = new ArrayList<>( Math.min( transitionCount, MAX_INITIAL_CAPACITY ) );
+        TMMovementType[] types = TMMovementType.values();
+        
+        for ( int i = 0; i < transitionCount; i++ ) {
+            TMState origin = readState( in, states );
+            TMState target = readState( in, states );
+            int operationCount = readCount( in );
+            List<TMOperation> operations = new ArrayList<>( Math.min( operationCount, MAX_INITIAL_CAPACITY ) );
+            for ( int j = 0; j < operationCount; j++ ) {
+                char readSymbol = in.readChar();
+                char writeSymbol = in.readChar();
+                operations.add( new TMOperation( readSymbol, writeSymbol,
+                        types[readOrdinal( in, types.length )] ) );
+            }
+            TMTransition t = new TMTransition( origin, target, operations );
+            transitions.add( t );
+            tm.addTransition( t );
+        }
+        
+        if ( layout ) {
+            
+            for ( TMState s : states ) {
+                s.setX1Y1( in.readInt(), in.readInt() );
+                s.setStrokeColor( new Color( in.readInt(), true ) );
+            }
+            
+            for ( TMTransition t : transitions ) {
+                t.resetTransformations();
+                t.setStrokeColor( new Color( in.readInt(), true ) );
+                int moved = in.readUnsignedByte();
+                if ( ( moved & ModelFormat.MOVED_TARGET_CP ) != 0 ) {
+                    t.rotateTargetCPTo( in.readDouble() );
+                }
+                if ( ( moved & ModelFormat.MOVED_CENTRAL_CP ) != 0 ) {
+                    t.moveCPsTo( in.readInt(), in.readInt(),
+                            in.readInt(), in.readInt(),
+                            in.readInt(), in.readInt() );
+                }
+                if ( ( moved & ModelFormat.MOVED_LABEL ) != 0 ) {
+                    t.moveLabelTo( in.readInt(), in.readInt() );
+                }
+            }
+            
+        }
+        
+        tm.endBulkEdit();
+        
+        if ( !layout ) {
+            TMArrangement.arrangeRectangularly( tm,
+                    ARRANGEMENT_START, ARRANGEMENT_START,
+                    getColumns( stateCount ), ARRANGEMENT_DISTANCE );
+        }
+        
+        return tm;
+        
+    }
+    
+    private static int readCount( DataInputStream in ) throws IOException {
+        int count = in.readInt();
+        if ( count < 0 ) {
+            throw new IOException( "Invalid count in the model file: " + count + "!" );
+        }
+        return count;
+    }
+    
+    private static int readOrdinal( DataInputStream in, int length ) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if ( ordinal >= length ) {
+            throw new IOException( "Invalid operation type in the model file: " + ordinal + "!" );
+        }
+        return ordinal;
+    }
+    
+    private static <T> T readState( DataInputStream in, List<T> states ) throws IOException {
+        int index = in.readInt();
+        if ( index < 0 || index >= states.size() ) {
+            throw new IOException( "Invalid state index in the model file: " + index + "!" );
+        }
+        return states.get( index );
+    }
+    
+    private static int getColumns( int stateCount ) {
+        return Math.max( 1, (int) Math.ceil( Math.sqrt( stateCount ) ) );
+    }
+    
+    private static <T> T cast( AbstractGeometricForm model, Class<T> type, String name ) throws IOException {
+        if ( !type.isInstance( model ) ) {
+            throw new IOException( "The file doesn't contain a " + name + "!" );
+        }
+        return type.cast( model );
+    }
+    
+}
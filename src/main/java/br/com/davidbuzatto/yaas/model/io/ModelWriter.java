@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.io;
+
+import br.com.davidbuzatto.yaas.model.AbstractGeometricForm;
+import br.com.davidbuzatto.yaas.model.fa.FA;
+import br.com.davidbuzatto.yaas.model.fa.FAState;
+import br.com.davidbuzatto.yaas.model.fa.FATransition;
+import br.com.davidbuzatto.yaas.model.pda.PDA;
+import br.com.davidbuzatto.yaas.model.pda.PDAOperation;
+import br.com.davidbuzatto.yaas.model.pda.PDAState;
+import br.com.davidbuzatto.yaas.model.pda.PDATransition;
+import br.com.davidbuzatto.yaas.model.tm.TM;
+import br.com.davidbuzatto.yaas.model.tm.TMOperation;
+import br.com.davidbuzatto.yaas.model.tm.TMState;
+import br.com.davidbuzatto.yaas.model.tm.TMTransition;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes models in the YAAS model file format (see ModelFormat).
+ * 
+ * The machine is streamed directly from its states and transitions, so no
+ * intermediate copy of it is created.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class ModelWriter {
+    
+    private static final int BUFFER_SIZE = 65536;
+    
+    /**
+     * Saves a model, with its layout, to a file.
+     * 
+     * @param model The model (FA, PDA or TM).
+     * @param file The file.
+     * @throws IOException If the file can't be written.
+     */
+    public static void save( AbstractGeometricForm model, File file ) throws IOException {
+        try ( OutputStream os = new FileOutputStream( file ) ) {
+            write( model, os, true );
+        }
+    }
+    
+    /**
+     * Writes a model to a stream. The stream is flushed but not closed.
+     * 
+     * @param model The model (FA, PDA or TM).
+     * @param os The stream.
+     * @param includeLayout If the layout section must be written.
+     * @throws IOException If the stream can't be written.
+     */
+    public static void write( AbstractGeometricForm model, OutputStream os, boolean includeLayout ) throws IOException {
+        
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream( os, BUFFER_SIZE ) );
+        
+        if ( model instanceof FA fa ) {
+            writeHeader( out, ModelFormat.KIND_FA, includeLayout );
+            writeFA( fa, out, includeLayout );
+        } else if ( model instanceof PDA pda ) {
+            writeHeader( out, ModelFormat.KIND_PDA, includeLayout );
+            writePDA( pda, out, includeLayout );
+        } else if ( model instanceof TM tm ) {
+            writeHeader( out, ModelFormat.KIND_TM, includeLayout );
+            writeTM( tm, out, includeLayout );
+        } else {
+            throw new IllegalArgumentException( "The model must be a FA, a PDA or a TM!" );
+        }
+        
+        out.flush();
+        
+    }
+    
+    private static void writeHeader( DataOutputStream out, int kind, boolean includeLayout ) throws IOException {
+        out.write( ModelFormat.MAGIC );
+        out.writeShort( ModelFormat.VERSION );
+        out.writeByte( kind );
+        out.writeByte( includeLayout ? ModelFormat.FLAG_LAYOUT : 0 );
+    }
+    
+    private static void writeFA( FA fa, DataOutputStream out, boolean includeLayout ) throws IOException {
+        
+        List<FAState> states = fa.getStates();
+        List<FATransition> transitions = fa.getTransitions();
+        Map<FAState, Integer> indexes = new IdentityHashMap<>();
+        
+        out.writeInt( states.size() );
+        for ( FAState s : states ) {
+            indexes.put( s, indexes.size() );
+            writeState( out, s.getNumber(), s.getCustomLabel(), s.isInitial(), s.isFinal() );
+        }
+        
+        out.writeInt( transitions.size() );
+        for ( FATransition t : transitions ) {
+            out.writeInt( indexes.get( t.getOriginState() ) );
+            out.writeInt( indexes.get( t.getTargetState() ) );
+            out.writeInt( t.getSymbols().size() );
+            for ( char c : t.getSymbols() ) {
+                out.writeChar( c );
+            }
+        }
+        
+        if ( includeLayout ) {
+            
+            for ( FAState s : states ) {
+                writeStateLayout( out, s );
+            }
+            
+            for ( FATransition t : transitions ) {
+                writeTransitionLayout( out, t,
+                        t.isTargetCPMoved(), t.getTargetCPAngle(),
+                        t.isCentralCPMoved(), t.getCentralCP(), t.getLeftCP(), t.getRightCP(),
+                        t.isLabelMoved(), t.getLabel() );
+            }
+            
+        }
+        
+    }
+    
+    private static void writePDA( PDA pda, DataOutputStream out, boolean includeLayout ) throws IOException {
+        
+        List<PDAState> states = pda.getStates();
+        List<PDATransition> transitions = pda.getTransitions();
+        Map<PDAState, Integer> indexes = new IdentityHashMap<>();
+        
+        out.writeChar( pda.getStackStartingSymbol() );
+        
+        out.writeInt( states.size() );
+        for ( PDAState s : states ) {
+            indexes.put( s, indexes.size() );
+            writeState( out, s.getNumber(), s.getCustomLabel(), s.isInitial(), s.isFinal() );
+        }
+        
+        out.writeInt( transitions.size() );
+        for ( PDATransition t : transitions ) {
+            out.writeInt( indexes.get( t.getOriginState() ) );
+            out.writeInt( indexes.get( t.getTargetState() ) );
+            out.writeInt( t.getOperations().size() );
+            for ( PDAOperation o : t.getOperations() ) {
+                out.writeChar( o.getSymbol() );
+                out.writeChar( o.getTop() );
+                out.writeByte( o.getType().ordinal() );
+                out.writeInt( o.getSymbolsToPush().size() );
+                for ( char c : o.getSymbolsToPush() ) {
+                    out.writeChar( c );
+                }
+            }
+        }
+        
+        if ( includeLayout ) {
+            
+            for ( PDAState s : states ) {
+                writeStateLayout( out, s );
+            }
+            
+            for ( PDATransition t : transitions ) {
+                writeTransitionLayout( out, t,
+                        t.isTargetCPMoved(), t.getTargetCPAngle(),
+                        t.isCentralCPMoved(), t.getCentralCP(), t.getLeftCP(), t.getRightCP(),
+                        t.isLabelMoved(), t.getLabel() );
+            }
+            
+        }
+        
+    }
+    
+    private static void writeTM( TM tm, DataOutputStream out, boolean includeLayout ) throws IOException {
+        
+        List<TMState> states = tm.getStates();
+        List<TMTransition> transitions = tm.getTransitions();
+        Map<TMState, Integer> indexes = new IdentityHashMap<>();
+        
+        out.writeInt( states.size() );
+        for ( TMState s : states ) {
+            indexes.put( s, indexes.size() );
+            writeState( out, s.getNumber(), s.getCustomLabel(), s.isInitial(), s.isFinal() );
+        }
+        
+        out.writeInt( transitions.size() );
+        for ( TMTransition t : transitions ) {
+            out.writeInt( indexes.get( t.getOriginState() ) );
+            out.writeInt( indexes.get( t.getTargetState() ) );
+            out.writeInt( t.getOperations().size() );
+            for ( TMOperation o : t.getOperations() ) {
+                out.writeChar( o.getReadSymbol() );
+                out.writeChar( o.getWriteSymbol() );
+                out.writeByte( o.getType().ordinal() );
+            }
+        }
+        
+        if ( includeLayout ) {
+            
+            for ( TMState s : states ) {
+                writeStateLayout( out, s );
+            }
+            
+            for ( TMTransition t : transitions ) {
+                writeTransitionLayout( out, t,
+                        t.isTargetCPMoved(), t.getTargetCPAngle(),
+                        t.isCentralCPMoved(), t.getCentralCP(), t.getLeftCP(), t.getRightCP(),
+                        t.isLabelMoved(), t.getLabel() );
+            }
+            
+        }
+        
+    }
+    
+    private static void writeState(
+            DataOutputStream out,
+            int number,
+            String customLabel,
+            boolean initial,
+            boolean _final ) throws IOException {
+        
+        out.writeInt( number );
+        out.writeBoolean( customLabel != null );
+        if ( customLabel != null ) {
+            out.writeUTF( customLabel );
+        }
+        out.writeBoolean( initial );
+        out.writeBoolean( _final );
+        
+    }
+    
+    private static void writeStateLayout( DataOutputStream out, AbstractGeometricForm state ) throws IOException {
+        out.writeInt( state.getX1() );
+        out.writeInt( state.getY1() );
+        out.writeInt( state.getStrokeColor().getRGB() );
+    }
+    
+    private static void writeTransitionLayout(
+            DataOutputStream out,
+            AbstractGeometricForm transition,
+            boolean targetCPMoved,
+            double targetCPAngle,
+            boolean centralCPMoved,
+            AbstractGeometricForm centralCP,
+            AbstractGeometricForm leftCP,
+            AbstractGeometricForm rightCP,
+            boolean labelMoved,
+            AbstractGeometricForm label ) throws IOException {
+        
+        int moved = 0;
+        
+        if ( targetCPMoved ) {
+            moved |= ModelFormat.MOVED_TARGET_CP;
+        }
+        
+        if ( centralCPMoved ) {
+            moved |= ModelFormat.MOVED_CENTRAL_CP;
+        }
+        
+        if ( labelMoved ) {
+            moved |= ModelFormat.MOVED_LABEL;
+        }
+        
+        out.writeInt( transition.getStrokeColor().getRGB() );
+        out.writeByte( moved );
+        
+        if ( targetCPMoved ) {
+            out.writeDouble( targetCPAngle );
+        }
+        
+        if ( centralCPMoved ) {
+            out.writeInt( centralCP.getX1() );
+            out.writeInt( centralCP.getY1() );
+            out.writeInt( leftCP.getX1() );
+            out.writeInt( leftCP.getY1() );
+            out.writeInt( rightCP.getX1() );
+            out.writeInt( rightCP.getY1() );
+        }
+        
+        if ( labelMoved ) {
+            out.writeInt( label.getX1() );
+            out.writeInt( label.getY1() );
+        }
+        
+    }
+    
+}
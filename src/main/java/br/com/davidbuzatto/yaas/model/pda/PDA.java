@@ -18,16 +18,22 @@ package br.com.davidbuzatto.yaas.model.pda;
 
 import br.com.davidbuzatto.yaas.gui.pda.PDASimulationStep;
 import br.com.davidbuzatto.yaas.model.AbstractGeometricForm;
+import br.com.davidbuzatto.yaas.model.BatchTestResult;
+import br.com.davidbuzatto.yaas.model.BatchTestStatus;
+import br.com.davidbuzatto.yaas.model.BatchTester;
+import br.com.davidbuzatto.yaas.model.SpatialIndex;
+import br.com.davidbuzatto.yaas.util.ApplicationConstants;
 import br.com.davidbuzatto.yaas.util.CharacterConstants;
-import br.com.davidbuzatto.yaas.util.Utils;
+import br.com.davidbuzatto.yaas.util.MavenModelLoader;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -42,8 +48,10 @@ import java.util.TreeSet;
  */
 public class PDA extends AbstractGeometricForm implements Cloneable {
     
+    private static final long serialVersionUID = 8151892198641700333L;
+    
     private transient static final boolean DEBUG = Boolean.parseBoolean( 
-            Utils.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
+            MavenModelLoader.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
     
     private List<PDAState> states;
     private List<PDATransition> transitions;
@@ -56,8 +64,11 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
     private transient static int buildTreeLevel;
     private transient static final String levelString = "  ";
     private transient boolean accepted;
-    private transient boolean acceptForSimulation;
-    private transient PDAID firstAcceptedId;
+    private transient PDARunStatus lastRunStatus;
+    private transient String idTreeString;
+    private transient PDAAcceptanceType idTreeAcceptanceType;
+    private transient Set<List<Object>> idTreePath;
+    private transient boolean idTreeTruncated;
     
     // cache control
     private transient boolean alphabetUpToDate;
@@ -70,6 +81,17 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
     
     private transient boolean transitionControlPointsVisible;
     
+    private transient boolean spatialIndexUpToDate;
+    private transient SpatialIndex<PDAState> stateIndex;
+    private transient SpatialIndex<PDATransition> transitionIndex;
+    private transient SpatialIndex<PDATransition> transitionDrawingIndex;
+    private transient Map<PDAState, List<PDATransition>> outgoingTransitions;
+    private transient List<PDAState> mouseHoverStates;
+    private transient List<PDATransition> mouseHoverTransitions;
+    
+    private transient int bulkEditLevel;
+    private transient Map<PDAState, Map<PDAState, PDATransition>> bulkTransitionIndex;
+    
     public PDA() {
         this( CharacterConstants.STACK_STARTING_SYMBOL );
     }
@@ -88,39 +110,36 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
     public boolean accepts( String str, PDAAcceptanceType acceptanceType, List<PDASimulationStep> simulationSteps ) {
         
         accepted = false;
-        acceptForSimulation = false;
-        firstAcceptedId = null;
-        
-        if ( simulationSteps != null ) {
-            acceptForSimulation = true;
-        }
+        lastRunStatus = null;
+        rootId = null;
+        ids = null;
+        idTreeString = null;
+        idTreeAcceptanceType = null;
         
         if ( canExecute() ) {
             
-            Map<PDAState, List<PDATransition>> delta = getDelta();
-            Deque<Character> stack = new ArrayDeque<>();
-            stack.push( stackStartingSymbol );
+            // the ID tree is built only if it is requested (see getRootId)
+            idTreeString = str;
+            idTreeAcceptanceType = acceptanceType;
             
-            rootId = new PDAID( initialState, str, stack, null, Color.BLACK );
+            PDAConfigurationSearch search = new PDAConfigurationSearch( 
+                    this, ApplicationConstants.PUSHDOWN_AUTOMATON_MAX_CONFIGURATIONS );
+            accepted = search.accepts( str, acceptanceType );
             
-            buildTreeLevel = 0;
-            ids = new ArrayList<>();
-            buildIDTree( rootId, delta, acceptanceType );
+            if ( accepted ) {
+                lastRunStatus = PDARunStatus.DECIDED;
+            } else if ( search.isTimeLimitReached() ) {
+                lastRunStatus = PDARunStatus.TIME_LIMIT_REACHED;
+            } else if ( search.isLimitReached() ) {
+                lastRunStatus = PDARunStatus.CONFIGURATION_LIMIT_REACHED;
+            } else {
+                lastRunStatus = PDARunStatus.DECIDED;
+            }
             
-            if ( firstAcceptedId != null ) {
-                
-                List<PDAID> pathIds = new ArrayList<>();
-                
-                PDAID current = firstAcceptedId;
-                while ( current != null ) {
-                    pathIds.add( current );
-                    current = current.getParent();
+            if ( accepted && simulationSteps != null ) {
+                for ( PDAID id : search.getAcceptingPath() ) {
+                    simulationSteps.add( new PDASimulationStep( id ) );
                 }
-                
-                for ( int i = pathIds.size()-1; i >= 0; i-- ) {
-                    simulationSteps.add( new PDASimulationStep( pathIds.get( i ) ) );
-                }
-                
             }
             
         }
@@ -129,45 +148,96 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
         
     }
     
+    /**
+     * Creates a tester to be used in batch tests (see BatchTestExecutor).
+     * The tester has its own configuration search, built from this
+     * automaton when this method is called, so this automaton can be
+     * changed while the tester is used.
+     * 
+     * @param acceptanceType The acceptance type.
+     * @param maxTime The maximum time of the test of each string, in
+     * milliseconds, or zero if there is no limit.
+     * @return The tester.
+     */
+    public BatchTester createBatchTester( PDAAcceptanceType acceptanceType, long maxTime ) {
+        
+        if ( !canExecute() ) {
+            return str -> new BatchTestResult( BatchTestStatus.REJECTED, 0, null );
+        }
+        
+        PDAConfigurationSearch search = new PDAConfigurationSearch( 
+                this, ApplicationConstants.PUSHDOWN_AUTOMATON_MAX_CONFIGURATIONS, maxTime );
+        
+        return str -> {
+            
+            BatchTestStatus status;
+            
+            if ( search.accepts( str, acceptanceType ) ) {
+                status = BatchTestStatus.ACCEPTED;
+            } else if ( search.isTimeLimitReached() ) {
+                status = BatchTestStatus.TIME_LIMIT_REACHED;
+            } else if ( search.isLimitReached() ) {
+                status = BatchTestStatus.LIMIT_REACHED;
+            } else {
+                status = BatchTestStatus.REJECTED;
+            }
+            
+            return new BatchTestResult( status, search.getExploredConfigurations(), null );
+            
+        };
+        
+    }
+    
+    /**
+     * Builds the ID tree of the last tested string. A configuration that is
+     * already in the path from the root is not expanded again and the tree
+     * is limited to PUSHDOWN_AUTOMATON_MAX_IDS IDs and
+     * PUSHDOWN_AUTOMATON_MAX_ID_DEPTH levels.
+     */
+    private void buildIDTree() {
+        
+        rootId = new PDAID( initialState, idTreeString, 
+                PDAStack.of( stackStartingSymbol ), null, Color.BLACK );
+        
+        buildTreeLevel = 0;
+        ids = new ArrayList<>();
+        idTreePath = new HashSet<>();
+        idTreeTruncated = false;
+        buildIDTree( rootId, getDelta(), idTreeAcceptanceType );
+        idTreePath = null;
+        
+    }
+    
     private void buildIDTree( PDAID node, Map<PDAState, List<PDATransition>> delta, PDAAcceptanceType acceptanceType ) {
         
         if ( node.getString().isEmpty() ) {
             
             if ( acceptanceType == PDAAcceptanceType.FINAL_STATE && node.getState().isFinal() ) {
-                
                 node.setAcceptedByFinalState( true );
-                accepted = true;
-                
-                // finds only one solution path
-                if ( acceptForSimulation ) {
-                    firstAcceptedId = node;
-                    ids.add( node );
-                    return;
-                }
-                
             } else if ( acceptanceType == PDAAcceptanceType.EMPTY_STACK && node.getStack().isEmpty() ) {
-                
                 node.setAcceptedByEmptyStack( true );
-                accepted = true;
-                
-                if ( acceptForSimulation ) {
-                    firstAcceptedId = node;
-                    ids.add( node );
-                    return;
-                }
-                
             }
             
         }
         
         ids.add( node );
-        buildTreeLevel++;
         
-        // found the first leaf when is collecting data for simulation
-        if ( firstAcceptedId != null ) {
+        if ( ids.size() >= ApplicationConstants.PUSHDOWN_AUTOMATON_MAX_IDS ||
+                buildTreeLevel >= ApplicationConstants.PUSHDOWN_AUTOMATON_MAX_ID_DEPTH ) {
+            idTreeTruncated = true;
             return;
         }
         
+        List<Object> configuration = List.of( 
+                node.getState(), node.getString().length(), node.getStack() );
+        
+        // empty string cycle
+        if ( !idTreePath.add( configuration ) ) {
+            return;
+        }
+        
+        buildTreeLevel++;
+        
         if ( DEBUG ) {
             System.out.println( levelString.repeat( buildTreeLevel ) + "Processing: " + node );
         }
@@ -193,7 +263,7 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
                         System.out.println( levelString.repeat( buildTreeLevel ) + "      Matches symbol: " + o.getSymbol() );
                     }
 
-                    Deque<Character> stack = Utils.cloneCharacterStack( node.getStack() );
+                    PDAStack stack = node.getStack();
 
                     // matches stack top
                     if ( !stack.isEmpty() && o.getTop() == stack.peek() ) {
@@ -206,26 +276,23 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
                         String newString = string.substring( 1 );
 
                         // updates the stack
-                        processStack( o, stack );
-
                         PDAID newId = new PDAID( t.getTargetState(), 
-                                newString, stack, o, t.getStrokeColor() );
+                                newString, stack.apply( o ), o, t.getStrokeColor() );
                         node.addChild( newId );
 
                         buildIDTree( newId, delta, acceptanceType );
 
                         // empty stack?
-                    } else if ( o.getTop() == CharacterConstants.EMPTY_STRING && stack.isEmpty() ) {
+                    } else if ( o.getTop() == CharacterConstants.EMPTY_STRING && stack.isEmpty() &&
+                            !popsStack( o ) ) {
 
                         if ( DEBUG ) {
                             System.out.println( levelString.repeat( buildTreeLevel ) + "      Matches empty stack" );
                         }
 
                         String newString = string.substring( 1 );
-                        processStack( o, stack );
-
                         PDAID newId = new PDAID( t.getTargetState(),
-                                newString, stack, o, t.getStrokeColor() );
+                                newString, stack.apply( o ), o, t.getStrokeColor() );
                         node.addChild( newId );
 
                         buildIDTree( newId, delta, acceptanceType );
@@ -239,7 +306,7 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
                         System.out.println( levelString.repeat( buildTreeLevel ) + "      Empty transition" );
                     }
 
-                    Deque<Character> stack = Utils.cloneCharacterStack( node.getStack() );
+                    PDAStack stack = node.getStack();
 
                     // matches stack top
                     if ( !stack.isEmpty() && o.getTop() == stack.peek() ) {
@@ -251,26 +318,23 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
                         // don't consume any symbol
 
                         // updates the stack
-                        processStack( o, stack );
-
                         PDAID newId = new PDAID( t.getTargetState(), 
-                                string, stack, o, t.getStrokeColor() );
+                                string, stack.apply( o ), o, t.getStrokeColor() );
                         node.addChild( newId );
 
                         buildIDTree( newId, delta, acceptanceType );
 
                         // empty stack?
-                    } else if ( o.getTop() == CharacterConstants.EMPTY_STRING && stack.isEmpty() ) {
+                    } else if ( o.getTop() == CharacterConstants.EMPTY_STRING && stack.isEmpty() &&
+                            !popsStack( o ) ) {
 
                         if ( DEBUG ) {
                             System.out.println( levelString.repeat( buildTreeLevel ) + "      Matches empty stack" );
                         }
 
-                        String newString = string.substring( 1 );
-                        processStack( o, stack );
-
+                        // don't consume any symbol
                         PDAID newId = new PDAID( t.getTargetState(), 
-                                newString, stack, o, t.getStrokeColor() );
+                                string, stack.apply( o ), o, t.getStrokeColor() );
                         node.addChild( newId );
 
                         buildIDTree( newId, delta, acceptanceType );
@@ -283,31 +347,18 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
 
         }
         
+        idTreePath.remove( configuration );
         buildTreeLevel--;
         
     }
     
-    private void processStack( PDAOperation op, Deque<Character> stack ) {
-        
-        switch ( op.getType() ) {
-            case DO_NOTHING:
-                break;
-            case POP:
-                stack.pop();
-                break;
-            case PUSH:
-                for ( Character s : op.getSymbolsToPush() ) {
-                    stack.push( s );
-                }
-                break;
-            case REPLACE:
-                stack.pop();
-                for ( Character s : op.getSymbolsToPush() ) {
-                    stack.push( s );
-                }
-                break;
-        }
-        
+    /**
+     * Verifies if an operation pops the stack, so it can't be executed when
+     * the stack is empty.
+     */
+    private static boolean popsStack( PDAOperation op ) {
+        return op.getType() == PDAOperationType.POP || 
+                op.getType() == PDAOperationType.REPLACE;
     }
 
     public boolean canExecute() {
@@ -318,28 +369,25 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
     public void draw( Graphics2D g2d ) {
         
         g2d = (Graphics2D) g2d.create();
+        updateSpatialIndex();
         
-        int maxX = 0;
-        int maxY = 0;
+        // only what intersects the clip is drawn, since the draw panel
+        // repaints just the regions that have changed
+        Rectangle clip = g2d.getClipBounds();
+        List<PDATransition> visibleTransitions = clip == null ? 
+                transitions : transitionDrawingIndex.getIntersecting( clip );
+        List<PDAState> visibleStates = clip == null ? 
+                states : stateIndex.getIntersecting( clip );
         
-        for ( PDATransition t : transitions ) {
+        for ( PDATransition t : visibleTransitions ) {
             t.draw( g2d );
         }
         
-        for ( PDAState s : states ) {
+        for ( PDAState s : visibleStates ) {
             s.draw( g2d );
-            if ( maxX < s.getX1() + s.getRadius() ) {
-                maxX = s.getX1() + s.getRadius();
-            }
-            if ( maxY < s.getY1() + s.getRadius() ) {
-                maxY = s.getY1() + s.getRadius();
-            }
         }
         
-        width = maxX + 100;
-        height = maxY + 100;
-        
-        for ( PDATransition t : transitions ) {
+        for ( PDATransition t : visibleTransitions ) {
             t.drawLabel( g2d );
         }
         
@@ -360,12 +408,14 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
         for ( PDAState s : states ) {
             s.move( xAmount, yAmount );
         }
+        spatialIndexUpToDate = false;
     }
     
     public PDAState getStateAt( int x, int y ) {
         
-        for ( int i = states.size()-1; i >= 0; i-- ) {
-            PDAState s = states.get( i );
+        updateSpatialIndex();
+        
+        for ( PDAState s : stateIndex.getAt( x, y ) ) {
             if ( s.intersects( x, y ) ) {
                 s.setSelected( true );
                 return s;
@@ -378,8 +428,9 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
     
     public PDATransition getTransitionAt( int x, int y ) {
         
-        for ( int i = transitions.size()-1; i >= 0; i-- ) {
-            PDATransition t = transitions.get( i );
+        updateSpatialIndex();
+        
+        for ( PDATransition t : transitionIndex.getAt( x, y ) ) {
             if ( t.intersects( x, y ) ) {
                 t.setSelected( true );
                 return t;
@@ -390,6 +441,27 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
         
     }
     
+    /**
+     * Returns the states that intersect a rectangle.
+     * 
+     * @param rectangle The rectangle.
+     * @return The states, in the order they were added.
+     */
+    public List<PDAState> getStatesAt( Rectangle rectangle ) {
+        
+        updateSpatialIndex();
+        List<PDAState> found = new ArrayList<>();
+        
+        for ( PDAState s : stateIndex.getIntersecting( rectangle ) ) {
+            if ( s.intersects( rectangle ) ) {
+                found.add( s );
+            }
+        }
+        
+        return found;
+        
+    }
+    
     public void deselectAll() {
         for ( PDATransition t : transitions ) {
             t.setSelected( false );
@@ -416,8 +488,10 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
             
         }
         
-        markAllCachesAsObsolete();
-        updateType();
+        if ( bulkEditLevel == 0 ) {
+            markAllCachesAsObsolete();
+            updateType();
+        }
         
     }
     
@@ -427,26 +501,108 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
             
             PDATransition tf = null;
             
-            for ( PDATransition t : transitions ) {
-                if ( t.getOriginState() == transition.getOriginState() && 
-                        t.getTargetState() == transition.getTargetState() ) {
-                    tf = t;
-                    break;
+            if ( bulkEditLevel > 0 ) {
+                tf = getIndexedTransition( 
+                        transition.getOriginState(), transition.getTargetState() );
+            } else {
+                for ( PDATransition t : transitions ) {
+                    if ( t.getOriginState() == transition.getOriginState() && 
+                            t.getTargetState() == transition.getTargetState() ) {
+                        tf = t;
+                        break;
+                    }
                 }
             }
             
             if ( tf == null ) {
                 transition.setControlPointsVisible( transitionControlPointsVisible );
                 transitions.add( transition );
+                if ( bulkEditLevel > 0 ) {
+                    indexTransition( transition );
+                }
             } else {
                 tf.addOperations( transition.getOperations() );
             }
             
         }
         
-        updateTransitions();
-        markAllCachesAsObsolete();
-        updateType();
+        if ( bulkEditLevel == 0 ) {
+            updateTransitions();
+            markAllCachesAsObsolete();
+            updateType();
+        }
+        
+    }
+    
+    /**
+     * Starts a bulk edit session, used to add many states and transitions at
+     * once. Until the matching call to endBulkEdit(), addState and
+     * addTransition don't update the type of the automaton nor invalidate its
+     * caches, and the existing transitions are found by an index of their
+     * origin and target states instead of a linear search. Sessions can be
+     * nested and the automaton must not be executed inside them.
+     */
+    public void beginBulkEdit() {
+        
+        if ( bulkEditLevel++ == 0 ) {
+            bulkTransitionIndex = new IdentityHashMap<>();
+            for ( PDATransition t : transitions ) {
+                if ( getIndexedTransition( t.getOriginState(), t.getTargetState() ) == null ) {
+                    indexTransition( t );
+                }
+            }
+        }
+        
+    }
+    
+    /**
+     * Ends a bulk edit session. When the outermost session ends, the caches
+     * are invalidated and the type of the automaton is updated only once.
+     */
+    public void endBulkEdit() {
+        
+        if ( bulkEditLevel == 0 ) {
+            throw new IllegalStateException( "There is no bulk edit session to end!" );
+        }
+        
+        if ( --bulkEditLevel == 0 ) {
+            bulkTransitionIndex = null;
+            updateTransitions();
+            markAllCachesAsObsolete();
+            updateType();
+        }
+        
+    }
+    
+    public boolean isInBulkEdit() {
+        return bulkEditLevel > 0;
+    }
+    
+    private PDATransition getIndexedTransition( PDAState originState, PDAState targetState ) {
+        Map<PDAState, PDATransition> targets = bulkTransitionIndex.get( originState );
+        return targets == null ? null : targets.get( targetState );
+    }
+    
+    private void indexTransition( PDATransition transition ) {
+        
+        Map<PDAState, PDATransition> targets = bulkTransitionIndex.get( transition.getOriginState() );
+        
+        if ( targets == null ) {
+            targets = new IdentityHashMap<>();
+            bulkTransitionIndex.put( transition.getOriginState(), targets );
+        }
+        
+        targets.put( transition.getTargetState(), transition );
+        
+    }
+    
+    private void unindexTransition( PDATransition transition ) {
+        
+        if ( bulkEditLevel > 0 && getIndexedTransition( 
+                transition.getOriginState(), transition.getTargetState() ) == transition ) {
+            bulkTransitionIndex.get( transition.getOriginState() ).remove( 
+                    transition.getTargetState() );
+        }
         
     }
     
@@ -454,18 +610,21 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
         for ( PDATransition t : transitions ) {
             t.updateStartAndEndPoints();
         }
+        spatialIndexUpToDate = false;
     }
     
     public void resetTransitionsTransformations() {
         for ( PDATransition t : transitions ) {
             t.resetTransformations();
         }
+        spatialIndexUpToDate = false;
     }
     
     public void draggTransitions( MouseEvent evt ) {
         for ( PDATransition t : transitions ) {
             t.mouseDragged( evt );
         }
+        spatialIndexUpToDate = false;
     }
     
     public void setTransitionsControlPointsVisible( boolean visible ) {
@@ -473,15 +632,192 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
         for ( PDATransition t : transitions ) {
             t.setControlPointsVisible( visible );
         }
+        spatialIndexUpToDate = false;
     }
     
-    public void mouseHoverStatesAndTransitions( int x, int y ) {
-        for ( PDATransition t : transitions ) {
+    /**
+     * Updates the mouse hover state of the states and transitions. Only the
+     * ones near the mouse and the ones that were under it are tested.
+     * 
+     * @param x The x coordinate of the mouse.
+     * @param y The y coordinate of the mouse.
+     * @return The region of the drawing that has changed, or null if nothing
+     * has changed.
+     */
+    public Rectangle mouseHoverStatesAndTransitions( int x, int y ) {
+        
+        updateSpatialIndex();
+        Rectangle region = null;
+        
+        List<PDATransition> hoverTransitions = new ArrayList<>();
+        for ( PDATransition t : transitionIndex.getAt( x, y ) ) {
             t.mouseHover( x, y );
+            if ( t.isMouseHover() ) {
+                hoverTransitions.add( t );
+            }
         }
-        for ( PDAState s : states ) {
+        
+        for ( PDATransition t : mouseHoverTransitions ) {
+            if ( !hoverTransitions.contains( t ) ) {
+                t.setMouseHover( false );
+                region = union( region, t.getBounds() );
+            }
+        }
+        
+        for ( PDATransition t : hoverTransitions ) {
+            if ( !mouseHoverTransitions.contains( t ) ) {
+                region = union( region, t.getBounds() );
+            }
+        }
+        
+        List<PDAState> hoverStates = new ArrayList<>();
+        for ( PDAState s : stateIndex.getAt( x, y ) ) {
             s.mouseHover( x, y );
+            if ( s.isMouseHover() ) {
+                hoverStates.add( s );
+            }
+        }
+        
+        for ( PDAState s : mouseHoverStates ) {
+            if ( !hoverStates.contains( s ) ) {
+                s.setMouseHover( false );
+                region = union( region, getStateRegion( s ) );
+            }
+        }
+        
+        for ( PDAState s : hoverStates ) {
+            if ( !mouseHoverStates.contains( s ) ) {
+                region = union( region, getStateRegion( s ) );
+            }
+        }
+        
+        mouseHoverTransitions = hoverTransitions;
+        mouseHoverStates = hoverStates;
+        
+        return region;
+        
+    }
+    
+    /**
+     * Sets the mouse hover state of the states that intersect a rectangle and
+     * resets the others.
+     * 
+     * @param rectangle The rectangle.
+     */
+    public void mouseHoverStates( Rectangle rectangle ) {
+        
+        List<PDAState> hoverStates = getStatesAt( rectangle );
+        
+        for ( PDAState s : mouseHoverStates ) {
+            s.setMouseHover( false );
+        }
+        
+        for ( PDAState s : hoverStates ) {
+            s.setMouseHover( true );
+        }
+        
+        mouseHoverStates = hoverStates;
+        
+    }
+    
+    public void resetStatesMouseHover() {
+        
+        updateSpatialIndex();
+        
+        for ( PDAState s : mouseHoverStates ) {
+            s.setMouseHover( false );
+        }
+        
+        mouseHoverStates.clear();
+        
+    }
+    
+    /**
+     * Marks the spatial index of the states and transitions as obsolete. It
+     * must be called when they are moved or changed without using the
+     * methods of this automaton.
+     */
+    public void markSpatialIndexAsObsolete() {
+        spatialIndexUpToDate = false;
+    }
+    
+    /**
+     * Creates the spatial index of the states and transitions, if it is
+     * obsolete, and updates the size of the drawing. The transitions are
+     * indexed by the parts that can be selected and by the area where they
+     * are drawn.
+     */
+    private void updateSpatialIndex() {
+        
+        if ( !spatialIndexUpToDate ) {
+            
+            int maxX = 0;
+            int maxY = 0;
+            
+            stateIndex = new SpatialIndex<>();
+            transitionIndex = new SpatialIndex<>();
+            transitionDrawingIndex = new SpatialIndex<>();
+            outgoingTransitions = new IdentityHashMap<>();
+            mouseHoverStates = new ArrayList<>();
+            mouseHoverTransitions = new ArrayList<>();
+            
+            for ( PDAState s : states ) {
+                stateIndex.add( s, s.getBounds() );
+                if ( s.isMouseHover() ) {
+                    mouseHoverStates.add( s );
+                }
+                if ( maxX < s.getX1() + s.getRadius() ) {
+                    maxX = s.getX1() + s.getRadius();
+                }
+                if ( maxY < s.getY1() + s.getRadius() ) {
+                    maxY = s.getY1() + s.getRadius();
+                }
+            }
+            
+            for ( PDATransition t : transitions ) {
+                transitionIndex.add( t, t.getHitBounds() );
+                transitionDrawingIndex.add( t, t.getBounds() );
+                outgoingTransitions.computeIfAbsent( 
+                        t.getOriginState(), k -> new ArrayList<>() ).add( t );
+                if ( t.isMouseHover() ) {
+                    mouseHoverTransitions.add( t );
+                }
+            }
+            
+            width = maxX + 100;
+            height = maxY + 100;
+            
+            spatialIndexUpToDate = true;
+            
+        }
+        
+    }
+    
+    /**
+     * Returns the region drawn with the colors of a state: the state and its
+     * outgoing transitions.
+     */
+    private Rectangle getStateRegion( PDAState state ) {
+        
+        Rectangle region = state.getBounds();
+        List<PDATransition> ts = outgoingTransitions.get( state );
+        
+        if ( ts != null ) {
+            for ( PDATransition t : ts ) {
+                region.add( t.getBounds() );
+            }
+        }
+        
+        return region;
+        
+    }
+    
+    private static Rectangle union( Rectangle region, Rectangle bounds ) {
+        if ( region == null ) {
+            return bounds;
         }
+        region.add( bounds );
+        return region;
     }
 
     public void resetStatesColor() {
@@ -534,6 +870,7 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
         
         for ( PDATransition t : ts ) {
             transitions.remove( t );
+            unindexTransition( t );
         }
         
         markAllCachesAsObsolete();
@@ -543,6 +880,7 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
     
     public void removeTransition( PDATransition transition ) {
         transitions.remove( transition );
+        unindexTransition( transition );
         markAllCachesAsObsolete();
         updateType();
     }
@@ -830,12 +1168,35 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
     }
 
     public PDAID getRootId() {
+        if ( rootId == null && idTreeString != null ) {
+            buildIDTree();
+        }
         return rootId;
     }
 
     public List<PDAID> getIds() {
+        if ( rootId == null && idTreeString != null ) {
+            buildIDTree();
+        }
         return ids;
     }
+
+    /**
+     * @return true if the last ID tree was truncated (see the limits
+     * PUSHDOWN_AUTOMATON_MAX_IDS and PUSHDOWN_AUTOMATON_MAX_ID_DEPTH), false otherwise.
+     */
+    public boolean isIdTreeTruncated() {
+        return idTreeTruncated;
+    }
+    
+    /**
+     * @return How the last execution ended or null if the automaton was not
+     * executed yet. A string that is not accepted is only rejected if the
+     * status is DECIDED.
+     */
+    public PDARunStatus getLastRunStatus() {
+        return lastRunStatus;
+    }
     
     public void deactivateAllStatesInSimulation() {
         for ( PDAState s : states ) {
@@ -847,10 +1208,13 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
         alphabetUpToDate = false;
         stackAlphabetUpToDate = false;
         deltaUpToDate = false;
+        spatialIndexUpToDate = false;
     }
     
     public void merge( PDA fa ) {
         
+        beginBulkEdit();
+        
         for ( PDAState s : fa.getStates() ) {
             addState( s );
         }
@@ -859,6 +1223,8 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
             addTransition( t );
         }
         
+        endBulkEdit();
+        
     }
     
     public String generateCode() {
@@ -962,13 +1328,17 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
         Map<PDAState, PDAState> ref = new HashMap<>();
     
         c.states = new ArrayList<>();
+        c.transitions = new ArrayList<>();
+        c.bulkEditLevel = 0;
+        c.bulkTransitionIndex = null;
+        c.beginBulkEdit();
+        
         for ( PDAState s : states ) {
             PDAState n = (PDAState) s.clone();
             c.addState( n );
             ref.put( s, n );
         }
         
-        c.transitions = new ArrayList<>();
         for ( PDATransition t : transitions ) {
             PDATransition n = (PDATransition) t.clone();
             n.setOriginState( ref.get( t.getOriginState() ) );
@@ -977,7 +1347,7 @@ public class PDA extends AbstractGeometricForm implements Cloneable {
         }
         
         c.stackStartingSymbol = stackStartingSymbol;
-        c.updateType();
+        c.endBulkEdit();
         return c;
         
     }
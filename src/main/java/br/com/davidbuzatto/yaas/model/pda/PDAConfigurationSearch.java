@@ -0,0 +1,607 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.pda;
+
+import br.com.davidbuzatto.yaas.model.AlgorithmCancellation;
+import br.com.davidbuzatto.yaas.util.CharacterConstants;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides if a Pushdown Automaton accepts a string searching its
+ * configuration graph, instead of building the whole ID tree.
+ * 
+ * A configuration is a triple (state, input offset, stack). The stacks are
+ * hash-consed in a pool of nodes (symbol, node below), so equal stacks have
+ * the same id, push and pop are O(1) and a configuration can be compared in
+ * constant time. The configurations are processed iteratively, one input
+ * offset at a time, and each configuration is processed only once, so empty
+ * string cycles that don't change the stack terminate and ambiguous automata
+ * don't explode. Since an empty string cycle that keeps pushing symbols
+ * generates infinitely many configurations, the search is bounded by a
+ * maximum number of configurations and, optionally, by a maximum time. A
+ * search that runs in an interrupted thread stops as if its time was over.
+ * 
+ * This class is not thread-safe.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class PDAConfigurationSearch {
+    
+    private static final int EMPTY_STACK = 0;
+    private static final int INVALID_STACK = -1;
+    
+    private final PDAState[] states;
+    private final PDAState initialState;
+    private final char stackStartingSymbol;
+    private final int maxConfigurations;
+    private final long maxTime;
+    
+    // operations by state, in the same order of the ID tree
+    private final int[][] stateOperations;
+    private final PDAOperation[] operations;
+    private final PDATransition[] operationTransitions;
+    private final int[] operationTargets;
+    
+    // the stack pool: the stack 0 is the empty stack
+    private char[] stackSymbols;
+    private int[] stackBelow;
+    private int stackCount;
+    private final LongIntTable stackIds;
+    
+    // the explored configurations
+    private int[] configStates;
+    private int[] configStacks;
+    private int[] configParents;
+    private int[] configOperations;
+    private int[] configOffsets;
+    private int configCount;
+    
+    private String string;
+    private PDAAcceptanceType acceptanceType;
+    private int acceptedConfig;
+    private boolean limitReached;
+    private boolean timeLimitReached;
+    private long startTime;
+    
+    /**
+     * Creates a new search for a Pushdown Automaton. The automaton must not
+     * be changed while the search is used.
+     * 
+     * @param pda The automaton.
+     * @param maxConfigurations The maximum number of configurations that can
+     * be explored for each string.
+     */
+    public PDAConfigurationSearch( PDA pda, int maxConfigurations ) {
+        this( pda, maxConfigurations, 0 );
+    }
+    
+    /**
+     * Creates a new search for a Pushdown Automaton. The automaton must not
+     * be changed while the search is used.
+     * 
+     * @param pda The automaton.
+     * @param maxConfigurations The maximum number of configurations that can
+     * be explored for each string.
+     * @param maxTime The maximum time of the search of each string, in
+     * milliseconds, or zero if there is no limit.
+     */
+    public PDAConfigurationSearch( PDA pda, int maxConfigurations, long maxTime ) {
+        
+        List<PDAState> pdaStates = pda.getStates();
+        Map<PDAState, List<PDATransition>> delta = pda.getDelta();
+        
+        this.initialState = pda.getInitialState();
+        this.stackStartingSymbol = pda.getStackStartingSymbol();
+        this.maxConfigurations = maxConfigurations;
+        this.maxTime = maxTime;
+        
+        int n = pdaStates.size();
+        states = pdaStates.toArray( new PDAState[n] );
+        Map<PDAState, Integer> indexes = new IdentityHashMap<>();
+        for ( int i = 0; i < n; i++ ) {
+            indexes.put( states[i], i );
+        }
+        
+        List<PDAOperation> ops = new ArrayList<>();
+        List<PDATransition> opTransitions = new ArrayList<>();
+        stateOperations = new int[n][];
+        
+        for ( int i = 0; i < n; i++ ) {
+            
+            List<PDATransition> ts = delta.get( states[i] );
+            List<Integer> stateOps = new ArrayList<>();
+            
+            if ( ts != null ) {
+                for ( PDATransition t : ts ) {
+                    if ( indexes.containsKey( t.getTargetState() ) ) {
+                        for ( PDAOperation o : t.getOperations() ) {
+                            stateOps.add( ops.size() );
+                            ops.add( o );
+                            opTransitions.add( t );
+                        }
+                    }
+                }
+            }
+            
+            stateOperations[i] = new int[stateOps.size()];
+            for ( int j = 0; j < stateOps.size(); j++ ) {
+                stateOperations[i][j] = stateOps.get( j );
+            }
+            
+        }
+        
+        operations = ops.toArray( new PDAOperation[ops.size()] );
+        operationTransitions = opTransitions.toArray( new PDATransition[opTransitions.size()] );
+        operationTargets = new int[operations.length];
+        for ( int i = 0; i < operations.length; i++ ) {
+            operationTargets[i] = indexes.get( operationTransitions[i].getTargetState() );
+        }
+        
+        stackIds = new LongIntTable();
+        
+    }
+    
+    /**
+     * Verifies if a string is accepted.
+     * 
+     * @param str The string to be tested.
+     * @param acceptanceType The acceptance type.
+     * @return true if the string is accepted, false otherwise.
+     */
+    public boolean accepts( String str, PDAAcceptanceType acceptanceType ) {
+        
+        reset( str );
+        this.acceptanceType = acceptanceType;
+        
+        if ( initialState == null ) {
+            return false;
+        }
+        
+        int initial = -1;
+        for ( int i = 0; i < states.length; i++ ) {
+            if ( states[i] == initialState ) {
+                initial = i;
+                break;
+            }
+        }
+        
+        if ( initial == -1 ) {
+            return false;
+        }
+        
+        int n = str.length();
+        
+        LongIntTable visited = new LongIntTable();
+        LongIntTable nextVisited = new LongIntTable();
+        int[] layer = new int[16];
+        int layerSize = 0;
+        int[] nextLayer = new int[16];
+        int nextLayerSize = 0;
+        
+        int startStack = push( EMPTY_STACK, stackStartingSymbol );
+        layer[layerSize++] = newConfig( initial, startStack, -1, -1, 0 );
+        visited.put( configKey( initial, startStack ), 0 );
+        
+        for ( int offset = 0; offset <= n; offset++ ) {
+            
+            char symbol = offset < n ? str.charAt( offset ) : 0;
+            
+            // the layer grows while it is processed (empty string moves)
+            for ( int i = 0; i < layerSize; i++ ) {
+                
+                int c = layer[i];
+                int state = configStates[c];
+                int stack = configStacks[c];
+                
+                if ( offset == n && isAccepting( state, stack, acceptanceType ) ) {
+                    acceptedConfig = c;
+                    return true;
+                }
+                
+                for ( int op : stateOperations[state] ) {
+                    
+                    PDAOperation o = operations[op];
+                    boolean consumes;
+                    
+                    if ( offset < n && o.getSymbol() == symbol ) {
+                        consumes = true;
+                    } else if ( o.getSymbol() == CharacterConstants.EMPTY_STRING ) {
+                        consumes = false;
+                    } else {
+                        continue;
+                    }
+                    
+                    int newStack;
+                    if ( stack != EMPTY_STACK && o.getTop() == stackSymbols[stack] ) {
+                        newStack = processStack( o, stack );
+                    } else if ( o.getTop() == CharacterConstants.EMPTY_STRING && stack == EMPTY_STACK ) {
+                        newStack = processStack( o, stack );
+                    } else {
+                        continue;
+                    }
+                    
+                    if ( newStack == INVALID_STACK ) {
+                        continue;
+                    }
+                    
+                    int target = operationTargets[op];
+                    long key = configKey( target, newStack );
+                    
+                    if ( consumes ) {
+                        if ( nextVisited.get( key ) == LongIntTable.NOT_FOUND ) {
+                            if ( isBudgetExhausted() ) {
+                                return false;
+                            }
+                            nextVisited.put( key, 0 );
+                            if ( nextLayerSize == nextLayer.length ) {
+                                nextLayer = Arrays.copyOf( nextLayer, nextLayerSize * 2 );
+                            }
+                            nextLayer[nextLayerSize++] = newConfig( 
+                                    target, newStack, c, op, offset + 1 );
+                        }
+                    } else {
+                        if ( visited.get( key ) == LongIntTable.NOT_FOUND ) {
+                            if ( isBudgetExhausted() ) {
+                                return false;
+                            }
+                            visited.put( key, 0 );
+                            if ( layerSize == layer.length ) {
+                                layer = Arrays.copyOf( layer, layerSize * 2 );
+                            }
+                            layer[layerSize++] = newConfig( 
+                                    target, newStack, c, op, offset );
+                        }
+                    }
+                    
+                }
+                
+            }
+            
+            if ( nextLayerSize == 0 ) {
+                return false;
+            }
+            
+            int[] t = layer;
+            layer = nextLayer;
+            layerSize = nextLayerSize;
+            nextLayer = t;
+            nextLayerSize = 0;
+            
+            LongIntTable tv = visited;
+            visited = nextVisited;
+            nextVisited = tv;
+            nextVisited.clear();
+            
+        }
+        
+        return false;
+        
+    }
+    
+    /**
+     * Builds the IDs of the path that leads to the accepting configuration
+     * found by the last call to accepts.
+     * 
+     * @return The IDs, from the initial configuration to the accepting one,
+     * or an empty list if the last string was not accepted.
+     */
+    public List<PDAID> getAcceptingPath() {
+        
+        List<PDAID> path = new ArrayList<>();
+        
+        if ( acceptedConfig == -1 ) {
+            return path;
+        }
+        
+        List<Integer> configs = new ArrayList<>();
+        for ( int c = acceptedConfig; c != -1; c = configParents[c] ) {
+            configs.add( c );
+        }
+        
+        // the IDs of the path share the nodes of their stacks
+        Map<Integer, PDAStack> converted = new HashMap<>();
+        
+        PDAID previous = null;
+        for ( int i = configs.size() - 1; i >= 0; i-- ) {
+            
+            int c = configs.get( i );
+            int op = configOperations[c];
+            
+            PDAID id = new PDAID( 
+                    states[configStates[c]], 
+                    string.substring( configOffsets[c] ), 
+                    toPDAStack( configStacks[c], converted ), 
+                    op == -1 ? null : operations[op], 
+                    op == -1 ? Color.BLACK : operationTransitions[op].getStrokeColor() );
+            
+            if ( previous != null ) {
+                previous.addChild( id );
+            }
+            
+            path.add( id );
+            previous = id;
+            
+        }
+        
+        if ( acceptanceType == PDAAcceptanceType.FINAL_STATE ) {
+            previous.setAcceptedByFinalState( true );
+        } else {
+            previous.setAcceptedByEmptyStack( true );
+        }
+        
+        return path;
+        
+    }
+
+    /**
+     * @return How many configurations were explored by the last search.
+     */
+    public int getExploredConfigurations() {
+        return configCount;
+    }
+
+    /**
+     * @return true if the last search was stopped because the maximum number
+     * of configurations was reached, false otherwise.
+     */
+    public boolean isLimitReached() {
+        return limitReached;
+    }
+
+    /**
+     * @return true if the last search was stopped because the maximum time
+     * was reached or because its thread was interrupted, false otherwise.
+     */
+    public boolean isTimeLimitReached() {
+        return timeLimitReached;
+    }
+    
+    /**
+     * Verifies if a new configuration can be explored. The time and the
+     * interruption of the thread are verified only once every 1024
+     * configurations.
+     */
+    private boolean isBudgetExhausted() {
+        
+        if ( configCount == maxConfigurations ) {
+            limitReached = true;
+            return true;
+        }
+        
+        if ( ( configCount & 1023 ) == 0 && ( AlgorithmCancellation.isCancelled() || 
+                ( maxTime != 0 && System.currentTimeMillis() - startTime > maxTime ) ) ) {
+            timeLimitReached = true;
+            return true;
+        }
+        
+        return false;
+        
+    }
+    
+    private boolean isAccepting( int state, int stack, PDAAcceptanceType acceptanceType ) {
+        if ( acceptanceType == PDAAcceptanceType.FINAL_STATE ) {
+            return states[state].isFinal();
+        }
+        return stack == EMPTY_STACK;
+    }
+    
+    /**
+     * Applies the stack operation of a PDA operation, in the same way as
+     * PDA.processStack.
+     * 
+     * @return The new stack or INVALID_STACK if an empty stack would be
+     * popped.
+     */
+    private int processStack( PDAOperation o, int stack ) {
+        
+        switch ( o.getType() ) {
+            case POP:
+                return stack == EMPTY_STACK ? INVALID_STACK : stackBelow[stack];
+            case PUSH:
+                for ( char s : o.getSymbolsToPush() ) {
+                    stack = push( stack, s );
+                }
+                return stack;
+            case REPLACE:
+                if ( stack == EMPTY_STACK ) {
+                    return INVALID_STACK;
+                }
+                stack = stackBelow[stack];
+                for ( char s : o.getSymbolsToPush() ) {
+                    stack = push( stack, s );
+                }
+                return stack;
+            default:
+                return stack;
+        }
+        
+    }
+    
+    /**
+     * Returns the id of the stack with a symbol pushed, creating it only if
+     * the stack doesn't exist in the pool.
+     */
+    private int push( int stack, char symbol ) {
+        
+        long key = ( (long) stack << 16 ) | symbol;
+        int id = stackIds.get( key );
+        
+        if ( id == LongIntTable.NOT_FOUND ) {
+            if ( stackCount == stackSymbols.length ) {
+                stackSymbols = Arrays.copyOf( stackSymbols, stackCount * 2 );
+                stackBelow = Arrays.copyOf( stackBelow, stackCount * 2 );
+            }
+            id = stackCount++;
+            stackSymbols[id] = symbol;
+            stackBelow[id] = stack;
+            stackIds.put( key, id );
+        }
+        
+        return id;
+        
+    }
+    
+    private PDAStack toPDAStack( int stack, Map<Integer, PDAStack> converted ) {
+        
+        // goes down to the first node already converted
+        List<Integer> pending = new ArrayList<>();
+        PDAStack s = PDAStack.EMPTY;
+        for ( int p = stack; p != EMPTY_STACK; p = stackBelow[p] ) {
+            PDAStack c = converted.get( p );
+            if ( c != null ) {
+                s = c;
+                break;
+            }
+            pending.add( p );
+        }
+        
+        for ( int i = pending.size() - 1; i >= 0; i-- ) {
+            int p = pending.get( i );
+            s = s.push( stackSymbols[p] );
+            converted.put( p, s );
+        }
+        
+        return s;
+        
+    }
+    
+    private int newConfig( int state, int stack, int parent, int operation, int offset ) {
+        
+        if ( configCount == configStates.length ) {
+            int newLength = configCount * 2;
+            configStates = Arrays.copyOf( configStates, newLength );
+            configStacks = Arrays.copyOf( configStacks, newLength );
+            configParents = Arrays.copyOf( configParents, newLength );
+            configOperations = Arrays.copyOf( configOperations, newLength );
+            configOffsets = Arrays.copyOf( configOffsets, newLength );
+        }
+        
+        int c = configCount++;
+        configStates[c] = state;
+        configStacks[c] = stack;
+        configParents[c] = parent;
+        configOperations[c] = operation;
+        configOffsets[c] = offset;
+        
+        return c;
+        
+    }
+    
+    private long configKey( int state, int stack ) {
+        return (long) stack * states.length + state;
+    }
+    
+    private void reset( String str ) {
+        
+        string = str;
+        acceptedConfig = -1;
+        limitReached = false;
+        timeLimitReached = false;
+        startTime = System.currentTimeMillis();
+        
+        stackSymbols = new char[64];
+        stackBelow = new int[64];
+        stackBelow[EMPTY_STACK] = -1;
+        stackCount = 1;
+        stackIds.clear();
+        
+        configStates = new int[64];
+        configStacks = new int[64];
+        configParents = new int[64];
+        configOperations = new int[64];
+        configOffsets = new int[64];
+        configCount = 0;
+        
+    }
+    
+    /**
+     * An open addressing hash table from non-negative long keys to ints.
+     */
+    private static class LongIntTable {
+        
+        static final int NOT_FOUND = -1;
+        
+        private long[] keys;
+        private int[] values;
+        private int size;
+        
+        LongIntTable() {
+            clear();
+        }
+        
+        int get( long key ) {
+            int mask = keys.length - 1;
+            for ( int i = hash( key ) & mask; ; i = ( i + 1 ) & mask ) {
+                if ( keys[i] == -1 ) {
+                    return NOT_FOUND;
+                }
+                if ( keys[i] == key ) {
+                    return values[i];
+                }
+            }
+        }
+        
+        void put( long key, int value ) {
+            
+            if ( ( size + 1 ) * 2 > keys.length ) {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new int[oldKeys.length * 2];
+                Arrays.fill( keys, -1 );
+                size = 0;
+                for ( int i = 0; i < oldKeys.length; i++ ) {
+                    if ( oldKeys[i] != -1 ) {
+                        put( oldKeys[i], oldValues[i] );
+                    }
+                }
+            }
+            
+            int mask = keys.length - 1;
+            int i = hash( key ) & mask;
+            while ( keys[i] != -1 && keys[i] != key ) {
+                i = ( i + 1 ) & mask;
+            }
+            if ( keys[i] == -1 ) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+            
+        }
+        
+        final void clear() {
+            keys = new long[16];
+            values = new int[16];
+            Arrays.fill( keys, -1 );
+            size = 0;
+        }
+        
+        private static int hash( long key ) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) ( h ^ ( h >>> 32 ) );
+        }
+        
+    }
+    
+}
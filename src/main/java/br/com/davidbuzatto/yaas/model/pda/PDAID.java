@@ -23,9 +23,9 @@ import br.com.davidbuzatto.yaas.util.Utils;
 import java.awt.Color;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.font.LineMetrics;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.List;
 
 /**
@@ -37,7 +37,7 @@ public class PDAID extends AbstractGeometricForm implements Comparable<PDAID> {
     
     private PDAState state;
     private String string;
-    private Deque<Character> stack;
+    private PDAStack stack;
     private PDAOperation operation;
     
     private PDAID parent;
@@ -51,18 +51,23 @@ public class PDAID extends AbstractGeometricForm implements Comparable<PDAID> {
     private String text;
     private int textWidth;
     private int textHeight;
+    private boolean textUpToDate;
     private Color textColor;
     
     private boolean activeInSimulation;
     private Color activeInSimulationStrokeColor;
     private Color activeInSimulationFillColor;
     
-    public PDAID( PDAState state, String string, Deque<Character> stack, PDAOperation operation, Color strokeColor ) {
+    private String summary;
+    private int summaryWidth;
+    private int summaryHeight;
+    
+    public PDAID( PDAState state, String string, PDAStack stack, PDAOperation operation, Color strokeColor ) {
         
         this.state = state;
         this.string = string;
         this.children = new ArrayList<>();
-        this.stack = Utils.cloneCharacterStack( stack );
+        this.stack = stack;
         this.operation = operation;
         
         this.font = DrawingConstants.DEFAULT_FONT;
@@ -71,9 +76,11 @@ public class PDAID extends AbstractGeometricForm implements Comparable<PDAID> {
         activeInSimulationFillColor = DrawingConstants.PDAID_ACTIVE_IN_SIMULATION_FILL_COLOR;
         activeInSimulationStrokeColor = DrawingConstants.PDAID_ACTIVE_IN_SIMULATION_STROKE_COLOR;
         
-        setStrokeColor( strokeColor );
-        setAcceptedStrokeColor( DrawingConstants.PDAID_DEFAULT_ACCEPTED_COLOR );
-        setText( toString() );
+        // the fill colors, the text and its metrics are only needed to draw
+        // the ID, so they are computed when they are used for the first time
+        this.strokeColor = strokeColor;
+        this.fillColor = null;
+        this.acceptedStrokeColor = DrawingConstants.PDAID_DEFAULT_ACCEPTED_COLOR;
         
     }
     
@@ -84,6 +91,7 @@ public class PDAID extends AbstractGeometricForm implements Comparable<PDAID> {
 
     public void setText( String text ) {
         this.text = text;
+        this.textUpToDate = true;
         LineMetrics lm = Utils.getLineMetrics( text, font );
         FontMetrics fm = Utils.getFontMetrics( font );
         textWidth = fm.stringWidth( text );
@@ -101,6 +109,8 @@ public class PDAID extends AbstractGeometricForm implements Comparable<PDAID> {
     @Override
     public void draw( Graphics2D g2d ) {
         
+        updateText();
+        
         g2d = (Graphics2D) g2d.create();
         
         g2d.setFont( font );
@@ -110,7 +120,7 @@ public class PDAID extends AbstractGeometricForm implements Comparable<PDAID> {
         
         if ( acceptedByFinalState || acceptedByEmptyStack ) {
             hilightStrokeColor = acceptedStrokeColor;
-            hilightFillColor = acceptedFillColor;
+            hilightFillColor = getAcceptedFillColor();
         }
         
         if ( activeInSimulation ) {
@@ -136,13 +146,78 @@ public class PDAID extends AbstractGeometricForm implements Comparable<PDAID> {
         g2d.setColor( textColor );
         g2d.drawString( text, x1 - textWidth / 2, y1 + textHeight / 2 );
         
+        if ( summary != null ) {
+            int summaryY = y1 + textHeight / 2 + 12;
+            g2d.setColor( getFillColor() );
+            g2d.fillRoundRect( 
+                    x1 - summaryWidth / 2 - 5,
+                    summaryY,
+                    summaryWidth + 10,
+                    summaryHeight + 10, 5, 5 );
+            g2d.setColor( strokeColor );
+            g2d.drawRoundRect( 
+                    x1 - summaryWidth / 2 - 5,
+                    summaryY,
+                    summaryWidth + 10,
+                    summaryHeight + 10, 5, 5 );
+            g2d.setColor( textColor );
+            g2d.drawString( summary, x1 - summaryWidth / 2, summaryY + summaryHeight + 5 );
+        }
+        
         g2d.dispose();
         
     }
 
     @Override
     public boolean intersects( int x, int y ) {
-        return false;
+        return getBounds().contains( x, y );
+    }
+    
+    /**
+     * Returns the bounds of the area where the ID is drawn, including its
+     * summary.
+     * 
+     * @return The bounds.
+     */
+    public Rectangle getBounds() {
+        
+        updateText();
+        
+        Rectangle r = new Rectangle( 
+                x1 - textWidth / 2 - 5,
+                y1 - textHeight / 2 - 8,
+                textWidth + 11,
+                textHeight + 16 );
+        
+        if ( summary != null ) {
+            r.add( new Rectangle( 
+                    x1 - summaryWidth / 2 - 5,
+                    y1 + textHeight / 2 + 12,
+                    summaryWidth + 11,
+                    summaryHeight + 11 ) );
+        }
+        
+        return r;
+        
+    }
+    
+    /**
+     * Sets a text drawn below the ID that summarizes its hidden descendants.
+     * 
+     * @param summary The summary or null to remove it.
+     */
+    public void setSummary( String summary ) {
+        this.summary = summary;
+        if ( summary != null ) {
+            LineMetrics lm = Utils.getLineMetrics( summary, font );
+            FontMetrics fm = Utils.getFontMetrics( font );
+            summaryWidth = fm.stringWidth( summary );
+            summaryHeight = (int) ( lm.getHeight() / 2 );
+        }
+    }
+    
+    public String getSummary() {
+        return summary;
     }
     
     public PDAState getState() {
@@ -153,7 +228,7 @@ public class PDAID extends AbstractGeometricForm implements Comparable<PDAID> {
         return string;
     }
 
-    public Deque<Character> getStack() {
+    public PDAStack getStack() {
         return stack;
     }
 
@@ -187,19 +262,55 @@ public class PDAID extends AbstractGeometricForm implements Comparable<PDAID> {
         this.fillColor = Utils.lighterColor( strokeColor );
     }
     
+    @Override
+    public Color getFillColor() {
+        if ( fillColor == null ) {
+            fillColor = Utils.lighterColor( strokeColor );
+        }
+        return fillColor;
+    }
+    
     public void setAcceptedStrokeColor( Color acceptedStrokeColor ) {
         this.acceptedStrokeColor = acceptedStrokeColor;
         this.acceptedFillColor = Utils.lighterColor( acceptedStrokeColor );
     }
+    
+    private Color getAcceptedFillColor() {
+        if ( acceptedFillColor == null ) {
+            acceptedFillColor = Utils.lighterColor( acceptedStrokeColor );
+        }
+        return acceptedFillColor;
+    }
+    
+    /**
+     * Computes the text and its metrics, if they were not computed yet.
+     */
+    private void updateText() {
+        if ( !textUpToDate ) {
+            setText( toString() );
+        }
+    }
 
     public int getTextWidth() {
+        updateText();
         return textWidth;
     }
 
     public int getTextHeight() {
+        updateText();
         return textHeight;
     }
     
+    /**
+     * Returns the width of the ID and its summary, used to arrange the tree.
+     * 
+     * @return The width.
+     */
+    public int getExtentWidth() {
+        updateText();
+        return summary != null ? Math.max( textWidth, summaryWidth ) : textWidth;
+    }
+    
     @Override
     public int compareTo( PDAID o ) {
         return state.compareTo( o.state );
@@ -207,10 +318,7 @@ public class PDAID extends AbstractGeometricForm implements Comparable<PDAID> {
     
     @Override
     public String toString() {
-        String sStr = "";
-        for ( char c : stack ) {
-            sStr += c;
-        }
+        String sStr = stack.toString();
         return String.format( "(%s, %s, %s)", state, 
                 string.isEmpty() ? CharacterConstants.EMPTY_STRING.toString() : string, 
                 sStr.isEmpty() ? CharacterConstants.EMPTY_STRING.toString() : sStr );
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.pda;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable stack of symbols used by the Pushdown Automata
+ * configurations.
+ * 
+ * Each stack is a node with a symbol and a reference to the stack below it,
+ * so push, pop and replace are O(1) and don't copy anything: the stacks
+ * created by different branches of the computation share the nodes that
+ * they have in common.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public final class PDAStack implements Iterable<Character>, Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * The empty stack.
+     */
+    public static final PDAStack EMPTY = new PDAStack();
+    
+    private final char top;
+    private final PDAStack below;
+    private final int size;
+    private final int hash;
+    
+    private PDAStack() {
+        this.top = 0;
+        this.below = null;
+        this.size = 0;
+        this.hash = 0;
+    }
+    
+    private PDAStack( char top, PDAStack below ) {
+        this.top = top;
+        this.below = below;
+        this.size = below.size + 1;
+        this.hash = 31 * below.hash + top;
+    }
+    
+    /**
+     * Creates a stack with a single symbol.
+     * 
+     * @param symbol The symbol.
+     * @return The new stack.
+     */
+    public static PDAStack of( char symbol ) {
+        return EMPTY.push( symbol );
+    }
+    
+    /**
+     * Pushes a symbol.
+     * 
+     * @param symbol The symbol to be pushed.
+     * @return A new stack with the symbol on top of this one.
+     */
+    public PDAStack push( char symbol ) {
+        return new PDAStack( symbol, this );
+    }
+    
+    /**
+     * Pops the top symbol.
+     * 
+     * @return The stack below the top symbol.
+     * @throws NoSuchElementException if the stack is empty.
+     */
+    public PDAStack pop() {
+        if ( size == 0 ) {
+            throw new NoSuchElementException( "The stack is empty!" );
+        }
+        return below;
+    }
+    
+    /**
+     * Returns the top symbol.
+     * 
+     * @return The top symbol.
+     * @throws NoSuchElementException if the stack is empty.
+     */
+    public char peek() {
+        if ( size == 0 ) {
+            throw new NoSuchElementException( "The stack is empty!" );
+        }
+        return top;
+    }
+    
+    /**
+     * Applies the stack action of an operation. The top of the stack must
+     * have been tested by the caller, since POP and REPLACE pop it.
+     * 
+     * @param operation The operation.
+     * @return The resulting stack.
+     */
+    public PDAStack apply( PDAOperation operation ) {
+        
+        PDAStack s = this;
+        
+        switch ( operation.getType() ) {
+            case DO_NOTHING:
+                break;
+            case POP:
+                s = s.pop();
+                break;
+            case PUSH:
+                for ( Character c : operation.getSymbolsToPush() ) {
+                    s = s.push( c );
+                }
+                break;
+            case REPLACE:
+                s = s.pop();
+                for ( Character c : operation.getSymbolsToPush() ) {
+                    s = s.push( c );
+                }
+                break;
+        }
+        
+        return s;
+        
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Iterates over the symbols, from the top to the bottom.
+     */
+    @Override
+    public Iterator<Character> iterator() {
+        
+        return new Iterator<Character>() {
+            
+            private PDAStack current = PDAStack.this;
+            
+            @Override
+            public boolean hasNext() {
+                return current.size > 0;
+            }
+            
+            @Override
+            public Character next() {
+                if ( current.size == 0 ) {
+                    throw new NoSuchElementException();
+                }
+                char c = current.top;
+                current = current.below;
+                return c;
+            }
+            
+        };
+        
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public boolean equals( Object obj ) {
+        
+        if ( this == obj ) {
+            return true;
+        }
+        if ( obj == null ) {
+            return false;
+        }
+        if ( getClass() != obj.getClass() ) {
+            return false;
+        }
+        
+        PDAStack a = this;
+        PDAStack b = (PDAStack) obj;
+        
+        if ( a.size != b.size || a.hash != b.hash ) {
+            return false;
+        }
+        
+        // stops at the first shared node
+        while ( a != b ) {
+            if ( a.top != b.top ) {
+                return false;
+            }
+            a = a.below;
+            b = b.below;
+        }
+        
+        return true;
+        
+    }
+    
+    /**
+     * @return The symbols, from the top to the bottom.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder( size );
+        for ( PDAStack s = this; s.size > 0; s = s.below ) {
+            sb.append( s.top );
+        }
+        return sb.toString();
+    }
+    
+    private Object readResolve() {
+        return size == 0 ? EMPTY : this;
+    }
+    
+}
@@ -24,6 +24,7 @@ import br.com.davidbuzatto.yaas.util.DrawingConstants;
 import br.com.davidbuzatto.yaas.util.Utils;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.awt.geom.CubicCurve2D;
 import java.awt.geom.Point2D;
@@ -39,6 +40,8 @@ import java.util.Set;
  */
 public class PDATransition extends AbstractGeometricForm implements Cloneable {
     
+    private static final long serialVersionUID = -7451209201937316214L;
+    
     private PDAState originState;
     private PDAState targetState;
     private List<PDAOperation> operations;
@@ -486,6 +489,57 @@ public class PDATransition extends AbstractGeometricForm implements Cloneable {
                 centralCPDragging || 
                 leftCPDragging || 
                 rightCPDragging;
+                
+    }
+    
+    /**
+     * Returns the bounds of the area where the transition is drawn.
+     * 
+     * @return The bounds.
+     */
+    public Rectangle getBounds() {
+        
+        Rectangle r;
+        
+        if ( originState == targetState ) {
+            int d = targetState.getDiameter() + DrawingConstants.ARROW_LENGTH;
+            r = new Rectangle( x1 - d, y1 - d, d * 2, d * 2 );
+        } else {
+            r = curve.getBounds();
+            r.grow( DrawingConstants.ARROW_LENGTH, DrawingConstants.ARROW_LENGTH );
+        }
+        
+        r.add( label.getBounds() );
+        
+        if ( controlPointsVisible ) {
+            r.add( targetCP.getBounds() );
+            r.add( centralCP.getBounds() );
+            r.add( leftCP.getBounds() );
+            r.add( rightCP.getBounds() );
+        }
+        
+        return r;
+        
+    }
+    
+    /**
+     * Returns the bounds of the parts of the transition that can be selected
+     * (see intersects): the label and the visible control points.
+     * 
+     * @return The bounds.
+     */
+    public Rectangle[] getHitBounds() {
+        
+        if ( controlPointsVisible ) {
+            return new Rectangle[]{ 
+                label.getBounds(), 
+                targetCP.getBounds(), 
+                centralCP.getBounds(), 
+                leftCP.getBounds(), 
+                rightCP.getBounds() };
+        }
+        
+        return new Rectangle[]{ label.getBounds() };
         
     }
 
@@ -591,6 +645,38 @@ public class PDATransition extends AbstractGeometricForm implements Cloneable {
     public void setControlPointsVisible( boolean controlPointsVisible ) {
         this.controlPointsVisible = controlPointsVisible;
     }
+
+    public PDATransitionLabel getLabel() {
+        return label;
+    }
+
+    public ControlPoint getCentralCP() {
+        return centralCP;
+    }
+
+    public ControlPoint getLeftCP() {
+        return leftCP;
+    }
+
+    public ControlPoint getRightCP() {
+        return rightCP;
+    }
+
+    public boolean isLabelMoved() {
+        return labelMoved;
+    }
+
+    public boolean isCentralCPMoved() {
+        return centralCPMoved;
+    }
+
+    public boolean isTargetCPMoved() {
+        return targetCPMoved;
+    }
+
+    public double getTargetCPAngle() {
+        return targetCPAngle;
+    }
     
     public void resetTransformations() {
         
@@ -783,6 +869,37 @@ public class PDATransition extends AbstractGeometricForm implements Cloneable {
         return bend( 0, 0, true, 0, 0, 0, 0, angle, true );
     }
     
+    /**
+     * Moves the target control point to an exact angle, in radians, without
+     * changing the other control points.
+     * 
+     * @param angle The angle.
+     * @return This transition.
+     */
+    public PDATransition rotateTargetCPTo( double angle ) {
+        
+        targetCPMoved = true;
+        targetCPAngle = angle;
+        
+        updateStartAndEndPoints();
+        
+        arrow.setAngle( Math.atan2( 
+                y2 - rightCP.getY1(), x2 - rightCP.getX1() ) );
+        arrow.setX1( x2 );
+        arrow.setY1( y2 );
+        
+        curve.setCurve( 
+                x1, y1, 
+                leftCP.getX1(), leftCP.getY1(), 
+                rightCP.getX1(), rightCP.getY1(), 
+                x2, y2 );
+        
+        updateStartAndEndPoints();
+        
+        return this;
+        
+    }
+    
     public PDATransition moveLabelTo( int x1, int y1 ) {
         labelMoved = true;
         label.setX1( x1 );
@@ -22,6 +22,7 @@ import br.com.davidbuzatto.yaas.util.Utils;
 import java.awt.Color;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.font.LineMetrics;
 import java.util.ArrayList;
 import java.util.List;
@@ -33,6 +34,8 @@ import java.util.List;
  */
 public class PDATransitionLabel extends AbstractGeometricForm implements Cloneable {
     
+    private static final long serialVersionUID = 2361519355865882750L;
+    
     private List<String> texts;
     private List<Integer> textsWidth;
     private List<Integer> textsHeight;
@@ -114,6 +117,18 @@ public class PDATransitionLabel extends AbstractGeometricForm implements Cloneab
                 y <= y1 + 7;
     }
     
+    /**
+     * Returns the bounds of the area where the label is drawn, that contains
+     * the area where it can be selected (see intersects).
+     * 
+     * @return The bounds.
+     */
+    public Rectangle getBounds() {
+        return new Rectangle( 
+                x1 - totalTextWidth/2 - 5, y1 - totalTextHeight - maxTextHeight - 2, 
+                totalTextWidth + 14, totalTextHeight + maxTextHeight + 11 );
+    }
+    
     public void addText( String text ) {
         texts.add( text );
         LineMetrics lm = Utils.getLineMetrics( text, font );
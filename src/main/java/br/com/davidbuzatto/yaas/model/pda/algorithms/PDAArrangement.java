@@ -342,11 +342,14 @@ public class PDAArrangement {
     }
     
     /**
-     * Process a PDAID tree and organize it.
+     * Process a PDAID tree and organize it. The descendants of the collapsed
+     * ids are not processed, so the cost depends only on the visible part of
+     * the tree.
      * 
      * @param root The root node
-     * @param ids All the ids
+     * @param ids The list that will receive the visible ids
      * @param lines The lines that will connect the ids
+     * @param collapsed The ids that have their children hidden
      * @param marginX Margin x
      * @param marginY Margin y
      * @param levelGap Level gap
@@ -357,13 +360,19 @@ public class PDAArrangement {
             PDAID root, 
             List<PDAID> ids,
             List<PDAIDLine> lines, 
+            Set<PDAID> collapsed,
             int marginX, int marginY,
             int levelGap, int nodeGap ) {
         
         DefaultTreeForTreeLayout<PDAID> tree = new DefaultTreeForTreeLayout<>(root);
-        for ( PDAID id : ids ) {
-            for ( PDAID cId : id.getChildren() ) {
-                tree.addChild( id, cId );
+        ids.add( root );
+        for ( int i = 0; i < ids.size(); i++ ) {
+            PDAID id = ids.get( i );
+            if ( !collapsed.contains( id ) ) {
+                for ( PDAID cId : id.getChildren() ) {
+                    tree.addChild( id, cId );
+                    ids.add( cId );
+                }
             }
         }
         
@@ -378,17 +387,33 @@ public class PDAArrangement {
         }
         
         for ( PDAID id : ids ) {
-            for ( PDAID cId : id.getChildren() ) {
-                lines.add( new PDAIDLine( 
-                        id,
-                        cId,
-                        id.getX1(), 
-                        id.getY1() + 20, 
-                        cId.getX1(),
-                        cId.getY1() - 20, 
-                        cId.getOperation(),
-                        cId.getStrokeColor() ) );
+            if ( !collapsed.contains( id ) ) {
+                for ( PDAID cId : id.getChildren() ) {
+                    lines.add( new PDAIDLine( 
+                            id,
+                            cId,
+                            id.getX1(), 
+                            id.getY1() + 20, 
+                            cId.getX1(),
+                            cId.getY1() - 20, 
+                            cId.getOperation(),
+                            cId.getStrokeColor() ) );
+                }
             }
+        }
+        
+        return treeLayout.getBounds().getBounds().getSize();
+        
+    }
+    
+    /**
+     * Marks the ancestors of the accepted ids of a PDAID tree as accepted.
+     * 
+     * @param ids All the ids
+     */
+    public static void markAcceptedPaths( List<PDAID> ids ) {
+        
+        for ( PDAID id : ids ) {
             if ( id.isAcceptedByFinalState() || id.isAcceptedByEmptyStack() ) {
                 PDAID current = id.getParent();
                 while ( current != null ) {
@@ -399,8 +424,6 @@ public class PDAArrangement {
             }
         }
         
-        return treeLayout.getBounds().getBounds().getSize();
-        
     }
     
     /**
@@ -18,7 +18,7 @@ package br.com.davidbuzatto.yaas.model.pda.algorithms;
 
 import br.com.davidbuzatto.yaas.model.pda.PDA;
 import br.com.davidbuzatto.yaas.model.pda.PDAState;
-import br.com.davidbuzatto.yaas.util.Utils;
+import br.com.davidbuzatto.yaas.util.MavenModelLoader;
 
 /**
  * Common algorithms for reuse.
@@ -28,7 +28,7 @@ import br.com.davidbuzatto.yaas.util.Utils;
 public class PDACommon {
     
     private static final boolean DEBUG = Boolean.parseBoolean( 
-            Utils.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
+            MavenModelLoader.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
     
     /**
      * Validades if a Pushdown Automaton have an initial state.
@@ -73,6 +73,7 @@ public class PDAEmptyStackToFinalState {
                             PDAOperationType.PUSH, 
                             CharacterConstants.STACK_STARTING_SYMBOL ) ) );
             
+            pda.beginBulkEdit();
             for ( PDAState s : pda.getStates() ) {
                 if ( s != newInitial && s != newFinal ) {
                     s.setFinal( false );
@@ -82,6 +83,7 @@ public class PDAEmptyStackToFinalState {
                                     pda.getStackStartingSymbol() ) ) );
                 }
             }
+            pda.endBulkEdit();
             
             PDACommon.reenumerateStates( pda );
             pda.resetTransitionsTransformations();
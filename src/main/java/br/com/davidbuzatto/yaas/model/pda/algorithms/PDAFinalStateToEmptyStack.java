@@ -81,6 +81,7 @@ public class PDAFinalStateToEmptyStack {
             List<PDAState> tailStates = new ArrayList<>( pda.getFinalStates() );
             tailStates.add( newLast );
             
+            pda.beginBulkEdit();
             for ( PDAState s : tailStates ) {
                 s.setFinal( false );
                 for ( Character c : sAlp ) {
@@ -89,6 +90,7 @@ public class PDAFinalStateToEmptyStack {
                                     CharacterConstants.EMPTY_STRING, c ) ) );
                 }
             }
+            pda.endBulkEdit();
             
             PDACommon.reenumerateStates( pda );
             pda.resetTransitionsTransformations();
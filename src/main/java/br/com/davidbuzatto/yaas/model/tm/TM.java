@@ -18,15 +18,22 @@ package br.com.davidbuzatto.yaas.model.tm;
 
 import br.com.davidbuzatto.yaas.gui.tm.TMSimulationStep;
 import br.com.davidbuzatto.yaas.model.AbstractGeometricForm;
+import br.com.davidbuzatto.yaas.model.AlgorithmCancellation;
+import br.com.davidbuzatto.yaas.model.BatchTestResult;
+import br.com.davidbuzatto.yaas.model.BatchTestStatus;
+import br.com.davidbuzatto.yaas.model.BatchTester;
+import br.com.davidbuzatto.yaas.model.SpatialIndex;
 import br.com.davidbuzatto.yaas.util.ApplicationConstants;
 import br.com.davidbuzatto.yaas.util.CharacterConstants;
-import br.com.davidbuzatto.yaas.util.Utils;
+import br.com.davidbuzatto.yaas.util.MavenModelLoader;
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -37,15 +44,18 @@ import java.util.TreeSet;
 /**
  * Turing Machine representation and algorithms.
  * 
- * Note: Only Deterministic Turing Machines can be simulated, since NTMs will
- * be problematic to control when they accept by halt.
+ * Note: Only Deterministic Turing Machines can be simulated step by step.
+ * Nondeterministic Turing Machines are executed exploring their
+ * configuration trees (see TMConfigurationSearch).
  * 
  * @author Prof. Dr. David Buzatto
  */
 public class TM extends AbstractGeometricForm implements Cloneable {
     
+    private static final long serialVersionUID = -4970670556365001642L;
+    
     private transient static final boolean DEBUG = Boolean.parseBoolean( 
-            Utils.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
+            MavenModelLoader.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
     
     private List<TMState> states;
     private List<TMTransition> transitions;
@@ -56,6 +66,16 @@ public class TM extends AbstractGeometricForm implements Cloneable {
     private transient List<TMID> ids;
     private transient String tapeAfterAcceptsExecution;
     private transient boolean ableToHalt;
+    private transient String idTreeString;
+    private transient TMState idTreeInitialState;
+    private transient TMAcceptanceType idTreeAcceptanceType;
+    private transient TMTrace trace;
+    private transient TMTape finalTape;
+    private transient TMConfigurationSearch search;
+    private transient TMRunStatus lastRunStatus;
+    private transient long lastRunSteps;
+    private transient long loopLength;
+    private transient long loopEntryStep;
     
     // cache control
     private transient boolean alphabetUpToDate;
@@ -68,6 +88,17 @@ public class TM extends AbstractGeometricForm implements Cloneable {
     
     private transient boolean transitionControlPointsVisible;
     
+    private transient boolean spatialIndexUpToDate;
+    private transient SpatialIndex<TMState> stateIndex;
+    private transient SpatialIndex<TMTransition> transitionIndex;
+    private transient SpatialIndex<TMTransition> transitionDrawingIndex;
+    private transient Map<TMState, List<TMTransition>> outgoingTransitions;
+    private transient List<TMState> mouseHoverStates;
+    private transient List<TMTransition> mouseHoverTransitions;
+    
+    private transient int bulkEditLevel;
+    private transient Map<TMState, Map<TMState, TMTransition>> bulkTransitionIndex;
+    
     public TM() {
         this.states = new ArrayList<>();
         this.transitions = new ArrayList<>();
@@ -79,31 +110,79 @@ public class TM extends AbstractGeometricForm implements Cloneable {
     }
     
     public boolean accepts( String str, TMAcceptanceType acceptanceType, List<TMSimulationStep> simulationSteps ) {
+        return accepts( str, acceptanceType, simulationSteps, new TMRunConfiguration() );
+    }
+    
+    /**
+     * Executes the machine with a string on its tape.
+     * 
+     * The execution stops when the machine halts or when one of the budgets
+     * of the configuration is exhausted (see getLastRunStatus()). Only the
+     * last steps are kept, as configured by the trace size, and the IDs and
+     * the simulation steps are built from them.
+     * 
+     * @param str The initial contents of the tape.
+     * @param acceptanceType The acceptance type.
+     * @param simulationSteps A list to store the simulation steps or null if
+     * the steps are not needed.
+     * @param configuration The budgets of the execution.
+     * @return true if the machine halted accepting the string, false
+     * otherwise.
+     */
+    public boolean accepts( 
+            String str, 
+            TMAcceptanceType acceptanceType, 
+            List<TMSimulationStep> simulationSteps, 
+            TMRunConfiguration configuration ) {
         
-        int count = 0;
-        boolean halted = false;
         boolean accepted = false;
         tapeAfterAcceptsExecution = null;
         ableToHalt = true;
         
+        if ( canExecute() && type == TMType.NTM ) {
+            return acceptsNondeterministic( str, acceptanceType, simulationSteps, configuration );
+        }
+        
         if ( canExecute() ) {
             
             Map<TMState, List<TMTransition>> delta = getDelta();
-            rootId = new TMID( initialState, str, 0, null, Color.BLACK );
-            ids = new ArrayList<>();
+            TMTape tape = new TMTape( str );
+            TMState state = initialState;
+            
+            long maxSteps = configuration.getMaxSteps();
+            long maxTime = configuration.getMaxTime();
+            int maxTapeLength = configuration.getMaxTapeLength();
+            long startTime = System.currentTimeMillis();
+            long count = 0;
             
-            TMID node = rootId;
-            ids.add( node );
+            TMRunStatus status = null;
+            boolean halted = false;
             
-            while ( !halted && count < ApplicationConstants.TURING_MACHINE_MAX_COUNT ) {
+            TMCycleDetector detector = null;
+            if ( configuration.isDetectLoops() ) {
+                detector = new TMCycleDetector( state, tape );
+            }
+            
+            // the IDs are materialized only when they are needed, undoing
+            // and replaying the steps of the trace
+            rootId = null;
+            ids = null;
+            idTreeString = str;
+            idTreeInitialState = initialState;
+            idTreeAcceptanceType = acceptanceType;
+            trace = new TMTrace( configuration.getTraceSize() );
+            finalTape = tape;
+            search = null;
+            
+            while ( !halted && status == null ) {
                 
                 halted = true;
                 
                 if ( DEBUG ) {
-                    System.out.println( "Processing: " + node );
+                    System.out.println( "Processing: " + state + " " + tape + " " + tape.getPosition() );
                 }
                 
-                for ( TMTransition t : delta.get( node.getState() ) ) {
+                for ( TMTransition t : delta.get( state ) ) {
 
                     if ( DEBUG ) {
                         System.out.println( "  Transition: " + t );
@@ -116,76 +195,367 @@ public class TM extends AbstractGeometricForm implements Cloneable {
                         }
 
                         // matches symbol
-                        if ( o.getReadSymbol() == node.getCharAtPosition() ) {
+                        if ( o.getReadSymbol() == tape.read() ) {
 
                             if ( DEBUG ) {
                                 System.out.println( "      Matches symbol: " + o.getReadSymbol() );
                             }
+                            
+                            // the machine would make a step, but the
+                            // budgets may be exhausted
+                            status = checkBudgets( count, maxSteps, 
+                                    startTime, maxTime, tape, maxTapeLength );
+                            if ( status != null ) {
+                                break;
+                            }
 
-                            // the derivation process creates a new id and transforms
-                            // the input (read and write on string)
-                            TMID newId = node.derive( t, o );
-                            node.addChild( newId );
-                            ids.add( newId );
+                            // read and write on the tape
+                            char overwritten = tape.read();
+                            boolean grew = tape.execute( o );
+                            state = t.getTargetState();
+                            trace.add( t, o, overwritten, grew );
                             
-                            node = newId;
                             halted = false;
-                            
-                            // trying to detect infinite loop
                             count++;
                             
+                            // one operation per step, since the symbol
+                            // under the head has changed
+                            break;
+                            
                         }
 
                     }
                     
-                    if ( !halted ) {
+                    if ( !halted || status != null ) {
                         break;
                     }
 
                 }
                 
+                // a repeated configuration proves that the machine loops
+                if ( !halted && status == null && detector != null && 
+                        detector.check( state, tape, count ) ) {
+                    status = TMRunStatus.LOOP_DETECTED;
+                }
+                
+            }
+            
+            lastRunStatus = status == null ? TMRunStatus.HALTED : status;
+            lastRunSteps = count;
+            loopLength = 0;
+            loopEntryStep = 0;
+            
+            if ( lastRunStatus == TMRunStatus.LOOP_DETECTED ) {
+                loopLength = detector.getCycleLength();
+                loopEntryStep = findLoopEntryStep( str, delta, detector.getCycleRounds(), 
+                        maxSteps, startTime, maxTime );
             }
             
-            if ( count == ApplicationConstants.TURING_MACHINE_MAX_COUNT ) {
-                ids.clear();
+            if ( lastRunStatus != TMRunStatus.HALTED ) {
                 ableToHalt = false;
                 accepted = false;
             } else {
 
-                if ( acceptanceType == TMAcceptanceType.FINAL_STATE && node.getState().isFinal() ) {
-                    node.setAcceptedByFinalState( true );
+                if ( acceptanceType == TMAcceptanceType.FINAL_STATE && state.isFinal() ) {
                     accepted = true;
                 } else if ( acceptanceType == TMAcceptanceType.HALT ) {
-                    node.setAcceptedByHalt( true );
                     accepted = true;
                 }
 
-                if ( simulationSteps != null ) {
-
-                    List<TMID> pathIds = new ArrayList<>();
-                    TMID current = node;
-
-                    while ( current != null ) {
-                        pathIds.add( current );
-                        current = current.getParent();
-                    }
-
-                    for ( int i = pathIds.size()-1; i >= 0; i-- ) {
-                        simulationSteps.add( new TMSimulationStep( pathIds.get( i ) ) );
-                    }
-
+                tapeAfterAcceptsExecution = tape.getCleanedContents();
+            
+            }
+            
+            if ( simulationSteps != null ) {
+                for ( TMID id : getIds() ) {
+                    simulationSteps.add( new TMSimulationStep( id ) );
                 }
-
-                tapeAfterAcceptsExecution = node.getCleanedString();
+            }
             
+        }
+        
+        return accepted;
+        
+    }
+    
+    /**
+     * Creates a tester to be used in batch tests (see BatchTestExecutor).
+     * The tester executes a copy of this machine, taken when this method is
+     * called, so this machine can be changed while the tester is used. Only
+     * the last step of each execution is kept in the trace and the layers
+     * of nondeterministic executions are not expanded in parallel, since
+     * the batch itself is.
+     * 
+     * @param acceptanceType The acceptance type.
+     * @param configuration The budgets of the execution of each string.
+     * @return The tester.
+     */
+    public BatchTester createBatchTester( TMAcceptanceType acceptanceType, TMRunConfiguration configuration ) {
+        
+        TMRunConfiguration c = new TMRunConfiguration( 
+                configuration.getMaxSteps(), 
+                configuration.getMaxTime(), 
+                configuration.getMaxTapeLength(), 
+                1 );
+        c.setDetectLoops( configuration.isDetectLoops() );
+        c.setMaxConfigurations( configuration.getMaxConfigurations() );
+        c.setParallel( false );
+        
+        TM copy;
+        try {
+            copy = (TM) clone();
+        } catch ( CloneNotSupportedException exc ) {
+            throw new IllegalStateException( exc );
+        }
+        
+        return str -> {
+            
+            boolean accepted = copy.accepts( str, acceptanceType, null, c );
+            BatchTestStatus status;
+            
+            if ( accepted ) {
+                status = BatchTestStatus.ACCEPTED;
+            } else if ( copy.lastRunStatus == null ) {
+                status = BatchTestStatus.REJECTED;
+            } else {
+                switch ( copy.lastRunStatus ) {
+                    case HALTED:
+                        status = BatchTestStatus.REJECTED;
+                        break;
+                    case LOOP_DETECTED:
+                        status = BatchTestStatus.LOOP_DETECTED;
+                        break;
+                    case TIME_LIMIT_REACHED:
+                        status = BatchTestStatus.TIME_LIMIT_REACHED;
+                        break;
+                    case CANCELLED:
+                        status = BatchTestStatus.CANCELLED;
+                        break;
+                    default:
+                        status = BatchTestStatus.LIMIT_REACHED;
+                        break;
+                }
             }
             
+            return new BatchTestResult( status, copy.lastRunSteps, copy.tapeAfterAcceptsExecution );
+            
+        };
+        
+    }
+    
+    /**
+     * Executes a Nondeterministic Turing Machine exploring its configuration
+     * tree (see TMConfigurationSearch). The IDs are the explored tree, up to
+     * TURING_MACHINE_MAX_COUNT IDs, and the simulation steps are the path to
+     * the accepting configuration.
+     */
+    private boolean acceptsNondeterministic( 
+            String str, 
+            TMAcceptanceType acceptanceType, 
+            List<TMSimulationStep> simulationSteps, 
+            TMRunConfiguration configuration ) {
+        
+        search = new TMConfigurationSearch( this, configuration );
+        boolean accepted = search.accepts( str, acceptanceType );
+        
+        rootId = null;
+        ids = null;
+        idTreeString = str;
+        idTreeInitialState = initialState;
+        idTreeAcceptanceType = acceptanceType;
+        trace = null;
+        finalTape = null;
+        
+        lastRunStatus = search.getStatus();
+        lastRunSteps = search.getDepth();
+        loopLength = 0;
+        loopEntryStep = 0;
+        ableToHalt = lastRunStatus == TMRunStatus.HALTED;
+        tapeAfterAcceptsExecution = search.getAcceptedTape();
+        
+        if ( simulationSteps != null ) {
+            for ( TMID id : search.getAcceptingPath( acceptanceType ) ) {
+                simulationSteps.add( new TMSimulationStep( id ) );
+            }
         }
         
         return accepted;
         
     }
     
+    /**
+     * Finds the first step of a detected loop, executing the machine twice
+     * from the beginning, one of the executions ahead of the other by the
+     * length of the loop, until both reach the same configuration. The replay
+     * respects the budgets of the execution (the steps, the time and the
+     * cancellation) and gives up when one of them is exhausted.
+     * 
+     * @param str The initial contents of the tape.
+     * @param delta The transition function.
+     * @param cycleRounds The length of the loop, in rounds.
+     * @return The number of steps executed before entering the loop or -1 if
+     * a budget was exhausted before it was found.
+     */
+    private long findLoopEntryStep( 
+            String str, Map<TMState, List<TMTransition>> delta, long cycleRounds, 
+            long maxSteps, long startTime, long maxTime ) {
+        
+        Execution first = new Execution( initialState, new TMTape( str ) );
+        Execution second = new Execution( initialState, new TMTape( str ) );
+        long rounds = 0;
+        
+        for ( long i = 0; i < cycleRounds; i++ ) {
+            if ( isReplayBudgetExhausted( ++rounds, second.steps, maxSteps, startTime, maxTime ) ) {
+                return -1;
+            }
+            second.round( delta );
+        }
+        
+        while ( first.state != second.state || 
+                first.tape.getRelativeHash() != second.tape.getRelativeHash() || 
+                !first.tape.equalsRelativeToHead( second.tape ) ) {
+            if ( isReplayBudgetExhausted( ++rounds, second.steps, maxSteps, startTime, maxTime ) ) {
+                return -1;
+            }
+            first.round( delta );
+            second.round( delta );
+        }
+        
+        return first.steps;
+        
+    }
+    
+    /**
+     * Verifies the budgets of the replay of findLoopEntryStep as checkBudgets
+     * does: the time and the cancellation are verified only once every 1024
+     * rounds.
+     */
+    private static boolean isReplayBudgetExhausted( 
+            long rounds, long steps, long maxSteps, 
+            long startTime, long maxTime ) {
+        
+        if ( maxSteps != 0 && steps >= maxSteps ) {
+            return true;
+        }
+        
+        return ( rounds & 1023 ) == 0 && ( AlgorithmCancellation.isCancelled() || 
+                ( maxTime != 0 && System.currentTimeMillis() - startTime > maxTime ) );
+        
+    }
+    
+    /**
+     * A minimal execution, without budgets and trace, used to replay the
+     * machine.
+     */
+    private static class Execution {
+        
+        private TMState state;
+        private final TMTape tape;
+        private long steps;
+        
+        Execution( TMState state, TMTape tape ) {
+            this.state = state;
+            this.tape = tape;
+        }
+        
+        /**
+         * Executes a step: the first operation of the transitions of the
+         * current state that matches the symbol under the head, as
+         * TM.accepts does.
+         */
+        void round( Map<TMState, List<TMTransition>> delta ) {
+            
+            for ( TMTransition t : delta.get( state ) ) {
+                
+                boolean executed = false;
+                
+                for ( TMOperation o : t.getOperations() ) {
+                    if ( o.getReadSymbol() == tape.read() ) {
+                        tape.execute( o );
+                        state = t.getTargetState();
+                        executed = true;
+                        steps++;
+                        break;
+                    }
+                }
+                
+                if ( executed ) {
+                    break;
+                }
+                
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Verifies if some budget of an execution is exhausted. The time and the
+     * cancellation (see AlgorithmCancellation) are verified only once every
+     * 1024 steps.
+     * 
+     * @return The status that stops the execution or null if it can go on.
+     */
+    private static TMRunStatus checkBudgets( 
+            long count, long maxSteps, 
+            long startTime, long maxTime, 
+            TMTape tape, int maxTapeLength ) {
+        
+        if ( maxSteps != 0 && count >= maxSteps ) {
+            return TMRunStatus.STEP_LIMIT_REACHED;
+        }
+        
+        if ( maxTapeLength != 0 && tape.length() >= maxTapeLength ) {
+            return TMRunStatus.TAPE_LIMIT_REACHED;
+        }
+        
+        if ( ( count & 1023 ) == 0 ) {
+            if ( AlgorithmCancellation.isCancelled() ) {
+                return TMRunStatus.CANCELLED;
+            }
+            if ( maxTime != 0 && System.currentTimeMillis() - startTime > maxTime ) {
+                return TMRunStatus.TIME_LIMIT_REACHED;
+            }
+        }
+        
+        return null;
+        
+    }
+    
+    /**
+     * Builds the IDs of the kept steps of the last execution. If the trace
+     * was not truncated, the first ID is the initial configuration.
+     */
+    private void buildIDs() {
+        
+        if ( search != null ) {
+            ids = search.buildIDs( ApplicationConstants.TURING_MACHINE_MAX_COUNT, idTreeAcceptanceType );
+            rootId = ids.get( 0 );
+            return;
+        }
+        
+        TMID first = null;
+        if ( !trace.isTruncated() ) {
+            first = new TMID( idTreeInitialState, idTreeString, 0, null, Color.BLACK );
+        }
+        
+        ids = trace.materialize( finalTape, first );
+        rootId = ids.isEmpty() ? null : ids.get( 0 );
+        
+        if ( ableToHalt && !ids.isEmpty() ) {
+            
+            TMID node = ids.get( ids.size() - 1 );
+            
+            if ( idTreeAcceptanceType == TMAcceptanceType.FINAL_STATE && node.getState().isFinal() ) {
+                node.setAcceptedByFinalState( true );
+            } else if ( idTreeAcceptanceType == TMAcceptanceType.HALT ) {
+                node.setAcceptedByHalt( true );
+            }
+            
+        }
+        
+    }
+    
     public boolean canExecute() {
         return initialState != null;
     }
@@ -194,28 +564,25 @@ public class TM extends AbstractGeometricForm implements Cloneable {
     public void draw( Graphics2D g2d ) {
         
         g2d = (Graphics2D) g2d.create();
+        updateSpatialIndex();
         
-        int maxX = 0;
-        int maxY = 0;
+        // only what intersects the clip is drawn, since the draw panel
+        // repaints just the regions that have changed
+        Rectangle clip = g2d.getClipBounds();
+        List<TMTransition> visibleTransitions = clip == null ? 
+                transitions : transitionDrawingIndex.getIntersecting( clip );
+        List<TMState> visibleStates = clip == null ? 
+                states : stateIndex.getIntersecting( clip );
         
-        for ( TMTransition t : transitions ) {
+        for ( TMTransition t : visibleTransitions ) {
             t.draw( g2d );
         }
         
-        for ( TMState s : states ) {
+        for ( TMState s : visibleStates ) {
             s.draw( g2d );
-            if ( maxX < s.getX1() + s.getRadius() ) {
-                maxX = s.getX1() + s.getRadius();
-            }
-            if ( maxY < s.getY1() + s.getRadius() ) {
-                maxY = s.getY1() + s.getRadius();
-            }
         }
         
-        width = maxX + 100;
-        height = maxY + 100;
-        
-        for ( TMTransition t : transitions ) {
+        for ( TMTransition t : visibleTransitions ) {
             t.drawLabel( g2d );
         }
         
@@ -236,12 +603,14 @@ public class TM extends AbstractGeometricForm implements Cloneable {
         for ( TMState s : states ) {
             s.move( xAmount, yAmount );
         }
+        spatialIndexUpToDate = false;
     }
     
     public TMState getStateAt( int x, int y ) {
         
-        for ( int i = states.size()-1; i >= 0; i-- ) {
-            TMState s = states.get( i );
+        updateSpatialIndex();
+        
+        for ( TMState s : stateIndex.getAt( x, y ) ) {
             if ( s.intersects( x, y ) ) {
                 s.setSelected( true );
                 return s;
@@ -254,8 +623,9 @@ public class TM extends AbstractGeometricForm implements Cloneable {
     
     public TMTransition getTransitionAt( int x, int y ) {
         
-        for ( int i = transitions.size()-1; i >= 0; i-- ) {
-            TMTransition t = transitions.get( i );
+        updateSpatialIndex();
+        
+        for ( TMTransition t : transitionIndex.getAt( x, y ) ) {
             if ( t.intersects( x, y ) ) {
                 t.setSelected( true );
                 return t;
@@ -266,6 +636,27 @@ public class TM extends AbstractGeometricForm implements Cloneable {
         
     }
     
+    /**
+     * Returns the states that intersect a rectangle.
+     * 
+     * @param rectangle The rectangle.
+     * @return The states, in the order they were added.
+     */
+    public List<TMState> getStatesAt( Rectangle rectangle ) {
+        
+        updateSpatialIndex();
+        List<TMState> found = new ArrayList<>();
+        
+        for ( TMState s : stateIndex.getIntersecting( rectangle ) ) {
+            if ( s.intersects( rectangle ) ) {
+                found.add( s );
+            }
+        }
+        
+        return found;
+        
+    }
+    
     public void deselectAll() {
         for ( TMTransition t : transitions ) {
             t.setSelected( false );
@@ -292,8 +683,10 @@ public class TM extends AbstractGeometricForm implements Cloneable {
             
         }
         
-        markAllCachesAsObsolete();
-        updateType();
+        if ( bulkEditLevel == 0 ) {
+            markAllCachesAsObsolete();
+            updateType();
+        }
         
     }
     
@@ -303,26 +696,108 @@ public class TM extends AbstractGeometricForm implements Cloneable {
             
             TMTransition tf = null;
             
-            for ( TMTransition t : transitions ) {
-                if ( t.getOriginState() == transition.getOriginState() && 
-                        t.getTargetState() == transition.getTargetState() ) {
-                    tf = t;
-                    break;
+            if ( bulkEditLevel > 0 ) {
+                tf = getIndexedTransition( 
+                        transition.getOriginState(), transition.getTargetState() );
+            } else {
+                for ( TMTransition t : transitions ) {
+                    if ( t.getOriginState() == transition.getOriginState() && 
+                            t.getTargetState() == transition.getTargetState() ) {
+                        tf = t;
+                        break;
+                    }
                 }
             }
             
             if ( tf == null ) {
                 transition.setControlPointsVisible( transitionControlPointsVisible );
                 transitions.add( transition );
+                if ( bulkEditLevel > 0 ) {
+                    indexTransition( transition );
+                }
             } else {
                 tf.addOperations( transition.getOperations() );
             }
             
         }
         
-        updateTransitions();
-        markAllCachesAsObsolete();
-        updateType();
+        if ( bulkEditLevel == 0 ) {
+            updateTransitions();
+            markAllCachesAsObsolete();
+            updateType();
+        }
+        
+    }
+    
+    /**
+     * Starts a bulk edit session, used to add many states and transitions at
+     * once. Until the matching call to endBulkEdit(), addState and
+     * addTransition don't update the type of the automaton nor invalidate its
+     * caches, and the existing transitions are found by an index of their
+     * origin and target states instead of a linear search. Sessions can be
+     * nested and the automaton must not be executed inside them.
+     */
+    public void beginBulkEdit() {
+        
+        if ( bulkEditLevel++ == 0 ) {
+            bulkTransitionIndex = new IdentityHashMap<>();
+            for ( TMTransition t : transitions ) {
+                if ( getIndexedTransition( t.getOriginState(), t.getTargetState() ) == null ) {
+                    indexTransition( t );
+                }
+            }
+        }
+        
+    }
+    
+    /**
+     * Ends a bulk edit session. When the outermost session ends, the caches
+     * are invalidated and the type of the automaton is updated only once.
+     */
+    public void endBulkEdit() {
+        
+        if ( bulkEditLevel == 0 ) {
+            throw new IllegalStateException( "There is no bulk edit session to end!" );
+        }
+        
+        if ( --bulkEditLevel == 0 ) {
+            bulkTransitionIndex = null;
+            updateTransitions();
+            markAllCachesAsObsolete();
+            updateType();
+        }
+        
+    }
+    
+    public boolean isInBulkEdit() {
+        return bulkEditLevel > 0;
+    }
+    
+    private TMTransition getIndexedTransition( TMState originState, TMState targetState ) {
+        Map<TMState, TMTransition> targets = bulkTransitionIndex.get( originState );
+        return targets == null ? null : targets.get( targetState );
+    }
+    
+    private void indexTransition( TMTransition transition ) {
+        
+        Map<TMState, TMTransition> targets = bulkTransitionIndex.get( transition.getOriginState() );
+        
+        if ( targets == null ) {
+            targets = new IdentityHashMap<>();
+            bulkTransitionIndex.put( transition.getOriginState(), targets );
+        }
+        
+        targets.put( transition.getTargetState(), transition );
+        
+    }
+    
+    private void unindexTransition( TMTransition transition ) {
+        
+        if ( bulkEditLevel > 0 && getIndexedTransition( 
+                transition.getOriginState(), transition.getTargetState() ) == transition ) {
+            bulkTransitionIndex.get( transition.getOriginState() ).remove( 
+                    transition.getTargetState() );
+        }
         
     }
     
@@ -330,18 +805,21 @@ public class TM extends AbstractGeometricForm implements Cloneable {
         for ( TMTransition t : transitions ) {
             t.updateStartAndEndPoints();
         }
+        spatialIndexUpToDate = false;
     }
     
     public void resetTransitionsTransformations() {
         for ( TMTransition t : transitions ) {
             t.resetTransformations();
         }
+        spatialIndexUpToDate = false;
     }
     
     public void draggTransitions( MouseEvent evt ) {
         for ( TMTransition t : transitions ) {
             t.mouseDragged( evt );
         }
+        spatialIndexUpToDate = false;
     }
     
     public void setTransitionsControlPointsVisible( boolean visible ) {
@@ -349,15 +827,192 @@ public class TM extends AbstractGeometricForm implements Cloneable {
         for ( TMTransition t : transitions ) {
             t.setControlPointsVisible( visible );
         }
+        spatialIndexUpToDate = false;
     }
     
-    public void mouseHoverStatesAndTransitions( int x, int y ) {
-        for ( TMTransition t : transitions ) {
+    /**
+     * Updates the mouse hover state of the states and transitions. Only the
+     * ones near the mouse and the ones that were under it are tested.
+     * 
+     * @param x The x coordinate of the mouse.
+     * @param y The y coordinate of the mouse.
+     * @return The region of the drawing that has changed, or null if nothing
+     * has changed.
+     */
+    public Rectangle mouseHoverStatesAndTransitions( int x, int y ) {
+        
+        updateSpatialIndex();
+        Rectangle region = null;
+        
+        List<TMTransition> hoverTransitions = new ArrayList<>();
+        for ( TMTransition t : transitionIndex.getAt( x, y ) ) {
             t.mouseHover( x, y );
+            if ( t.isMouseHover() ) {
+                hoverTransitions.add( t );
+            }
         }
-        for ( TMState s : states ) {
+        
+        for ( TMTransition t : mouseHoverTransitions ) {
+            if ( !hoverTransitions.contains( t ) ) {
+                t.setMouseHover( false );
+                region = union( region, t.getBounds() );
+            }
+        }
+        
+        for ( TMTransition t : hoverTransitions ) {
+            if ( !mouseHoverTransitions.contains( t ) ) {
+                region = union( region, t.getBounds() );
+            }
+        }
+        
+        List<TMState> hoverStates = new ArrayList<>();
+        for ( TMState s : stateIndex.getAt( x, y ) ) {
             s.mouseHover( x, y );
+            if ( s.isMouseHover() ) {
+                hoverStates.add( s );
+            }
         }
+        
+        for ( TMState s : mouseHoverStates ) {
+            if ( !hoverStates.contains( s ) ) {
+                s.setMouseHover( false );
+                region = union( region, getStateRegion( s ) );
+            }
+        }
+        
+        for ( TMState s : hoverStates ) {
+            if ( !mouseHoverStates.contains( s ) ) {
+                region = union( region, getStateRegion( s ) );
+            }
+        }
+        
+        mouseHoverTransitions = hoverTransitions;
+        mouseHoverStates = hoverStates;
+        
+        return region;
+        
+    }
+    
+    /**
+     * Sets the mouse hover state of the states that intersect a rectangle and
+     * resets the others.
+     * 
+     * @param rectangle The rectangle.
+     */
+    public void mouseHoverStates( Rectangle rectangle ) {
+        
+        List<TMState> hoverStates = getStatesAt( rectangle );
+        
+        for ( TMState s : mouseHoverStates ) {
+            s.setMouseHover( false );
+        }
+        
+        for ( TMState s : hoverStates ) {
+            s.setMouseHover( true );
+        }
+        
+        mouseHoverStates = hoverStates;
+        
+    }
+    
+    public void resetStatesMouseHover() {
+        
+        updateSpatialIndex();
+        
+        for ( TMState s : mouseHoverStates ) {
+            s.setMouseHover( false );
+        }
+        
+        mouseHoverStates.clear();
+        
+    }
+    
+    /**
+     * Marks the spatial index of the states and transitions as obsolete. It
+     * must be called when they are moved or changed without using the
+     * methods of this automaton.
+     */
+    public void markSpatialIndexAsObsolete() {
+        spatialIndexUpToDate = false;
+    }
+    
+    /**
+     * Creates the spatial index of the states and transitions, if it is
+     * obsolete, and updates the size of the drawing. The transitions are
+     * indexed by the parts that can be selected and by the area where they
+     * are drawn.
+     */
+    private void updateSpatialIndex() {
+        
+        if ( !spatialIndexUpToDate ) {
+            
+            int maxX = 0;
+            int maxY = 0;
+            
+            stateIndex = new SpatialIndex<>();
+            transitionIndex = new SpatialIndex<>();
+            transitionDrawingIndex = new SpatialIndex<>();
+            outgoingTransitions = new IdentityHashMap<>();
+            mouseHoverStates = new ArrayList<>();
+            mouseHoverTransitions = new ArrayList<>();
+            
+            for ( TMState s : states ) {
+                stateIndex.add( s, s.getBounds() );
+                if ( s.isMouseHover() ) {
+                    mouseHoverStates.add( s );
+                }
+                if ( maxX < s.getX1() + s.getRadius() ) {
+                    maxX = s.getX1() + s.getRadius();
+                }
+                if ( maxY < s.getY1() + s.getRadius() ) {
+                    maxY = s.getY1() + s.getRadius();
+                }
+            }
+            
+            for ( TMTransition t : transitions ) {
+                transitionIndex.add( t, t.getHitBounds() );
+                transitionDrawingIndex.add( t, t.getBounds() );
+                outgoingTransitions.computeIfAbsent( 
+                        t.getOriginState(), k -> new ArrayList<>() ).add( t );
+                if ( t.isMouseHover() ) {
+                    mouseHoverTransitions.add( t );
+                }
+            }
+            
+            width = maxX + 100;
+            height = maxY + 100;
+            
+            spatialIndexUpToDate = true;
+            
+        }
+        
+    }
+    
+    /**
+     * Returns the region drawn with the colors of a state: the state and its
+     * outgoing transitions.
+     */
+    private Rectangle getStateRegion( TMState state ) {
+        
+        Rectangle region = state.getBounds();
+        List<TMTransition> ts = outgoingTransitions.get( state );
+        
+        if ( ts != null ) {
+            for ( TMTransition t : ts ) {
+                region.add( t.getBounds() );
+            }
+        }
+        
+        return region;
+        
+    }
+    
+    private static Rectangle union( Rectangle region, Rectangle bounds ) {
+        if ( region == null ) {
+            return bounds;
+        }
+        region.add( bounds );
+        return region;
     }
 
     public void resetStatesColor() {
@@ -414,6 +1069,7 @@ public class TM extends AbstractGeometricForm implements Cloneable {
         
         for ( TMTransition t : ts ) {
             transitions.remove( t );
+            unindexTransition( t );
         }
         
         markAllCachesAsObsolete();
@@ -423,6 +1079,7 @@ public class TM extends AbstractGeometricForm implements Cloneable {
     
     public void removeTransition( TMTransition transition ) {
         transitions.remove( transition );
+        unindexTransition( transition );
         markAllCachesAsObsolete();
         updateType();
     }
@@ -549,6 +1206,39 @@ public class TM extends AbstractGeometricForm implements Cloneable {
     public String getTapeAfterAcceptsExecution() {
         return tapeAfterAcceptsExecution;
     }
+
+    /**
+     * @return How the last execution ended or null if the machine was not
+     * executed yet.
+     */
+    public TMRunStatus getLastRunStatus() {
+        return lastRunStatus;
+    }
+
+    /**
+     * @return The number of steps of the last execution.
+     */
+    public long getLastRunSteps() {
+        return lastRunSteps;
+    }
+
+    /**
+     * @return The length, in steps, of the loop detected in the last
+     * execution or zero if no loop was detected.
+     */
+    public long getLoopLength() {
+        return loopLength;
+    }
+
+    /**
+     * @return The step where the loop detected in the last execution starts,
+     * i.e., the configuration after this number of steps repeats every
+     * getLoopLength() steps, or -1 if the budgets of the execution were
+     * exhausted before the step was found.
+     */
+    public long getLoopEntryStep() {
+        return loopEntryStep;
+    }
     
     private String getStatesString() {
         
@@ -671,10 +1361,16 @@ public class TM extends AbstractGeometricForm implements Cloneable {
     }
 
     public TMID getRootId() {
+        if ( rootId == null && idTreeString != null ) {
+            buildIDs();
+        }
         return rootId;
     }
 
     public List<TMID> getIds() {
+        if ( rootId == null && idTreeString != null ) {
+            buildIDs();
+        }
         return ids;
     }
     
@@ -688,10 +1384,13 @@ public class TM extends AbstractGeometricForm implements Cloneable {
         alphabetUpToDate = false;
         tapeAlphabetUpToDate = false;
         deltaUpToDate = false;
+        spatialIndexUpToDate = false;
     }
     
     public void merge( TM fa ) {
         
+        beginBulkEdit();
+        
         for ( TMState s : fa.getStates() ) {
             addState( s );
         }
@@ -700,6 +1399,8 @@ public class TM extends AbstractGeometricForm implements Cloneable {
             addTransition( t );
         }
         
+        endBulkEdit();
+        
     }
     
     public String generateCode() {
@@ -806,13 +1507,17 @@ public class TM extends AbstractGeometricForm implements Cloneable {
         Map<TMState, TMState> ref = new HashMap<>();
     
         c.states = new ArrayList<>();
+        c.transitions = new ArrayList<>();
+        c.bulkEditLevel = 0;
+        c.bulkTransitionIndex = null;
+        c.beginBulkEdit();
+        
         for ( TMState s : states ) {
             TMState n = (TMState) s.clone();
             c.addState( n );
             ref.put( s, n );
         }
         
-        c.transitions = new ArrayList<>();
         for ( TMTransition t : transitions ) {
             TMTransition n = (TMTransition) t.clone();
             n.setOriginState( ref.get( t.getOriginState() ) );
@@ -820,7 +1525,7 @@ public class TM extends AbstractGeometricForm implements Cloneable {
             c.addTransition( n );
         }
         
-        c.updateType();
+        c.endBulkEdit();
         return c;
         
     }
@@ -0,0 +1,370 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.tm;
+
+import br.com.davidbuzatto.yaas.model.AlgorithmCancellation;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Executes a Nondeterministic Turing Machine exploring its configuration
+ * tree breadth-first.
+ * 
+ * A configuration is a pair (state, tape) and the tapes are persistent
+ * (see TMPersistentTape), so each branch costs O(1) to create and to
+ * compare by hash. Each configuration is expanded only once: a
+ * configuration that was already discovered by another branch (or by an
+ * ancestor, in a loop) is discarded. Since the search is breadth-first, the
+ * accepting configuration found is the one with the fewest steps.
+ * 
+ * A branch accepts when it halts, in a final state if the acceptance type
+ * is FINAL_STATE. The search stops at the first accepting configuration,
+ * when there are no configurations left or when one of the budgets of the
+ * run configuration is exhausted (the maximum number of steps limits the
+ * depth of the tree). The layers of the tree can be expanded in parallel,
+ * in the common ForkJoinPool.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class TMConfigurationSearch {
+    
+    private static final int PARALLEL_THRESHOLD = 1024;
+    
+    private final Map<TMState, List<TMTransition>> delta;
+    private final TMState initialState;
+    private final TMRunConfiguration configuration;
+    
+    private List<Configuration> discovered;
+    private Configuration accepted;
+    private TMRunStatus status;
+    private int depth;
+    private boolean someBranchHalted;
+    
+    /**
+     * Creates a new search.
+     * 
+     * @param tm The machine to be executed.
+     * @param configuration The budgets of the executions.
+     */
+    public TMConfigurationSearch( TM tm, TMRunConfiguration configuration ) {
+        this.delta = tm.getDelta();
+        this.initialState = tm.getInitialState();
+        this.configuration = configuration;
+    }
+    
+    /**
+     * Executes the machine with a string on its tape.
+     * 
+     * @param str The initial contents of the tape.
+     * @param acceptanceType The acceptance type.
+     * @return true if some branch accepts the string, false otherwise.
+     */
+    public boolean accepts( String str, TMAcceptanceType acceptanceType ) {
+        
+        long maxSteps = configuration.getMaxSteps();
+        long maxTime = configuration.getMaxTime();
+        int maxTapeLength = configuration.getMaxTapeLength();
+        int maxConfigurations = configuration.getMaxConfigurations();
+        long startTime = System.currentTimeMillis();
+        
+        discovered = new ArrayList<>();
+        accepted = null;
+        status = null;
+        depth = 0;
+        someBranchHalted = false;
+        
+        Configuration root = new Configuration( 
+                initialState, TMPersistentTape.of( str ), null, null, null );
+        Set<Configuration> visited = new HashSet<>();
+        visited.add( root );
+        discovered.add( root );
+        
+        List<Configuration> layer = new ArrayList<>();
+        layer.add( root );
+        
+        while ( !layer.isEmpty() ) {
+            
+            // the successors of each configuration of the layer
+            List<List<Configuration>> successors;
+            if ( configuration.isParallel() && layer.size() >= PARALLEL_THRESHOLD ) {
+                successors = layer.parallelStream().map( this::expand ).toList();
+            } else {
+                successors = layer.stream().map( this::expand ).toList();
+            }
+            
+            List<Configuration> nextLayer = new ArrayList<>();
+            
+            for ( int i = 0; i < layer.size(); i++ ) {
+                
+                Configuration c = layer.get( i );
+                List<Configuration> cs = successors.get( i );
+                
+                if ( cs.isEmpty() ) {
+                    
+                    someBranchHalted = true;
+                    
+                    if ( acceptanceType == TMAcceptanceType.HALT || c.state.isFinal() ) {
+                        accepted = c;
+                        status = TMRunStatus.HALTED;
+                        return true;
+                    }
+                    
+                }
+                
+                for ( Configuration s : cs ) {
+                    if ( visited.add( s ) ) {
+                        discovered.add( s );
+                        nextLayer.add( s );
+                    }
+                }
+                
+            }
+            
+            if ( nextLayer.isEmpty() ) {
+                break;
+            }
+            
+            depth++;
+            
+            if ( maxSteps != 0 && depth > maxSteps ) {
+                status = TMRunStatus.STEP_LIMIT_REACHED;
+                return false;
+            }
+            if ( maxConfigurations != 0 && discovered.size() > maxConfigurations ) {
+                status = TMRunStatus.CONFIGURATION_LIMIT_REACHED;
+                return false;
+            }
+            if ( AlgorithmCancellation.isCancelled() ) {
+                status = TMRunStatus.CANCELLED;
+                return false;
+            }
+            if ( maxTime != 0 && System.currentTimeMillis() - startTime > maxTime ) {
+                status = TMRunStatus.TIME_LIMIT_REACHED;
+                return false;
+            }
+            if ( maxTapeLength != 0 ) {
+                for ( Configuration s : nextLayer ) {
+                    if ( s.tape.length() > maxTapeLength ) {
+                        status = TMRunStatus.TAPE_LIMIT_REACHED;
+                        return false;
+                    }
+                }
+            }
+            
+            layer = nextLayer;
+            
+        }
+        
+        // the whole tree was explored: the branches that don't halt
+        // repeat configurations
+        status = someBranchHalted ? TMRunStatus.HALTED : TMRunStatus.LOOP_DETECTED;
+        return false;
+        
+    }
+    
+    private List<Configuration> expand( Configuration c ) {
+        
+        List<Configuration> successors = new ArrayList<>();
+        char symbol = c.tape.read();
+        
+        for ( TMTransition t : delta.get( c.state ) ) {
+            for ( TMOperation o : t.getOperations() ) {
+                if ( o.getReadSymbol() == symbol ) {
+                    successors.add( new Configuration( 
+                            t.getTargetState(), c.tape.execute( o ), c, t, o ) );
+                }
+            }
+        }
+        
+        return successors;
+        
+    }
+    
+    /**
+     * Builds the IDs of the explored configuration tree, breadth-first.
+     * 
+     * @param maxIds The maximum number of IDs.
+     * @param acceptanceType The acceptance type used in the search.
+     * @return The IDs, where the first one is the root. The accepting ID, if
+     * it is part of the list, is marked.
+     */
+    public List<TMID> buildIDs( int maxIds, TMAcceptanceType acceptanceType ) {
+        
+        List<TMID> ids = new ArrayList<>();
+        int n = Math.min( maxIds, discovered.size() );
+        
+        for ( int i = 0; i < n; i++ ) {
+            
+            Configuration c = discovered.get( i );
+            c.id = createId( c );
+            ids.add( c.id );
+            
+            if ( c.parent != null ) {
+                c.parent.id.addChild( c.id );
+            }
+            
+            if ( c == accepted ) {
+                markAccepted( c.id, acceptanceType );
+            }
+            
+        }
+        
+        for ( int i = 0; i < n; i++ ) {
+            discovered.get( i ).id = null;
+        }
+        
+        return ids;
+        
+    }
+    
+    /**
+     * Builds the IDs of the path from the initial configuration to the
+     * accepting one.
+     * 
+     * @param acceptanceType The acceptance type used in the search.
+     * @return The IDs or an empty list if no branch accepted the string.
+     */
+    public List<TMID> getAcceptingPath( TMAcceptanceType acceptanceType ) {
+        
+        List<TMID> path = new ArrayList<>();
+        
+        if ( accepted == null ) {
+            return path;
+        }
+        
+        List<Configuration> cs = new ArrayList<>();
+        for ( Configuration c = accepted; c != null; c = c.parent ) {
+            cs.add( c );
+        }
+        
+        TMID previous = null;
+        for ( int i = cs.size() - 1; i >= 0; i-- ) {
+            TMID id = createId( cs.get( i ) );
+            if ( previous != null ) {
+                previous.addChild( id );
+            }
+            path.add( id );
+            previous = id;
+        }
+        
+        markAccepted( previous, acceptanceType );
+        
+        return path;
+        
+    }
+    
+    private static TMID createId( Configuration c ) {
+        return new TMID( 
+                c.state, 
+                c.tape.toString(), 
+                c.tape.getPosition(), 
+                c.operation, 
+                c.transition == null ? Color.BLACK : c.transition.getStrokeColor() );
+    }
+    
+    private static void markAccepted( TMID id, TMAcceptanceType acceptanceType ) {
+        if ( acceptanceType == TMAcceptanceType.FINAL_STATE ) {
+            id.setAcceptedByFinalState( true );
+        } else {
+            id.setAcceptedByHalt( true );
+        }
+    }
+    
+    /**
+     * @return How the last search ended: HALTED if a branch accepted or if
+     * the whole tree was explored and some branch halted, LOOP_DETECTED if
+     * the whole tree was explored and no branch halts, or the exhausted
+     * budget.
+     */
+    public TMRunStatus getStatus() {
+        return status;
+    }
+    
+    /**
+     * @return The contents of the accepting tape, without the blank symbols
+     * at the ends, or null if no branch accepted the string.
+     */
+    public String getAcceptedTape() {
+        return accepted == null ? null : accepted.tape.getCleanedContents();
+    }
+    
+    /**
+     * @return The number of distinct configurations found by the last
+     * search.
+     */
+    public int getExploredConfigurations() {
+        return discovered.size();
+    }
+    
+    /**
+     * @return The depth of the explored tree.
+     */
+    public int getDepth() {
+        return depth;
+    }
+    
+    private static final class Configuration {
+        
+        private final TMState state;
+        private final TMPersistentTape tape;
+        private final Configuration parent;
+        private final TMTransition transition;
+        private final TMOperation operation;
+        
+        // used only while building the IDs
+        private TMID id;
+        
+        Configuration( 
+                TMState state, 
+                TMPersistentTape tape, 
+                Configuration parent, 
+                TMTransition transition, 
+                TMOperation operation ) {
+            this.state = state;
+            this.tape = tape;
+            this.parent = parent;
+            this.transition = transition;
+            this.operation = operation;
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode( state ) + tape.hashCode();
+        }
+        
+        @Override
+        public boolean equals( Object obj ) {
+            if ( this == obj ) {
+                return true;
+            }
+            if ( obj == null ) {
+                return false;
+            }
+            if ( getClass() != obj.getClass() ) {
+                return false;
+            }
+            final Configuration other = (Configuration) obj;
+            return state == other.state && tape.equals( other.tape );
+        }
+        
+    }
+    
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.tm;
+
+/**
+ * Detects that a Deterministic Turing Machine loops forever, finding a
+ * configuration (state, tape as seen from the head) that repeats.
+ * 
+ * It uses Brent's algorithm: a configuration is saved at exponentially
+ * spaced rounds and each new configuration is compared with the saved one,
+ * in O(1) using the relative hash of the tape and exactly only when the
+ * hashes match, so a reported loop is a proof of non-termination. A loop is
+ * detected after O(entry + length) rounds and only one configuration is
+ * kept.
+ * 
+ * The configurations must be checked between rounds, i.e., when the next
+ * step depends only on the state and the tape.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class TMCycleDetector {
+    
+    private TMState savedState;
+    private TMTape savedTape;
+    private long savedHash;
+    private long savedStep;
+    
+    private long power;
+    private long rounds;
+    
+    private long cycleLength;
+    private long cycleRounds;
+    
+    /**
+     * Creates a new detector.
+     * 
+     * @param state The initial state.
+     * @param tape The initial tape.
+     */
+    public TMCycleDetector( TMState state, TMTape tape ) {
+        power = 1;
+        save( state, tape, 0 );
+    }
+    
+    /**
+     * Checks the configuration reached after a round.
+     * 
+     * @param state The current state.
+     * @param tape The current tape.
+     * @param step The number of steps executed so far.
+     * @return true if the configuration is equal to a previous one, i.e.,
+     * the machine loops forever, false otherwise.
+     */
+    public boolean check( TMState state, TMTape tape, long step ) {
+        
+        rounds++;
+        long hash = tape.getRelativeHash();
+        
+        if ( state == savedState && hash == savedHash && 
+                tape.equalsRelativeToHead( savedTape ) ) {
+            cycleLength = step - savedStep;
+            cycleRounds = rounds;
+            return true;
+        }
+        
+        if ( rounds == power ) {
+            power *= 2;
+            save( state, tape, step );
+        }
+        
+        return false;
+        
+    }
+    
+    private void save( TMState state, TMTape tape, long step ) {
+        savedState = state;
+        savedTape = new TMTape( tape );
+        savedHash = tape.getRelativeHash();
+        savedStep = step;
+        rounds = 0;
+    }
+    
+    /**
+     * @return The length of the detected loop, in steps.
+     */
+    public long getCycleLength() {
+        return cycleLength;
+    }
+    
+    /**
+     * @return The length of the detected loop, in rounds.
+     */
+    public long getCycleRounds() {
+        return cycleRounds;
+    }
+    
+}
@@ -23,6 +23,7 @@ import br.com.davidbuzatto.yaas.util.Utils;
 import java.awt.Color;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.font.LineMetrics;
 import java.util.ArrayList;
 import java.util.List;
@@ -51,12 +52,17 @@ public class TMID extends AbstractGeometricForm implements Comparable<TMID> {
     private String text;
     private int textWidth;
     private int textHeight;
+    private boolean textUpToDate;
     private Color textColor;
     
     private boolean activeInSimulation;
     private Color activeInSimulationStrokeColor;
     private Color activeInSimulationFillColor;
     
+    private String summary;
+    private int summaryWidth;
+    private int summaryHeight;
+    
     public TMID( TMState state, String string, int position, TMOperation operation, Color strokeColor ) {
         
         this.state = state;
@@ -71,9 +77,11 @@ public class TMID extends AbstractGeometricForm implements Comparable<TMID> {
         activeInSimulationFillColor = DrawingConstants.TMID_ACTIVE_IN_SIMULATION_FILL_COLOR;
         activeInSimulationStrokeColor = DrawingConstants.TMID_ACTIVE_IN_SIMULATION_STROKE_COLOR;
         
-        setStrokeColor( strokeColor );
-        setAcceptedStrokeColor( DrawingConstants.TMID_DEFAULT_ACCEPTED_COLOR );
-        setText( toString() );
+        // the fill colors, the text and its metrics are only needed to draw
+        // the ID, so they are computed when they are used for the first time
+        this.strokeColor = strokeColor;
+        this.fillColor = null;
+        this.acceptedStrokeColor = DrawingConstants.TMID_DEFAULT_ACCEPTED_COLOR;
         
     }
     
@@ -84,6 +92,7 @@ public class TMID extends AbstractGeometricForm implements Comparable<TMID> {
 
     public void setText( String text ) {
         this.text = text;
+        this.textUpToDate = true;
         LineMetrics lm = Utils.getLineMetrics( text, font );
         FontMetrics fm = Utils.getFontMetrics( font );
         textWidth = fm.stringWidth( text );
@@ -101,6 +110,8 @@ public class TMID extends AbstractGeometricForm implements Comparable<TMID> {
     @Override
     public void draw( Graphics2D g2d ) {
         
+        updateText();
+        
         g2d = (Graphics2D) g2d.create();
         
         g2d.setFont( font );
@@ -110,7 +121,7 @@ public class TMID extends AbstractGeometricForm implements Comparable<TMID> {
         
         if ( acceptedByFinalState || acceptedByHalt ) {
             hilightStrokeColor = acceptedStrokeColor;
-            hilightFillColor = acceptedFillColor;
+            hilightFillColor = getAcceptedFillColor();
         }
         
         if ( activeInSimulation ) {
@@ -136,13 +147,78 @@ public class TMID extends AbstractGeometricForm implements Comparable<TMID> {
         g2d.setColor( textColor );
         g2d.drawString( text, x1 - textWidth / 2, y1 + textHeight / 2 );
         
+        if ( summary != null ) {
+            int summaryY = y1 + textHeight / 2 + 12;
+            g2d.setColor( getFillColor() );
+            g2d.fillRoundRect( 
+                    x1 - summaryWidth / 2 - 5,
+                    summaryY,
+                    summaryWidth + 10,
+                    summaryHeight + 10, 5, 5 );
+            g2d.setColor( strokeColor );
+            g2d.drawRoundRect( 
+                    x1 - summaryWidth / 2 - 5,
+                    summaryY,
+                    summaryWidth + 10,
+                    summaryHeight + 10, 5, 5 );
+            g2d.setColor( textColor );
+            g2d.drawString( summary, x1 - summaryWidth / 2, summaryY + summaryHeight + 5 );
+        }
+        
         g2d.dispose();
         
     }
 
     @Override
     public boolean intersects( int x, int y ) {
-        return false;
+        return getBounds().contains( x, y );
+    }
+    
+    /**
+     * Returns the bounds of the area where the ID is drawn, including its
+     * summary.
+     * 
+     * @return The bounds.
+     */
+    public Rectangle getBounds() {
+        
+        updateText();
+        
+        Rectangle r = new Rectangle( 
+                x1 - textWidth / 2 - 5,
+                y1 - textHeight / 2 - 8,
+                textWidth + 11,
+                textHeight + 16 );
+        
+        if ( summary != null ) {
+            r.add( new Rectangle( 
+                    x1 - summaryWidth / 2 - 5,
+                    y1 + textHeight / 2 + 12,
+                    summaryWidth + 11,
+                    summaryHeight + 11 ) );
+        }
+        
+        return r;
+        
+    }
+    
+    /**
+     * Sets a text drawn below the ID that summarizes its hidden descendants.
+     * 
+     * @param summary The summary or null to remove it.
+     */
+    public void setSummary( String summary ) {
+        this.summary = summary;
+        if ( summary != null ) {
+            LineMetrics lm = Utils.getLineMetrics( summary, font );
+            FontMetrics fm = Utils.getFontMetrics( font );
+            summaryWidth = fm.stringWidth( summary );
+            summaryHeight = (int) ( lm.getHeight() / 2 );
+        }
+    }
+    
+    public String getSummary() {
+        return summary;
     }
     
     public TMID derive( TMTransition transition, TMOperation operation ) {
@@ -236,19 +312,55 @@ public class TMID extends AbstractGeometricForm implements Comparable<TMID> {
         this.fillColor = Utils.lighterColor( strokeColor );
     }
     
+    @Override
+    public Color getFillColor() {
+        if ( fillColor == null ) {
+            fillColor = Utils.lighterColor( strokeColor );
+        }
+        return fillColor;
+    }
+    
     public void setAcceptedStrokeColor( Color acceptedStrokeColor ) {
         this.acceptedStrokeColor = acceptedStrokeColor;
         this.acceptedFillColor = Utils.lighterColor( acceptedStrokeColor );
     }
+    
+    private Color getAcceptedFillColor() {
+        if ( acceptedFillColor == null ) {
+            acceptedFillColor = Utils.lighterColor( acceptedStrokeColor );
+        }
+        return acceptedFillColor;
+    }
+    
+    /**
+     * Computes the text and its metrics, if they were not computed yet.
+     */
+    private void updateText() {
+        if ( !textUpToDate ) {
+            setText( toString() );
+        }
+    }
 
     public int getTextWidth() {
+        updateText();
         return textWidth;
     }
 
     public int getTextHeight() {
+        updateText();
         return textHeight;
     }
     
+    /**
+     * Returns the width of the ID and its summary, used to arrange the tree.
+     * 
+     * @return The width.
+     */
+    public int getExtentWidth() {
+        updateText();
+        return summary != null ? Math.max( textWidth, summaryWidth ) : textWidth;
+    }
+    
     @Override
     public int compareTo( TMID o ) {
         return state.compareTo( o.state );
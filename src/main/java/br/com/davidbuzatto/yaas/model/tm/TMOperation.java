@@ -18,7 +18,7 @@ package br.com.davidbuzatto.yaas.model.tm;
 
 import br.com.davidbuzatto.yaas.model.AbstractGeometricForm;
 import br.com.davidbuzatto.yaas.util.CharacterConstants;
-import br.com.davidbuzatto.yaas.util.Utils;
+import br.com.davidbuzatto.yaas.util.MavenModelLoader;
 import java.awt.Graphics2D;
 
 /**
@@ -28,8 +28,10 @@ import java.awt.Graphics2D;
  */
 public class TMOperation extends AbstractGeometricForm implements Cloneable, Comparable<TMOperation> {
     
+    private static final long serialVersionUID = -7830369535409536823L;
+    
     private transient static final boolean DEBUG = Boolean.parseBoolean( 
-            Utils.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
+            MavenModelLoader.getMavenModel().getProperties().getProperty( "debugAlgorithms" ) );
     
     private char readSymbol;
     private char writeSymbol;
@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.tm;
+
+import br.com.davidbuzatto.yaas.util.CharacterConstants;
+
+/**
+ * An immutable Turing Machine tape, used to explore the branches of
+ * Nondeterministic Turing Machines.
+ * 
+ * The tape is a zipper: the symbol under the head and two immutable linked
+ * stacks, one with the cells to the left of the head and another with the
+ * cells to the right, both with the nearest cell on top. Executing an
+ * operation creates a new tape in O(1), sharing almost all the nodes with
+ * the original one, so the branches of a computation don't copy their
+ * tapes.
+ * 
+ * The blank cells beyond the ends are never stored, so two tapes are equal
+ * if, and only if, they have the same contents as seen from their heads.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public final class TMPersistentTape {
+    
+    private static final char BLANK = CharacterConstants.BLANK_TAPE_SYMBOL;
+    
+    private final Node left;
+    private final char head;
+    private final Node right;
+    private final int hash;
+    
+    private TMPersistentTape( Node left, char head, Node right ) {
+        this.left = left;
+        this.head = head;
+        this.right = right;
+        this.hash = ( Node.hashOf( left ) * 31 + head ) * 31 + Node.hashOf( right );
+    }
+    
+    /**
+     * Creates a tape with the head at the first symbol of a string.
+     * 
+     * @param string The initial contents of the tape.
+     * @return The new tape.
+     */
+    public static TMPersistentTape of( String string ) {
+        
+        if ( string.isEmpty() ) {
+            return new TMPersistentTape( null, BLANK, null );
+        }
+        
+        Node right = null;
+        for ( int i = string.length() - 1; i > 0; i-- ) {
+            right = Node.push( right, string.charAt( i ) );
+        }
+        
+        return new TMPersistentTape( null, string.charAt( 0 ), right );
+        
+    }
+    
+    /**
+     * @return The symbol under the head.
+     */
+    public char read() {
+        return head;
+    }
+    
+    /**
+     * Executes an operation: writes its symbol and moves the head.
+     * 
+     * @param operation The operation to be executed.
+     * @return The resulting tape.
+     */
+    public TMPersistentTape execute( TMOperation operation ) {
+        
+        char w = operation.getWriteSymbol();
+        
+        if ( operation.getType() == TMMovementType.MOVE_RIGHT ) {
+            return new TMPersistentTape( 
+                    Node.push( left, w ), 
+                    right == null ? BLANK : right.symbol, 
+                    right == null ? null : right.below );
+        } else {
+            return new TMPersistentTape( 
+                    left == null ? null : left.below, 
+                    left == null ? BLANK : left.symbol, 
+                    Node.push( right, w ) );
+        }
+        
+    }
+    
+    /**
+     * @return The number of stored cells (the blank cells beyond the ends
+     * are not stored).
+     */
+    public int length() {
+        return Node.sizeOf( left ) + 1 + Node.sizeOf( right );
+    }
+    
+    /**
+     * @return The position of the head in toString().
+     */
+    public int getPosition() {
+        return Node.sizeOf( left );
+    }
+    
+    /**
+     * @return The contents of the tape without the blank symbols at the
+     * beginning and at the end.
+     */
+    public String getCleanedContents() {
+        
+        String s = toString();
+        int b = 0;
+        int e = s.length();
+        
+        while ( b < e && s.charAt( b ) == BLANK ) {
+            b++;
+        }
+        while ( e > b && s.charAt( e - 1 ) == BLANK ) {
+            e--;
+        }
+        
+        return s.substring( b, e );
+        
+    }
+    
+    /**
+     * @return The stored cells, from the left to the right.
+     */
+    @Override
+    public String toString() {
+        
+        int leftSize = Node.sizeOf( left );
+        char[] cells = new char[length()];
+        
+        int i = leftSize - 1;
+        for ( Node n = left; n != null; n = n.below ) {
+            cells[i--] = n.symbol;
+        }
+        
+        cells[leftSize] = head;
+        
+        i = leftSize + 1;
+        for ( Node n = right; n != null; n = n.below ) {
+            cells[i++] = n.symbol;
+        }
+        
+        return new String( cells );
+        
+    }
+    
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+    
+    @Override
+    public boolean equals( Object obj ) {
+        if ( this == obj ) {
+            return true;
+        }
+        if ( obj == null ) {
+            return false;
+        }
+        if ( getClass() != obj.getClass() ) {
+            return false;
+        }
+        final TMPersistentTape other = (TMPersistentTape) obj;
+        if ( this.hash != other.hash || this.head != other.head ) {
+            return false;
+        }
+        return Node.equals( left, other.left ) && Node.equals( right, other.right );
+    }
+    
+    /**
+     * A node of an immutable stack of cells. The null reference is the
+     * empty stack and a blank is never pushed onto it.
+     */
+    private static final class Node {
+        
+        private final char symbol;
+        private final Node below;
+        private final int size;
+        private final int hash;
+        
+        private Node( char symbol, Node below ) {
+            this.symbol = symbol;
+            this.below = below;
+            this.size = sizeOf( below ) + 1;
+            this.hash = 31 * hashOf( below ) + symbol;
+        }
+        
+        static Node push( Node stack, char symbol ) {
+            if ( stack == null && symbol == BLANK ) {
+                return null;
+            }
+            return new Node( symbol, stack );
+        }
+        
+        static int sizeOf( Node stack ) {
+            return stack == null ? 0 : stack.size;
+        }
+        
+        static int hashOf( Node stack ) {
+            return stack == null ? 0 : stack.hash;
+        }
+        
+        static boolean equals( Node a, Node b ) {
+            
+            if ( sizeOf( a ) != sizeOf( b ) || hashOf( a ) != hashOf( b ) ) {
+                return false;
+            }
+            
+            // stops at the first shared node
+            while ( a != b ) {
+                if ( a.symbol != b.symbol ) {
+                    return false;
+                }
+                a = a.below;
+                b = b.below;
+            }
+            
+            return true;
+            
+        }
+        
+    }
+    
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.tm;
+
+import br.com.davidbuzatto.yaas.util.ApplicationConstants;
+
+/**
+ * The budgets of a Turing Machine execution: how many steps it can take,
+ * for how long it can run, how much the tape can grow and how many of the
+ * last steps are kept in the trace to be shown as IDs.
+ * 
+ * A zero limit means that there is no limit. Loop detection (see
+ * TMCycleDetector) is enabled by default and stops the execution as soon
+ * as a configuration repeats.
+ * 
+ * Nondeterministic Turing Machines (see TMConfigurationSearch) are also
+ * limited by the number of explored configurations, the maximum number of
+ * steps limits the depth of their configuration trees and their layers can
+ * be expanded in parallel.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class TMRunConfiguration {
+    
+    private long maxSteps;
+    private long maxTime;
+    private int maxTapeLength;
+    private int traceSize;
+    private boolean detectLoops;
+    private int maxConfigurations;
+    private boolean parallel;
+    
+    /**
+     * Creates a configuration with the default budgets.
+     */
+    public TMRunConfiguration() {
+        this( 
+            ApplicationConstants.TURING_MACHINE_MAX_STEPS, 
+            ApplicationConstants.TURING_MACHINE_MAX_TIME, 
+            ApplicationConstants.TURING_MACHINE_MAX_TAPE_LENGTH, 
+            ApplicationConstants.TURING_MACHINE_MAX_COUNT );
+    }
+    
+    /**
+     * Creates a configuration.
+     * 
+     * @param maxSteps The maximum number of steps.
+     * @param maxTime The maximum execution time, in milliseconds.
+     * @param maxTapeLength The maximum number of cells of the tape.
+     * @param traceSize How many of the last steps are kept in the trace.
+     */
+    public TMRunConfiguration( long maxSteps, long maxTime, int maxTapeLength, int traceSize ) {
+        setMaxSteps( maxSteps );
+        setMaxTime( maxTime );
+        setMaxTapeLength( maxTapeLength );
+        setTraceSize( traceSize );
+        this.detectLoops = true;
+        this.maxConfigurations = ApplicationConstants.TURING_MACHINE_MAX_CONFIGURATIONS;
+    }
+
+    public long getMaxSteps() {
+        return maxSteps;
+    }
+
+    public void setMaxSteps( long maxSteps ) {
+        if ( maxSteps < 0 ) {
+            throw new IllegalArgumentException( "The maximum number of steps can't be negative!" );
+        }
+        this.maxSteps = maxSteps;
+    }
+
+    public long getMaxTime() {
+        return maxTime;
+    }
+
+    public void setMaxTime( long maxTime ) {
+        if ( maxTime < 0 ) {
+            throw new IllegalArgumentException( "The maximum execution time can't be negative!" );
+        }
+        this.maxTime = maxTime;
+    }
+
+    public int getMaxTapeLength() {
+        return maxTapeLength;
+    }
+
+    public void setMaxTapeLength( int maxTapeLength ) {
+        if ( maxTapeLength < 0 ) {
+            throw new IllegalArgumentException( "The maximum tape length can't be negative!" );
+        }
+        this.maxTapeLength = maxTapeLength;
+    }
+
+    public int getTraceSize() {
+        return traceSize;
+    }
+
+    public void setTraceSize( int traceSize ) {
+        if ( traceSize < 0 ) {
+            throw new IllegalArgumentException( "The trace size can't be negative!" );
+        }
+        this.traceSize = traceSize;
+    }
+
+    public boolean isDetectLoops() {
+        return detectLoops;
+    }
+
+    public void setDetectLoops( boolean detectLoops ) {
+        this.detectLoops = detectLoops;
+    }
+
+    public int getMaxConfigurations() {
+        return maxConfigurations;
+    }
+
+    public void setMaxConfigurations( int maxConfigurations ) {
+        if ( maxConfigurations < 0 ) {
+            throw new IllegalArgumentException( "The maximum number of configurations can't be negative!" );
+        }
+        this.maxConfigurations = maxConfigurations;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel( boolean parallel ) {
+        this.parallel = parallel;
+    }
+    
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.tm;
+
+/**
+ * How a Turing Machine execution ended.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public enum TMRunStatus {
+    
+    HALTED,
+    STEP_LIMIT_REACHED,
+    TIME_LIMIT_REACHED,
+    TAPE_LIMIT_REACHED,
+    CONFIGURATION_LIMIT_REACHED,
+    LOOP_DETECTED,
+    CANCELLED
+    
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.tm;
+
+import br.com.davidbuzatto.yaas.util.CharacterConstants;
+import java.util.Arrays;
+
+/**
+ * A mutable Turing Machine tape.
+ * 
+ * The cells are stored in a char array with free space on both sides, so
+ * reading, writing and moving the head are O(1) and the tape grows in both
+ * directions with amortized O(1) cost, instead of copying the whole tape on
+ * every step.
+ * 
+ * The tape follows the same rules of the IDs: it contains at least one cell
+ * and, when the head moves past one of its ends, a blank cell is added at
+ * that end.
+ * 
+ * The tape also keeps a polynomial hash of its contents, updated in O(1) on
+ * each write and move, where the blank cells don't contribute. Scaled by the
+ * position of the head (getRelativeHash()), it identifies the contents as
+ * seen from the head, no matter how many blank cells were added to the ends,
+ * which is what matters to decide if a configuration repeats.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class TMTape {
+    
+    private static final int INITIAL_MARGIN = 16;
+    
+    // odd, so it is invertible modulo 2^64
+    private static final long HASH_BASE = 0x9E3779B97F4A7C15L;
+    private static final long HASH_BASE_INVERSE = inverse( HASH_BASE );
+    
+    private char[] cells;
+    
+    // the tape is the range [start, end) of cells
+    private int start;
+    private int end;
+    private int head;
+    
+    // hash = sum of code(cell) * HASH_BASE^p, where p is the position of the
+    // cell relative to the first cell of the initial tape
+    private long hash;
+    private long headPower;
+    private long inverseHeadPower;
+    
+    /**
+     * Creates a new tape with the head at the first symbol of a string.
+     * 
+     * @param string The initial contents of the tape. An empty string
+     * produces a tape with a single blank cell.
+     */
+    public TMTape( String string ) {
+        
+        int length = Math.max( string.length(), 1 );
+        
+        cells = new char[length + 2 * INITIAL_MARGIN];
+        start = INITIAL_MARGIN;
+        end = start + length;
+        head = start;
+        
+        if ( string.isEmpty() ) {
+            cells[start] = CharacterConstants.BLANK_TAPE_SYMBOL;
+        } else {
+            string.getChars( 0, string.length(), cells, start );
+        }
+        
+        headPower = 1;
+        inverseHeadPower = 1;
+        long power = 1;
+        for ( int i = start; i < end; i++ ) {
+            hash += code( cells[i] ) * power;
+            power *= HASH_BASE;
+        }
+        
+    }
+    
+    /**
+     * Creates a copy of a tape.
+     * 
+     * @param tape The tape to be copied.
+     */
+    public TMTape( TMTape tape ) {
+        cells = tape.cells.clone();
+        start = tape.start;
+        end = tape.end;
+        head = tape.head;
+        hash = tape.hash;
+        headPower = tape.headPower;
+        inverseHeadPower = tape.inverseHeadPower;
+    }
+    
+    /**
+     * @return The symbol under the head.
+     */
+    public char read() {
+        return cells[head];
+    }
+    
+    /**
+     * Writes a symbol in the cell under the head.
+     * 
+     * @param symbol The symbol to be written.
+     */
+    public void write( char symbol ) {
+        hash += ( code( symbol ) - code( cells[head] ) ) * headPower;
+        cells[head] = symbol;
+    }
+    
+    /**
+     * Moves the head one cell to the left, adding a blank cell at the
+     * beginning of the tape if needed.
+     * 
+     * @return true if a cell was added, false otherwise.
+     */
+    public boolean moveLeft() {
+        
+        boolean added = false;
+        
+        if ( head == start ) {
+            if ( start == 0 ) {
+                grow();
+            }
+            cells[--start] = CharacterConstants.BLANK_TAPE_SYMBOL;
+            added = true;
+        }
+        
+        head--;
+        headPower *= HASH_BASE_INVERSE;
+        inverseHeadPower *= HASH_BASE;
+        return added;
+        
+    }
+    
+    /**
+     * Moves the head one cell to the right, adding a blank cell at the end
+     * of the tape if needed.
+     * 
+     * @return true if a cell was added, false otherwise.
+     */
+    public boolean moveRight() {
+        
+        boolean added = false;
+        
+        if ( head == end - 1 ) {
+            if ( end == cells.length ) {
+                grow();
+            }
+            cells[end++] = CharacterConstants.BLANK_TAPE_SYMBOL;
+            added = true;
+        }
+        
+        head++;
+        headPower *= HASH_BASE;
+        inverseHeadPower *= HASH_BASE_INVERSE;
+        return added;
+        
+    }
+    
+    /**
+     * Executes an operation: writes its symbol and moves the head.
+     * 
+     * @param operation The operation to be executed.
+     * @return true if a cell was added to the tape, false otherwise.
+     */
+    public boolean execute( TMOperation operation ) {
+        
+        write( operation.getWriteSymbol() );
+        
+        if ( operation.getType() == TMMovementType.MOVE_RIGHT ) {
+            return moveRight();
+        } else {
+            return moveLeft();
+        }
+        
+    }
+    
+    /**
+     * Undoes the execution of an operation.
+     * 
+     * @param operation The executed operation.
+     * @param overwritten The symbol that was under the head before the
+     * execution.
+     * @param added If the execution added a cell to the tape.
+     */
+    public void undo( TMOperation operation, char overwritten, boolean added ) {
+        
+        if ( operation.getType() == TMMovementType.MOVE_RIGHT ) {
+            head--;
+            headPower *= HASH_BASE_INVERSE;
+            inverseHeadPower *= HASH_BASE;
+            if ( added ) {
+                end--;
+            }
+        } else {
+            head++;
+            headPower *= HASH_BASE;
+            inverseHeadPower *= HASH_BASE_INVERSE;
+            if ( added ) {
+                start++;
+            }
+        }
+        
+        write( overwritten );
+        
+    }
+    
+    /**
+     * Doubles the capacity, keeping the tape centralized.
+     */
+    private void grow() {
+        
+        int length = end - start;
+        char[] newCells = new char[cells.length * 2];
+        int newStart = ( newCells.length - length ) / 2;
+        
+        System.arraycopy( cells, start, newCells, newStart, length );
+        
+        head += newStart - start;
+        end = newStart + length;
+        start = newStart;
+        cells = newCells;
+        
+    }
+    
+    /**
+     * @return The position of the head, relative to the first cell of the
+     * tape.
+     */
+    public int getPosition() {
+        return head - start;
+    }
+    
+    /**
+     * Returns the first cell of a window of the tape around the head.
+     * 
+     * @param maxLength The maximum length of the window.
+     * @return The position of the first cell of the window, relative to the
+     * first cell of the tape.
+     */
+    public int getWindowStart( int maxLength ) {
+        
+        if ( end - start <= maxLength ) {
+            return 0;
+        }
+        
+        int ws = Math.min( head - maxLength / 2, end - maxLength );
+        return Math.max( ws, start ) - start;
+        
+    }
+    
+    /**
+     * Returns the contents of a window of the tape around the head.
+     * 
+     * @param maxLength The maximum length of the window.
+     * @return The contents of the window (the whole tape if it fits).
+     */
+    public String getWindow( int maxLength ) {
+        int ws = start + getWindowStart( maxLength );
+        return new String( cells, ws, Math.min( maxLength, end - ws ) );
+    }
+    
+    /**
+     * @return The hash of the contents of the tape as seen from the head.
+     * Two tapes that are equal relative to their heads (see
+     * equalsRelativeToHead) have the same relative hash.
+     */
+    public long getRelativeHash() {
+        return hash * inverseHeadPower;
+    }
+    
+    /**
+     * Verifies if two tapes have the same contents as seen from their heads,
+     * ignoring the blank cells at the ends.
+     * 
+     * @param other The other tape.
+     * @return true if the tapes are equal relative to their heads, false
+     * otherwise.
+     */
+    public boolean equalsRelativeToHead( TMTape other ) {
+        
+        int s1 = firstNonBlank();
+        int s2 = other.firstNonBlank();
+        int e1 = lastNonBlank();
+        int e2 = other.lastNonBlank();
+        
+        // both blank
+        if ( s1 > e1 || s2 > e2 ) {
+            return s1 > e1 && s2 > e2;
+        }
+        
+        if ( s1 - head != s2 - other.head || e1 - s1 != e2 - s2 ) {
+            return false;
+        }
+        
+        return Arrays.equals( cells, s1, e1 + 1, other.cells, s2, e2 + 1 );
+        
+    }
+    
+    private int firstNonBlank() {
+        int i = start;
+        while ( i < end && cells[i] == CharacterConstants.BLANK_TAPE_SYMBOL ) {
+            i++;
+        }
+        return i;
+    }
+    
+    private int lastNonBlank() {
+        int i = end - 1;
+        while ( i >= start && cells[i] == CharacterConstants.BLANK_TAPE_SYMBOL ) {
+            i--;
+        }
+        return i;
+    }
+    
+    private static long code( char symbol ) {
+        return symbol == CharacterConstants.BLANK_TAPE_SYMBOL ? 0 : symbol + 1;
+    }
+    
+    /**
+     * Computes the multiplicative inverse of an odd number modulo 2^64 by
+     * Newton's iteration.
+     */
+    private static long inverse( long a ) {
+        long x = a;
+        for ( int i = 0; i < 5; i++ ) {
+            x *= 2 - a * x;
+        }
+        return x;
+    }
+    
+    /**
+     * @return The number of cells of the tape.
+     */
+    public int length() {
+        return end - start;
+    }
+    
+    /**
+     * @return The contents of the tape without the blank symbols at the
+     * beginning and at the end.
+     */
+    public String getCleanedContents() {
+        
+        int s = start;
+        int e = end;
+        
+        while ( s < e && cells[s] == CharacterConstants.BLANK_TAPE_SYMBOL ) {
+            s++;
+        }
+        while ( e > s && cells[e - 1] == CharacterConstants.BLANK_TAPE_SYMBOL ) {
+            e--;
+        }
+        
+        return new String( cells, s, e - s );
+        
+    }
+    
+    /**
+     * @return The contents of the tape.
+     */
+    @Override
+    public String toString() {
+        return new String( cells, start, end - start );
+    }
+    
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        for ( int i = start; i < end; i++ ) {
+            hash = 31 * hash + cells[i];
+        }
+        return 31 * hash + ( head - start );
+    }
+    
+    @Override
+    public boolean equals( Object obj ) {
+        if ( this == obj ) {
+            return true;
+        }
+        if ( obj == null ) {
+            return false;
+        }
+        if ( getClass() != obj.getClass() ) {
+            return false;
+        }
+        final TMTape other = (TMTape) obj;
+        if ( head - start != other.head - other.start ) {
+            return false;
+        }
+        return Arrays.equals( cells, start, end, other.cells, other.start, other.end );
+    }
+    
+}
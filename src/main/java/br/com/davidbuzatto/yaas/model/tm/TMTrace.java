@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.model.tm;
+
+import br.com.davidbuzatto.yaas.util.ApplicationConstants;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bounded trace of a Turing Machine execution: a ring buffer that keeps
+ * only the last steps, so long executions run in constant memory.
+ * 
+ * Each step stores the executed transition and operation, the symbol that
+ * was overwritten and if the tape grew, which is enough to undo the step.
+ * The IDs of the kept steps are materialized undoing them over a copy of
+ * the final tape and then replaying them.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class TMTrace {
+    
+    private final TMTransition[] transitions;
+    private final TMOperation[] operations;
+    private final char[] overwritten;
+    private final boolean[] grew;
+    
+    // index of the oldest step in the buffer
+    private int first;
+    private int size;
+    private long totalSteps;
+    
+    /**
+     * Creates a new trace.
+     * 
+     * @param capacity How many of the last steps are kept.
+     */
+    public TMTrace( int capacity ) {
+        transitions = new TMTransition[capacity];
+        operations = new TMOperation[capacity];
+        overwritten = new char[capacity];
+        grew = new boolean[capacity];
+    }
+    
+    /**
+     * Records a step, discarding the oldest one if the trace is full.
+     * 
+     * @param transition The executed transition.
+     * @param operation The executed operation.
+     * @param overwrittenSymbol The symbol that was under the head.
+     * @param tapeGrew If the tape grew when the head was moved.
+     */
+    public void add( 
+            TMTransition transition, 
+            TMOperation operation, 
+            char overwrittenSymbol, 
+            boolean tapeGrew ) {
+        
+        totalSteps++;
+        int capacity = transitions.length;
+        
+        if ( capacity == 0 ) {
+            return;
+        }
+        
+        int i;
+        if ( size < capacity ) {
+            i = ( first + size++ ) % capacity;
+        } else {
+            i = first;
+            first = ( first + 1 ) % capacity;
+        }
+        
+        transitions[i] = transition;
+        operations[i] = operation;
+        overwritten[i] = overwrittenSymbol;
+        grew[i] = tapeGrew;
+        
+    }
+    
+    /**
+     * Materializes the IDs of the kept steps.
+     * 
+     * @param finalTape The tape after the last step. It is not changed.
+     * @param firstId The ID before the first kept step or null to create it
+     * from the undone tape and the origin state of the first kept step.
+     * @return The IDs, linked as a chain, from the ID before the first kept
+     * step to the ID after the last one, or an empty list if there are no
+     * kept steps and firstId is null.
+     */
+    public List<TMID> materialize( TMTape finalTape, TMID firstId ) {
+        
+        List<TMID> ids = new ArrayList<>();
+        int capacity = transitions.length;
+        
+        if ( size == 0 && firstId == null ) {
+            return ids;
+        }
+        
+        TMTape tape = new TMTape( finalTape );
+        
+        for ( int k = size - 1; k >= 0; k-- ) {
+            int i = ( first + k ) % capacity;
+            tape.undo( operations[i], overwritten[i], grew[i] );
+        }
+        
+        TMID node = firstId;
+        if ( node == null ) {
+            node = createId( transitions[first].getOriginState(), 
+                    tape, null, Color.BLACK );
+        }
+        ids.add( node );
+        
+        for ( int k = 0; k < size; k++ ) {
+            
+            int i = ( first + k ) % capacity;
+            TMTransition t = transitions[i];
+            TMOperation o = operations[i];
+            tape.execute( o );
+            
+            TMID newId = createId( t.getTargetState(), 
+                    tape, o, t.getStrokeColor() );
+            node.addChild( newId );
+            ids.add( newId );
+            node = newId;
+            
+        }
+        
+        return ids;
+        
+    }
+    
+    /**
+     * Creates an ID with the contents of the tape. Long tapes are cut to
+     * TURING_MACHINE_MAX_ID_TAPE_LENGTH cells around the head.
+     */
+    private static TMID createId( TMState state, TMTape tape, TMOperation operation, Color strokeColor ) {
+        
+        int maxLength = ApplicationConstants.TURING_MACHINE_MAX_ID_TAPE_LENGTH;
+        
+        return new TMID( 
+                state, 
+                tape.getWindow( maxLength ), 
+                tape.getPosition() - tape.getWindowStart( maxLength ), 
+                operation, 
+                strokeColor );
+        
+    }
+    
+    /**
+     * @return The number of kept steps.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * @return The number of recorded steps, including the discarded ones.
+     */
+    public long getTotalSteps() {
+        return totalSteps;
+    }
+    
+    /**
+     * @return true if some of the recorded steps were discarded.
+     */
+    public boolean isTruncated() {
+        return totalSteps > size;
+    }
+    
+}
@@ -342,11 +342,14 @@ public class TMArrangement {
     }
     
     /**
-     * Process a TMID tree and organize it.
+     * Process a TMID tree and organize it. The descendants of the collapsed
+     * ids are not processed, so the cost depends only on the visible part of
+     * the tree.
      * 
      * @param root The root node
-     * @param ids All the ids
+     * @param ids The list that will receive the visible ids
      * @param lines The lines that will connect the ids
+     * @param collapsed The ids that have their children hidden
      * @param marginX Margin x
      * @param marginY Margin y
      * @param levelGap Level gap
@@ -357,13 +360,19 @@ public class TMArrangement {
             TMID root, 
             List<TMID> ids,
             List<TMIDLine> lines, 
+            Set<TMID> collapsed,
             int marginX, int marginY,
             int levelGap, int nodeGap ) {
         
         DefaultTreeForTreeLayout<TMID> tree = new DefaultTreeForTreeLayout<>(root);
-        for ( TMID id : ids ) {
-            for ( TMID cId : id.getChildren() ) {
-                tree.addChild( id, cId );
+        ids.add( root );
+        for ( int i = 0; i < ids.size(); i++ ) {
+            TMID id = ids.get( i );
+            if ( !collapsed.contains( id ) ) {
+                for ( TMID cId : id.getChildren() ) {
+                    tree.addChild( id, cId );
+                    ids.add( cId );
+                }
             }
         }
         
@@ -378,17 +387,33 @@ public class TMArrangement {
         }
         
         for ( TMID id : ids ) {
-            for ( TMID cId : id.getChildren() ) {
-                lines.add( new TMIDLine( 
-                        id,
-                        cId,
-                        id.getX1(), 
-                        id.getY1() + 20, 
-                        cId.getX1(),
-                        cId.getY1() - 20, 
-                        cId.getOperation(),
-                        cId.getStrokeColor() ) );
+            if ( !collapsed.contains( id ) ) {
+                for ( TMID cId : id.getChildren() ) {
+                    lines.add( new TMIDLine( 
+                            id,
+                            cId,
+                            id.getX1(), 
+                            id.getY1() + 20, 
+                            cId.getX1(),
+                            cId.getY1() - 20, 
+                            cId.getOperation(),
+                            cId.getStrokeColor() ) );
+                }
             }
+        }
+        
+        return treeLayout.getBounds().getBounds().getSize();
+        
+    }
+    
+    /**
+     * Marks the ancestors of the accepted ids of a TMID tree as accepted.
+     * 
+     * @param ids All the ids
+     */
+    public static void markAcceptedPaths( List<TMID> ids ) {
+        
+        for ( TMID id : ids ) {
             if ( id.isAcceptedByFinalState() || id.isAcceptedByHalt() ) {
                 TMID current = id.getParent();
                 while ( current != null ) {
@@ -399,8 +424,6 @@ public class TMArrangement {
             }
         }
         
-        return treeLayout.getBounds().getBounds().getSize();
-        
     }
     
     /**
@@ -23,14 +23,28 @@ package br.com.davidbuzatto.yaas.util;
  */
 public interface ApplicationConstants {
     
-    public static final String APP_NAME =  Utils.getMavenModel().getName();
-    public static final String APP_VERSION = Utils.getMavenModel().getVersion();
+    public static final String APP_NAME =  MavenModelLoader.getMavenModel().getName();
+    public static final String APP_VERSION = MavenModelLoader.getMavenModel().getVersion();
     public static final boolean IN_DEVELOPMENT = Boolean.parseBoolean( 
-            Utils.getMavenModel().getProperties().getProperty( "development" ) );
+            MavenModelLoader.getMavenModel().getProperties().getProperty( "development" ) );
     
     public static final String LIGHT_THEME = "LIGHT";
     public static final String DARK_THEME = "DARK";
     
     public static final int TURING_MACHINE_MAX_COUNT = 4000;
+    public static final long TURING_MACHINE_MAX_STEPS = 1000000;
+    public static final long TURING_MACHINE_MAX_TIME = 10000;
+    public static final long TURING_MACHINE_SIMULATION_MAX_STEPS = 100000;
+    public static final long TURING_MACHINE_SIMULATION_MAX_TIME = 1000;
+    public static final int TURING_MACHINE_MAX_TAPE_LENGTH = 10000000;
+    public static final int TURING_MACHINE_MAX_ID_TAPE_LENGTH = 1000;
+    public static final int TURING_MACHINE_MAX_CONFIGURATIONS = 200000;
+    public static final int PUSHDOWN_AUTOMATON_MAX_CONFIGURATIONS = 2000000;
+    public static final int PUSHDOWN_AUTOMATON_MAX_IDS = 4000;
+    public static final int PUSHDOWN_AUTOMATON_MAX_ID_DEPTH = 500;
+    
+    public static final int BATCH_TEST_THREADS = Math.max( 1, Integer.getInteger( 
+            "yaas.batchTestThreads", Runtime.getRuntime().availableProcessors() - 1 ) );
+    public static final long BATCH_TEST_MAX_TIME = 2000;
     
 }
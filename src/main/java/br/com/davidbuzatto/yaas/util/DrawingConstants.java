@@ -129,6 +129,9 @@ public interface DrawingConstants {
     public static final Color REJECTED_LABEL_FOREGROUND_COLOR = new Color( 204, 51, 51 );
     public static final Color REJECTED_TEXTFIELD_FOREGROUND_COLOR = new Color( 63, 48, 48 );
     public static final Color REJECTED_TEXTFIELD_BACKGROUND_COLOR = new Color( 204, 154, 154 );
+    public static final Color LIMIT_REACHED_LABEL_FOREGROUND_COLOR = new Color( 204, 136, 0 );
+    public static final Color LIMIT_REACHED_TEXTFIELD_FOREGROUND_COLOR = new Color( 64, 56, 40 );
+    public static final Color LIMIT_REACHED_TEXTFIELD_BACKGROUND_COLOR = new Color( 204, 182, 136 );
     
     public static final Color ACCEPTED_SIMULATION_RESULT_COLOR = new Color( 0, 204, 102 );
     public static final Color REJECTED_SIMULATION_RESULT_COLOR = new Color( 204, 51, 51 );
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.util;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Loads the maven model of the application. This class doesn't depend on
+ * Swing, so the model classes can read their properties (e.g. the debug
+ * flags) in headless executions (see BatchRunner).
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class MavenModelLoader {
+    
+    private static Model mavenModel;
+    
+    /**
+     * Return the maven model to information extraction. If the model can't
+     * be read, an empty model is returned.
+     * 
+     * @return  The maven model.
+     */
+    public static synchronized Model getMavenModel() {
+        
+        MavenXpp3Reader reader = new MavenXpp3Reader();
+        
+        if ( mavenModel == null ) {
+            try {
+                if ( ( new File( "pom.xml" )).exists() ) {
+                    mavenModel = reader.read( new FileReader( "pom.xml" ) );
+                } else {
+                    InputStream is = MavenModelLoader.class.getResourceAsStream(
+                            "/META-INF/maven/br.com.davidbuzatto/YAAS/pom.xml" );
+                    if ( is == null ) {
+                        throw new IOException( "The maven model of the application was not found!" );
+                    }
+                    mavenModel = reader.read( new InputStreamReader( is ) );
+                }
+            } catch ( IOException | XmlPullParserException exc ) {
+                System.err.println( exc.getMessage() );
+                mavenModel = new Model();
+            }
+        }
+        
+        return mavenModel;
+      
+    }
+    
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright (C) 2023 Prof. Dr. David Buzatto
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package br.com.davidbuzatto.yaas.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Enumerates the strings of Σ* in shortlex order (by length and then in the
+ * order of the symbols of the alphabet): ε, a, b, aa, ab, ba, bb, aaa etc.
+ * 
+ * The current string is kept as a mixed-radix counter, with one digit (the
+ * position of the symbol in the alphabet) for each character, and a char
+ * buffer that is changed in place, so the enumeration doesn't allocate
+ * memory (except when the length grows) and doesn't depend on the strings
+ * that were already generated. next() returns a CharSequence view of the
+ * buffer, which is valid only until the next call. Use toString() on it to
+ * keep the string.
+ * 
+ * Each string has a rank, its position in the enumeration (ε is 0), so the
+ * enumeration can start at any length or rank without generating the strings
+ * before it. The ranks are long values, so they are valid while the number of
+ * strings up to the current length fits a long.
+ * 
+ * The spliterator splits the ranks in ranges that start at a prefix
+ * boundary, so the strings can be processed in parallel streams.
+ * 
+ * @author Prof. Dr. David Buzatto
+ */
+public class SigmaStarEnumerator {
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private final char[] symbols;
+    
+    private int[] counter;
+    private char[] buffer;
+    private int length;
+    private long rank;
+    
+    // true if the counter contains the string that next() must return
+    private boolean positioned;
+    
+    private final CharSequence view;
+    
+    public SigmaStarEnumerator( Set<Character> alphabet )
+            throws IllegalArgumentException {
+        this( alphabet, 0 );
+    }
+    
+    public SigmaStarEnumerator( Set<Character> alphabet, int startingLength )
+            throws IllegalArgumentException {
+        this( new ArrayList<>( alphabet ), startingLength );
+    }
+    
+    public SigmaStarEnumerator( List<Character> alphabet, int startingLength )
+            throws IllegalArgumentException {
+        this( toArray( alphabet ) );
+        seekLength( startingLength );
+    }
+    
+    private SigmaStarEnumerator( char[] symbols ) {
+        this.symbols = symbols;
+        this.counter = new int[INITIAL_CAPACITY];
+        this.buffer = new char[INITIAL_CAPACITY];
+        this.view = new View();
+        this.positioned = true;
+    }
+    
+    /**
+     * Positions the enumeration at the first string of a length, i.e., the
+     * next call to next() will return it.
+     * 
+     * @param length The length.
+     * @throws IllegalArgumentException If the length is negative or if the
+     * rank of the string doesn't fit a long.
+     */
+    public void seekLength( int length ) throws IllegalArgumentException {
+        
+        if ( length < 0 ) {
+            throw new IllegalArgumentException( "The length must not be negative!" );
+        }
+        
+        rank = offsetOf( length );
+        setLength( length );
+        Arrays.fill( counter, 0, length, 0 );
+        Arrays.fill( buffer, 0, length, symbols[0] );
+        positioned = true;
+        
+    }
+    
+    /**
+     * Positions the enumeration at the string of a rank, i.e., the next call
+     * to next() will return it.
+     * 
+     * @param rank The rank (0 is the empty string).
+     * @throws IllegalArgumentException If the rank is negative or if the
+     * number of strings up to the length of the string doesn't fit a long.
+     */
+    public void seek( long rank ) throws IllegalArgumentException {
+        
+        if ( rank < 0 ) {
+            throw new IllegalArgumentException( "The rank must not be negative!" );
+        }
+        
+        int k = symbols.length;
+        int n = 0;
+        long offset = 0;
+        long count = 1;
+        
+        if ( k == 1 ) {
+            
+            // there is one string of each length, so the length is the rank
+            if ( rank > Integer.MAX_VALUE ) {
+                throw new IllegalArgumentException(
+                        "There are too many strings to be enumerated!" );
+            }
+            n = (int) rank;
+            offset = rank;
+            
+        } else {
+            
+            // finds the length of the string: the ranks of the strings of
+            // length n start at 1 + k + k^2 + ... + k^(n-1)
+            try {
+                while ( rank - offset >= count ) {
+                    offset += count;
+                    n++;
+                    count = Math.multiplyExact( count, k );
+                }
+            } catch ( ArithmeticException exc ) {
+                throw new IllegalArgumentException(
+                        "There are too many strings to be enumerated!" );
+            }
+            
+        }
+        
+        setLength( n );
+        
+        long index = rank - offset;
+        for ( int i = n - 1; i >= 0; i-- ) {
+            counter[i] = (int) ( index % k );
+            buffer[i] = symbols[counter[i]];
+            index /= k;
+        }
+        
+        this.rank = rank;
+        positioned = true;
+        
+    }
+    
+    /**
+     * Moves to the next string.
+     * 
+     * @return A view of the string, valid until the next call.
+     */
+    public CharSequence next() {
+        
+        if ( positioned ) {
+            positioned = false;
+            return view;
+        }
+        
+        int i = length - 1;
+        
+        // increments the counter, from the last digit to the first
+        while ( i >= 0 && ++counter[i] == symbols.length ) {
+            counter[i] = 0;
+            buffer[i] = symbols[0];
+            i--;
+        }
+        
+        if ( i >= 0 ) {
+            buffer[i] = symbols[counter[i]];
+        } else {
+            setLength( length + 1 );
+            counter[length - 1] = 0;
+            buffer[length - 1] = symbols[0];
+        }
+        
+        rank++;
+        return view;
+        
+    }
+    
+    /**
+     * Returns the rank of the string returned by the last call to next() or
+     * of the string that the next call will return, if the enumeration was
+     * just positioned.
+     * 
+     * @return The rank.
+     */
+    public long getRank() {
+        return rank;
+    }
+    
+    /**
+     * Returns the length of the string returned by the last call to next()
+     * or of the string that the next call will return, if the enumeration was
+     * just positioned.
+     * 
+     * @return The length.
+     */
+    public int getLength() {
+        return length;
+    }
+    
+    /**
+     * Returns the number of strings with length from 0 to length - 1, i.e.,
+     * the rank of the first string of a length.
+     * 
+     * @param length The length.
+     * @return The rank of the first string of the length.
+     * @throws IllegalArgumentException If the rank doesn't fit a long.
+     */
+    public long offsetOf( int length ) throws IllegalArgumentException {
+        
+        long offset = 0;
+        long count = 1;
+        
+        try {
+            for ( int n = 0; n < length; n++ ) {
+                offset = Math.addExact( offset, count );
+                if ( n < length - 1 ) {
+                    count = Math.multiplyExact( count, symbols.length );
+                }
+            }
+        } catch ( ArithmeticException exc ) {
+            throw new IllegalArgumentException(
+                    "There are too many strings to be enumerated!" );
+        }
+        
+        return offset;
+        
+    }
+    
+    /**
+     * Creates a spliterator of the strings with length from minLength to
+     * maxLength. The elements are views of the buffer of the enumerator of
+     * the spliterator, valid only during the call of the action.
+     * 
+     * @param minLength The minimum length.
+     * @param maxLength The maximum length.
+     * @return The spliterator.
+     * @throws IllegalArgumentException If the lengths are invalid or if there
+     * are too many strings.
+     */
+    public Spliterator<CharSequence> spliterator( int minLength, int maxLength )
+            throws IllegalArgumentException {
+        
+        if ( minLength < 0 || maxLength < minLength ) {
+            throw new IllegalArgumentException( "Invalid length interval!" );
+        }
+        
+        return new RankSpliterator( offsetOf( minLength ), offsetOf( maxLength + 1 ) );
+        
+    }
+    
+    /**
+     * Creates a stream of the strings with length from minLength to
+     * maxLength. The elements are views, so they must be converted to
+     * strings to be collected.
+     * 
+     * @param minLength The minimum length.
+     * @param maxLength The maximum length.
+     * @param parallel If the stream must be parallel.
+     * @return The stream.
+     * @throws IllegalArgumentException If the lengths are invalid or if there
+     * are too many strings.
+     */
+    public Stream<CharSequence> stream( int minLength, int maxLength, boolean parallel )
+            throws IllegalArgumentException {
+        return StreamSupport.stream( spliterator( minLength, maxLength ), parallel );
+    }
+    
+    private void setLength( int length ) {
+        
+        if ( length > counter.length ) {
+            int capacity = Math.max( length, counter.length * 2 );
+            counter = Arrays.copyOf( counter, capacity );
+            buffer = Arrays.copyOf( buffer, capacity );
+        }
+        
+        this.length = length;
+        
+    }
+    
+    private static char[] toArray( List<Character> alphabet )
+            throws IllegalArgumentException {
+        
+        if ( alphabet.isEmpty() ) {
+            throw new IllegalArgumentException(
+                    "The alphabet must contain at least one symbol." );
+        }
+        
+        char[] symbols = new char[alphabet.size()];
+        for ( int i = 0; i < symbols.length; i++ ) {
+            symbols[i] = alphabet.get( i );
+        }
+        
+        return symbols;
+        
+    }
+    
+    /**
+     * A view of the current string.
+     */
+    private class View implements CharSequence {
+        
+        @Override
+        public int length() {
+            return length;
+        }
+        
+        @Override
+        public char charAt( int index ) {
+            if ( index < 0 || index >= length ) {
+                throw new IndexOutOfBoundsException( index );
+            }
+            return buffer[index];
+        }
+        
+        @Override
+        public CharSequence subSequence( int start, int end ) {
+            return toString().substring( start, end );
+        }
+        
+        @Override
+        public String toString() {
+            return new String( buffer, 0, length );
+        }
+        
+    }
+    
+    /**
+     * A spliterator of the strings with rank from "from" (inclusive) to "to"
+     * (exclusive). Each spliterator has its own enumerator, created when the
+     * first string is needed.
+     */
+    private class RankSpliterator implements Spliterator<CharSequence> {
+        
+        private static final int MIN_SPLIT_SIZE = 1024;
+        
+        private long from;
+        private final long to;
+        private SigmaStarEnumerator enumerator;
+        
+        RankSpliterator( long from, long to ) {
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        public boolean tryAdvance( Consumer<? super CharSequence> action ) {
+            
+            if ( from >= to ) {
+                return false;
+            }
+            
+            action.accept( enumerator().next() );
+            from++;
+            return true;
+            
+        }
+        
+        @Override
+        public void forEachRemaining( Consumer<? super CharSequence> action ) {
+            
+            if ( from < to ) {
+                SigmaStarEnumerator e = enumerator();
+                for ( ; from < to; from++ ) {
+                    action.accept( e.next() );
+                }
+            }
+            
+        }
+        
+        @Override
+        public Spliterator<CharSequence> trySplit() {
+            
+            if ( to - from < MIN_SPLIT_SIZE * 2 ) {
+                return null;
+            }
+            
+            long middle = alignToPrefix( from + ( to - from ) / 2 );
+            Spliterator<CharSequence> prefix = new RankSpliterator( from, middle );
+            
+            from = middle;
+            enumerator = null;
+            
+            return prefix;
+            
+        }
+        
+        /**
+         * Moves a rank back to the first string of the largest block of
+         * strings with a common prefix that starts after "from".
+         */
+        private long alignToPrefix( long rank ) {
+            
+            SigmaStarEnumerator e = new SigmaStarEnumerator( symbols );
+            e.seek( rank );
+            long offset = offsetOf( e.getLength() );
+            long index = rank - offset;
+            
+            long block = 1;
+            long aligned = rank;
+            for ( int i = 0; i < e.getLength(); i++ ) {
+                block *= symbols.length;
+                long candidate = offset + index - index % block;
+                if ( candidate <= from ) {
+                    break;
+                }
+                aligned = candidate;
+            }
+            
+            return aligned;
+            
+        }
+        
+        private SigmaStarEnumerator enumerator() {
+            if ( enumerator == null ) {
+                enumerator = new SigmaStarEnumerator( symbols );
+                enumerator.seek( from );
+            }
+            return enumerator;
+        }
+        
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+        
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL;
+        }
+        
+    }
+    
+}
@@ -16,7 +16,6 @@
  */
 package br.com.davidbuzatto.yaas.util;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -25,9 +24,9 @@ import java.util.Set;
  * simulates the generation of a infinite set like Σ*. Its possible
  * to specify which starting length of strings will be produced first.
  * 
- * This class maintain a cache of the already generated strings for
- * performance purposes. About 15*10^6 (15 million) strings per second on
- * the developing machine.
+ * The strings are generated by a SigmaStarEnumerator, so no string is kept
+ * besides the current one. Use the enumerator directly to avoid the creation
+ * of a String for each generated string.
  * 
  * The generation only moves forward, i.e., once next() is called, you can't
  * get the previous generated string.
@@ -36,13 +35,7 @@ import java.util.Set;
  */
 public class SigmaStarGeneratorStream {
     
-    private final List<Character> alphabet;
-    private List<String> generatingCache;
-    private List<String> currentCache;
-    
-    private int currentLength;
-    private int currentAlphabetPosition;
-    private int currentBasePosition;
+    private final SigmaStarEnumerator enumerator;
 
     public SigmaStarGeneratorStream( Set<Character> alphabet )
             throws IllegalArgumentException {
@@ -51,68 +44,16 @@ public class SigmaStarGeneratorStream {
     
     public SigmaStarGeneratorStream( Set<Character> alphabet, int startingLength )
             throws IllegalArgumentException {
-        this( new ArrayList<>( alphabet ), startingLength );
+        this.enumerator = new SigmaStarEnumerator( alphabet, startingLength );
     }
     
     public SigmaStarGeneratorStream( List<Character> alphabet, int startingLength )
             throws IllegalArgumentException {
-        
-        if ( alphabet.isEmpty() ) {
-            throw new IllegalArgumentException(
-                    "The alphabet must contain at least one symbol." );
-        }
-        
-        this.alphabet = alphabet;
-        this.generatingCache = new ArrayList<>();
-        this.currentCache = new ArrayList<>();
-        
-        while ( currentLength < startingLength ) {
-            next();
-        }
-        
-        if ( startingLength > 0 ) {
-            currentBasePosition = 0;
-            currentAlphabetPosition = 0;
-            if ( !generatingCache.isEmpty() ) {
-                generatingCache.remove( generatingCache.size() - 1 );
-            }
-        }
-        
+        this.enumerator = new SigmaStarEnumerator( alphabet, startingLength );
     }
     
     public String next() {
-        
-        if ( currentLength == 0 ) {
-            generatingCache.add( "" );
-            currentCache = generatingCache;
-            generatingCache = new ArrayList<>();
-            currentLength++;
-            return "";
-        } else {
-            
-            if ( currentBasePosition >= currentCache.size() ) {
-                
-                currentBasePosition = 0;
-                currentAlphabetPosition++;
-                
-                if ( currentAlphabetPosition >= alphabet.size() ) {
-                    currentAlphabetPosition = 0;
-                    currentCache = generatingCache;
-                    generatingCache = new ArrayList<>();
-                    currentLength++;
-                }
-                
-            }
-            
-            String newString = alphabet.get( currentAlphabetPosition ) + 
-                    currentCache.get( currentBasePosition );
-            generatingCache.add( newString );
-            currentBasePosition++;
-            
-            return newString;
-            
-        }
-        
+        return enumerator.next().toString();
     }
     
 }
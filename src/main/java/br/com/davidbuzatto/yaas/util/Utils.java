@@ -47,28 +47,24 @@ import java.awt.SplashScreen;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.awt.font.FontRenderContext;
 import java.awt.font.LineMetrics;
 import java.awt.geom.CubicCurve2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.QuadCurve2D;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import javax.swing.AbstractAction;
 import javax.swing.BoxLayout;
 import javax.swing.ButtonGroup;
@@ -92,8 +88,6 @@ import javax.swing.event.AncestorListener;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumnModel;
 import org.apache.maven.model.Model;
-import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
-import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
 /**
  * Utilitary methods.
@@ -102,7 +96,8 @@ import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
  */
 public class Utils {
     
-    private static Model mavenModel;
+    private static final Map<Font, FontMetrics> FONT_METRICS = new ConcurrentHashMap<>();
+    private static volatile FontRenderContext fontRenderContext;
     
     /**
      * Return the maven model to information extraction.
@@ -110,29 +105,7 @@ public class Utils {
      * @return  The maven model.
      */
     public static Model getMavenModel() {
-        
-        MavenXpp3Reader reader = new MavenXpp3Reader();
-        
-        if ( mavenModel == null ) {
-            try {
-                if ( ( new File( "pom.xml" )).exists() ) {
-                    mavenModel = reader.read( new FileReader( "pom.xml" ) );
-                } else {
-                    mavenModel = reader.read(
-                        new InputStreamReader(
-                            Utils.class.getResourceAsStream(
-                                "/META-INF/maven/br.com.davidbuzatto/YAAS/pom.xml"
-                            )
-                        )
-                    );
-                }
-            } catch ( IOException | XmlPullParserException exc ) {
-                showException( exc );
-            }
-        }
-        
-        return mavenModel;
-      
+        return MavenModelLoader.getMavenModel();
     }
     
     /**
@@ -300,13 +273,15 @@ public class Utils {
     }
     
     /**
-     * Get a font metrics of a font.
+     * Get a font metrics of a font. The metrics of each font are created
+     * only once.
      * 
      * @param font Font to be used
      * @return The font FontMetrics
      */
     public static FontMetrics getFontMetrics( Font font ) {
-        return new BufferedImage( 1, 1, BufferedImage.TYPE_INT_ARGB ).getGraphics().getFontMetrics( font );
+        return FONT_METRICS.computeIfAbsent( font, f -> 
+                new BufferedImage( 1, 1, BufferedImage.TYPE_INT_ARGB ).getGraphics().getFontMetrics( f ) );
     }
     
     /**
@@ -317,8 +292,16 @@ public class Utils {
      * @return The text LineMetrics
      */
     public static LineMetrics getLineMetrics( String text, Font font ) {
-        Graphics2D g2d = (Graphics2D) new BufferedImage( 1, 1, BufferedImage.TYPE_INT_ARGB ).getGraphics();
-        return font.getLineMetrics( text, g2d.getFontRenderContext() );
+        return font.getLineMetrics( text, getFontRenderContext() );
+    }
+    
+    private static FontRenderContext getFontRenderContext() {
+        if ( fontRenderContext == null ) {
+            Graphics2D g2d = (Graphics2D) new BufferedImage( 1, 1, BufferedImage.TYPE_INT_ARGB ).getGraphics();
+            fontRenderContext = g2d.getFontRenderContext();
+            g2d.dispose();
+        }
+        return fontRenderContext;
     }
     
     /**
@@ -1362,21 +1345,6 @@ public class Utils {
         
     }
     
-    /**
-     * Clones a character stack.
-     * 
-     * @param stack The stack to be cloned.
-     * @return The cloned stack.
-     */
-    public static Deque<Character> cloneCharacterStack( Deque<Character> stack ) {
-        Deque<Character> newStack = new ArrayDeque<>();
-        Iterator<Character> it = stack.descendingIterator();
-        while ( it.hasNext() ) {
-            newStack.push( it.next() );
-        }
-        return newStack;
-    }
-    
     /**
      * Round to the nearest integer by a multple.
      * 
@@ -1438,20 +1406,22 @@ public class Utils {
     }
     
     /**
-     * Generates a random BigInteger based on a random UUID.
+     * Generates a random 128 bits BigInteger. The bits come from
+     * ThreadLocalRandom instead of UUID.randomUUID(), since the latter uses
+     * SecureRandom and was the slowest part of creating big models.
      * 
      * @return The random BigInteger.
      */
     public static BigInteger generateUUID() {
         
-        UUID uuid = UUID.randomUUID();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
         
-        long hi = uuid.getMostSignificantBits();
-        long lo = uuid.getLeastSignificantBits();
+        long hi = random.nextLong();
+        long lo = random.nextLong();
         byte[] bytes = ByteBuffer.allocate( 16 ).putLong( hi ).putLong( lo ).array();
         //String numericUuid = big.toString().replace( '-', '1' ); // just in case
         
-        return new BigInteger( bytes );
+        return new BigInteger( 1, bytes );
         
     }
     